@@ -13,6 +13,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+import com.langleydata.homepoker.game.texasHoldem.PreflopEquity;
 import com.langleydata.homepoker.services.AbstractGameServiceDiscovery;
 import com.langleydata.homepoker.services.EurekaServiceDiscovery;
 import com.langleydata.homepoker.services.MemoryServiceDiscovery;
@@ -38,6 +39,15 @@ public class HomePokerApplication {
 		return template;
 	}
 
+	/** Load the preflop equity table at startup, rather than in the first all-in's hand
+	 * 
+	 * @return
+	 */
+	@Bean
+	public PreflopEquity preflopEquity() {
+		return PreflopEquity.getInstance();
+	}
+
 	@Bean
 	@Profile( value = {"prod", "test"})
 	public AbstractGameServiceDiscovery getEurekaServiceDiscovery() {
@@ -1,18 +1,25 @@
 package com.langleydata.homepoker.config;
 
+import java.util.List;
+
 import org.apache.activemq.broker.BrokerService;
 import org.apache.activemq.broker.jmx.ManagementContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.security.config.annotation.web.messaging.MessageSecurityMetadataSourceRegistry;
 import org.springframework.security.config.annotation.web.socket.AbstractSecurityWebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langleydata.homepoker.message.GameUpdateMessageConverter;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig extends AbstractSecurityWebSocketMessageBrokerConfigurer  {
@@ -24,6 +31,9 @@ public class WebSocketConfig extends AbstractSecurityWebSocketMessageBrokerConfi
 	@Value("${websocket.jsLib}")
 	private String jsLibrary;
 	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
 	@Override
 	protected void configureInbound(MessageSecurityMetadataSourceRegistry messages) { 
 	    //messages.anyMessage().authenticated(); // All messages must be authenticated
@@ -47,6 +57,13 @@ public class WebSocketConfig extends AbstractSecurityWebSocketMessageBrokerConfi
 		        .setRelayPort(brokerPort);
 	}
 
+	@Override
+	public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+		// Game updates are sent as deltas, so must be converted before the default JSON converter
+		messageConverters.add(0, new GameUpdateMessageConverter(objectMapper));
+		return true;
+	}
+
 	@Override
 	public void registerStompEndpoints(StompEndpointRegistry registry) {
 		registry.addEndpoint("/home-poker-websocket")
@@ -24,12 +24,15 @@ import com.langleydata.homepoker.api.GameType;
 import com.langleydata.homepoker.api.UserAccount;
 import com.langleydata.homepoker.api.UserAccount.ROLE;
 import com.langleydata.homepoker.exception.NoKnownServerException;
+import com.langleydata.homepoker.game.RecordedGame;
 import com.langleydata.homepoker.game.RoundHistory;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.persistence.FeedbackProvider;
 import com.langleydata.homepoker.persistence.MessageHistoryProvider;
 import com.langleydata.homepoker.persistence.RoundHistoryProvider;
 import com.langleydata.homepoker.persistence.SettingsProvider;
+import com.langleydata.homepoker.persistence.archive.CompactRound;
+import com.langleydata.homepoker.persistence.archive.RoundArchive;
 import com.langleydata.homepoker.services.AbstractGameServiceDiscovery;
 import com.langleydata.homepoker.services.SimpleAccountService;
 
@@ -44,6 +47,7 @@ public class AdminController {
 
 	private static final long TWENTY_FOUR_HRS = 1000 * 60 * 1440;
 	private static final String HISTORY_BASE = "/admin/game/history/";
+	private static final String ARCHIVE_BASE = "/admin/game/archive/";
 	private static final String SETTINGS_BASE = "/admin/settings/";
 	private static final String FEEDBACK_BACK = "admin/feedback/";
 	private static final String ACTIVE_BASE = "admin/activegames/";
@@ -59,6 +63,8 @@ public class AdminController {
 	@Autowired
 	private FeedbackProvider feedbackProvider;
 	@Autowired
+	private RoundArchive roundArchive;
+	@Autowired
 	private AbstractGameServiceDiscovery serviceDiscovery;
 	
 	@Value("${spring.profiles.active:Unknown}")
@@ -133,13 +139,16 @@ public class AdminController {
 		return gson.toJson(fullDetails);
 	}
 	
-	/** Get the round history for a game
+	/** Get the round history for a game, from the archive if it has been archived
 	 * 
 	 * @param gameId
 	 * @return
 	 */
 	@GetMapping(path = HISTORY_BASE + "{gameId}", produces = MediaType.APPLICATION_JSON_VALUE)
 	public String getRoundHistory(@PathVariable final String gameId) {
+		if (roundArchive.isArchived(gameId)) {
+			return CompactRound.toJson(roundArchive.getGameRounds(gameId));
+		}
 		return gson.toJson(historyProvider.getGameRounds(gameId));
 	}
 	
@@ -151,8 +160,22 @@ public class AdminController {
 	 */
 	@GetMapping(path = HISTORY_BASE + "{gameId}/{roundId}", produces = MediaType.APPLICATION_JSON_VALUE)
 	public String getRoundHistory(@PathVariable final String gameId, @PathVariable final int roundId) {
+		if (roundArchive.isArchived(gameId)) {
+			return CompactRound.toJson(roundArchive.getGameRounds(gameId).stream()
+					.filter(r -> r.getRound() == roundId)
+					.collect(Collectors.toList()));
+		}
 		return gson.toJson(historyProvider.getGameRound(gameId, roundId));
 	}
+	
+	/** Get each player's totals across all archived games, scanned from the archive
+	 * 
+	 * @return
+	 */
+	@GetMapping(path = ARCHIVE_BASE + "stats", produces = MediaType.APPLICATION_JSON_VALUE)
+	public String getArchiveStats() {
+		return gson.toJson(roundArchive.getStats().getPlayers());
+	}
 
 	/** Get the round history for a specific player, within a game
 	 * 
@@ -252,6 +275,16 @@ public class AdminController {
 		return gson.toJson(actionProvider.getPlayerActions(gameId));
 	}
 	
+	/** Get everything needed to replay a game, to be saved and run through {@link com.langleydata.homepoker.ReplayRound}
+	 * 
+	 * @param gameId
+	 * @return
+	 */
+	@GetMapping(path = HISTORY_BASE + "replay/{gameId}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public String getRecordedGame(@PathVariable final String gameId) {
+		return gson.toJson(RecordedGame.load(gameId, settingsProvider, historyProvider, actionProvider));
+	}
+	
 	/** Get all player actions in a specific round for a game
 	 * 
 	 * @param gameId
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.langleydata.homepoker.api.GameServer;
 import com.langleydata.homepoker.api.GameSettings;
+import com.langleydata.homepoker.game.ActionTimedOutListener;
 import com.langleydata.homepoker.game.PlayerRemovedListener;
 import com.langleydata.homepoker.game.RoundCompleteListener;
 import com.langleydata.homepoker.game.players.Player;
@@ -32,7 +33,7 @@ import com.langleydata.homepoker.message.TransferFundsMessage;
  * @author reynolds_mj
  *
  */
-public interface GenericTableController extends RoundCompleteListener, PlayerRemovedListener {
+public interface GenericTableController extends RoundCompleteListener, PlayerRemovedListener, ActionTimedOutListener {
 	public static final String PATH = "/texas/{gameId}/";
 	
 	
@@ -114,6 +115,15 @@ public interface GenericTableController extends RoundCompleteListener, PlayerRem
 	@SendToUser(value = MessageUtils.PRIVATE_QUEUE, broadcast = false)
 	public PlayerStatsMessage getPlayerStats(final String gameId, final String sessionId, final String playerId);
 	
+	/** Get the complete state of the game, e.g. if a client has missed an update
+	 * 
+	 * @param gameId
+	 * @return A snapshot GameUpdateMessage to the user
+	 */
+	@MessageMapping(PATH + "resync")
+	@SendToUser(value = MessageUtils.PRIVATE_QUEUE, broadcast = false)
+	public GameUpdateMessage resync(final String gameId);
+	
 	/**
 	 * The dealer has requested the deck to be shuffled
 	 * 
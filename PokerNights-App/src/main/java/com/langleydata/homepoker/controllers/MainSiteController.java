@@ -2,6 +2,7 @@ package com.langleydata.homepoker.controllers;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -37,6 +38,8 @@ import com.langleydata.homepoker.deck.Card;
 import com.langleydata.homepoker.exception.GameSchedulingException;
 import com.langleydata.homepoker.exception.GameSettingsValidationException;
 import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.Equity;
+import com.langleydata.homepoker.game.texasHoldem.EquityCalculator;
 import com.langleydata.homepoker.game.texasHoldem.HandRank;
 import com.langleydata.homepoker.game.texasHoldem.PokerHand;
 import com.langleydata.homepoker.game.texasHoldem.PokerHandEvaluator;
@@ -44,6 +47,7 @@ import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
 import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePot;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
+import com.langleydata.homepoker.message.EquityMessage;
 import com.langleydata.homepoker.message.FeedbackForm;
 import com.langleydata.homepoker.message.HandRankingMessage;
 import com.langleydata.homepoker.persistence.FeedbackProvider;
@@ -72,6 +76,8 @@ public class MainSiteController implements SiteController {
 	
 	@Autowired
 	protected PokerHandEvaluator handEvaluator;
+	@Autowired
+	protected EquityCalculator equityCalculator;
 
 	@Autowired
 	private EmailSender emailSender;
@@ -232,6 +238,53 @@ public class MainSiteController implements SiteController {
 		}
 	}
 	
+	/** Calculate each player's chance of winning from their hole cards and any
+	 * known table or dead cards
+	 * 
+	 * @param playerCards Each player's 2 cards, comma separated, with players separated by ';'. e.g. AS,KD;QH,QC
+	 * @param tableCards 0 to 5 table cards, comma separated
+	 * @param deadCards Cards known to be out of the deck, comma separated
+	 * @param samples How many boards to sample if there are too many to evaluate exhaustively
+	 * @return
+	 */
+	@GetMapping("/equity")
+	@ResponseBody
+	public EquityMessage getEquity(@RequestParam final String playerCards, 
+			@RequestParam(required = false, defaultValue = "") final String tableCards,
+			@RequestParam(required = false, defaultValue = "") final String deadCards,
+			@RequestParam(required = false, defaultValue = "" + EquityCalculator.DEFAULT_SAMPLES) final int samples) {
+		
+		final List<String> players = Arrays.stream(playerCards.split(";"))
+				.map(String::trim)
+				.filter(StringUtils::isNotBlank)
+				.collect(Collectors.toList());
+		if (players.size() < 2) {
+			return new EquityMessage("At least 2 players' cards must be supplied");
+		}
+
+		try {
+			final List<List<Card>> holeCards = players.stream()
+					.map(this::toCards)
+					.collect(Collectors.toList());
+			final Equity equity = equityCalculator.calculate(holeCards, toCards(tableCards), toCards(deadCards), samples);
+			return new EquityMessage(null, players, equity);
+		} catch (Exception e) {
+			return new EquityMessage(e.getMessage());
+		}
+	}
+	
+	/** Convert a comma separated list of card codes to cards, ignoring blanks
+	 * 
+	 * @param codes
+	 * @return
+	 */
+	private List<Card> toCards(final String codes) {
+		return Card.makeCards(Arrays.stream(codes.split(","))
+				.map(String::trim)
+				.filter(StringUtils::isNotBlank)
+				.toArray(String[]::new));
+	}
+	
 	/** Perform an independent side-pot calculation
 	 * 
 	 * @param pots
@@ -1,5 +1,8 @@
 package com.langleydata.homepoker.controllers;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.ArrayList;
@@ -12,6 +15,9 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +33,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.HtmlUtils;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.langleydata.homepoker.api.AccountService;
 import com.langleydata.homepoker.api.ActiveGame;
 import com.langleydata.homepoker.api.CardGame.GameFormat;
@@ -44,6 +51,11 @@ import com.langleydata.homepoker.exception.GameSchedulingException;
 import com.langleydata.homepoker.exception.GameStartException;
 import com.langleydata.homepoker.exception.InvalidPlayerException;
 import com.langleydata.homepoker.game.AbstractCardGame;
+import com.langleydata.homepoker.game.ActiveGames;
+import com.langleydata.homepoker.game.ActiveGames.Lifecycle;
+import com.langleydata.homepoker.game.Chips;
+import com.langleydata.homepoker.game.GameJournal;
+import com.langleydata.homepoker.game.GameLifecycleListener;
 import com.langleydata.homepoker.game.RoundHistory;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.game.players.SystemPlayer;
@@ -71,6 +83,7 @@ import com.langleydata.homepoker.message.TransferFundsMessage;
 import com.langleydata.homepoker.persistence.MessageHistoryProvider;
 import com.langleydata.homepoker.persistence.RoundHistoryProvider;
 import com.langleydata.homepoker.persistence.SettingsProvider;
+import com.langleydata.homepoker.services.SessionRegistry;
 
 /** The main Controller for all actions on a game table. This is intended to be 
  * generic for all implemented card games and therefore have no specific logic 
@@ -80,15 +93,25 @@ import com.langleydata.homepoker.persistence.SettingsProvider;
  *
  */
 @Controller
-public class TableController implements GenericTableController {
+public class TableController implements GenericTableController, GameLifecycleListener {
 	public static final long EVICT_REJECT_PERIOD = 30 * 1000L;
+	private static final String TABLE_BUSY = "The table is busy, please try again";
 	private final Logger logger = LoggerFactory.getLogger(TableController.class);
 	
-	Map<String, AbstractCardGame<?>> activeGames = new HashMap<>();
+	final ActiveGames activeGames = new ActiveGames();
 	final Map<String, ToEvict> evictStates = new ConcurrentHashMap<>();
+	final Map<String, GameJournal> journals = new ConcurrentHashMap<>();
 
 	@Value("${game-server.name:Tewkesbury}")
 	private String gameServerName;
+	/** Where each game's journal is kept, for recovery after a restart. Blank disables the journal */
+	@Value("${game-server.journal.dir:}")
+	private String journalDir;
+	@Value("${game-server.journal.segment-size:1048576}")
+	private int journalSegmentSize;
+	/** The most rounds played between checkpoints of a game's journal */
+	@Value("${game-server.journal.checkpoint-rounds:" + GameJournal.DEFAULT_CHECKPOINT_ROUNDS + "}")
+	private int journalCheckpointRounds;
 	
 	@Autowired
 	private Messaging msgUtils;
@@ -100,7 +123,38 @@ public class TableController implements GenericTableController {
 	private MessageHistoryProvider actionProvider;
 	@Autowired
 	private AccountService accService;
+	@Autowired
+	private SessionRegistry sessions;
+	@Autowired
+	private ObjectMapper objectMapper;
 
+	public TableController() {
+		activeGames.addListener(this);
+	}
+
+	
+	/** Rebuild the games that were active when the server last stopped
+	 * 
+	 */
+	@PostConstruct
+	void recoverGames() {
+		if (StringUtils.isBlank(journalDir)) {
+			return;
+		}
+		GameJournal.recoverAll(new File(journalDir), msgUtils, journalSegmentSize, journalCheckpointRounds).forEach(journal -> {
+			final AbstractCardGame<?> game = journal.getGame();
+			journals.put(game.getSettings().getGameId(), journal);
+			addActiveGame(game);
+		});
+	}
+	
+	/** Close the journals, keeping them so the games are recovered on the next start
+	 * 
+	 */
+	@PreDestroy
+	void closeJournals() {
+		journals.values().forEach(GameJournal::close);
+	}
 	
 	@Override
 	public PrivateJoinerMessage addPlayerToGame(@DestinationVariable final String gameId, final Player newPlayer) throws Exception {
@@ -128,6 +182,7 @@ public class TableController implements GenericTableController {
 			privateJoiner.setSuccessful(false).setMessage(ipe.getMessage());
 			return privateJoiner;
 		}
+		sessions.register(newPlayer.getSessionId(), gameId, newPlayer);
 
 		final String playerHandle = newPlayer.getPlayerHandle();
 		
@@ -255,7 +310,7 @@ public class TableController implements GenericTableController {
 			
 			aGame.startNextRound(moveDealer);
 			
-			final GameUpdateMessage gum = new GameUpdateMessage(aGame, true);
+			final GameUpdateMessage gum = aGame.updateMessage(true);
 			if (aGame.getSettings().getShuffleOption()==ShuffleOption.ALWAYS) {
 				gum.setActionSound("shuffle");
 			}
@@ -296,6 +351,7 @@ public class TableController implements GenericTableController {
 
 		final CompleteGameMessage cgm = new CompleteGameMessage(aGame.getPlayerStats());
 		aGame.completeGame();
+		activeGames.drain(gameId);
 		
 		return cgm;
 	}
@@ -311,6 +367,15 @@ public class TableController implements GenericTableController {
 		return new PlayerStatsMessage(aGame.getPlayerStats());
 	}
 
+	@Override
+	public GameUpdateMessage resync(@DestinationVariable final String gameId) {
+		final AbstractCardGame<?> aGame = getActiveGame(gameId);
+		if (aGame==null) {
+			return null;
+		}
+		return aGame.updateMessage(false).setSnapshot(true);
+	}
+
 	@Override
 	public GameUpdateMessage shuffle(@DestinationVariable final String gameId) {
 
@@ -320,7 +385,7 @@ public class TableController implements GenericTableController {
 		}
 		
 		if (aGame.shuffle()) {
-			GameUpdateMessage gum = new GameUpdateMessage(aGame);
+			GameUpdateMessage gum = aGame.updateMessage(false);
 			gum.setActionSound("shuffle");
 			return gum;
 		}
@@ -360,12 +425,24 @@ public class TableController implements GenericTableController {
 		if (toPlayer.equals(fromPlayer)) {
 			return sendGameErrorAction(transfer, "To and from players must be different");
 		}
-		if (fromPlayer.getCurrentStack().getStack() <= toTransfer) {
-			return sendGameErrorAction(transfer, "'From' player has insufficient funds in their wallet");
-		}
 		
-		fromPlayer.getCurrentStack().reduceStack(toTransfer);
-		toPlayer.getCurrentStack().transferWinAmount(toTransfer);
+		// Change the stacks and record it as one step on the table
+		final GameUpdateMessage gum;
+		if (!aGame.acquireLock()) {
+			return sendGameErrorAction(transfer, TABLE_BUSY);
+		}
+		try {
+			if (fromPlayer.getCurrentStack().getStack() <= toTransfer) {
+				return sendGameErrorAction(transfer, "'From' player has insufficient funds in their wallet");
+			}
+			
+			fromPlayer.getCurrentStack().reduceStack(toTransfer);
+			toPlayer.getCurrentStack().transferWinAmount(toTransfer);
+			journal(gameId).ifPresent(j -> j.fundsTransferred(fromPlayer.getPlayerId(), toPlayer.getPlayerId(), toTransfer));
+			gum = new GameUpdateMessage(aGame);
+		} finally {
+			aGame.releaseLock();
+		}
 		
 		// Inform each player involved in the transfer
 		final String mValue = MessageUtils.formatMoney(transfer.getAmount(), aGame.getSettings());
@@ -385,7 +462,7 @@ public class TableController implements GenericTableController {
 				.setRound(aGame.getRound());
 		actionProvider.addPlayerAction(transfer);
 		
-		return new GameUpdateMessage(aGame);
+		return gum;
 		
 	}
 	
@@ -434,7 +511,7 @@ public class TableController implements GenericTableController {
 				
 				final GameMessage resp = doPlayerAction(cashOut, aGame);
 				if (resp!=null && resp instanceof CashOutMessage) {
-					response = new GameUpdateMessage(aGame);
+					response = aGame.updateMessage(false);
 					toEvict.evictMsg.setMessage("Player " + evictPlayer.getPlayerHandle() + " evicted from the game by the host");
 					msgUtils.sendPrivateMessage(evictPlayer.getSessionId(), resp);
 				} else {
@@ -490,7 +567,7 @@ public class TableController implements GenericTableController {
 			errorMessage = "No playerId or action provided";
 		}
 		
-		final Player toEvict = aGame.getPlayers().getPlayerBySessionId(evictSessionId);
+		final Player toEvict = sessions.findPlayer(aGame, evictSessionId);
 		if (toEvict == null) {
 			errorMessage = "No player found with the provided session id";
 		}
@@ -543,27 +620,37 @@ public class TableController implements GenericTableController {
 		
 		final int buyInAmount = settings.getBuyInAmount();
 		
-		// For each player, allocate a wallet, which automatically updates their stack, and sit them in to the game
-		afMessage.getAllocations().forEach(alloc -> {
-			final Player p = aGame.getPlayers().getPlayerById(alloc.getPlayerId());
-			
-			if (p !=null) {
-				if (p.getCurrentStack().assignWallet(alloc.getWallet(), buyInAmount)) {
-					// Sit player in and inform them
-					p.getState().toggleSittingOut(aGame.getGameState(), false);
-					final String msg = String.format("%s has transferred %s to your wallet.", aGame.getSettings().getHostName(),
-							MessageUtils.formatMoney(alloc.getWallet(), 
-							settings));
-					
-					// Don't send message to host
-					if (p.getSessionId().equals(sessionId)==false) {
-						msgUtils.sendPrivateMessage(p.getSessionId(), new ChatMessage(sessionId, msg));
+		final GameUpdateMessage gum;
+		if (!aGame.acquireLock()) {
+			return new GameUpdateMessage(TABLE_BUSY);
+		}
+		try {
+			// For each player, allocate a wallet, which automatically updates their stack, and sit them in to the game
+			afMessage.getAllocations().forEach(alloc -> {
+				final Player p = aGame.getPlayers().getPlayerById(alloc.getPlayerId());
+				
+				if (p !=null) {
+					if (p.getCurrentStack().assignWallet(alloc.getWallet(), buyInAmount)) {
+						// Sit player in and inform them
+						p.getState().toggleSittingOut(aGame.getGameState(), false);
+						journal(gameId).ifPresent(j -> j.fundsAllocated(p.getPlayerId(), alloc.getWallet()));
+						final String msg = String.format("%s has transferred %s to your wallet.", aGame.getSettings().getHostName(),
+								MessageUtils.formatMoney(alloc.getWallet(), 
+								settings));
+						
+						// Don't send message to host
+						if (p.getSessionId().equals(sessionId)==false) {
+							msgUtils.sendPrivateMessage(p.getSessionId(), new ChatMessage(sessionId, msg));
+						}
 					}
 				}
-			}
-		});
+			});
+			gum = new GameUpdateMessage(aGame);
+		} finally {
+			aGame.releaseLock();
+		}
 		
-		return new GameUpdateMessage(aGame);
+		return gum;
 	}
 	
 	@Override
@@ -598,7 +685,7 @@ public class TableController implements GenericTableController {
 		if (!playerAction.getAction().onTurnOnly() && !playerAction.getAction().isFold()) {
 			toMsgPlayer = doPlayerAction(playerAction, aGame);
 			if (playerAction.getAction().sendUpdate()) {
-				updateMessage = new GameUpdateMessage(aGame);
+				updateMessage = aGame.updateMessage(false);
 			}
 		} else {
 			updateMessage = aGame.doGameUpdateAction(playerAction);
@@ -659,14 +746,22 @@ public class TableController implements GenericTableController {
 			}
 		}
 		
-		float rebuy = aGame.getSettings().getBuyInAmount();
-		
-		if (RebuyType.LARGEST_STACK.name().equals(aGame.getSettings().getRebuyOption())) {
-			rebuy = aGame.getPlayers().getMaxBetPossible(null);
+		// Allow the game to handle a fold as its more complicated
+		if (playerAction.getAction().isFold()) {
+			return null;
 		}
 		
-		// Allow the game to handle a fold as its more complicated
-		if (!playerAction.getAction().isFold()) {
+		// Change the player and record it as one step on the table
+		if (!aGame.acquireLock()) {
+			sendGameErrorAction(playerAction, TABLE_BUSY);
+			return null;
+		}
+		try {
+			long rebuy = Chips.of(aGame.getSettings().getBuyInAmount());
+			
+			if (RebuyType.LARGEST_STACK.name().equals(aGame.getSettings().getRebuyOption())) {
+				rebuy = aGame.getPlayers().getMaxBetPossibleChips(null);
+			}
 			
 			p.doPlayerAction(playerAction, aGame.getGameState(), aGame.getSettings(), rebuy);
 			
@@ -675,8 +770,14 @@ public class TableController implements GenericTableController {
 				final Player left = aGame.removePlayer(p.getPlayerId());
 				return new CashOutMessage(left, aGame.getSettings());
 			}
+			if (playerAction.isSuccessful()) {
+				final long rebuyValue = rebuy;
+				journal(aGame.getSettings().getGameId()).ifPresent(j -> j.playerAction(p, playerAction, rebuyValue));
+			}
+			return null;
+		} finally {
+			aGame.releaseLock();
 		}
-		return null;
 	}
 
 	@Override
@@ -684,6 +785,7 @@ public class TableController implements GenericTableController {
 		if (player==null) {
 			return;
 		}
+		sessions.removePlayer(gameId, player);
 
 		// Inform the table
 		final LeaverMessage leaver = new LeaverMessage(
@@ -767,6 +869,11 @@ public class TableController implements GenericTableController {
 		msgUtils.sendBroadcastToTable(roundDetail.getGameId(), new StatusMessage(msg), 100);
 	}
 	
+	@Override
+	public void actionTimedOut(final PlayerActionMessage action) {
+		actionProvider.addPlayerAction(action);
+	}
+	
 	/** Store the dealer triggered Deal cards action
 	 * 
 	 * @param aGame
@@ -803,14 +910,26 @@ public class TableController implements GenericTableController {
 		return null;
 	}
 
-	/** Get a map of all the active games in memory
+	/** Get all the active games in memory
 	 * 
 	 * @return
 	 */
-	public Map<String, AbstractCardGame<?>> getActiveGames() {
+	public ActiveGames getActiveGames() {
 		return activeGames;
 	}
 	
+	@Override
+	public void lifecycleChanged(final String gameId, final AbstractCardGame<?> game, final Lifecycle state) {
+		if (state == Lifecycle.DRAINING || state == Lifecycle.PURGED) {
+			// The game doesn't need recovering or reconnecting to
+			sessions.removeGame(gameId);
+			deleteJournal(gameId);
+		}
+		if (state == Lifecycle.PURGED) {
+			evictStates.values().removeIf(te -> te.gameId.equals(gameId));
+		}
+	}
+	
 	@Override
 	public GameServer getGamesRunning() {
 
@@ -819,11 +938,22 @@ public class TableController implements GenericTableController {
 		
 		logger.trace("Received request for active game info");
 		final URI server = ServletUriComponentsBuilder.fromCurrentRequestUri().replacePath(null).build().toUri();
-		final GameServer gameServer = new GameServer(server.toString(), GameType.TEXAS_HOLDEM);
+		final GameServer gameServer = getServerLoad(server.toString());
+		logger.debug("Returning game server info");
+		return gameServer;
+	}
+	
+	/** Describe this server's load, i.e. the games it's running and its CPU use
+	 * 
+	 * @param uri The URI the server is reached at
+	 * @return
+	 */
+	public GameServer getServerLoad(final String uri) {
+		final GameServer gameServer = new GameServer(uri, GameType.TEXAS_HOLDEM);
 		gameServer.setServerName(gameServerName);
 		
 		List<ActiveGame> beingServed = new ArrayList<>();
-		getActiveGames().values().forEach(ag -> {
+		getActiveGames().getGames().forEach(ag -> {
 			final GameSettings set = ag.getSettings();
 			final ActiveGame toAdd = new ActiveGame(set.getGameId());
 			toAdd.setGameFormat(set.getFormat().name());
@@ -832,7 +962,10 @@ public class TableController implements GenericTableController {
 		});
 
 		gameServer.setActiveGames(beingServed);
-		logger.debug("Returning game server info");
+		final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			gameServer.setCpuLoad(((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad());
+		}
 		return gameServer;
 	}
 	
@@ -841,15 +974,22 @@ public class TableController implements GenericTableController {
 	 * @param newGame
 	 */
 	void addActiveGame(AbstractCardGame<?> newGame) {
-		AbstractCardGame<?> current = activeGames.putIfAbsent(newGame.getSettings().getGameId(), newGame);
-
-		logger.info("Setting game {} to active!", newGame.getSettings().getGameId());
-		
-		if (current==null) {
-			newGame.addRoundListener(this);
-			newGame.addRemovePlayerListener(this);
+		if (activeGames.add(newGame)) {
+			listenTo(newGame);
 		}
 	}
+	
+	/** Listen for the game's rounds and players leaving, and have its updates carry its state
+	 * 
+	 * @param newGame
+	 */
+	private void listenTo(AbstractCardGame<?> newGame) {
+		logger.info("Setting game {} to active!", newGame.getSettings().getGameId());
+		newGame.setStateMapper(objectMapper);
+		newGame.addRoundListener(this);
+		newGame.addRemovePlayerListener(this);
+		newGame.addTimedOutListener(this);
+	}
 	/** Validate that the provided sessionId is the host for the game.
 	 * If the player is not the host, then a message is sent to the sessionId.
 	 * 
@@ -887,7 +1027,8 @@ public class TableController implements GenericTableController {
 		return activeGames.get(gameId);
 	}
 	
-	/** Update the game settings, store them and set the game to 'Active'
+	/** Update the game settings, store them and set the game to 'Active'. If the game
+	 * is already active, or being activated by another request, that game is returned
 	 * 
 	 * @param storedSet The settings to use
 	 * @param url The sserver baseUrl
@@ -898,15 +1039,53 @@ public class TableController implements GenericTableController {
 			return null;
 		}
 		
-		AbstractCardGame<?> theGame = new TexasHoldemGame((TexasHoldemSettings) storedSet, msgUtils);
-		storedSet.setWasPlayed();
-		storedSet.setServerName(gameServerName);
-		storedSet.setAssignedServer(url);
-		settingProvider.storeSettings((TexasHoldemSettings)storedSet);
-		addActiveGame(theGame);
-		return theGame;
+		return activeGames.activate(storedSet.getGameId(), () -> {
+			AbstractCardGame<?> theGame = new TexasHoldemGame((TexasHoldemSettings) storedSet, msgUtils);
+			storedSet.setWasPlayed();
+			storedSet.setServerName(gameServerName);
+			storedSet.setAssignedServer(url);
+			settingProvider.storeSettings((TexasHoldemSettings)storedSet);
+			listenTo(theGame);
+			
+			if (StringUtils.isNotBlank(journalDir)) {
+				try {
+					journals.put(storedSet.getGameId(), GameJournal.start(new File(journalDir), (TexasHoldemGame) theGame, journalSegmentSize, journalCheckpointRounds));
+				} catch (Exception e) {
+					logger.error("Unable to journal game {}, it won't be recovered after a restart", storedSet.getGameId(), e);
+				}
+			}
+			return theGame;
+		});
 
 	}
+	
+	/** Get the journal of a game, if it has one
+	 * 
+	 * @param gameId
+	 * @return
+	 */
+	Optional<GameJournal> journal(final String gameId) {
+		return Optional.ofNullable(journals.get(gameId));
+	}
+	
+	/** Get the number of games being journaled
+	 * 
+	 * @return
+	 */
+	public int getJournalCount() {
+		return journals.size();
+	}
+	
+	/** Stop journaling a game and delete its journal, as it no longer needs recovering
+	 * 
+	 * @param gameId
+	 */
+	public void deleteJournal(final String gameId) {
+		final GameJournal journal = journals.remove(gameId);
+		if (journal != null) {
+			journal.delete();
+		}
+	}
 	/** Get the active game, and if there isn't one, send a message to the sessionId
 	 * 
 	 * @param sessionId
@@ -3,6 +3,8 @@ package com.langleydata.homepoker.controllers;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.PostConstruct;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +23,7 @@ import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 import com.google.common.annotations.VisibleForTesting;
 import com.langleydata.homepoker.exception.ReconnectException;
 import com.langleydata.homepoker.game.AbstractCardGame;
+import com.langleydata.homepoker.game.ActiveGames.Lifecycle;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.message.DealUserMessage;
 import com.langleydata.homepoker.message.GameUpdateMessage;
@@ -28,6 +31,8 @@ import com.langleydata.homepoker.message.MessageUtils;
 import com.langleydata.homepoker.message.Messaging;
 import com.langleydata.homepoker.message.PrivateJoinerMessage;
 import com.langleydata.homepoker.message.SubscribeMessage;
+import com.langleydata.homepoker.services.SessionRegistry;
+import com.langleydata.homepoker.services.SessionRegistry.Seat;
 
 import io.micrometer.core.instrument.util.StringUtils;
 
@@ -52,10 +57,24 @@ public class WebsocketSessionController {
 	private TableController tableController;
 	@Autowired
 	private Messaging msgUtils;
+	@Autowired
+	private SessionRegistry sessions;
 
 	@Value("${game-server.name:Tewkesbury}")
 	private String gameServerName;
 	
+    /** Stop tracking the disconnected players of any game that is purged
+     * 
+     */
+    @PostConstruct
+    void listenForPurgedGames() {
+    	tableController.getActiveGames().addListener((gameId, game, state) -> {
+    		if (state == Lifecycle.PURGED) {
+    			disConnStates.values().removeIf(cs -> cs.gameId.equals(gameId));
+    		}
+    	});
+    }
+    
     /**
      * Create an ApplicationListener that listens for successful logins and simply just logs the principal name.
      * @return a new listener
@@ -153,7 +172,7 @@ public class WebsocketSessionController {
 					return;
 				}
 				// Broadcast a game update to refresh other player's information about this player
-				msgUtils.sendBroadcastToTable(gameId, new GameUpdateMessage(theGame));
+				msgUtils.sendBroadcastToTable(gameId, theGame.updateMessage(false));
 			}
 			break;
 			
@@ -191,7 +210,7 @@ public class WebsocketSessionController {
 		
 		if (player==null) {
 			// Send the current game state as not in game
-			final GameUpdateMessage gum = new GameUpdateMessage(userGame);
+			final GameUpdateMessage gum = userGame.updateMessage(false).setSnapshot(true);
 			gum.setMessage(
 					String.format("Welcome to %s's game on the %s server!\n Please 'Take a Seat' to join the game",
 						userGame.getSettings().getHostName(),
@@ -249,19 +268,19 @@ public class WebsocketSessionController {
 		String gameId = null;
 		
 		if (disconnect) {
-			/* when disconnecting, we only have the session id
-			 *  so go through all of the game's to find the user.
+			/* when disconnecting, we only have the session id so look up
+			 *  the game and seat it was registered to.
 			 *  The player will have a different sessionId for each game!
 			 */
-			for (AbstractCardGame<?> game : tableController.getActiveGames().values()) {
-				exist = game.getPlayers().stream()
-						.filter(p -> p.getSessionId().equals(sessionId))
-						.findFirst()
-						.orElse(null);
-				if (exist!=null) {
-					gameId = game.getSettings().getGameId();
-					break;
+			final Seat seat = sessions.remove(sessionId);
+			final AbstractCardGame<?> game = seat == null ? null : tableController.getActiveGame(seat.getGameId());
+			if (game != null) {
+				exist = game.getPlayers().getPlayerInSeat(seat.getSeat());
+				if (exist == null || !sessionId.equals(exist.getSessionId())) {
+					// The player has moved seat since registering
+					exist = game.getPlayers().getPlayerById(seat.getPlayerId());
 				}
+				gameId = seat.getGameId();
 			}
 		} else if (userGame!=null) {
 			// During a re-connect, the sessionId is different but we have the user's persistent id. 
@@ -293,7 +312,9 @@ public class WebsocketSessionController {
 			// must be a new player being sitting at the table, or re-connecting to table
 			logger.info("Player {} ({}) connected to game {}", exist.getPlayerId(), exist.getPlayerHandle(), gameId);
 			disConnStates.remove(trackId);
+			sessions.remove(exist.getSessionId());
 			exist.setSessionId(sessionId);// update to the new session id
+			sessions.register(sessionId, gameId, exist);
 		} else {
 			// Player disconnecting, but already being tracked
 		}
@@ -337,7 +358,7 @@ public class WebsocketSessionController {
 				if (game.removePlayer(pId) == null) {
 					logger.warn("Player {} was not in game {} when trying to remove them!", pId, cs.gameId);
 				}
-				msgUtils.sendBroadcastToTable(game.getSettings().getGameId(), new GameUpdateMessage(game));
+				msgUtils.sendBroadcastToTable(game.getSettings().getGameId(), game.updateMessage(false));
 				disConnStates.remove(pId + "|" + game.getSettings().getGameId());
 			}
 		}
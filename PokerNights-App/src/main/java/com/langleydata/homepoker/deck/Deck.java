@@ -24,20 +24,61 @@ public class Deck {
 	private final Random seedGenerator = new Random();
 	private int lastCard = 0, numShuffles = 0;
 	private long lastSeed = -1L;
+	/** The seed for the next shuffle, if one has been set */
+	private Long nextSeed = null;
 	
 	/**
-	 * Randomly shuffle the <i>current</i> deck
+	 * Randomly shuffle the deck. The cards are always shuffled from sequential
+	 * order, so the seed alone determines the order of the deck
 	 * 
 	 */
 	@JsonIgnore
 	public void shuffle() {
-		lastSeed = seedGenerator.nextLong();
+		lastSeed = nextSeed != null ? nextSeed : seedGenerator.nextLong();
+		nextSeed = null;
 		lastCard = 0; // When dealing, restart from the 'front' of the deck
 
 		// See comments for the method - Fisher-Yates unbiased reverse shuffle
-		Collections.shuffle(currentDeck, new Random(lastSeed));
+		order(lastSeed);
 		numShuffles++;
 	}
+	
+	/** Put the deck in the order given by a shuffle seed
+	 * 
+	 * @param seed The seed, or -1 for sequential order
+	 */
+	private void order(final long seed) {
+		currentDeck.clear();
+		currentDeck.addAll(getSequentialDeck());
+		if (seed != -1L) {
+			Collections.shuffle(currentDeck, new Random(seed));
+		}
+	}
+	
+	/** Put the deck back in the state it was after a shuffle with the seed
+	 * and a number of cards had been dealt, e.g. when recovering a game
+	 * 
+	 * @param seed The seed of the shuffle, or -1 if the deck wasn't shuffled
+	 * @param position The number of cards dealt since the shuffle
+	 */
+	public void restore(final long seed, final int position) {
+		if (position < 0 || position > CARDS_IN_DECK) {
+			throw new IllegalArgumentException("Invalid deck position: " + position);
+		}
+		order(seed);
+		lastSeed = seed;
+		lastCard = position;
+		nextSeed = null;
+	}
+	
+	/** Get the number of cards dealt since the last shuffle
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public int getPosition() {
+		return lastCard;
+	}
 
 	/** Get the last seed value used in the random shuffle.
 	 * 
@@ -47,15 +88,14 @@ public class Deck {
 		return lastSeed;
 	}
 	
-	/** Set a seed to use in the next shuffle.<p>
-	 * Note: To replay a hand, the seed has to be set before
-	 * the first shuffle, and then this deck is set on the AbstractCardGame,
-	 * before the startNextRound method is called
+	/** Set a seed to use in the next shuffle, in place of a random one.<p>
+	 * Note: To replay a hand, the seed has to be set before the
+	 * startNextRound method is called
 	 * 
 	 * @param seed
 	 */
-	void setSeed(final long seed) {
-		this.lastSeed = seed;
+	public void setSeed(final long seed) {
+		this.nextSeed = seed;
 	}
 	/** Get the number of shuffles that have occurred
 	 * 
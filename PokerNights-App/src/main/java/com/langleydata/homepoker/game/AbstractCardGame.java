@@ -6,6 +6,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -14,6 +17,8 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.langleydata.homepoker.api.CardGame.DealResult;
 import com.langleydata.homepoker.api.CardGame.GameFormat;
 import com.langleydata.homepoker.api.CardGame.ShuffleOption;
@@ -25,11 +30,13 @@ import com.langleydata.homepoker.deck.Deck;
 import com.langleydata.homepoker.exception.GameStartException;
 import com.langleydata.homepoker.exception.InvalidPlayerException;
 import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.players.PlayerCheckpoint;
 import com.langleydata.homepoker.game.players.PlayerStack;
 import com.langleydata.homepoker.game.players.Players;
 import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
 import com.langleydata.homepoker.message.GameUpdateMessage;
+import com.langleydata.homepoker.message.PlayerActionMessage;
 
 import io.micrometer.core.instrument.util.StringUtils;
 
@@ -46,6 +53,8 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	
 	private final List<RoundCompleteListener> roundCallbacks = new ArrayList<>();
 	private final List<PlayerRemovedListener> removedCallbacks = new ArrayList<>();
+	private final List<ActionTimedOutListener> timedOutCallbacks = new ArrayList<>();
+	private final List<GameEventListener> eventListeners = new ArrayList<>();
 	private final Set<Player> removedPlayers = new HashSet<>();
 	
 	/** This games current state. Really needs to be a more generic state if we're looking to make this properly abstract */
@@ -62,11 +71,11 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	/** All the cards currently visible on the table (face-up) */
 	protected List<Card> cardsOnTable = new ArrayList<>();
 
-	/** The total amount that can be won */
-	protected float currentPot = 0;
+	/** The total amount that can be won, in {@link Chips} minor units */
+	protected long currentPot = 0;
 	
-	/** The total bet made by a player */
-	private float requiredBet = 0, minRaise = 0, lastRaise = 0;
+	/** The total bet made by a player, in minor units */
+	private long requiredBet = 0, minRaise = 0, lastRaise = 0;
 	
 	/** The current round of play */
 	private int roundNum = 0;
@@ -89,6 +98,16 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	
 	private int tournamentPrizeFund = 0;
 	
+	/** How long to wait for another action on this table to complete */
+	protected static final long LOCK_WAIT_MILLI = 5000;
+	/** Serialises the player actions, timers and deals on this table. Each table has
+	 * its own lock so tables never contend with each other */
+	protected final ReentrantLock lock = new ReentrantLock();
+	/** The sequence number of the last update built for this game */
+	private long updateSeq = 0;
+	/** Writes the game's state into each update, see {@link #writeState()} */
+	private ObjectMapper stateMapper;
+	
 	/** Construct a new card game
 	 * 
 	 * @param settings
@@ -97,6 +116,72 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 		this.settings = settings;
 	}
 
+	/** Number a new update of the game's state, see {@link GameUpdateMessage}. Only an update
+	 * built under the table's lock, where the game is changed, is numbered, so updates are
+	 * numbered in the order the game changed
+	 * 
+	 * @return The update's sequence number, or 0 if the caller doesn't hold the table's lock
+	 */
+	public long nextUpdateSeq() {
+		return lock.isHeldByCurrentThread() ? ++updateSeq : 0;
+	}
+	
+	/** Write the game's state as it is sent to the players, so an update carries the state it
+	 * was built with rather than whatever the game is by the time it is sent
+	 * 
+	 * @return The state, or null if no mapper has been set
+	 */
+	public ObjectNode writeState() {
+		return stateMapper == null ? null : stateMapper.valueToTree(this);
+	}
+	
+	/** Set how the game's state is written for its updates
+	 * 
+	 * @param stateMapper The application's ObjectMapper
+	 */
+	public void setStateMapper(final ObjectMapper stateMapper) {
+		this.stateMapper = stateMapper;
+	}
+
+	/** Acquire this table's lock, waiting up to {@link #LOCK_WAIT_MILLI} for
+	 * any other action on the table to complete. The caller must release it,
+	 * see {@link #releaseLock()}
+	 * 
+	 * @return True if acquired, false if the table stayed busy or the thread was interrupted
+	 */
+	public boolean acquireLock() {
+		try {
+			return lock.tryLock(LOCK_WAIT_MILLI, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	/** Release this table's lock taken with {@link #acquireLock()}
+	 */
+	public void releaseLock() {
+		lock.unlock();
+	}
+	
+	/** Build an update of the game under the table's lock, waiting up to {@link #LOCK_WAIT_MILLI}
+	 * for any other action on the table to complete, so it is numbered and carries the game's state.
+	 * For use after a change that took the lock itself
+	 * 
+	 * @param newGame Is this a new game?
+	 * @return The update, which carries no state if the table stayed busy
+	 */
+	public final GameUpdateMessage updateMessage(final boolean newGame) {
+		final boolean locked = acquireLock();
+		try {
+			return new GameUpdateMessage(this, newGame);
+		} finally {
+			if (locked) {
+				releaseLock();
+			}
+		}
+	}
+
 	/**
 	 * Starts the next game round (clear the table and shuffle the cards, if over shuffle
 	 * threshold).
@@ -126,8 +211,8 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 		if ((System.currentTimeMillis() - lastRoundCompletedTime) < WAIT_REBUY_MILLI) {
 			
 			final long zeroStacks = players.stream()
-				.filter(p -> PokerMathUtils.floatEquals(p.getCurrentStack().getStack(), 0f))
-				.filter(p -> PokerMathUtils.rd(p.getCurrentStack().getWallet()) >= settings.getBuyInAmount() )
+				.filter(p -> p.getCurrentStack().getStackChips() == 0)
+				.filter(p -> p.getCurrentStack().getWalletChips() >= Chips.of(settings.getBuyInAmount()) )
 				.count();
 			if (zeroStacks > 0) {
 				logger.debug("Waiting {} seconds for rebuy. {} stacks ==0", WAIT_REBUY_MILLI, zeroStacks);
@@ -276,7 +361,7 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	@JsonProperty
 	public float getCurrentPot() {
-		return PokerMathUtils.rd(currentPot);
+		return Chips.toFloat(currentPot);
 	}
 	
 	/**
@@ -284,7 +369,15 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	@JsonProperty
 	public float getRequiredBet() {
-		return PokerMathUtils.rd(requiredBet);
+		return Chips.toFloat(requiredBet);
+	}
+
+	/**
+	 * @return the lastBet in minor units
+	 */
+	@JsonIgnore
+	public long getRequiredBetChips() {
+		return requiredBet;
 	}
 
 	/** Reset the minimum, last and required bets
@@ -294,7 +387,7 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	public void resetBets(float minRaise) {
 		requiredBet = 0;
 		lastRaise = 0;
-		this.minRaise = minRaise;
+		this.minRaise = Chips.of(minRaise);
 	}
 	/** Get the last raise
 	 * 
@@ -302,7 +395,16 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	@JsonProperty
 	public float getLastRaise() {
-		return PokerMathUtils.rd(lastRaise);
+		return Chips.toFloat(lastRaise);
+	}
+
+	/** Get the last raise in minor units
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public long getLastRaiseChips() {
+		return lastRaise;
 	}
 	
 	/** Set the last raise value
@@ -311,6 +413,15 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	@JsonIgnore
 	public void setLastRaise(float lastRaise) {
+		setLastRaiseChips(Chips.of(lastRaise));
+	}
+
+	/** Set the last raise value in minor units
+	 * 
+	 * @param lastRaise
+	 */
+	@JsonIgnore
+	public void setLastRaiseChips(long lastRaise) {
 		this.lastRaise = lastRaise;
 	}
 
@@ -340,6 +451,15 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	@JsonIgnore
 	public void setRequiredBet(float requiredBet) {
+		setRequiredBetChips(Chips.of(requiredBet));
+	}
+
+	/** The required bet in minor units to stay in the game
+	 * 
+	 * @param requiredBet the requiredBet to set
+	 */
+	@JsonIgnore
+	public void setRequiredBetChips(long requiredBet) {
 		lastActivityTime = System.currentTimeMillis();
 		this.requiredBet = requiredBet;
 	}
@@ -351,12 +471,18 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	@JsonProperty
 	public float getMinRaise() {
-		return PokerMathUtils.rd(minRaise);
+		return Chips.toFloat(minRaise);
 	}
 	
 	/** Set the minimum permissible raise; used for the UI */
 	@JsonIgnore
 	public void setMinRaise(float minRaise) {
+		setMinRaiseChips(Chips.of(minRaise));
+	}
+
+	/** Set the minimum permissible raise in minor units */
+	@JsonIgnore
+	public void setMinRaiseChips(long minRaise) {
 		this.minRaise = minRaise;
 	}
 	
@@ -368,89 +494,97 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	public void addPlayer(final Player newPlayer) throws InvalidPlayerException {
 		lastActivityTime = System.currentTimeMillis();
-		
-		// Validate if detail blank or player handle exists
-		if (	StringUtils.isBlank(newPlayer.getPlayerId()) || 
-				StringUtils.isBlank(newPlayer.getPlayerHandle())
-				|| newPlayer.getPlayerHandle().contains(" ")) {
-			throw new InvalidPlayerException("No player ID, handle or handle contains a space");
+		if (!acquireLock()) {
+			throw new InvalidPlayerException("The table is busy, please try again");
 		}
-		logger.trace("Attempting to add player {} to game {}", newPlayer.getPlayerId(), settings.getGameId());
+		try {
 		
-		// Make sure we can't create any duplicates
-		final String newId = newPlayer.getPlayerId();
-		final String newHandle = newPlayer.getPlayerHandle();
-		final boolean handleExist = players.stream()
-			.anyMatch(p -> p.getPlayerHandle().equalsIgnoreCase(newHandle));
-		final boolean idExist = players.stream()
-				.anyMatch(p -> p.getPlayerId().equalsIgnoreCase(newId));
-
-		if (handleExist || idExist) {
-			throw new InvalidPlayerException("Player with same details already at table");
-		}
+			// Validate if detail blank or player handle exists
+			if (	StringUtils.isBlank(newPlayer.getPlayerId()) || 
+					StringUtils.isBlank(newPlayer.getPlayerHandle())
+					|| newPlayer.getPlayerHandle().contains(" ")) {
+				throw new InvalidPlayerException("No player ID, handle or handle contains a space");
+			}
+			logger.trace("Attempting to add player {} to game {}", newPlayer.getPlayerId(), settings.getGameId());
 		
-		// Limit max players
-		if (players.size() == settings.getGameType().getMaxPlayers()) {
-			throw new InvalidPlayerException("Max players reached - rejecting user");
-		}
+			// Make sure we can't create any duplicates
+			final String newId = newPlayer.getPlayerId();
+			final String newHandle = newPlayer.getPlayerHandle();
+			final boolean handleExist = players.stream()
+				.anyMatch(p -> p.getPlayerHandle().equalsIgnoreCase(newHandle));
+			final boolean idExist = players.stream()
+					.anyMatch(p -> p.getPlayerId().equalsIgnoreCase(newId));
+
+			if (handleExist || idExist) {
+				throw new InvalidPlayerException("Player with same details already at table");
+			}
 		
-		final PlayerStack newStack = newPlayer.getCurrentStack();
+			// Limit max players
+			if (players.size() == settings.getGameType().getMaxPlayers()) {
+				throw new InvalidPlayerException("Max players reached - rejecting user");
+			}
 		
-		if (newStack.getStack() < settings.getBuyInAmount() && !settings.isHostControlledWallet()) {
-			throw new InvalidPlayerException("Player has insufficient funds in wallet");
-		}
+			final PlayerStack newStack = newPlayer.getCurrentStack();
+		
+			if (newStack.getStack() < settings.getBuyInAmount() && !settings.isHostControlledWallet()) {
+				throw new InvalidPlayerException("Player has insufficient funds in wallet");
+			}
 
-		// Cash sent as 'stack', so transfer to wallet (because wallet isn't visible)
-		logger.trace("Initialising player '{}' stack", newPlayer.getPlayerId());
-		float initialDeposit = newPlayer.getCurrentStack().getStack();
+			// Cash sent as 'stack', so transfer to wallet (because wallet isn't visible)
+			logger.trace("Initialising player '{}' stack", newPlayer.getPlayerId());
+			float initialDeposit = newPlayer.getCurrentStack().getStack();
 		
-		// Transfer initial stake from wallet
-		if (settings.getFormat()==GameFormat.TOURNAMENT) {
-			addToTournamentPrizeFund( settings.getBuyInAmount() );
+			// Transfer initial stake from wallet
+			if (settings.getFormat()==GameFormat.TOURNAMENT) {
+				addToTournamentPrizeFund( settings.getBuyInAmount() );
 			
-			// the whole opening stack, so nothing in the player's wallet
-			newStack.initialise(0, false );
-			newStack.setStack(settings.getOpeningStack());
+				// the whole opening stack, so nothing in the player's wallet
+				newStack.initialise(0, false );
+				newStack.setStack(settings.getOpeningStack());
 			
-			if (getRound() > settings.getMaxRoundForTournamentEntry()) {
-				throw new InvalidPlayerException("Sorry, you cannot join this tournament after round " + settings.getMaxRoundForTournamentEntry());
+				if (getRound() > settings.getMaxRoundForTournamentEntry()) {
+					throw new InvalidPlayerException("Sorry, you cannot join this tournament after round " + settings.getMaxRoundForTournamentEntry());
+				}
+			} else {
+				newStack.initialise(initialDeposit, settings.isHostControlledWallet() );
+				newStack.reBuy(settings.getBuyInAmount(), 0);
 			}
-		} else {
-			newStack.initialise(initialDeposit, settings.isHostControlledWallet() );
-			newStack.reBuy(settings.getBuyInAmount(), 0);
-		}
 		
 		
-		// Initialise the player state
-		logger.trace("Initialising player '{}' state", newPlayer.getPlayerId());
-		newPlayer.getState().initialise(gameState, settings);
+			// Initialise the player state
+			logger.trace("Initialising player '{}' state", newPlayer.getPlayerId());
+			newPlayer.getState().initialise(gameState, settings);
 
-		final boolean isTest = "test".equals(settings.getGameId()) || "test-tour".equals(settings.getGameId());
-		final boolean isHostEmail = settings.getHostEmail().equalsIgnoreCase(newPlayer.getEmail());
+			final boolean isTest = "test".equals(settings.getGameId()) || "test-tour".equals(settings.getGameId());
+			final boolean isHostEmail = settings.getHostEmail().equalsIgnoreCase(newPlayer.getEmail());
 		
-		// Set as host...
-		if (isHostEmail || (isTest && players.size()==0) ) {
-			newPlayer.getState().setHost(true);
+			// Set as host...
+			if (isHostEmail || (isTest && players.size()==0) ) {
+				newPlayer.getState().setHost(true);
 			
-			// Set host as dealer - This enables the host to start the game
-			if (players.getActionOn()==null || roundNum==0) {
-				newPlayer.getState().setDealer(true);
-				/* 
-				 * Need to confirm everything works fine without this (removed due to setting the auto-fold timer on host joining
-				 * newPlayer.getState().setActionOn(true);
-				 */
+				// Set host as dealer - This enables the host to start the game
+				if (players.getActionOn()==null || roundNum==0) {
+					newPlayer.getState().setDealer(true);
+					/* 
+					 * Need to confirm everything works fine without this (removed due to setting the auto-fold timer on host joining
+					 * newPlayer.getState().setActionOn(true);
+					 */
+				}
 			}
-		}
 		
-		players.add(newPlayer);
+			players.add(newPlayer);
 		
-		// if a player re-joining, transfer their stats
-		if (removedPlayers.contains(newPlayer)) {
-			final Player old = removedPlayers.stream().filter(newPlayer::equals).findFirst().orElse(null);
-			newPlayer.getCurrentStack().getGameStats().applyStats(old.getCurrentStack().getGameStats());
-			removedPlayers.remove(old);
+			// if a player re-joining, transfer their stats
+			if (removedPlayers.contains(newPlayer)) {
+				final Player old = removedPlayers.stream().filter(newPlayer::equals).findFirst().orElse(null);
+				newPlayer.getCurrentStack().getGameStats().applyStats(old.getCurrentStack().getGameStats());
+				removedPlayers.remove(old);
+			}
+			logger.trace("Player {} added to game {}", newPlayer.getPlayerId(), settings.getGameId());
+			notifyEvent(l -> l.playerAdded(this, newPlayer));
+		} finally {
+			lock.unlock();
 		}
-		logger.trace("Player {} added to game {}", newPlayer.getPlayerId(), settings.getGameId());
 	}
 
 	/**
@@ -465,50 +599,58 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 		if (StringUtils.isBlank(playerId)) {
 			return null;
 		}
-		logger.debug("Removing player {} from game {}", playerId, settings.getGameId());
-		final Player toRemove = players.getPlayerById(playerId);
-		
-		if (toRemove==null) {
+		if (!acquireLock()) {
+			logger.warn("Unable to remove player {} from game {}, the table is busy", playerId, settings.getGameId());
 			return null;
 		}
+		try {
+			logger.debug("Removing player {} from game {}", playerId, settings.getGameId());
+			final Player toRemove = players.getPlayerById(playerId);
+		
+			if (toRemove==null) {
+				return null;
+			}
 
-		/* Reset so the stats are correct, and then cash the player out.
-		 * Messaging and storage must be handled by the callback */
-		toRemove.resetForNewRound(0);
-		toRemove.cashOut();
-		players.remove(toRemove);
-
-		Player dealer = null;
-		// If required, move the dealer
-		if (toRemove.getState().isDealer()) {
-			dealer = moveDealerPosition();
-		} else {
-			dealer = players.getDealer();
-		}
+			/* Reset so the stats are correct, and then cash the player out.
+			 * Messaging and storage must be handled by the callback */
+			toRemove.resetForNewRound(0);
+			toRemove.cashOut();
+			players.remove(toRemove);
+
+			Player dealer = null;
+			// If required, move the dealer
+			if (toRemove.getState().isDealer()) {
+				dealer = moveDealerPosition();
+			} else {
+				dealer = players.getDealer();
+			}
 		
-		if (toRemove != null) {
-			removedPlayers.add(toRemove);
-			// Transfer the host options to the new dealer. If there is no dealer, 
-			// try and get the next player in turn 
-			if (toRemove.getState().isHost()) {
-				if (dealer != null) {
-					dealer.getState().setHost(true);
-				} else if (players.size() > 0) {
-					// fallback option, just get the next player
-					players.getPlayerRelativeTo(toRemove, 1, false).getState().setHost(true);
+			if (toRemove != null) {
+				removedPlayers.add(toRemove);
+				// Transfer the host options to the new dealer. If there is no dealer, 
+				// try and get the next player in turn 
+				if (toRemove.getState().isHost()) {
+					if (dealer != null) {
+						dealer.getState().setHost(true);
+					} else if (players.size() > 0) {
+						// fallback option, just get the next player
+						players.getPlayerRelativeTo(toRemove, 1, false).getState().setHost(true);
+					}
 				}
+				removedCallbacks.forEach(rc-> rc.playerRemoved(settings.getGameId(), toRemove));
 			}
-			removedCallbacks.forEach(rc-> rc.playerRemoved(settings.getGameId(), toRemove));
-		}
-		logger.trace("Removed player {} from game {}", playerId, settings.getGameId());
+			logger.trace("Removed player {} from game {}", playerId, settings.getGameId());
 		
-		if (!gotPlayerNumbers()) {
-			logger.debug("Not enough players to continue game {}. Completing", settings.getGameId());
-			gameState = TexasGameState.COMPLETE;
-			roundCompleted(null);
-		}
+			if (!gotPlayerNumbers()) {
+				logger.debug("Not enough players to continue game {}. Completing", settings.getGameId());
+				gameState = TexasGameState.COMPLETE;
+				roundCompleted(null);
+			}
 		
-		return toRemove;
+			return toRemove;
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
@@ -518,13 +660,83 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	public boolean shuffle() {
 		lastActivityTime = System.currentTimeMillis();
-		
-		if (gameState == TexasGameState.PRE_DEAL || gameState == TexasGameState.COMPLETE) {
-			deck.shuffle();
-			return true;
+		if (!acquireLock()) {
+			return false;
+		}
+		try {
+			if (gameState == TexasGameState.PRE_DEAL || gameState == TexasGameState.COMPLETE) {
+				deck.shuffle();
+				notifyEvent(l -> l.deckShuffled(this));
+				return true;
+			}
+			return false;
+		} finally {
+			lock.unlock();
 		}
+	}
 
-		return false;
+	/** Save the state of the game between rounds
+	 * 
+	 * @return The checkpoint
+	 */
+	public GameCheckpoint checkpoint() {
+		lock.lock();
+		try {
+			final GameCheckpoint cp = new GameCheckpoint();
+			cp.round = roundNum;
+			cp.deckSeed = deck.getLastSeed();
+			cp.deckPosition = deck.getPosition();
+			cp.tournamentPrizeFund = tournamentPrizeFund;
+			cp.startPlayingTime = startPlayingTime;
+			players.forEach(p -> cp.players.add(PlayerCheckpoint.of(p)));
+			removedPlayers.forEach(p -> cp.removedPlayers.add(PlayerCheckpoint.of(p)));
+			return cp;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/** Put the game back in the state it was in when checkpointed, between rounds.
+	 * Used to rebuild a game after a restart
+	 * 
+	 * @param cp The checkpoint
+	 */
+	public void restore(final GameCheckpoint cp) {
+		lock.lock();
+		try {
+			roundNum = cp.round;
+			deck.restore(cp.deckSeed, cp.deckPosition);
+			tournamentPrizeFund = cp.tournamentPrizeFund;
+			startPlayingTime = cp.startPlayingTime;
+			// Any wait for re-buys happened before the restart
+			lastRoundCompletedTime = 0;
+			gameState = TexasGameState.COMPLETE;
+			cardsOnTable.clear();
+			currentPot = 0;
+			players.clear();
+			cp.players.forEach(p -> players.add(p.toPlayer()));
+			removedPlayers.clear();
+			cp.removedPlayers.forEach(p -> removedPlayers.add(p.toPlayer()));
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/** Seat a player exactly as they were after joining, e.g. when rebuilding a game
+	 * 
+	 * @param player The player
+	 * @param prizeFund The tournament prize fund after they joined
+	 */
+	void restorePlayer(final Player player, final int prizeFund) {
+		lock.lock();
+		try {
+			players.remove(player);
+			removedPlayers.remove(player);
+			players.add(player);
+			tournamentPrizeFund = prizeFund;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -573,6 +785,25 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 	 */
 	public abstract void completeGame();
 
+	/** Release everything the game holds once it's been removed from the server, i.e. its
+	 * timers and listeners, so nothing keeps it reachable. The game can't be played afterwards
+	 * 
+	 */
+	public void release() {
+		roundCallbacks.clear();
+		removedCallbacks.clear();
+		eventListeners.clear();
+	}
+	
+	/** Get the number of the game's timer tasks that are still scheduled
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public int getScheduledTimers() {
+		return 0;
+	}
+
 	/** Add a listener for when a player is removed from the game
 	 * 
 	 * @param listener
@@ -623,6 +854,49 @@ public abstract class AbstractCardGame<T extends GameSettings> {
 		return settings;
 	}
 	
+	/** Add a listener for each change made to the game
+	 * 
+	 * @param listener
+	 */
+	public void addEventListener(final GameEventListener listener) {
+		if (listener!=null) {
+			this.eventListeners.add(listener);
+		}
+	}
+	
+	/** Send an event to the game's listeners. A listener failing doesn't
+	 * affect the game
+	 * 
+	 * @param event
+	 */
+	protected void notifyEvent(final Consumer<GameEventListener> event) {
+		for (GameEventListener l : eventListeners) {
+			try {
+				event.accept(l);
+			} catch (Exception e) {
+				logger.error("Game event listener failed for game {}", settings.getGameId(), e);
+			}
+		}
+	}
+	
+	/** Add a listener for the actions made for players that timed out
+	 * 
+	 * @param listener
+	 */
+	public void addTimedOutListener(final ActionTimedOutListener listener) {
+		if (listener!=null) {
+			this.timedOutCallbacks.add(listener);
+		}
+	}
+	
+	/** Should be called every time an action is made for a player that timed out
+	 * 
+	 * @param action The action
+	 */
+	protected void actionTimedOut(final PlayerActionMessage action) {
+		timedOutCallbacks.forEach(l -> l.actionTimedOut(action));
+	}
+	
 	/** Add a listener for when a round within a game completes
 	 * 
 	 * @param listener
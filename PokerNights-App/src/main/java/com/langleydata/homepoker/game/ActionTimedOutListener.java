@@ -0,0 +1,17 @@
+package com.langleydata.homepoker.game;
+
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** Listen for the actions a game makes for players that have spent too long with the action on them
+ * 
+ * @author Mike Reynolds
+ *
+ */
+public interface ActionTimedOutListener {
+
+	/** The game has made an action for a player that timed out
+	 * 
+	 * @param action The action made, marked as timed out
+	 */
+	public void actionTimedOut(final PlayerActionMessage action);
+}
@@ -0,0 +1,222 @@
+package com.langleydata.homepoker.game;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** The games running on this server, and where each is in its lifecycle.<p>
+ * A game is only built once, however many requests try to activate it at the same
+ * time; the others wait for it. Listeners are told as each game goes live, starts
+ * draining once completed, and is purged, so they can tidy up anything they hold
+ * for the game rather than checking every game on a schedule.<p>
+ * A purged game is completed if it wasn't already, and then released, so none of its
+ * timers or listeners keep it running once it's gone.
+ *
+ * @author Mike Reynolds
+ *
+ */
+public class ActiveGames {
+	private final Logger logger = LoggerFactory.getLogger(ActiveGames.class);
+
+	/** The stages of a game on the server */
+	public enum Lifecycle {
+		/** Being built, and not yet available */
+		ACTIVATING,
+		/** Being played */
+		LIVE,
+		/** Completed, but still available until it's purged */
+		DRAINING,
+		/** Removed from the server */
+		PURGED;
+	}
+
+	private final ConcurrentMap<String, Entry> games = new ConcurrentHashMap<>();
+	private final List<GameLifecycleListener> listeners = new CopyOnWriteArrayList<>();
+
+	/** Get a game, building it if it isn't already active. If another thread is already
+	 * building it, wait for that game rather than building another
+	 *
+	 * @param gameId The game to activate
+	 * @param factory Builds the game, or returns null if it can't be
+	 * @return The active game, or null if it couldn't be built
+	 */
+	public AbstractCardGame<?> activate(final String gameId, final Supplier<AbstractCardGame<?>> factory) {
+		final Entry activating = new Entry();
+		final Entry current = games.putIfAbsent(gameId, activating);
+		if (current != null) {
+			try {
+				return current.game.join();
+			} catch (CompletionException e) {
+				return null;
+			}
+		}
+
+		final AbstractCardGame<?> game;
+		try {
+			game = factory.get();
+		} catch (RuntimeException e) {
+			games.remove(gameId, activating);
+			activating.game.completeExceptionally(e);
+			throw e;
+		}
+		if (game == null) {
+			games.remove(gameId, activating);
+			activating.game.complete(null);
+			return null;
+		}
+		activating.game.complete(game);
+		setState(gameId, activating, Lifecycle.LIVE);
+		return game;
+	}
+
+	/** Add a game that has already been built, e.g. when recovered
+	 *
+	 * @param game
+	 * @return False if a game with the same id is already active
+	 */
+	public boolean add(final AbstractCardGame<?> game) {
+		final String gameId = game.getSettings().getGameId();
+		final Entry entry = new Entry();
+		entry.game.complete(game);
+		if (games.putIfAbsent(gameId, entry) != null) {
+			return false;
+		}
+		setState(gameId, entry, Lifecycle.LIVE);
+		return true;
+	}
+
+	/**
+	 * @param gameId
+	 * @return The game if it's live or draining, otherwise null
+	 */
+	public AbstractCardGame<?> get(final String gameId) {
+		final Entry entry = gameId == null ? null : games.get(gameId);
+		return entry == null || entry.state == Lifecycle.ACTIVATING ? null : entry.game.getNow(null);
+	}
+
+	/**
+	 * @param gameId
+	 * @return The game's current stage, with PURGED if it isn't on the server
+	 */
+	public Lifecycle getState(final String gameId) {
+		final Entry entry = gameId == null ? null : games.get(gameId);
+		return entry == null ? Lifecycle.PURGED : entry.state;
+	}
+
+	/**
+	 * @param gameId
+	 * @return True if the game is live or draining
+	 */
+	public boolean contains(final String gameId) {
+		return get(gameId) != null;
+	}
+
+	/** Mark a live game as completed. It stays available until it's purged
+	 *
+	 * @param gameId
+	 * @return False if the game wasn't live
+	 */
+	public boolean drain(final String gameId) {
+		final Entry entry = games.get(gameId);
+		if (entry == null) {
+			return false;
+		}
+		synchronized (entry) {
+			if (entry.state != Lifecycle.LIVE) {
+				return false;
+			}
+			entry.state = Lifecycle.DRAINING;
+		}
+		fire(gameId, entry.game.getNow(null), Lifecycle.DRAINING);
+		return true;
+	}
+
+	/** Remove a game from the server, completing it if it's still live, and release
+	 * everything it holds. The game's listeners are told it's purged before it's released
+	 *
+	 * @param gameId
+	 * @return The game removed, or null if it wasn't live or draining
+	 */
+	public AbstractCardGame<?> purge(final String gameId) {
+		final Entry entry = games.get(gameId);
+		if (entry == null || entry.state == Lifecycle.ACTIVATING || !games.remove(gameId, entry)) {
+			return null;
+		}
+		final AbstractCardGame<?> game = entry.game.getNow(null);
+		final Lifecycle was;
+		synchronized (entry) {
+			was = entry.state;
+			entry.state = Lifecycle.PURGED;
+		}
+		if (was == Lifecycle.LIVE) {
+			try {
+				game.completeGame();
+			} catch (RuntimeException e) {
+				logger.error("Unable to complete purged game {}", gameId, e);
+			}
+		}
+		fire(gameId, game, Lifecycle.PURGED);
+		try {
+			game.release();
+		} catch (RuntimeException e) {
+			logger.error("Unable to release purged game {}", gameId, e);
+		}
+		return game;
+	}
+
+	/**
+	 * @return The games that are live or draining
+	 */
+	public List<AbstractCardGame<?>> getGames() {
+		return games.values().stream()
+				.filter(e -> e.state != Lifecycle.ACTIVATING)
+				.map(e -> e.game.getNow(null))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return The number of games on the server, including any being activated
+	 */
+	public int size() {
+		return games.size();
+	}
+
+	/** Be told when a game's lifecycle changes
+	 *
+	 * @param listener
+	 */
+	public void addListener(final GameLifecycleListener listener) {
+		listeners.add(listener);
+	}
+
+	private void setState(final String gameId, final Entry entry, final Lifecycle state) {
+		synchronized (entry) {
+			entry.state = state;
+		}
+		fire(gameId, entry.game.getNow(null), state);
+	}
+
+	private void fire(final String gameId, final AbstractCardGame<?> game, final Lifecycle state) {
+		logger.debug("Game {} is now {}", gameId, state);
+		for (GameLifecycleListener listener : listeners) {
+			try {
+				listener.lifecycleChanged(gameId, game, state);
+			} catch (RuntimeException e) {
+				logger.error("Game lifecycle listener failed for game {}", gameId, e);
+			}
+		}
+	}
+
+	private static final class Entry {
+		private final CompletableFuture<AbstractCardGame<?>> game = new CompletableFuture<>();
+		private volatile Lifecycle state = Lifecycle.ACTIVATING;
+	}
+}
@@ -0,0 +1,51 @@
+package com.langleydata.homepoker.game;
+
+/** Chip arithmetic in fixed-point minor units (hundredths), held as a <code>long</code>.<p>
+ * All bets, pots, stacks and wallets are held in minor units so that they add up exactly.
+ * Values are only converted to and from <code>float</code> at the edges of the game: the
+ * settings, incoming player actions and the values sent to the UI.
+ *
+ * @author reynolds_mj
+ *
+ */
+public final class Chips {
+	/** The number of minor units in 1 chip */
+	public static final int UNIT = 100;
+
+	private Chips() {
+	}
+
+	/** Convert a value to minor units, rounding to the nearest
+	 *
+	 * @param value The value, e.g. 1.25
+	 * @return The minor units, e.g. 125
+	 */
+	public static long of(final double value) {
+		return Math.round(value * UNIT);
+	}
+
+	/** Convert minor units back to a value, e.g. for display
+	 *
+	 * @param chips The minor units, e.g. 125
+	 * @return The value, e.g. 1.25
+	 */
+	public static float toFloat(final long chips) {
+		return (float) chips / UNIT;
+	}
+
+	/** Get one person's share when splitting an amount between a number of people.<p>
+	 * Any odd chips that cannot be split equally go one each to the first people, so the
+	 * shares always add up to the total
+	 *
+	 * @param total The amount being split
+	 * @param ways The number of people sharing
+	 * @param position This person's position (0 based) in the order that odd chips are given
+	 * @return This person's share
+	 */
+	public static long share(final long total, final int ways, final int position) {
+		if (ways < 1 || position < 0 || position >= ways) {
+			throw new IllegalArgumentException("Invalid share " + position + " of " + ways);
+		}
+		return total / ways + (position < total % ways ? 1 : 0);
+	}
+}
@@ -0,0 +1,33 @@
+package com.langleydata.homepoker.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.langleydata.homepoker.game.players.PlayerCheckpoint;
+
+/** The state of a game between rounds, from which it can be rebuilt after a restart.
+ * The game's settings are saved separately.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class GameCheckpoint {
+	int round, deckPosition, tournamentPrizeFund;
+	long deckSeed, startPlayingTime;
+	final List<PlayerCheckpoint> players = new ArrayList<>();
+	final List<PlayerCheckpoint> removedPlayers = new ArrayList<>();
+
+	/**
+	 * @return the round the game was on
+	 */
+	public int getRound() {
+		return round;
+	}
+
+	/**
+	 * @return the players in the game
+	 */
+	public List<PlayerCheckpoint> getPlayers() {
+		return players;
+	}
+}
@@ -0,0 +1,55 @@
+package com.langleydata.homepoker.game;
+
+import com.langleydata.homepoker.api.PlayerAction;
+import com.langleydata.homepoker.game.players.Player;
+
+/** Listen for each change made to a game, in the order they happen. The events are
+ * called while the table's lock is held, so must be quick and not call back into the game.
+ * <p>Changes made as part of another event, such as the blinds posted automatically
+ * when a tournament round starts, are not sent separately.
+ *
+ * @author reynolds_mj
+ *
+ */
+public interface GameEventListener {
+
+	/** A new round is about to be started. The game is between rounds
+	 *
+	 * @param game
+	 */
+	public void roundStarting(final AbstractCardGame<?> game);
+
+	/** A new round was started successfully
+	 *
+	 * @param game
+	 * @param moveDealer Whether the dealer was moved
+	 */
+	public void roundStarted(final AbstractCardGame<?> game, final boolean moveDealer);
+
+	/** The deck was shuffled outside of starting a round
+	 *
+	 * @param game
+	 */
+	public void deckShuffled(final AbstractCardGame<?> game);
+
+	/** A player's action was successfully performed by the game
+	 *
+	 * @param game
+	 * @param action
+	 */
+	public void actionPerformed(final AbstractCardGame<?> game, final PlayerAction action);
+
+	/** A player was added to the game
+	 *
+	 * @param game
+	 * @param player The player, as they were added
+	 */
+	public void playerAdded(final AbstractCardGame<?> game, final Player player);
+
+	/** A player was paused, e.g. after disconnecting
+	 *
+	 * @param game
+	 * @param playerId
+	 */
+	public void playerPaused(final AbstractCardGame<?> game, final String playerId);
+}
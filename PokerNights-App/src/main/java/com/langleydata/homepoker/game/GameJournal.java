@@ -0,0 +1,483 @@
+package com.langleydata.homepoker.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.langleydata.homepoker.api.PlayerAction;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.exception.GameStartException;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.players.PlayerCheckpoint;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+import com.langleydata.homepoker.message.Messaging;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+import com.langleydata.homepoker.persistence.wal.WriteAheadLog;
+
+/** Journals every change made to a table in a local {@link WriteAheadLog}, so the table
+ * can be rebuilt if the server restarts.<p>
+ * Every few rounds, or once enough has been journaled, the game is checkpointed into a new
+ * log segment as the next round starts. The checkpoint is written to disk and the older segments
+ * removed in the background, away from the table's lock, so the log only holds the last
+ * checkpoint and the events since. The shuffle seeds are journaled with the events, so replaying
+ * them deals the same cards and the round carries on from where it was.<p>
+ * If the events can't be replayed, the game is rebuilt from the rounds that did replay with only
+ * the later changes made to the table itself, such as players joining, and the round in progress is void.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class GameJournal implements GameEventListener, PlayerRemovedListener {
+	private static final Logger logger = LoggerFactory.getLogger(GameJournal.class);
+	private static final Gson gson = new Gson();
+	/** The default number of rounds between checkpoints */
+	public static final int DEFAULT_CHECKPOINT_ROUNDS = 10;
+	/** Writes the checkpoints to disk and compacts the logs, one at a time */
+	private static final ExecutorService syncer = Executors.newSingleThreadExecutor(r -> {
+		final Thread t = new Thread(r, "Journal Sync");
+		t.setDaemon(true);
+		return t;
+	});
+
+	enum Type {
+		CHECKPOINT(false),
+		ROUND(false),
+		SHUFFLE(false),
+		ACTION(false),
+		PAUSE(true),
+		JOIN(true),
+		LEAVE(true),
+		PLAYER(true),
+		ALLOCATE(true),
+		TRANSFER(true);
+
+		/** Is this a change to the table, rather than the round being played? */
+		final boolean tableChange;
+
+		Type(final boolean tableChange) {
+			this.tableChange = tableChange;
+		}
+	}
+
+	private final WriteAheadLog wal;
+	private final TexasHoldemGame game;
+	private final int checkpointRounds;
+	/** Once this much has been journaled since the checkpoint, the next round is checkpointed */
+	private final int checkpointBytes;
+	private int shufflesAtStart = 0;
+	private int roundsSinceCheckpoint = 0;
+	private long bytesSinceCheckpoint = 0;
+
+	private GameJournal(final WriteAheadLog wal, final TexasHoldemGame game, final int segmentSize, final int checkpointRounds) {
+		this.wal = wal;
+		this.game = game;
+		this.checkpointRounds = Math.max(1, checkpointRounds);
+		this.checkpointBytes = segmentSize / 2;
+	}
+
+	/** Start journaling a new game, replacing any previous journal it had
+	 *
+	 * @param journalDir The directory holding all games' journals
+	 * @param game The game
+	 * @param segmentSize The size of each log segment
+	 * @param checkpointRounds The most rounds between checkpoints
+	 * @return The journal
+	 * @throws IOException If the log can't be created
+	 */
+	public static GameJournal start(final File journalDir, final TexasHoldemGame game, final int segmentSize, final int checkpointRounds) throws IOException {
+		final File dir = new File(journalDir, game.getSettings().getGameId().replaceAll("[^\\w-]", "_"));
+		if (dir.exists()) {
+			new WriteAheadLog(dir, segmentSize).delete();
+		}
+		final GameJournal journal = new GameJournal(new WriteAheadLog(dir, segmentSize), game, segmentSize, checkpointRounds);
+		journal.checkpoint();
+		journal.attach();
+		return journal;
+	}
+
+	/** Rebuild all of the games journaled in a directory
+	 *
+	 * @param journalDir The directory holding all games' journals
+	 * @param msgUtils The messaging for the rebuilt games
+	 * @param segmentSize The size of each log segment
+	 * @param checkpointRounds The most rounds between checkpoints
+	 * @return The journal of each game rebuilt
+	 */
+	public static List<GameJournal> recoverAll(final File journalDir, final Messaging msgUtils, final int segmentSize, final int checkpointRounds) {
+		final List<GameJournal> recovered = new ArrayList<>();
+		final File[] dirs = journalDir.listFiles(File::isDirectory);
+		if (dirs == null) {
+			return recovered;
+		}
+		for (File dir : dirs) {
+			try {
+				final GameJournal journal = recover(dir, msgUtils, segmentSize, checkpointRounds);
+				if (journal != null) {
+					recovered.add(journal);
+				}
+			} catch (Exception e) {
+				logger.error("Unable to recover game from journal {}", dir, e);
+			}
+		}
+		return recovered;
+	}
+
+	/** Rebuild a game from its journal, and carry on journaling it
+	 *
+	 * @param dir The game's journal directory
+	 * @param msgUtils The messaging for the rebuilt game
+	 * @param segmentSize The size of each log segment
+	 * @param checkpointRounds The most rounds between checkpoints
+	 * @return The journal, or null if there was no game to rebuild
+	 * @throws IOException If the log can't be read
+	 */
+	static GameJournal recover(final File dir, final Messaging msgUtils, final int segmentSize, final int checkpointRounds) throws IOException {
+		final WriteAheadLog wal = new WriteAheadLog(dir, segmentSize);
+		final List<Entry> events = new ArrayList<>();
+		Entry checkpoint = null;
+		for (byte[] record : wal.readAll()) {
+			final Entry entry = gson.fromJson(new String(record, StandardCharsets.UTF_8), Entry.class);
+			if (entry.type == Type.CHECKPOINT) {
+				checkpoint = entry;
+				events.clear();
+			} else {
+				events.add(entry);
+			}
+		}
+		if (checkpoint == null) {
+			wal.delete();
+			return null;
+		}
+
+		TexasHoldemGame game = rebuild(checkpoint, msgUtils);
+		boolean voided = false;
+		// The start of the last round replayed, as the rounds before it replayed completely
+		int roundStart = 0;
+		try {
+			for (int i = 0; i < events.size(); i++) {
+				final Entry e = events.get(i);
+				if (e.type == Type.ROUND) {
+					roundStart = i;
+				}
+				if (!replay(game, e)) {
+					throw new IllegalStateException("The " + e.type + " event didn't replay");
+				}
+			}
+		} catch (Exception e) {
+			logger.warn("Unable to replay game {}, the round in progress is void. {}", game.getSettings().getGameId(), e.getMessage());
+			// Release the partly replayed game's timers
+			game.completeGame();
+			game = rebuild(checkpoint, msgUtils);
+			for (int i = 0; i < events.size(); i++) {
+				final Entry event = events.get(i);
+				if (i < roundStart || event.type.tableChange) {
+					replayQuietly(game, event);
+				}
+			}
+			voided = true;
+		}
+
+		final GameJournal journal = new GameJournal(wal, game, segmentSize, checkpointRounds);
+		if (voided) {
+			// The log holds events that no longer apply
+			journal.checkpoint();
+		}
+		journal.attach();
+		logger.info("Recovered game {} at round {} with {} events", game.getSettings().getGameId(), game.getRound(), events.size());
+		return journal;
+	}
+
+	/** Create a game in the state it was checkpointed
+	 *
+	 * @param checkpoint
+	 * @param msgUtils
+	 * @return
+	 */
+	private static TexasHoldemGame rebuild(final Entry checkpoint, final Messaging msgUtils) {
+		// A copy of the settings, as a game that fails to replay changes them when it's completed
+		final TexasHoldemSettings settings = gson.fromJson(gson.toJson(checkpoint.settings), TexasHoldemSettings.class);
+		final TexasHoldemGame game = new TexasHoldemGame(settings, msgUtils);
+		game.restore(checkpoint.checkpoint);
+		return game;
+	}
+
+	private static void replayQuietly(final TexasHoldemGame game, final Entry event) {
+		try {
+			replay(game, event);
+		} catch (Exception e) {
+			logger.warn("Unable to replay the {} event for game {}", event.type, game.getSettings().getGameId());
+		}
+	}
+
+	/** Apply a journaled event to the game
+	 *
+	 * @param game
+	 * @param event
+	 * @return True if the event had the same outcome as when it was journaled
+	 * @throws GameStartException
+	 */
+	static boolean replay(final TexasHoldemGame game, final Entry event) throws GameStartException {
+		final Player player = event.playerId == null ? null : game.players.getPlayerById(event.playerId);
+		final boolean needsPlayer = event.playerId != null && event.type != Type.JOIN && event.type != Type.LEAVE;
+		if (needsPlayer && player == null) {
+			return false;
+		}
+
+		switch (event.type) {
+		case ROUND:
+			if (event.seed != null) {
+				game.getDeck().setSeed(event.seed);
+			}
+			return game.startNextRound(event.moveDealer) != null;
+		case SHUFFLE:
+			game.getDeck().setSeed(event.seed);
+			return game.shuffle();
+		case ACTION:
+			final PlayerActionMessage action = new PlayerActionMessage(player.getSessionId(), event.action)
+				.setBetValue(event.amount);
+			game.doGameUpdateAction(action);
+			return action.isSuccessful();
+		case PAUSE:
+			return game.pausePlayer(event.playerId, player.getSessionId()) != null;
+		case JOIN:
+			((AbstractCardGame<?>) game).restorePlayer(event.player.toPlayer(), event.prizeFund);
+			return true;
+		case LEAVE:
+			return game.removePlayer(event.playerId) != null;
+		case PLAYER:
+			final PlayerActionMessage outOfTurn = new PlayerActionMessage(player.getSessionId(), event.action)
+				.setBetValue(event.amount);
+			// Journals written before the re-buy was kept in minor units only have the float
+			player.doPlayerAction(outOfTurn, game.getGameState(), game.getSettings(), event.rebuyChips);
+			return outOfTurn.isSuccessful();
+		case ALLOCATE:
+			if (player.getCurrentStack().assignWallet(event.amount, game.getSettings().getBuyInAmount())) {
+				player.getState().toggleSittingOut(game.getGameState(), false);
+			}
+			return true;
+		case TRANSFER:
+			final Player to = game.players.getPlayerById(event.toId);
+			if (to == null) {
+				return false;
+			}
+			player.getCurrentStack().reduceStack(event.amount);
+			to.getCurrentStack().transferWinAmount(event.amount);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/** Get the game being journaled
+	 *
+	 * @return
+	 */
+	public TexasHoldemGame getGame() {
+		return game;
+	}
+
+	/** Journal an out-of-turn action the player performed themselves, e.g. sitting out
+	 *
+	 * @param player
+	 * @param action
+	 * @param rebuy The re-buy amount available to the player, in minor units
+	 */
+	public void playerAction(final Player player, final PlayerAction action, final long rebuy) {
+		final Entry e = new Entry(Type.PLAYER, player.getPlayerId());
+		e.action = action.getAction();
+		e.amount = action.getBetValue();
+		e.rebuyChips = rebuy;
+		write(e);
+	}
+
+	/** Journal the host allocating a player's wallet
+	 *
+	 * @param playerId
+	 * @param wallet
+	 */
+	public void fundsAllocated(final String playerId, final float wallet) {
+		final Entry e = new Entry(Type.ALLOCATE, playerId);
+		e.amount = wallet;
+		write(e);
+	}
+
+	/** Journal the host transferring funds between two players
+	 *
+	 * @param fromId
+	 * @param toId
+	 * @param amount
+	 */
+	public void fundsTransferred(final String fromId, final String toId, final float amount) {
+		final Entry e = new Entry(Type.TRANSFER, fromId);
+		e.toId = toId;
+		e.amount = amount;
+		write(e);
+	}
+
+	/** Stop journaling and delete the journal, e.g. once the game is complete
+	 *
+	 */
+	public void delete() {
+		try {
+			wal.delete();
+		} catch (IOException e) {
+			logger.warn("Unable to delete journal for game {}: {}", game.getSettings().getGameId(), e.getMessage());
+		}
+	}
+
+	/** Stop journaling, keeping the journal so the game can be recovered
+	 *
+	 */
+	public void close() {
+		try {
+			wal.close();
+		} catch (IOException e) {
+			logger.warn("Unable to close journal for game {}: {}", game.getSettings().getGameId(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void roundStarting(final AbstractCardGame<?> game) {
+		if (++roundsSinceCheckpoint >= checkpointRounds || bytesSinceCheckpoint >= checkpointBytes) {
+			checkpoint();
+		}
+		shufflesAtStart = game.getDeck().getNumShuffles();
+	}
+
+	@Override
+	public void roundStarted(final AbstractCardGame<?> game, final boolean moveDealer) {
+		final Entry e = new Entry(Type.ROUND, null);
+		e.moveDealer = moveDealer;
+		if (game.getDeck().getNumShuffles() != shufflesAtStart) {
+			e.seed = game.getDeck().getLastSeed();
+		}
+		write(e);
+	}
+
+	@Override
+	public void deckShuffled(final AbstractCardGame<?> game) {
+		final Entry e = new Entry(Type.SHUFFLE, null);
+		e.seed = game.getDeck().getLastSeed();
+		write(e);
+	}
+
+	@Override
+	public void actionPerformed(final AbstractCardGame<?> game, final PlayerAction action) {
+		final Player player = game.players.getPlayerBySessionId(action.getSessionId());
+		if (player == null) {
+			return;
+		}
+		final Entry e = new Entry(Type.ACTION, player.getPlayerId());
+		e.action = action.getAction();
+		e.amount = action.getBetValue();
+		write(e);
+	}
+
+	@Override
+	public void playerAdded(final AbstractCardGame<?> game, final Player player) {
+		final Entry e = new Entry(Type.JOIN, player.getPlayerId());
+		e.player = PlayerCheckpoint.of(player);
+		e.prizeFund = game.getTournamentPrizeFund();
+		write(e);
+	}
+
+	@Override
+	public void playerPaused(final AbstractCardGame<?> game, final String playerId) {
+		write(new Entry(Type.PAUSE, playerId));
+	}
+
+	@Override
+	public void playerRemoved(final String gameId, final Player player) {
+		write(new Entry(Type.LEAVE, player.getPlayerId()));
+	}
+
+	private void attach() {
+		game.addEventListener(this);
+		game.addRemovePlayerListener(this);
+	}
+
+	/** Start a new segment with a checkpoint of the game. The checkpoint is written to disk
+	 * and the older segments removed in the background
+	 *
+	 */
+	private void checkpoint() {
+		final Entry e = new Entry(Type.CHECKPOINT, null);
+		e.settings = game.getSettings();
+		e.checkpoint = game.checkpoint();
+		try {
+			final long segment = wal.roll();
+			wal.append(gson.toJson(e).getBytes(StandardCharsets.UTF_8));
+			roundsSinceCheckpoint = 0;
+			bytesSinceCheckpoint = 0;
+			syncer.execute(() -> sync(segment));
+		} catch (IOException | RuntimeException ex) {
+			logger.error("Unable to checkpoint game {}", game.getSettings().getGameId(), ex);
+		}
+	}
+
+	/** Write the checkpoint to disk, then remove the segments before it
+	 *
+	 * @param segment The checkpoint's segment
+	 */
+	private void sync(final long segment) {
+		try {
+			wal.force();
+			wal.compact(segment);
+		} catch (IOException | RuntimeException ex) {
+			logger.error("Unable to write the checkpoint of game {}", game.getSettings().getGameId(), ex);
+		}
+	}
+
+	/** Wait for the checkpoints already taken to be written to disk
+	 *
+	 * @throws InterruptedException
+	 */
+	static void awaitSync() throws InterruptedException {
+		try {
+			syncer.submit(() -> { }).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void write(final Entry e) {
+		try {
+			final byte[] record = gson.toJson(e).getBytes(StandardCharsets.UTF_8);
+			wal.append(record);
+			bytesSinceCheckpoint += record.length;
+		} catch (IOException | RuntimeException ex) {
+			logger.error("Unable to journal {} for game {}", e.type, game.getSettings().getGameId(), ex);
+		}
+	}
+
+	/** A journaled event. Only the fields relevant to the type are set
+	 */
+	static class Entry {
+		Type type;
+		String playerId, toId;
+		PlayerActionType action;
+		float amount;
+		long rebuyChips;
+		Long seed;
+		boolean moveDealer;
+		int prizeFund;
+		PlayerCheckpoint player;
+		TexasHoldemSettings settings;
+		GameCheckpoint checkpoint;
+
+		Entry(final Type type, final String playerId) {
+			this.type = type;
+			this.playerId = playerId;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.langleydata.homepoker.game;
+
+import com.langleydata.homepoker.game.ActiveGames.Lifecycle;
+
+/** Listen for games being activated, completed and purged from the server
+ *
+ * @author Mike Reynolds
+ *
+ */
+public interface GameLifecycleListener {
+
+	/** A game has moved to a new stage of its lifecycle. This is called on the
+	 * thread that changed it, so must be quick
+	 *
+	 * @param gameId The game that changed
+	 * @param game The game
+	 * @param state Its new state
+	 */
+	public void lifecycleChanged(final String gameId, final AbstractCardGame<?> game, final Lifecycle state);
+}
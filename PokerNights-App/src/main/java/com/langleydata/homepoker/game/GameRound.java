@@ -10,7 +10,11 @@ import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
 
 @Document(createIndex = true, indexName = "round-history", refreshInterval = "5s")
 public class GameRound implements RoundHistory {
+	/** The chip values are in {@link Chips} minor units. Rounds stored before then hold
+	 * them as floats, and don't have a format */
+	public static final int CHIPS_MINOR_UNITS = 1;
 	
+	private int chipsFormat;
 	private long completeTime = System.currentTimeMillis();
 	private String gameId;
 	private int roundNum;
@@ -55,10 +59,18 @@ public class GameRound implements RoundHistory {
 			return this;
 		}
 		public GameRound build() {
+			gr.chipsFormat = CHIPS_MINOR_UNITS;
 			return gr;
 		}
 	}
 
+	/**
+	 * @return The format of the chip values, or 0 if stored as floats
+	 */
+	public int getChipsFormat() {
+		return chipsFormat;
+	}
+
 	/**
 	 * @return the gameId
 	 */
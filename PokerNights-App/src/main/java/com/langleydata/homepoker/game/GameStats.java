@@ -86,6 +86,31 @@ public class GameStats extends PlayerStats {
 	}
 	
 	
+	/** Restore the statistics saved when the game was checkpointed
+	 * 
+	 * @param handsPlayed
+	 * @param won
+	 * @param lost
+	 * @param volBets
+	 * @param rebuys
+	 * @param timePlayed
+	 * @param initialWallet
+	 * @param balance
+	 * @param rank
+	 */
+	public void restore(final int handsPlayed, final int won, final int lost, final int volBets, final int rebuys,
+			final long timePlayed, final float initialWallet, final float balance, final int rank) {
+		this.handsPlayed = handsPlayed;
+		this.won = won;
+		this.lost = lost;
+		this.volBets = volBets;
+		this.rebuys = rebuys;
+		this.timePlayed = timePlayed;
+		this.initialWallet = initialWallet;
+		this.balance = balance;
+		this.rank = rank;
+	}
+	
 	/**
 	 * @return the rank
 	 */
@@ -0,0 +1,81 @@
+package com.langleydata.homepoker.game;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A scheduler shared by all of the games on the server, for player action timeouts and
+ * tournament blind increases. This keeps the number of timer threads fixed, however many
+ * tables are running.<p>
+ * Tasks run on the timer's threads, so must be short and take the owning table's lock
+ * before changing the game.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class GameTimer {
+	/** The number of threads used by the shared timer */
+	public static final int THREADS = 2;
+	private static final GameTimer SHARED = new GameTimer(THREADS);
+
+	private final ScheduledThreadPoolExecutor executor;
+
+	/**
+	 *
+	 * @param threads The number of threads to run the tasks
+	 */
+	public GameTimer(final int threads) {
+		final AtomicInteger threadNum = new AtomicInteger();
+		this.executor = new ScheduledThreadPoolExecutor(threads, r -> {
+			final Thread t = new Thread(r, "Game Timer " + threadNum.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		// Timeouts are cancelled far more often than they fire, so don't keep them queued
+		this.executor.setRemoveOnCancelPolicy(true);
+	}
+
+	/** Get the timer shared by all games
+	 *
+	 * @return
+	 */
+	public static GameTimer getShared() {
+		return SHARED;
+	}
+
+	/** Run a task once at a specific time
+	 *
+	 * @param task The task to run
+	 * @param atMillis The time to run it, in epoch milliseconds
+	 * @return The scheduled task, which can be used to cancel it
+	 */
+	public ScheduledFuture<?> schedule(final Runnable task, final long atMillis) {
+		return executor.schedule(task, Math.max(0, atMillis - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+	}
+
+	/** Run a task repeatedly
+	 *
+	 * @param task The task to run
+	 * @param periodMillis The time between each run, in milliseconds. The first run is after one period
+	 * @return The scheduled task, which can be used to cancel it
+	 */
+	public ScheduledFuture<?> scheduleAtFixedRate(final Runnable task, final long periodMillis) {
+		return executor.scheduleAtFixedRate(task, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/** Get the number of tasks waiting to run
+	 *
+	 * @return
+	 */
+	public int getScheduled() {
+		return executor.getQueue().size();
+	}
+
+	/** Stop the timer, dropping any tasks waiting to run. Not to be used on the
+	 * shared timer
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
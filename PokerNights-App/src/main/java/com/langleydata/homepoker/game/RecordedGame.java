@@ -0,0 +1,85 @@
+package com.langleydata.homepoker.game;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.langleydata.homepoker.api.PlayerAction;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+import com.langleydata.homepoker.persistence.MessageHistoryProvider;
+import com.langleydata.homepoker.persistence.RoundHistoryProvider;
+import com.langleydata.homepoker.persistence.SettingsProvider;
+
+/** Everything stored about a played game that's needed to replay it: its settings, the
+ * history of each round and the actions made by the players. Held as concrete types so
+ * it can also be written to and read from JSON, e.g. to replay a production game offline.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class RecordedGame {
+	private final TexasHoldemSettings settings;
+	private final List<GameRound> rounds = new ArrayList<>();
+	private final List<PlayerActionMessage> actions = new ArrayList<>();
+
+	/**
+	 * @param settings The game's settings
+	 * @param rounds The history of each round
+	 * @param actions The actions made by the players, in any order
+	 */
+	public RecordedGame(final TexasHoldemSettings settings, final List<? extends RoundHistory> rounds, final List<? extends PlayerAction> actions) {
+		if (settings == null) {
+			throw new IllegalArgumentException("The game's settings are required");
+		}
+		this.settings = settings;
+		rounds.stream()
+			.filter(GameRound.class::isInstance)
+			.map(GameRound.class::cast)
+			.sorted(Comparator.comparingInt(GameRound::getRound))
+			.forEach(this.rounds::add);
+		actions.stream()
+			.filter(PlayerActionMessage.class::isInstance)
+			.map(PlayerActionMessage.class::cast)
+			.sorted(Comparator.comparingLong(PlayerActionMessage::getTimestamp))
+			.forEach(this.actions::add);
+	}
+
+	/** Load a game from storage
+	 *
+	 * @param gameId
+	 * @param settingsProvider
+	 * @param historyProvider
+	 * @param actionProvider
+	 * @return The game, or null if its settings weren't found
+	 */
+	public static RecordedGame load(final String gameId, final SettingsProvider settingsProvider,
+			final RoundHistoryProvider historyProvider, final MessageHistoryProvider actionProvider) {
+		final TexasHoldemSettings settings = (TexasHoldemSettings) settingsProvider.retrieveSettings(gameId);
+		if (settings == null) {
+			return null;
+		}
+		return new RecordedGame(settings, historyProvider.getGameRounds(gameId), actionProvider.getPlayerActions(gameId));
+	}
+
+	/**
+	 * @return the game's settings
+	 */
+	public TexasHoldemSettings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * @return the rounds, in order
+	 */
+	public List<GameRound> getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * @return the actions, in the order they were made
+	 */
+	public List<PlayerActionMessage> getActions() {
+		return actions;
+	}
+}
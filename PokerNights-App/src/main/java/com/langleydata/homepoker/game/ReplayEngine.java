@@ -0,0 +1,354 @@
+package com.langleydata.homepoker.game;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.langleydata.homepoker.api.CardGame.GameFormat;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.players.PlayerCheckpoint;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+import com.langleydata.homepoker.message.Messaging;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+import com.langleydata.homepoker.persistence.archive.CompactRound;
+
+/** Replays recorded games through the game engine, without any messaging or persistence,
+ * and reports wherever the pots, stacks or cards differ from what was recorded. Used to
+ * check changes to the engine against real games before they're deployed.<p>
+ * Each round is set up from its own history: a player's starting stack is their recorded
+ * stack, plus what they committed, less what they won. So re-buys and transfers between
+ * rounds don't need replaying, and only the betting actions are re-applied. The deck is
+ * seeded with the round's recorded seed and the dealer is taken from the recorded deal.
+ * The actions the game made for players that timed out are recorded with the players' own, and
+ * are replayed the same way. If a recorded action is for a player the action isn't on, the round
+ * has diverged and isn't replayed any further.<p>
+ * Games are replayed in parallel, each on a single thread.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class ReplayEngine implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(ReplayEngine.class);
+	private static final Gson gson = new Gson();
+	private static final long ONE_DAY = 24 * 60 * 60 * 1000L;
+	/** The actions replayed. Other actions change wallets or seating, which are taken from each round's history */
+	private static final Set<PlayerActionType> REPLAYED = EnumSet.of(PlayerActionType.POST_BLIND, PlayerActionType.CALL,
+			PlayerActionType.CHECK, PlayerActionType.BET, PlayerActionType.RAISE, PlayerActionType.ALL_IN, PlayerActionType.FOLD);
+	private static final Messaging NO_MESSAGING = new Messaging() {
+		@Override
+		public void sendPrivateMessage(String sessionId, Object payload) {
+		}
+
+		@Override
+		public void sendPrivateMessage(String sessionId, String queue, Object payload, long delay) {
+		}
+
+		@Override
+		public void sendBroadcastToTable(String gameId, Object message) {
+		}
+
+		@Override
+		public void sendBroadcastToTable(String gameId, Object message, long delay) {
+		}
+	};
+
+	private final ExecutorService executor;
+	/** Holds the blind increases of replayed tournaments, which never become due */
+	private final GameTimer timer = new GameTimer(1);
+
+	/**
+	 * @param threads The number of games to replay at once
+	 */
+	public ReplayEngine(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		final AtomicInteger threadNum = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(threads, r -> {
+			final Thread t = new Thread(r, "Game Replay " + threadNum.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/** Replay games in parallel
+	 *
+	 * @param games
+	 * @return The results, in the same order as the games
+	 */
+	public List<ReplayResult> replayAll(final Collection<RecordedGame> games) {
+		return replayAll(games, Function.identity());
+	}
+
+	/** Load and replay games in parallel. The loading is also done in parallel
+	 *
+	 * @param gameIds The games to replay
+	 * @param loader Loads a game, returning null if it can't be found
+	 * @return The results, in the same order as the games. Games that couldn't be loaded are left out
+	 */
+	public <T> List<ReplayResult> replayAll(final Collection<T> gameIds, final Function<T, RecordedGame> loader) {
+		final List<Future<ReplayResult>> futures = gameIds.stream()
+				.map(id -> executor.submit(() -> {
+					final RecordedGame game = loader.apply(id);
+					return game == null ? null : replay(game);
+				}))
+				.collect(Collectors.toList());
+
+		final List<ReplayResult> results = new ArrayList<>(futures.size());
+		for (Future<ReplayResult> f : futures) {
+			try {
+				final ReplayResult r = f.get();
+				if (r != null) {
+					results.add(r);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				logger.warn("Replaying game: {}", e.getCause().toString());
+			}
+		}
+		return results;
+	}
+
+	/** Replay a single game on the calling thread
+	 *
+	 * @param recorded
+	 * @return
+	 */
+	public ReplayResult replay(final RecordedGame recorded) {
+		return new GameReplay(recorded).run();
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		timer.shutdown();
+	}
+
+	/** Copy the settings, so the recorded game isn't changed, and turn off the timeouts */
+	private static TexasHoldemSettings copySettings(final TexasHoldemSettings settings) {
+		final JsonObject json = gson.toJsonTree(settings).getAsJsonObject();
+		json.addProperty("actionTimeout", -1);
+		json.addProperty("blindIncreaseInterval", ONE_DAY);
+		return gson.fromJson(json, TexasHoldemSettings.class);
+	}
+
+	/** The state of a single game being replayed */
+	private class GameReplay implements RoundCompleteListener {
+		private final RecordedGame recorded;
+		private final TexasHoldemGame game;
+		private final ReplayResult result;
+		private final Map<Integer, List<PlayerActionMessage>> actions;
+		private final boolean isTournament;
+		private String lastDealer;
+		private CompactRound completed;
+		private List<Long> completedPots;
+
+		GameReplay(final RecordedGame recorded) {
+			this.recorded = recorded;
+			this.game = new TexasHoldemGame(copySettings(recorded.getSettings()), NO_MESSAGING, timer);
+			this.result = new ReplayResult(recorded.getSettings().getGameId());
+			this.actions = recorded.getActions().stream()
+					.collect(Collectors.groupingBy(PlayerActionMessage::getRound, LinkedHashMap::new, Collectors.toList()));
+			this.isTournament = game.getSettings().getFormat() == GameFormat.TOURNAMENT;
+			game.addRoundListener(this);
+		}
+
+		ReplayResult run() {
+			for (GameRound round : recorded.getRounds()) {
+				completed = null;
+				try {
+					replayRound(round, actions.getOrDefault(round.getRound(), new ArrayList<>()));
+				} catch (Exception e) {
+					result.diverged(round.getRound(), null, "error", "none", e.toString());
+				}
+				result.roundReplayed();
+			}
+			return result;
+		}
+
+		@Override
+		public void roundComplete(final RoundHistory roundDetail) {
+			// Taken now, as the game's objects are reset when the next round starts
+			completed = CompactRound.of(roundDetail, null);
+			completedPots = potTotals((GameRound) roundDetail);
+		}
+
+		private List<Long> potTotals(final GameRound round) {
+			if (round.getGamePots() == null) {
+				return new ArrayList<>();
+			}
+			return round.getGamePots().getAllPots().values().stream()
+					.map(p -> p.getPotTotalChips())
+					.sorted()
+					.collect(Collectors.toList());
+		}
+
+		private void replayRound(final GameRound recordedRound, final List<PlayerActionMessage> roundActions) throws Exception {
+			final int roundNum = recordedRound.getRound();
+			final CompactRound expected = CompactRound.of(recordedRound, null);
+
+			final Set<String> acted = roundActions.stream()
+					.filter(a -> a.isSuccessful() && REPLAYED.contains(a.getAction()))
+					.map(PlayerActionMessage::getPlayerId)
+					.collect(Collectors.toSet());
+			final GameCheckpoint cp = new GameCheckpoint();
+			cp.round = roundNum - 1;
+			cp.deckSeed = recordedRound.getShuffleSeed();
+			// Only used when the deck isn't shuffled each round
+			cp.deckPosition = game.deck.getPosition();
+			final List<CompactRound.Seat> inHand = new ArrayList<>();
+			for (CompactRound.Seat s : expected.getSeats()) {
+				final Player p = new Player(s.getPlayerId(), s.getPlayerHandle());
+				p.setSessionId(s.getPlayerId());
+				p.setSeatingPos(s.getSeat());
+				p.getCurrentStack().setStack(Chips.toFloat(s.getStack() + s.getCommitted() - s.getWon()));
+				// Sat out players in a cash game aren't dealt in, so neither bet nor act
+				if (!isTournament && s.getCards().isEmpty() && s.getCommitted() == 0 && !acted.contains(s.getPlayerId())) {
+					p.getState().toggleSittingOut(TexasGameState.COMPLETE, true);
+				} else {
+					inHand.add(s);
+				}
+				cp.players.add(PlayerCheckpoint.of(p));
+			}
+
+			// The dealer, as recorded when the round was started
+			String dealerId = roundActions.stream()
+					.filter(a -> a.getAction() == PlayerActionType.DEAL && a.isSuccessful())
+					.map(PlayerActionMessage::getPlayerId)
+					.findFirst()
+					.orElseGet(() -> dealerFromBlinds(recordedRound, roundActions, inHand));
+			boolean moveDealer = false;
+			if (dealerId == null && lastDealer != null) {
+				dealerId = lastDealer;
+				moveDealer = true;
+			}
+
+			game.restore(cp);
+			if (dealerId != null && game.getPlayers().getPlayerById(dealerId) != null) {
+				game.getPlayers().getPlayerById(dealerId).getState().setDealer(true);
+			}
+			final long bigBlind = recordedRound.getPlayers().stream()
+					.mapToLong(p -> p.getCurrentStack().getCommittedChips(TexasGameState.PRE_DEAL))
+					.max()
+					.orElse(0);
+			if (bigBlind > 0 && bigBlind != Chips.of(game.getSettings().getBigBlind())) {
+				game.getSettings().setAnte(Chips.toFloat(bigBlind / 2));
+			}
+			game.deck.setSeed(recordedRound.getShuffleSeed());
+			game.startNextRound(moveDealer);
+			lastDealer = game.getPlayers().getDealer() == null ? null : game.getPlayers().getDealer().getPlayerId();
+
+			for (PlayerActionMessage a : roundActions) {
+				if (!a.isSuccessful() || !REPLAYED.contains(a.getAction())) {
+					continue;
+				}
+				final Player player = game.getPlayers().getPlayerById(a.getPlayerId());
+				if (player == null) {
+					result.diverged(roundNum, a.getPlayerId(), "player", "seated", "not in round");
+					continue;
+				}
+				if (game.getGameState() == TexasGameState.COMPLETE) {
+					result.diverged(roundNum, a.getPlayerId(), a.getAction().name(), "performed", "round already complete");
+					break;
+				}
+				final Player actionOn = game.getPlayers().getActionOn();
+				if (actionOn != player) {
+					result.diverged(roundNum, a.getPlayerId(), "actor", a.getPlayerId(), actionOn == null ? "none" : actionOn.getPlayerId());
+					return;
+				}
+				final PlayerActionMessage replayed = new PlayerActionMessage(player.getSessionId(), a.getAction());
+				replayed.setPlayerId(player.getPlayerId());
+				replayed.setBetValue(a.getBetValue());
+				game.doGameUpdateAction(replayed);
+				if (!replayed.isSuccessful()) {
+					result.diverged(roundNum, a.getPlayerId(), a.getAction().name(), "successful", "failed");
+				}
+			}
+			if (completed == null) {
+				result.diverged(roundNum, null, "state", "round complete", game.getGameState());
+				return;
+			}
+			compare(roundNum, recordedRound, expected);
+		}
+
+		/** The dealer sits before the small blind, which is the first posted */
+		private String dealerFromBlinds(final GameRound round, final List<PlayerActionMessage> roundActions, final List<CompactRound.Seat> inHand) {
+			String small = roundActions.stream()
+					.filter(a -> a.getAction() == PlayerActionType.POST_BLIND && a.isSuccessful())
+					.map(PlayerActionMessage::getPlayerId)
+					.findFirst()
+					.orElse(null);
+			if (small == null) {
+				// Automatically posted, so the small blind is the lower of the two committed before the deal
+				final List<Player> blinds = round.getPlayers().stream()
+						.filter(p -> p.getCurrentStack().getCommittedChips(TexasGameState.PRE_DEAL) > 0)
+						.sorted(Comparator.comparingLong(p -> p.getCurrentStack().getCommittedChips(TexasGameState.PRE_DEAL)))
+						.collect(Collectors.toList());
+				if (blinds.size() != 2 || blinds.get(0).getCurrentStack().getCommittedChips(TexasGameState.PRE_DEAL)
+						== blinds.get(1).getCurrentStack().getCommittedChips(TexasGameState.PRE_DEAL)) {
+					return null;
+				}
+				small = blinds.get(0).getPlayerId();
+			}
+			for (int i = 0; i < inHand.size(); i++) {
+				if (inHand.get(i).getPlayerId().equals(small)) {
+					return inHand.get((i + inHand.size() - 1) % inHand.size()).getPlayerId();
+				}
+			}
+			return null;
+		}
+
+		private void compare(final int roundNum, final GameRound recordedRound, final CompactRound expected) {
+			if (!expected.getTableCards().equals(completed.getTableCards())) {
+				result.diverged(roundNum, null, "table cards", expected.getTableCards(), completed.getTableCards());
+			}
+			final List<Long> pots = potTotals(recordedRound);
+			if (!pots.equals(completedPots)) {
+				result.diverged(roundNum, null, "pots", pots, completedPots);
+			}
+			final Map<String, CompactRound.Seat> actual = completed.getSeats().stream()
+					.collect(Collectors.toMap(CompactRound.Seat::getPlayerId, Function.identity()));
+			for (CompactRound.Seat e : expected.getSeats()) {
+				final CompactRound.Seat a = actual.get(e.getPlayerId());
+				if (a == null) {
+					result.diverged(roundNum, e.getPlayerId(), "player", "seated", "not in round");
+					continue;
+				}
+				check(roundNum, e.getPlayerId(), "stack", e.getStack(), a.getStack());
+				check(roundNum, e.getPlayerId(), "committed", e.getCommitted(), a.getCommitted());
+				check(roundNum, e.getPlayerId(), "won", e.getWon(), a.getWon());
+				check(roundNum, e.getPlayerId(), "cards", e.getCards(), a.getCards());
+			}
+		}
+
+		private void check(final int roundNum, final String playerId, final String field, final Object expected, final Object actual) {
+			if (!Objects.equals(expected, actual)) {
+				result.diverged(roundNum, playerId, field, expected, actual);
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.langleydata.homepoker.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The outcome of replaying a recorded game, listing where the replay didn't give the
+ * same result as the original
+ *
+ * @author reynolds_mj
+ *
+ */
+public class ReplayResult {
+	private final String gameId;
+	private int rounds;
+	private final List<Divergence> divergences = new ArrayList<>();
+
+	/** A difference between the recorded and replayed game */
+	public static class Divergence {
+		private final int round;
+		private final String playerId, field, expected, actual;
+
+		Divergence(final int round, final String playerId, final String field, final Object expected, final Object actual) {
+			this.round = round;
+			this.playerId = playerId;
+			this.field = field;
+			this.expected = String.valueOf(expected);
+			this.actual = String.valueOf(actual);
+		}
+
+		/**
+		 * @return the round number
+		 */
+		public int getRound() {
+			return round;
+		}
+
+		/**
+		 * @return the player, or null if not specific to one
+		 */
+		public String getPlayerId() {
+			return playerId;
+		}
+
+		/**
+		 * @return what differed, e.g. 'stack'
+		 */
+		public String getField() {
+			return field;
+		}
+
+		/**
+		 * @return the recorded value
+		 */
+		public String getExpected() {
+			return expected;
+		}
+
+		/**
+		 * @return the replayed value
+		 */
+		public String getActual() {
+			return actual;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Round %s%s: %s expected %s but was %s", round,
+					playerId == null ? "" : ", player " + playerId, field, expected, actual);
+		}
+	}
+
+	ReplayResult(final String gameId) {
+		this.gameId = gameId;
+	}
+
+	void roundReplayed() {
+		rounds++;
+	}
+
+	void diverged(final int round, final String playerId, final String field, final Object expected, final Object actual) {
+		divergences.add(new Divergence(round, playerId, field, expected, actual));
+	}
+
+	/**
+	 * @return the gameId
+	 */
+	public String getGameId() {
+		return gameId;
+	}
+
+	/**
+	 * @return the number of rounds replayed
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * @return True if the replay matched the recording
+	 */
+	public boolean isMatched() {
+		return divergences.isEmpty();
+	}
+
+	/**
+	 * @return the differences, in the order found
+	 */
+	public List<Divergence> getDivergences() {
+		return divergences;
+	}
+}
@@ -13,6 +13,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.langleydata.homepoker.api.GameSettings;
 import com.langleydata.homepoker.api.PlayerAction;
 import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.game.Chips;
 import com.langleydata.homepoker.game.players.PlayerStack.RebuyState;
 import com.langleydata.homepoker.game.texasHoldem.HandRank;
 import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
@@ -133,7 +134,7 @@ public class Player extends PlayerInfo {
 	 */
 	@JsonIgnore
 	public boolean isStillInHand() {
-		return !state.isSittingOut() && !state.isFolded() && currentStack.getStack() > 0f;
+		return !state.isSittingOut() && !state.isFolded() && currentStack.getStackChips() > 0;
 	}
 	
 	/**
@@ -175,7 +176,7 @@ public class Player extends PlayerInfo {
 		cards.clear();
 		
 		state.resetForNewRound(currentStack.getStack());
-		currentStack.getCommitedPerRound().clear();
+		currentStack.clearCommitted();
 		rankedHand = null;
 	}
 	
@@ -213,10 +214,10 @@ public class Player extends PlayerInfo {
 	 * @param action
 	 * @param gameState
 	 * @param settings
-	 * @param maxRebuy
+	 * @param maxRebuy The re-buy amount, in minor units
 	 */
 	@SuppressWarnings("incomplete-switch")
-	public void doPlayerAction(PlayerAction action, final TexasGameState gameState, final GameSettings settings, final float maxRebuy) {
+	public void doPlayerAction(PlayerAction action, final TexasGameState gameState, final GameSettings settings, final long maxRebuy) {
 
 		// This method only handles actions that can be done out-of-turn
 		if (action.getAction().onTurnOnly()) {
@@ -232,7 +233,7 @@ public class Player extends PlayerInfo {
 				wasSuccess = false;
 				action.setSuccessful(false).setMessage("You cannot buy-in during a round");
 			} else {
-				final RebuyState boughtIn = getCurrentStack().reBuy(maxRebuy, settings.getAnte() * 2f);
+				final RebuyState boughtIn = getCurrentStack().reBuyChips(maxRebuy, Chips.of(settings.getAnte() * 2f));
 				final String mValue = MessageUtils.formatMoney(getCurrentStack().getWallet(), settings);
 				if (boughtIn==RebuyState.SUCCESS) {
 					action.setSuccessful(true).setMessage("You now have " + mValue + " left in your wallet");
@@ -285,11 +286,11 @@ public class Player extends PlayerInfo {
 	/** Get the player's current committed value for a given round
 	 * 
 	 * @param gameState
-	 * @return
+	 * @return The committed minor units
 	 */
 	@JsonIgnore
-	public float getCommit(TexasGameState gameState) {
-		return getCurrentStack().getCommitedPerRound().getOrDefault(gameState, 0f);
+	public long getCommit(TexasGameState gameState) {
+		return getCurrentStack().getCommittedChips(gameState);
 	}
 	
 	/** Perform a deep copy of the Player, their current Stack and State
@@ -0,0 +1,88 @@
+package com.langleydata.homepoker.game.players;
+
+import com.langleydata.homepoker.game.GameStats;
+import com.langleydata.homepoker.game.texasHoldem.Blinds;
+
+/** The state of a {@link Player} that carries from one round to the next, as saved when
+ * a table is checkpointed so the player can be restored after a restart.<p>
+ * The cards and bets of a round are not held, as a checkpoint is only taken between rounds.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class PlayerCheckpoint {
+	String playerId, playerHandle, email, picture, sessionId;
+	int seatingPos;
+
+	/* Stack, in minor units */
+	long stack, onTable, wallet;
+	boolean hostControlled, waitingOnFunds;
+
+	/* State */
+	long joinTime, cashOutTime;
+	Blinds blindsDue;
+	String sitNextRound;
+	boolean wasBigBlind, sittingOut, host, dealer, cashedOut;
+	int inactionTimeout;
+
+	/* Stats */
+	int handsPlayed, won, lost, volBets, rebuys, rank;
+	long timePlayed;
+	float initialWallet, balance;
+
+	/** Visible for de-serialisation
+	 *
+	 */
+	PlayerCheckpoint() {
+	}
+
+	/** Save the state of a player
+	 *
+	 * @param player
+	 * @return
+	 */
+	public static PlayerCheckpoint of(final Player player) {
+		final PlayerCheckpoint cp = new PlayerCheckpoint();
+		cp.playerId = player.getPlayerId();
+		cp.playerHandle = player.getPlayerHandle();
+		cp.email = player.getEmail();
+		cp.picture = player.getPicture();
+		cp.sessionId = player.getSessionId();
+		cp.seatingPos = player.getSeatingPos();
+		player.getCurrentStack().saveTo(cp);
+		player.getState().saveTo(cp);
+
+		final GameStats stats = player.getCurrentStack().getGameStats();
+		cp.handsPlayed = stats.getHandsPlayed();
+		cp.won = stats.getWon();
+		cp.lost = stats.getLost();
+		cp.volBets = stats.getVolBets();
+		cp.rebuys = stats.getRebuys();
+		cp.rank = stats.getRank();
+		cp.timePlayed = stats.getTimePlayed();
+		cp.initialWallet = stats.getInitialWallet();
+		cp.balance = stats.getBalance();
+		return cp;
+	}
+
+	/** Create a new Player in the saved state
+	 *
+	 * @return
+	 */
+	public Player toPlayer() {
+		final Player player = new Player(playerId, playerHandle);
+		player.setEmail(email);
+		player.setPicture(picture);
+		player.setSessionId(sessionId);
+		player.setSeatingPos(seatingPos);
+		player.getCurrentStack().restoreFrom(this);
+		player.getState().restoreFrom(this);
+		player.getCurrentStack().getGameStats()
+			.restore(handsPlayed, won, lost, volBets, rebuys, timePlayed, initialWallet, balance, rank);
+		return player;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+}
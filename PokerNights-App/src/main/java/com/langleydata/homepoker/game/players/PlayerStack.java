@@ -1,16 +1,17 @@
 package com.langleydata.homepoker.game.players;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.annotations.VisibleForTesting;
+import com.langleydata.homepoker.game.Chips;
 import com.langleydata.homepoker.game.GameStats;
-import com.langleydata.homepoker.game.PokerMathUtils;
 import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
 
-/** The set of chips that a Player has both on the table and in front of them
+/** The set of chips that a Player has both on the table and in front of them.<p>
+ * All values are held in {@link Chips} minor units; the float getters are for the UI
  * 
  * @author reynolds_mj
  *
@@ -23,14 +24,16 @@ public class PlayerStack {
 	}
 	private transient GameStats stats = new GameStats();
 	/** What they currently have in the current game */
-	private float onTable = 0;
+	private long onTable = 0;
 	/** The chips the user can play with */
-	private float stack = 0;
+	private long stack = 0;
 
 	/** Money lodged that can be used for buy-in's */
-	private float currentWallet = 0;
-	/** For each round of the game, what was the user's total bet */
-	private Map<TexasGameState, Float> commitedPerRound = new HashMap<>();
+	private long currentWallet = 0;
+	/** For each round of the game, what was the user's total bet, by the round's ordinal */
+	private long[] commitedPerRound = new long[TexasGameState.values().length];
+	/** A bit for each round the user has committed to, even if that was 0 (a check) */
+	private int roundsCommitted = 0;
 	/** Waiting on fund allocation */
 	private transient boolean isWOFA = false, isHostControlled = false;
 
@@ -42,7 +45,7 @@ public class PlayerStack {
 	public void initialise(final float deposit, final boolean hostControlledWallet) {
 		if (!hostControlledWallet) {
 			this.stats.setInitialWallet(deposit);
-			this.currentWallet = deposit;
+			this.currentWallet = Chips.of(deposit);
 		}
 		this.isHostControlled = hostControlledWallet;
 		this.isWOFA = hostControlledWallet;
@@ -59,43 +62,49 @@ public class PlayerStack {
 	 * @return True if we did, false if you don't have enough!
 	 */
 	public boolean addToTable(TexasGameState round, float value) {
+		return addChipsToTable(round, Chips.of(value));
+	}
+
+	/** Add money in to a single round of the current game - 
+	 * i.e. place money on the table
+	 * 
+	 * @param value The minor units to add in to the game
+	 * @return True if we did, false if you don't have enough!
+	 */
+	public boolean addChipsToTable(TexasGameState round, long value) {
 		
 		/* Previously we were checking if the passed
 		 * value was 0 and failing it, but this has issues when a 
 		 * player sits out mid-round. The previous check was when a user
 		 * was going all-in and it wasn't being added as bet. Stopping a 0
 		 * bet stopped the action moving to the next player */
-		final float rStack = getStack();
-		if (PokerMathUtils.floatEqualsZero(rStack)) {
+		if (stack == 0) {
 			return false;
 		}
 		
-		final float rValue = PokerMathUtils.rd(value);
-		
-		Float cThisRound = commitedPerRound.getOrDefault(round, 0f);
-		if (rStack >= rValue) {
-			cThisRound +=value;
-			commitedPerRound.put(round, cThisRound);
+		final int r = round.ordinal();
+		if (stack >= value) {
+			commitedPerRound[r] += value;
 			stack -= value;
-		} else if (rStack < rValue && rStack > 0) {
+		} else {
 			// Commit whole stack (all-in)
-			cThisRound += rStack;
-			commitedPerRound.put(round, cThisRound);
+			commitedPerRound[r] += stack;
 			stack = 0;
 		}
-		onTable = cThisRound;
+		roundsCommitted |= 1 << r;
+		onTable = commitedPerRound[r];
 		return true;
 	}
 	
 	/** Return the amount that is on the table and set the table 
 	 * amount to 0
 	 * 
-	 * @return The amount that was on the table
+	 * @return The minor units that were on the table
 	 */
-	public double collectBets() {
-		double ret = onTable;
-		onTable = 0f;
-		stats.calcBalance(currentWallet + stack);
+	public long collectBets() {
+		final long ret = onTable;
+		onTable = 0;
+		stats.calcBalance(Chips.toFloat(currentWallet + stack));
 		if ((currentWallet + stack) == 0 && isHostControlled) {
 			isWOFA = true;
 		}
@@ -117,11 +126,23 @@ public class PlayerStack {
 	 * @param toRefund The amount to transfer
 	 * @return The new onTable amount
 	 */
-	double reverseBet(final float toRefund, final TexasGameState gameState) {
+	@VisibleForTesting
+	float reverseBet(final float toRefund, final TexasGameState gameState) {
+		return Chips.toFloat(refund(Chips.of(toRefund), gameState));
+	}
+
+	/** Transfer the provided minor units from the onTable amount
+	 * back to the player's stack and adjust their commitment value
+	 * 
+	 * @param toRefund The minor units to transfer
+	 * @return The new onTable minor units
+	 */
+	long refund(final long toRefund, final TexasGameState gameState) {
 		stack +=toRefund;
-		if (PokerMathUtils.rd(onTable) >= PokerMathUtils.rd(toRefund)) {
+		if (onTable >= toRefund) {
 			onTable-=toRefund;
-			commitedPerRound.put(gameState, onTable);
+			commitedPerRound[gameState.ordinal()] = onTable;
+			roundsCommitted |= 1 << gameState.ordinal();
 		}
 		return onTable;
 	}
@@ -133,9 +154,49 @@ public class PlayerStack {
 	 */
 	@JsonIgnore
 	public float getTotalBetInRound() {
-		return (float) commitedPerRound.values().stream()
-			.mapToDouble(Float::floatValue)
-			.sum();
+		return Chips.toFloat(getTotalCommittedChips());
+	}
+
+	/** Get the total minor units bet throughout the last round, regardless of which 
+	 * betting round it was
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public long getTotalCommittedChips() {
+		long total = 0;
+		for (long c : commitedPerRound) {
+			total += c;
+		}
+		return total;
+	}
+
+	/** Get the minor units committed in a single betting round
+	 * 
+	 * @param round
+	 * @return The minor units, or 0 if nothing was committed
+	 */
+	public long getCommittedChips(final TexasGameState round) {
+		return commitedPerRound[round.ordinal()];
+	}
+
+	/** Has the user committed to a betting round, including checking (a 0 bet)?
+	 * 
+	 * @param round
+	 * @return
+	 */
+	public boolean hasCommitted(final TexasGameState round) {
+		return (roundsCommitted & (1 << round.ordinal())) != 0;
+	}
+
+	/** Clear the commitments for all rounds, ready for the next game
+	 * 
+	 */
+	void clearCommitted() {
+		for (int i = 0; i < commitedPerRound.length; i++) {
+			commitedPerRound[i] = 0;
+		}
+		roundsCommitted = 0;
 	}
 	
 	/**
@@ -145,12 +206,19 @@ public class PlayerStack {
 		return isWOFA;
 	}
 
-	/**
+	/** Get a copy of the value committed in each round the user has committed to
+	 * 
 	 * @return the commitedPerRound
 	 */
 	@JsonIgnore
 	public Map<TexasGameState, Float> getCommitedPerRound() {
-		return commitedPerRound;
+		final Map<TexasGameState, Float> ret = new EnumMap<>(TexasGameState.class);
+		for (TexasGameState round : TexasGameState.values()) {
+			if (hasCommitted(round)) {
+				ret.put(round, Chips.toFloat(commitedPerRound[round.ordinal()]));
+			}
+		}
+		return ret;
 	}
 
 	/** How much is the current bet on table
@@ -158,7 +226,16 @@ public class PlayerStack {
 	 * @return the onTable
 	 */
 	public float getOnTable() {
-		return PokerMathUtils.rd(onTable);
+		return Chips.toFloat(onTable);
+	}
+
+	/** The minor units of the current bet on table
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public long getOnTableChips() {
+		return onTable;
 	}
 	
 	/** The total amount available to the player on the table
@@ -168,7 +245,17 @@ public class PlayerStack {
 	 */
 	@JsonIgnore
 	public float getRoundedTotalStack() {
-		return PokerMathUtils.rd(onTable + stack);
+		return Chips.toFloat(getTotalStackChips());
+	}
+
+	/** The total minor units available to the player on the table
+	 * and in their stack
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public long getTotalStackChips() {
+		return onTable + stack;
 	}
 
 	/**
@@ -176,16 +263,24 @@ public class PlayerStack {
 	 */
 	@JsonProperty
 	public float getStack() {
-		return PokerMathUtils.rd(stack);
+		return Chips.toFloat(stack);
 	}
 
 	/**
-	 * @param stack the stack to set
+	 * @return the stack in minor units
 	 */
-	@VisibleForTesting
 	@JsonIgnore
+	public long getStackChips() {
+		return stack;
+	}
+
+	/** Set the stack. Also used for the deposit a joining player sends as their 'stack'
+	 * 
+	 * @param stack the stack to set
+	 */
+	@JsonProperty
 	public void setStack(float stack) {
-		this.stack = stack;
+		this.stack = Chips.of(stack);
 	}
 	
 	/** What the user has lodged to play with
@@ -194,7 +289,16 @@ public class PlayerStack {
 	 */
 	@JsonIgnore
 	public float getWallet() {
-		return PokerMathUtils.rd(currentWallet);
+		return Chips.toFloat(currentWallet);
+	}
+
+	/** The minor units the user has lodged to play with
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public long getWalletChips() {
+		return currentWallet;
 	}
 
 	/** Transfer money directly to players stack. This gets called for
@@ -204,9 +308,18 @@ public class PlayerStack {
 	 * @return The new stack value
 	 */
 	public float transferWinAmount(float winAmount) {
+		return Chips.toFloat(transferWinChips(Chips.of(winAmount)));
+	}
+
+	/** Transfer minor units directly to players stack
+	 * 
+	 * @param winAmount The minor units to transfer
+	 * @return The new stack minor units
+	 */
+	public long transferWinChips(long winAmount) {
 		if (winAmount > 0) {
 			stack += winAmount;
-			getGameStats().calcBalance(stack + currentWallet);
+			getGameStats().calcBalance(Chips.toFloat(stack + currentWallet));
 		}
 		
 		return stack;
@@ -219,12 +332,13 @@ public class PlayerStack {
 	 * @return The new stack value
 	 */
 	public float reduceStack(float reduceBy) {
-		if (stack > reduceBy) {
-			stack -= PokerMathUtils.rd(reduceBy);
-			getGameStats().calcBalance(stack + currentWallet);
+		final long chips = Chips.of(reduceBy);
+		if (stack > chips) {
+			stack -= chips;
+			getGameStats().calcBalance(Chips.toFloat(stack + currentWallet));
 		}
 		
-		return stack;
+		return Chips.toFloat(stack);
 	}
 	
 	/** Assign a wallet value to the player's stack, when a host-controlled-wallet game
@@ -237,7 +351,7 @@ public class PlayerStack {
 	public boolean assignWallet(final float value, final float buyInAmount) {
 		if (isWOFA) {
 			this.stats.setInitialWallet(value);
-			this.currentWallet = value;
+			this.currentWallet = Chips.of(value);
 			if (reBuy(buyInAmount, 0f) == RebuyState.SUCCESS) {
 				isWOFA = false;
 				stats.setRebuys(0);
@@ -257,19 +371,29 @@ public class PlayerStack {
 	 * @return NON_ZERO_STACK, NO_FUNDS or SUCCESS
 	 */
 	public RebuyState reBuy(float buyInAmount, float minPermissible) {
+		return reBuyChips(Chips.of(buyInAmount), Chips.of(minPermissible));
+	}
+
+	/** Re-buy in to the game, as per {@link #reBuy(float, float)}
+	 * 
+	 * @param buyIn The required buy-in, in minor units
+	 * @param minPermissible The minimum permissible amount in the player's stack, in minor units
+	 * @return NON_ZERO_STACK, NO_FUNDS or SUCCESS
+	 */
+	public RebuyState reBuyChips(final long buyIn, final long minPermissible) {
 		
-		if (getRoundedTotalStack() > PokerMathUtils.rd(minPermissible)) {
+		if (getTotalStackChips() > minPermissible) {
 			return RebuyState.NON_ZERO_STACK;
 		}
 		
 		// Alter the amounts
-		if (PokerMathUtils.rd(currentWallet) >= buyInAmount) {
-			if (buyInAmount > 0) {
-				stats.addRebuy(currentWallet);
+		if (currentWallet >= buyIn) {
+			if (buyIn > 0) {
+				stats.addRebuy(Chips.toFloat(currentWallet));
 			}
-			stack += buyInAmount;
-			currentWallet -= buyInAmount;
-			stats.calcBalance(stack + currentWallet);
+			stack += buyIn;
+			currentWallet -= buyIn;
+			stats.calcBalance(Chips.toFloat(stack + currentWallet));
 			return RebuyState.SUCCESS;
 		}
 		return RebuyState.NO_FUNDS;
@@ -285,20 +409,44 @@ public class PlayerStack {
 			return false;
 		}
 		currentWallet += stack;
-		stats.calcBalance(currentWallet);
+		stats.calcBalance(Chips.toFloat(currentWallet));
 		stack = 0;
 		return true;
 	}
 
+	/** Save the chips to a checkpoint
+	 * 
+	 * @param cp
+	 */
+	void saveTo(final PlayerCheckpoint cp) {
+		cp.stack = stack;
+		cp.onTable = onTable;
+		cp.wallet = currentWallet;
+		cp.hostControlled = isHostControlled;
+		cp.waitingOnFunds = isWOFA;
+	}
+	
+	/** Restore the chips from a checkpoint
+	 * 
+	 * @param cp
+	 */
+	void restoreFrom(final PlayerCheckpoint cp) {
+		stack = cp.stack;
+		onTable = cp.onTable;
+		currentWallet = cp.wallet;
+		isHostControlled = cp.hostControlled;
+		isWOFA = cp.waitingOnFunds;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
 		builder.append("PlayerStack [onTable=");
-		builder.append(onTable);
+		builder.append(Chips.toFloat(onTable));
 		builder.append(", stack=");
-		builder.append(stack);
+		builder.append(Chips.toFloat(stack));
 		builder.append(", wallet=");
-		builder.append(currentWallet);
+		builder.append(Chips.toFloat(currentWallet));
 		builder.append("]");
 		return builder.toString();
 	}
@@ -296,6 +296,40 @@ public class PlayerState {
 		return sitNextRound != prevState || immediate;
 	}
 	
+	/** Save the state that carries between rounds to a checkpoint
+	 * 
+	 * @param cp
+	 */
+	void saveTo(final PlayerCheckpoint cp) {
+		cp.joinTime = joinTime;
+		cp.cashOutTime = cashOutTime;
+		cp.blindsDue = blindsDue;
+		cp.sitNextRound = sitNextRound.name();
+		cp.wasBigBlind = wasBigBlind;
+		cp.sittingOut = sittingOut;
+		cp.host = isHost;
+		cp.dealer = isDealer;
+		cp.cashedOut = cashedOut;
+		cp.inactionTimeout = inactionTimeout;
+	}
+	
+	/** Restore the state from a checkpoint
+	 * 
+	 * @param cp
+	 */
+	void restoreFrom(final PlayerCheckpoint cp) {
+		joinTime = cp.joinTime;
+		cashOutTime = cp.cashOutTime;
+		blindsDue = cp.blindsDue == null ? Blinds.NONE : cp.blindsDue;
+		sitNextRound = cp.sitNextRound == null ? SIT_NEXT_ROUND.NONE : SIT_NEXT_ROUND.valueOf(cp.sitNextRound);
+		wasBigBlind = cp.wasBigBlind;
+		sittingOut = cp.sittingOut;
+		isHost = cp.host;
+		isDealer = cp.dealer;
+		cashedOut = cp.cashedOut;
+		inactionTimeout = cp.inactionTimeout;
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
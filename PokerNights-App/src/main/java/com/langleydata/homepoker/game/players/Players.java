@@ -1,11 +1,14 @@
 package com.langleydata.homepoker.game.players;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -13,36 +16,143 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.google.common.collect.Iterables;
-import com.langleydata.homepoker.game.PokerMathUtils;
+import com.langleydata.homepoker.game.Chips;
 import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
 import com.langleydata.homepoker.player.PlayerInfo;
 
-/** A set of players bound to a single game
+/** A set of players bound to a single game.<p>
+ * The players are also held by seat and indexed by their player and session ids, so
+ * the lookups made on each action don't scan or sort the set. The indexes are kept up
+ * to date as players are added and removed, so a player's seat must not be changed while
+ * they're seated. The action, dealer and host flags are held on each player's state and can
+ * be changed directly, so the players last found with them are cached and checked on each use.
  * 
  * @author Mike Reynolds
  *
  */
 public class Players extends HashSet<Player> {
 	private static final long serialVersionUID = 3849301378294958247L;
-	private static final Lock lock = new ReentrantLock();
+	private static final int DEFAULT_SEATS = 10;
+	private final transient Lock lock = new ReentrantLock();
+	private transient Player[] seats = new Player[DEFAULT_SEATS];
+	private final transient Map<String, Player> byId = new ConcurrentHashMap<>();
+	private final transient Map<String, Player> bySession = new ConcurrentHashMap<>();
+	private transient Player actionOn;
+	private transient Player dealer;
+	private transient Player host;
 
 	
 	@Override
 	public boolean add(Player newPlayer) {
+		// Already at the table, so don't move them
+		if (contains(newPlayer)) {
+			return false;
+		}
 		
 		// Sit the player at the next available position
 		if (newPlayer.getSeatingPos() == -1) {
 			newPlayer.setSeatingPos(getNextAvailableSeat());
 		} else {
 			// Does someone already have this seat? (Shouldn't really happen)
-			if (this.stream()
-				.anyMatch(p -> p.getSeatingPos() == newPlayer.getSeatingPos()) ) {
+			if (getPlayerInSeat(newPlayer.getSeatingPos()) != null) {
 				newPlayer.setSeatingPos(getNextAvailableSeat());
 			}
 		}
 		
-		return super.add(newPlayer);
+		if (super.add(newPlayer) == false) {
+			return false;
+		}
+		final int seat = newPlayer.getSeatingPos();
+		if (seat >= seats.length) {
+			seats = Arrays.copyOf(seats, Math.max(seat + 1, seats.length * 2));
+		}
+		seats[seat] = newPlayer;
+		if (newPlayer.getPlayerId() != null) {
+			byId.put(newPlayer.getPlayerId(), newPlayer);
+		}
+		if (newPlayer.getSessionId() != null) {
+			bySession.put(newPlayer.getSessionId(), newPlayer);
+		}
+		return true;
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		if (super.remove(o) == false) {
+			return false;
+		}
+		unindex(o);
+		return true;
+	}
+	
+	@Override
+	public void clear() {
+		super.clear();
+		Arrays.fill(seats, null);
+		byId.clear();
+		bySession.clear();
+		actionOn = dealer = host = null;
+	}
+	
+	@Override
+	public Iterator<Player> iterator() {
+		final Iterator<Player> it = super.iterator();
+		return new Iterator<Player>() {
+			private Player last;
+			
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+			
+			@Override
+			public Player next() {
+				last = it.next();
+				return last;
+			}
+			
+			@Override
+			public void remove() {
+				it.remove();
+				unindex(last);
+			}
+		};
+	}
+	
+	/** Remove a player that has left the set from the indexes
+	 * 
+	 * @param o
+	 */
+	private void unindex(final Object o) {
+		for (int i = 0; i < seats.length; i++) {
+			if (seats[i] != null && seats[i].equals(o)) {
+				final Player removed = seats[i];
+				seats[i] = null;
+				if (removed.getPlayerId() != null) {
+					byId.remove(removed.getPlayerId(), removed);
+				}
+				bySession.values().remove(removed);
+				if (removed == actionOn) {
+					actionOn = null;
+				}
+				if (removed == dealer) {
+					dealer = null;
+				}
+				if (removed == host) {
+					host = null;
+				}
+				return;
+			}
+		}
+	}
+	
+	/** Get the player in a seat
+	 * 
+	 * @param seat The seating position
+	 * @return The player, or null if the seat is empty
+	 */
+	public Player getPlayerInSeat(final int seat) {
+		return seat < 0 || seat >= seats.length ? null : seats[seat];
 	}
 	
 	/** Get the next seating position available
@@ -50,19 +160,12 @@ public class Players extends HashSet<Player> {
 	 * @return
 	 */
 	private int getNextAvailableSeat() {
-		List<Player> bySeat = getInSeatOrder();
-		
-		// Ensure position 0 is filled
-		if (bySeat.size()==0 || bySeat.get(0).getSeatingPos() !=0) {
-			return 0;
-		}
-		
-		for (int i=0; i < bySeat.size() -1; i++) {
-			if ( (bySeat.get(i).getSeatingPos() + 1) != bySeat.get(i + 1).getSeatingPos()) {
-				return bySeat.get(i).getSeatingPos() + 1;
+		for (int i = 0; i < seats.length; i++) {
+			if (seats[i] == null) {
+				return i;
 			}
 		}
-		return bySeat.size();
+		return seats.length;
 	}
 	
 	/**
@@ -74,52 +177,45 @@ public class Players extends HashSet<Player> {
 	 * @return The total amount collected
 	 */
 	public float collectBets(final TexasGameState gameState) {
-		if (!lock.tryLock()) {
-			return 0f;
-		}
-		
+		return Chips.toFloat(collectBetChips(gameState));
+	}
+
+	/** Collect all the bets, as per {@link #collectBets(TexasGameState)}
+	 * 
+	 * @param gameState
+	 * @return The total minor units collected
+	 */
+	public long collectBetChips(final TexasGameState gameState) {
+		lock.lock();
 		try {
-			final List<Double> allBets = this
-				.stream()
-				.mapToDouble(p -> p.getCommit(gameState))
-				.sorted()
-				.boxed()
-				.collect(Collectors.toList());
-			
-			if (allBets.size()==0) {
-				return 0f;
-			}
-			
-			final double highest = allBets.get(allBets.size()-1);
-			double nextHighest = highest;
-			if (allBets.size() > 1) {
-				nextHighest = allBets.get(allBets.size()-2);
+			// Find the two highest bets, and the first player to place the highest
+			Player pHigh = null;
+			long highest = Long.MIN_VALUE, nextHighest = Long.MIN_VALUE;
+			for (Player p : this) {
+				final long commit = p.getCommit(gameState);
+				if (commit > highest) {
+					nextHighest = highest;
+					highest = commit;
+					pHigh = p;
+				} else if (commit > nextHighest) {
+					nextHighest = commit;
+				}
 			}
 			
 			// If the two highest bets are not equal, we have to refund the highest
 			// the difference so there's equality. Any subsequent lower values results in a split pot
-			if (PokerMathUtils.floatEquals(highest, nextHighest)==false) {
-				
-				final Player pHigh = this.stream()
-					.filter(p -> PokerMathUtils.floatEquals(p.getCommit(gameState), highest))
-					.findFirst()
-					.orElse(null);
-				
-				if (pHigh != null) {
-					pHigh.getCurrentStack().reverseBet((float) (highest-nextHighest), gameState);
-				}
+			if (size() > 1 && highest != nextHighest) {
+				pHigh.getCurrentStack().refund(highest-nextHighest, gameState);
 			}
 			
-			
-			return (float) stream()
-					.mapToDouble(p -> p.getCurrentStack().collectBets())
-					.sum();
-		} catch (Exception e) {
-			
+			long total = 0;
+			for (Player p : this) {
+				total += p.getCurrentStack().collectBets();
+			}
+			return total;
 		} finally {
 			lock.unlock();
 		}
-		return 0f;
 	}
 	
 	/** Update all player's win/loose stats. Any players sitting out are
@@ -140,33 +236,42 @@ public class Players extends HashSet<Player> {
 	 * @return The maximum permissible bet 
 	 */
 	public float getMaxBetPossible(final PlayerInfo toExclude) {
+		return Chips.toFloat(getMaxBetPossibleChips(toExclude));
+	}
 
-		return (float) getPlayersInHand(false)
-						.stream()
-						.filter(p -> !p.equals(toExclude))
-						.mapToDouble(p -> p.getCurrentStack().getRoundedTotalStack())
-						.filter(v -> v > 0)
-						.max()
-						.orElse(0);
+	/** Get the maximum bet possible, as per {@link #getMaxBetPossible(PlayerInfo)}
+	 * 
+	 * @param toExclude The current player (to exclude from the check)
+	 * @return The maximum permissible bet, in minor units
+	 */
+	public long getMaxBetPossibleChips(final PlayerInfo toExclude) {
+		long max = 0;
+		for (Player p : seats) {
+			if (p != null && isInHand(p) && !p.equals(toExclude)) {
+				max = Math.max(max, p.getCurrentStack().getTotalStackChips());
+			}
+		}
+		return max;
 	}
 	/** Get the maximum on the table from any player at the current time
 	 * 
 	 * @return
 	 */
 	public float getMaxBetInRound() {
-		return (float) getPlayersInHand()
-						.stream()
-						.mapToDouble(p -> p.getCurrentStack().getOnTable())
-						.max()
-						.orElse(0);
-			
+		long max = 0;
+		for (Player p : seats) {
+			if (p != null && isInHand(p)) {
+				max = Math.max(max, p.getCurrentStack().getOnTableChips());
+			}
+		}
+		return Chips.toFloat(max);
 	}
 	/** For all players that have zero left to play with, auto-sit them out of the next round.
 	 * These players will have to buy back in to continue;
 	 */
 	public void autoExcludeZeroStacks() {
 		this.forEach(p->{
-			if (PokerMathUtils.floatEqualsZero(p.getCurrentStack().getStack()) && !p.getState().isSittingOut()) {
+			if (p.getCurrentStack().getStackChips() == 0 && !p.getState().isSittingOut()) {
 				p.getState().toggleSittingOut(TexasGameState.COMPLETE, true);
 			}
 		});
@@ -193,17 +298,18 @@ public class Players extends HashSet<Player> {
 	 */
 	@JsonIgnore
 	public List<Player> getPlayersInHand(final boolean excludeZeroStacks) {
-		if (excludeZeroStacks) {
-			return this.stream()
-					.filter(Player::isStillInHand)
-					.sorted(Comparator.comparing(Player::getSeatingPos, Comparator.naturalOrder()))
-					.collect(Collectors.toList());
-		} else {
-			return this.stream()
-					.filter(p -> !p.getState().isSittingOut() && !p.getState().isFolded())
-					.sorted(Comparator.comparing(Player::getSeatingPos, Comparator.naturalOrder()))
-					.collect(Collectors.toList());
+		final List<Player> inHand = new ArrayList<>(size());
+		for (Player p : seats) {
+			if (p != null && (excludeZeroStacks ? p.isStillInHand() : isInHand(p))) {
+				inHand.add(p);
+			}
 		}
+		return inHand;
+	}
+	
+	/** Not folded or sitting out, but could have nothing left to bet */
+	private static boolean isInHand(final Player p) {
+		return !p.getState().isSittingOut() && !p.getState().isFolded();
 	}
 	/** Get a player based on the PlayerInfo equals method (id and handle)
 	 * 
@@ -211,10 +317,11 @@ public class Players extends HashSet<Player> {
 	 * @return
 	 */
 	public Player getPlayer(final PlayerInfo pi) {
-		return this.stream()
-				.filter(p -> p.equals(pi))
-				.findFirst()
-				.orElse(null);
+		if (pi == null) {
+			return null;
+		}
+		final Player p = pi.getPlayerId() == null ? null : byId.get(pi.getPlayerId());
+		return p != null && p.equals(pi) ? p : null;
 	}
 	/**
 	 * Get a current player by their persistent player Id
@@ -227,22 +334,31 @@ public class Players extends HashSet<Player> {
 			return null;
 		}
 		
-		return this.stream()
-			.filter(p -> p.getPlayerId().equals(playerId))
-			.findFirst()
-			.orElse(null);
+		return byId.get(playerId);
 	}
 	
-	/** Get a user by their transient session id
+	/** Get a user by their transient session id. A player's session id can change
+	 * when they reconnect, so the seats are searched if it isn't indexed
 	 * 
 	 * @param sessionId
 	 * @return
 	 */
 	public Player getPlayerBySessionId(final String sessionId) {
-		return this.stream()
-				.filter(p -> p.getSessionId().equals(sessionId))
-				.findFirst()
-				.orElse(null);
+		if (sessionId == null) {
+			return null;
+		}
+		final Player indexed = bySession.get(sessionId);
+		if (indexed != null && sessionId.equals(indexed.getSessionId())) {
+			return indexed;
+		}
+		for (Player p : seats) {
+			if (p != null && sessionId.equals(p.getSessionId())) {
+				bySession.values().remove(p);
+				bySession.put(sessionId, p);
+				return p;
+			}
+		}
+		return null;
 	}
 	
 	/** Get the current game host
@@ -251,10 +367,17 @@ public class Players extends HashSet<Player> {
 	 */
 	@JsonIgnore
 	public Player getHost() {
-		return this.stream()
-				.filter( p -> p.getState().isHost() )
-				.findFirst()
-				.orElse(null);
+		if (host != null && host.getState().isHost()) {
+			return host;
+		}
+		host = null;
+		for (Player p : seats) {
+			if (p != null && p.getState().isHost()) {
+				host = p;
+				break;
+			}
+		}
+		return host;
 	}
 	/**
 	 * Get the current dealer, or the player at the first seating position
@@ -263,30 +386,28 @@ public class Players extends HashSet<Player> {
 	 */
 	@JsonIgnore
 	public Player getDealer() {
-		final List<Player> ps = this.stream()
-				.sorted(Comparator.comparing(Player::getSeatingPos, Comparator.naturalOrder()))
-				.collect(Collectors.toList());
-		
-		// Quick exit for simple cases
-		if (ps.size()==0) {
-			return null;
-		} else if (ps.size()==1) {
-			return ps.get(0);
+		if (dealer != null && dealer.getState().isDealer()) {
+			return dealer;
 		}
 		
 		// Get any player with the dealer flag...
-		Player dealer = ps.stream()
-				.filter(p -> p.getState().isDealer())
-				.findFirst()
-				.orElse(null);
-		
-		if (dealer!=null) {
-			return dealer;
-		} else {
-			// only case left is multiple players, but none flagged as dealer yet
-			// so get the first in the sorted list
-			return ps.get(0);
+		dealer = null;
+		Player first = null;
+		for (Player p : seats) {
+			if (p == null) {
+				continue;
+			}
+			if (first == null) {
+				first = p;
+			}
+			if (p.getState().isDealer()) {
+				dealer = p;
+				return dealer;
+			}
 		}
+		
+		// otherwise none flagged as dealer yet, so get the first by seat, or null if there are no players
+		return first;
 	}
 
 	/**
@@ -297,9 +418,11 @@ public class Players extends HashSet<Player> {
 	 */
 	public boolean resetActionPositionForDeal() {
 		this.forEach(p -> p.getState().setActionOn(false));
+		actionOn = null;
 		Player first = getPlayerRelativeTo(getDealer(), 1, true);
 		if (first != null) {
 			first.getState().setActionOn(true);
+			actionOn = first;
 			return true;
 		} else {
 			return false;
@@ -322,6 +445,7 @@ public class Players extends HashSet<Player> {
 		
 		currentPlayer.getState().setActionOn(false);
 		next.getState().setActionOn(true);
+		actionOn = next;
 		return true;
 	}
 
@@ -333,9 +457,9 @@ public class Players extends HashSet<Player> {
 	@JsonIgnore
 	public List<Player> getUnRankedLoosers() {
 		return this.stream()
-			.filter(p -> PokerMathUtils.floatEqualsZero(p.getCurrentStack().getStack()))
+			.filter(p -> p.getCurrentStack().getStackChips() == 0)
 			.filter(p -> p.getCurrentStack().getGameStats().getRank() == 0)
-			.sorted(Comparator.comparing(p->p.getCurrentStack().getTotalBetInRound(), Comparator.naturalOrder()))
+			.sorted(Comparator.comparingLong(p->p.getCurrentStack().getTotalCommittedChips()))
 			.collect(Collectors.toList());
 	}
 	
@@ -346,7 +470,7 @@ public class Players extends HashSet<Player> {
 	public List<Player> getRankedPlayers() {
 		return this.stream()
 				.filter(p -> p.getCurrentStack().getGameStats().getRank() > 0)
-				.sorted(Comparator.comparing(p->p.getCurrentStack().getTotalBetInRound(), Comparator.naturalOrder()))
+				.sorted(Comparator.comparingLong(p->p.getCurrentStack().getTotalCommittedChips()))
 				.collect(Collectors.toList());
 	}
 
@@ -381,13 +505,27 @@ public class Players extends HashSet<Player> {
 	 */
 	@JsonIgnore
 	public Player getActionOn() {
-		return this.stream().filter(p -> p.getState().isActionOnMe()).findFirst().orElse(null);
+		if (actionOn != null && actionOn.getState().isActionOnMe()) {
+			return actionOn;
+		}
+		actionOn = null;
+		for (Player p : seats) {
+			if (p != null && p.getState().isActionOnMe()) {
+				actionOn = p;
+				break;
+			}
+		}
+		return actionOn;
 	}
 	
 	List<Player> getInSeatOrder() {
-		return this.stream()
-				.sorted(Comparator.comparing(Player::getSeatingPos, Comparator.naturalOrder()))
-				.collect(Collectors.toList());
+		final List<Player> bySeat = new ArrayList<>(size());
+		for (Player p : seats) {
+			if (p != null) {
+				bySeat.add(p);
+			}
+		}
+		return bySeat;
 	}
 	
 	/** Set a new randomised dealer
@@ -396,9 +534,19 @@ public class Players extends HashSet<Player> {
 	 * @return The new dealer
 	 */
 	public Player setRandomDealer(final boolean onlyInHand) {
+		return setRandomDealer(onlyInHand, new Random());
+	}
+	
+	/** Set a new randomised dealer
+	 * 
+	 * @param onlyInHand Restrict to only those players in the hand?
+	 * @param random The source of the dealer's position, which can be seeded so the choice can be replayed
+	 * @return The new dealer
+	 */
+	public Player setRandomDealer(final boolean onlyInHand, final Random random) {
 		Player currDealer = getDealer();
 		
-		int dealerSeat = new Random().nextInt(this.size());
+		int dealerSeat = random.nextInt(this.size());
 		Player randDealer = getPlayerRelativeTo(currDealer, dealerSeat, onlyInHand);
 		randDealer.getState().setActionOn(true);
 		randDealer.getState().setDealer(true);
@@ -406,6 +554,7 @@ public class Players extends HashSet<Player> {
 		currDealer.getState().setActionOn(false);
 		currDealer.getState().setDealer(false);
 		
+		actionOn = dealer = randDealer;
 		return randDealer;
 	}
 	/** Get a player relative to another player, based on seating position
@@ -422,48 +571,24 @@ public class Players extends HashSet<Player> {
 		if (relative==0) {
 			return start;
 		}
-		List<Player> players = getInSeatOrder();
-		if (relative < 0) {
-			players.sort(Comparator.comparing(Player::getSeatingPos, Comparator.reverseOrder()));
+		final Player seated = getPlayerInSeat(start.getSeatingPos());
+		if (seated == null || !seated.equals(start)) {
+			throw new IllegalArgumentException("The starting player is not seated");
 		}
-		List<Player> toCycle = new ArrayList<>();
 		
-		if (inHandOnly) {
-			for (Player p : players) {
-				if (p.isStillInHand() || start.equals(p)) {
-					toCycle.add(p);
-				} else {
-					toCycle.add(null);
+		/* Walk around the seats in the direction of rotation (-/+), counting each
+		 * player that can be moved to. The start always counts, so this ends */
+		final int step = relative < 0 ? -1 : 1;
+		int seat = start.getSeatingPos(), cnt = 0;
+		while (true) {
+			seat = Math.floorMod(seat + step, seats.length);
+			final Player player = seats[seat];
+			if (player != null && (!inHandOnly || player.isStillInHand() || player.equals(start))) {
+				if (++cnt == Math.abs(relative)) {
+					return player;
 				}
-			
-			}
-		} else {
-			toCycle.addAll(players);
-		}
-
-		int cnt = 0, safety = 0;
-		Player player = null;
-		boolean reachedStart = false;
-		Iterator<Player> cycle = Iterables.cycle(toCycle).iterator();
-		
-		/* Cycle around the list of sorted players in the game, starting the 
-		 * counter when we reached the 'start' player. The list of potential players
-		 * is already sorted according to the direction of rotation (-/+) therefore 
-		 * we only need to increment per position */
-		while (cycle.hasNext() && cnt < Math.abs(relative) + 1) {
-			player = cycle.next();
-			if (reachedStart || (player!=null && player.equals(start))) {
-				if (player!=null) {
-					cnt++;
-				}
-				reachedStart = true;
-			}
-			safety++;
-			if (safety >= 30) {
-				throw new IllegalArgumentException("Potential infinite loop cycling players");
 			}
 		}
-		return player;
 	}
 
 	/** Clone all current players
@@ -0,0 +1,99 @@
+package com.langleydata.homepoker.game.texasHoldem;
+
+/** The result of an equity calculation - each player's chance of winning or
+ * tying from the cards known, as a percentage.<p>
+ * The values for each player are in the same order as the hole cards that were
+ * passed to the {@link EquityCalculator}
+ *
+ * @author reynolds_mj
+ *
+ */
+public class Equity {
+	private final double[] win;
+	private final double[] tie;
+	private final double[] equity;
+	private final long boards;
+	private final boolean exhaustive;
+
+	/**
+	 *
+	 * @param wins The number of boards each player won outright
+	 * @param ties The number of boards each player tied
+	 * @param shares The total share of the pot won by each player, across all boards
+	 * @param boards The number of boards evaluated
+	 * @param exhaustive True if every possible board was evaluated
+	 */
+	Equity(final long[] wins, final long[] ties, final double[] shares, final long boards, final boolean exhaustive) {
+		this.boards = boards;
+		this.exhaustive = exhaustive;
+		this.win = new double[wins.length];
+		this.tie = new double[wins.length];
+		this.equity = new double[wins.length];
+		for (int i = 0; i < wins.length; i++) {
+			win[i] = percent(wins[i]);
+			tie[i] = percent(ties[i]);
+			equity[i] = percent(shares[i]);
+		}
+	}
+
+	/**
+	 *
+	 * @param win The percentage of boards each player won outright
+	 * @param tie The percentage of boards each player tied
+	 * @param equity Each player's share of the pot as a percentage
+	 * @param boards The number of boards evaluated
+	 * @param exhaustive True if every possible board was evaluated
+	 */
+	Equity(final double[] win, final double[] tie, final double[] equity, final long boards, final boolean exhaustive) {
+		this.win = win;
+		this.tie = tie;
+		this.equity = equity;
+		this.boards = boards;
+		this.exhaustive = exhaustive;
+	}
+
+	private double percent(final double value) {
+		return boards == 0 ? 0 : Math.round(value * 10000d / boards) / 100d;
+	}
+
+	/** The percentage of boards each player won outright
+	 *
+	 * @return
+	 */
+	public double[] getWin() {
+		return win;
+	}
+
+	/** The percentage of boards each player tied for the best hand
+	 *
+	 * @return
+	 */
+	public double[] getTie() {
+		return tie;
+	}
+
+	/** Each player's share of the pot as a percentage, i.e. the wins plus their portion of
+	 * any tied boards
+	 *
+	 * @return
+	 */
+	public double[] getEquity() {
+		return equity;
+	}
+
+	/** How many boards were evaluated
+	 *
+	 * @return
+	 */
+	public long getBoards() {
+		return boards;
+	}
+
+	/** Was every possible board evaluated, or was it a random sample?
+	 *
+	 * @return
+	 */
+	public boolean isExhaustive() {
+		return exhaustive;
+	}
+}
@@ -0,0 +1,415 @@
+package com.langleydata.homepoker.game.texasHoldem;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.deck.CardNumber;
+import com.langleydata.homepoker.deck.CardSuit;
+import com.langleydata.homepoker.game.texasHoldem.ranking.SevenCardEvaluator;
+
+/** Calculates each player's chance of winning from their hole cards, any cards already
+ * on the table and any cards known to be out of the deck (dead).<p>
+ * If there are few enough possible boards, every one is evaluated. Otherwise a random
+ * sample of boards is evaluated. Either way the work is split across a {@link ForkJoinPool},
+ * with each task keeping its own working arrays (and random number generator) so nothing
+ * is allocated per board.
+ *
+ * @author reynolds_mj
+ *
+ */
+@Component
+public class EquityCalculator {
+	/** Above this many possible boards, a random sample is evaluated instead */
+	public static final long EXHAUSTIVE_LIMIT = 200_000;
+	/** The default number of boards to sample */
+	public static final int DEFAULT_SAMPLES = 50_000;
+	/** The maximum number of boards that can be sampled */
+	public static final int MAX_SAMPLES = 1_000_000;
+	/** Below this many boards, a task is evaluated rather than split */
+	static final int TASK_SIZE = 2_000;
+
+	private static final int[] ALL_CARDS = new int[52];
+	static {
+		int i = 0;
+		for (CardSuit suit : CardSuit.values()) {
+			for (CardNumber num : CardNumber.values()) {
+				ALL_CARDS[i++] = new Card(num, suit).getValue();
+			}
+		}
+	}
+
+	private static final EquityCalculator SHARED = new EquityCalculator();
+
+	private final ForkJoinPool pool;
+	private final long exhaustiveLimit;
+
+	public EquityCalculator() {
+		this(ForkJoinPool.commonPool(), EXHAUSTIVE_LIMIT);
+	}
+
+	/**
+	 *
+	 * @param pool The pool to run the evaluation tasks on
+	 * @param exhaustiveLimit Above this many possible boards, a random sample is evaluated
+	 */
+	@VisibleForTesting
+	EquityCalculator(final ForkJoinPool pool, final long exhaustiveLimit) {
+		this.pool = pool;
+		this.exhaustiveLimit = exhaustiveLimit;
+	}
+
+	/** Get the calculator shared by all games
+	 *
+	 * @return
+	 */
+	public static EquityCalculator getShared() {
+		return SHARED;
+	}
+
+	/** Calculate the equity of each player on the pool, so the caller isn't held up, e.g.
+	 * while it holds a table's lock. Samples {@link #DEFAULT_SAMPLES} boards if there are too
+	 * many to evaluate them all
+	 *
+	 * @param holeCards Each player's 2 hole cards, which mustn't change until complete
+	 * @param cardsOnTable The community cards dealt so far (0 to 5), may be null
+	 * @param deadCards Cards known to be out of the deck, may be null
+	 * @return The equity of each player, in the same order as the hole cards. Completes with an
+	 * IllegalArgumentException if the cards are invalid or duplicated
+	 */
+	public CompletableFuture<Equity> calculateAsync(final List<List<Card>> holeCards, final List<Card> cardsOnTable, final List<Card> deadCards) {
+		return CompletableFuture.supplyAsync(() -> calculate(holeCards, cardsOnTable, deadCards), pool);
+	}
+
+	/** Calculate the equity of each player, sampling {@link #DEFAULT_SAMPLES} boards
+	 * if there are too many to evaluate them all
+	 *
+	 * @param holeCards Each player's 2 hole cards
+	 * @param cardsOnTable The community cards dealt so far (0 to 5), may be null
+	 * @param deadCards Cards known to be out of the deck, may be null
+	 * @return The equity of each player, in the same order as the hole cards
+	 * @throws IllegalArgumentException If the cards are invalid or duplicated
+	 */
+	public Equity calculate(final List<List<Card>> holeCards, final List<Card> cardsOnTable, final List<Card> deadCards) {
+		return calculate(holeCards, cardsOnTable, deadCards, DEFAULT_SAMPLES);
+	}
+
+	/** Calculate the equity of each player
+	 *
+	 * @param holeCards Each player's 2 hole cards
+	 * @param cardsOnTable The community cards dealt so far (0 to 5), may be null
+	 * @param deadCards Cards known to be out of the deck, may be null
+	 * @param samples How many boards to sample if there are too many to evaluate them all.
+	 * Limited to {@link #MAX_SAMPLES}
+	 * @return The equity of each player, in the same order as the hole cards
+	 * @throws IllegalArgumentException If the cards are invalid or duplicated
+	 */
+	public Equity calculate(final List<List<Card>> holeCards, final List<Card> cardsOnTable, final List<Card> deadCards, final int samples) {
+		return calculate(holeCards, cardsOnTable, deadCards, samples, new SplittableRandom());
+	}
+
+	@VisibleForTesting
+	Equity calculate(final List<List<Card>> holeCards, final List<Card> cardsOnTable, final List<Card> deadCards,
+			final int samples, final SplittableRandom rnd) {
+		final Deal deal = new Deal(holeCards,
+				cardsOnTable == null ? Collections.emptyList() : cardsOnTable,
+				deadCards == null ? Collections.emptyList() : deadCards);
+
+		final long boards = binomial(deal.remaining.length, deal.toDeal);
+		final Tally tally;
+		final boolean exhaustive = boards <= exhaustiveLimit;
+		if (exhaustive) {
+			tally = pool.invoke(new EnumerateTask(deal, 0, boards));
+		} else {
+			tally = pool.invoke(new SampleTask(deal, Math.max(1, Math.min(samples, MAX_SAMPLES)), rnd));
+		}
+		return new Equity(tally.wins, tally.ties, tally.shares, tally.boards, exhaustive);
+	}
+
+	/** The number of combinations of k from n
+	 *
+	 * @param n
+	 * @param k
+	 * @return
+	 */
+	static long binomial(final int n, final int k) {
+		if (k < 0 || k > n) {
+			return 0;
+		}
+		long result = 1;
+		for (int i = 1; i <= k; i++) {
+			result = result * (n - k + i) / i;
+		}
+		return result;
+	}
+
+	/** The validated cards for a calculation, as binary card values
+	 */
+	private static final class Deal {
+		final int[][] holeCards;
+		final int[] cardsOnTable;
+		/** The cards that can still be dealt to the table */
+		final int[] remaining;
+		final int toDeal;
+
+		Deal(final List<List<Card>> holeCards, final List<Card> cardsOnTable, final List<Card> deadCards) {
+			if (holeCards == null || holeCards.size() < 2) {
+				throw new IllegalArgumentException("At least 2 players are required.");
+			}
+			if (cardsOnTable.size() > 5) {
+				throw new IllegalArgumentException("No more than 5 table cards are allowed.");
+			}
+
+			long seen = 0;
+			this.holeCards = new int[holeCards.size()][2];
+			for (int p = 0; p < holeCards.size(); p++) {
+				final List<Card> cards = holeCards.get(p);
+				if (cards == null || cards.size() != 2) {
+					throw new IllegalArgumentException("Each player must have 2 cards.");
+				}
+				for (int c = 0; c < 2; c++) {
+					seen = markSeen(seen, cards.get(c));
+					this.holeCards[p][c] = cards.get(c).getValue();
+				}
+			}
+			this.cardsOnTable = new int[cardsOnTable.size()];
+			for (int c = 0; c < cardsOnTable.size(); c++) {
+				seen = markSeen(seen, cardsOnTable.get(c));
+				this.cardsOnTable[c] = cardsOnTable.get(c).getValue();
+			}
+			for (Card dead : deadCards) {
+				seen = markSeen(seen, dead);
+			}
+
+			this.remaining = new int[52 - Long.bitCount(seen)];
+			int r = 0;
+			for (int value : ALL_CARDS) {
+				if ((seen & (1L << SevenCardEvaluator.cardIndex(value))) == 0) {
+					remaining[r++] = value;
+				}
+			}
+			this.toDeal = 5 - cardsOnTable.size();
+			if (remaining.length < toDeal) {
+				throw new IllegalArgumentException("Not enough cards left in the deck.");
+			}
+		}
+
+		private static long markSeen(final long seen, final Card card) {
+			if (card == null) {
+				throw new IllegalArgumentException("Cards cannot be null.");
+			}
+			final long bit = 1L << SevenCardEvaluator.cardIndex(card.getValue());
+			if ((seen & bit) != 0) {
+				throw new IllegalArgumentException("Duplicate card " + card.getCode());
+			}
+			return seen | bit;
+		}
+	}
+
+	/** The accumulated results of evaluating a number of boards
+	 */
+	private static final class Tally {
+		final long[] wins, ties;
+		final double[] shares;
+		long boards = 0;
+
+		Tally(final int players) {
+			wins = new long[players];
+			ties = new long[players];
+			shares = new double[players];
+		}
+
+		Tally merge(final Tally other) {
+			for (int i = 0; i < wins.length; i++) {
+				wins[i] += other.wins[i];
+				ties[i] += other.ties[i];
+				shares[i] += other.shares[i];
+			}
+			boards += other.boards;
+			return this;
+		}
+	}
+
+	/** The working arrays for scoring boards within a single task
+	 */
+	private static final class Scorer {
+		final Tally tally;
+		final int[][] hands;
+		final int[] ranks;
+		final int drawAt;
+
+		Scorer(final Deal deal) {
+			final int players = deal.holeCards.length;
+			tally = new Tally(players);
+			ranks = new int[players];
+			hands = new int[players][7];
+			drawAt = 2 + deal.cardsOnTable.length;
+			for (int p = 0; p < players; p++) {
+				hands[p][0] = deal.holeCards[p][0];
+				hands[p][1] = deal.holeCards[p][1];
+				System.arraycopy(deal.cardsOnTable, 0, hands[p], 2, deal.cardsOnTable.length);
+			}
+		}
+
+		/** Set a card to be dealt to the table
+		 *
+		 * @param pos The position of the card, from those being dealt
+		 * @param card The binary card value
+		 */
+		void deal(final int pos, final int card) {
+			for (int[] hand : hands) {
+				hand[drawAt + pos] = card;
+			}
+		}
+
+		/** Score the current board for all players
+		 */
+		void score() {
+			int best = 0, count = 0;
+			for (int p = 0; p < hands.length; p++) {
+				ranks[p] = SevenCardEvaluator.evaluate(hands[p], 7);
+				if (ranks[p] > best) {
+					best = ranks[p];
+					count = 1;
+				} else if (ranks[p] == best) {
+					count++;
+				}
+			}
+
+			for (int p = 0; p < ranks.length; p++) {
+				if (ranks[p] != best) {
+					continue;
+				}
+				if (count == 1) {
+					tally.wins[p]++;
+					tally.shares[p] += 1;
+				} else {
+					tally.ties[p]++;
+					tally.shares[p] += 1d / count;
+				}
+			}
+			tally.boards++;
+		}
+	}
+
+	/** Evaluate a range of every possible board, in lexicographic order of
+	 * the remaining cards
+	 */
+	private static final class EnumerateTask extends RecursiveTask<Tally> {
+		private static final long serialVersionUID = 1L;
+		private final transient Deal deal;
+		private final long from, count;
+
+		EnumerateTask(final Deal deal, final long from, final long count) {
+			this.deal = deal;
+			this.from = from;
+			this.count = count;
+		}
+
+		@Override
+		protected Tally compute() {
+			if (count > TASK_SIZE) {
+				final long half = count / 2;
+				final EnumerateTask left = new EnumerateTask(deal, from, half);
+				left.fork();
+				final Tally right = new EnumerateTask(deal, from + half, count - half).compute();
+				return right.merge(left.join());
+			}
+
+			final Scorer scorer = new Scorer(deal);
+			final int n = deal.remaining.length, k = deal.toDeal;
+			final int[] idx = unrank(from, n, k);
+			for (long i = 0; i < count; i++) {
+				for (int j = 0; j < k; j++) {
+					scorer.deal(j, deal.remaining[idx[j]]);
+				}
+				scorer.score();
+
+				// Move to the next combination
+				int j = k - 1;
+				while (j >= 0 && idx[j] == n - k + j) {
+					j--;
+				}
+				if (j < 0) {
+					break;
+				}
+				idx[j]++;
+				for (int m = j + 1; m < k; m++) {
+					idx[m] = idx[m - 1] + 1;
+				}
+			}
+			return scorer.tally;
+		}
+
+		/** Get the indexes of the combination at a position in the lexicographic order
+		 *
+		 * @param rank The position
+		 * @param n The number of cards to choose from
+		 * @param k The number of cards to choose
+		 * @return
+		 */
+		private static int[] unrank(long rank, final int n, final int k) {
+			final int[] idx = new int[k];
+			int next = 0;
+			for (int i = 0; i < k; i++) {
+				long withNext;
+				while (rank >= (withNext = binomial(n - next - 1, k - i - 1))) {
+					rank -= withNext;
+					next++;
+				}
+				idx[i] = next++;
+			}
+			return idx;
+		}
+	}
+
+	/** Evaluate a number of randomly dealt boards. Each task has its own copy of
+	 * the remaining cards and a generator split from its parent's
+	 */
+	private static final class SampleTask extends RecursiveTask<Tally> {
+		private static final long serialVersionUID = 1L;
+		private final transient Deal deal;
+		private final int samples;
+		private final transient SplittableRandom rnd;
+
+		SampleTask(final Deal deal, final int samples, final SplittableRandom rnd) {
+			this.deal = deal;
+			this.samples = samples;
+			this.rnd = rnd;
+		}
+
+		@Override
+		protected Tally compute() {
+			if (samples > TASK_SIZE) {
+				final int half = samples / 2;
+				final SampleTask left = new SampleTask(deal, half, rnd.split());
+				left.fork();
+				final Tally right = new SampleTask(deal, samples - half, rnd).compute();
+				return right.merge(left.join());
+			}
+
+			final Scorer scorer = new Scorer(deal);
+			final int[] deck = deal.remaining.clone();
+			final int n = deck.length, k = deal.toDeal;
+			for (int s = 0; s < samples; s++) {
+				// Partial shuffle of just the cards to deal
+				for (int j = 0; j < k; j++) {
+					final int r = j + rnd.nextInt(n - j);
+					final int card = deck[r];
+					deck[r] = deck[j];
+					deck[j] = card;
+					scorer.deal(j, card);
+				}
+				scorer.score();
+			}
+			return scorer.tally;
+		}
+	}
+}
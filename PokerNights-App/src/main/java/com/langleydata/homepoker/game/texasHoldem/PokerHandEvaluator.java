@@ -5,7 +5,6 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
@@ -16,18 +15,7 @@ import com.langleydata.homepoker.game.players.Players;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePot;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
 import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
-import com.langleydata.homepoker.game.texasHoldem.ranking.EvaluatorUtils;
-import com.langleydata.homepoker.game.texasHoldem.ranking.Flush;
-import com.langleydata.homepoker.game.texasHoldem.ranking.FourOfAKind;
-import com.langleydata.homepoker.game.texasHoldem.ranking.FullHouse;
-import com.langleydata.homepoker.game.texasHoldem.ranking.HighCard;
-import com.langleydata.homepoker.game.texasHoldem.ranking.OnePair;
-import com.langleydata.homepoker.game.texasHoldem.ranking.RankEvaluator;
-import com.langleydata.homepoker.game.texasHoldem.ranking.RoyalFlush;
-import com.langleydata.homepoker.game.texasHoldem.ranking.Straight;
-import com.langleydata.homepoker.game.texasHoldem.ranking.StraightFlush;
-import com.langleydata.homepoker.game.texasHoldem.ranking.ThreeOfAKind;
-import com.langleydata.homepoker.game.texasHoldem.ranking.TwoPairs;
+import com.langleydata.homepoker.game.texasHoldem.ranking.SevenCardEvaluator;
 
 /**
  * Evaluator for Texas Hold'em 7 card hands. Would also handle 5 card stud hands.
@@ -40,27 +28,7 @@ import com.langleydata.homepoker.game.texasHoldem.ranking.TwoPairs;
 @Component
 public class PokerHandEvaluator {
 
-	private static final List<RankEvaluator> rankNamers = new ArrayList<>();
 	final static char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
-	
-	// Load all of the hand evaluators
-	static {
-		rankNamers.add(new RoyalFlush());
-		rankNamers.add(new StraightFlush());
-		rankNamers.add(new FourOfAKind());
-		rankNamers.add(new FullHouse());
-		rankNamers.add(new Flush());
-		rankNamers.add(new Straight());
-		rankNamers.add(new ThreeOfAKind());
-		rankNamers.add(new TwoPairs());
-		rankNamers.add(new OnePair());
-		rankNamers.add(new HighCard());
-		
-		// Ensure they're applied in the correct order (best to worse)
-		rankNamers.sort((x, y) -> {
-			return y.getRank() - x.getRank();
-		});
-	}
 
 	/** Get the rank of a players hand
 	 * 
@@ -69,23 +37,7 @@ public class PokerHandEvaluator {
 	 * @return
 	 */
 	public HandRank getPlayerHandRank(List<Card> playerCards, List<Card> cardsOnTable) {
-
-		if (playerCards.stream().anyMatch(c -> c == null) || cardsOnTable.stream().anyMatch(c -> c == null)) {
-			return new HandRank(0, null, null);
-		}
-
-		final List<Card> allCards = new ArrayList<>(cardsOnTable);
-		allCards.addAll(playerCards);
-
-		final HandRank calculated = EvaluatorUtils.getHandRank(allCards);
-		HandRank rankedHand = null;
-		for (int i=0; i < rankNamers.size(); i++) {
-			if (( rankedHand = rankNamers.get(i).evaluate(calculated)) !=null) {
-				return rankedHand;
-			}
-		}
-		
-		return null;
+		return SevenCardEvaluator.getHandRank(cardsOnTable, playerCards);
 	}
 	
 	/** Calculates the main and side pot winners based on the players hand-rank
@@ -103,7 +55,7 @@ public class PokerHandEvaluator {
 		/* Update all players that have not folded with their hand's rank.
 		 * Folded player's can't win, so they have no rank*/
 		playersInHand.getPlayersInHand(false).stream()
-			.filter(p -> p.getCurrentStack().getTotalBetInRound() > 0)
+			.filter(p -> p.getCurrentStack().getTotalCommittedChips() > 0)
 			.forEach(p -> p.setRankedHand( getPlayerHandRank(p.getCards(), cardsOnTable) ));
 
 		
@@ -129,12 +81,12 @@ public class PokerHandEvaluator {
 			final List<SidePot> sidePots = calculateSidePots(item);
 			finalPots.addSidePots(sidePots);
 			
-			// Transfer the winnings for this pot (round)
+			// Transfer the winnings for this pot (round), giving any odd chips in seat order
 			for (SidePot pw : sidePots) {
-				pw.getPotWinners().forEach(p -> {
-					p.getCurrentStack().transferWinAmount( pw.getWinPerPerson() );
-				});
-
+				final List<Player> winners = pw.getWinnersBySeat();
+				for (int w = 0; w < winners.size(); w++) {
+					winners.get(w).getCurrentStack().transferWinChips( pw.getWinFor(w) );
+				}
 			}
 		}
 		
@@ -159,12 +111,13 @@ public class PokerHandEvaluator {
 		
 		// Sort players by the value they bet in this round, excluding zero values
 		List<Player> byValue = inRound.stream()
-			.sorted(Comparator.comparing(new CompCommit(state), Comparator.naturalOrder()))
-			.filter( p-> p.getCurrentStack().getCommitedPerRound().getOrDefault(state, 0f) > 0f)
+			.filter( p-> p.getCommit(state) > 0)
+			.sorted(Comparator.comparingLong(p -> p.getCommit(state)))
 			.collect(Collectors.toList());
 		
-		float prevCalc = 0;
-		float totalShared = 0;
+		final long potTotal = gamePot.getPotTotalChips();
+		long prevCalc = 0;
+		long totalShared = 0;
 		// For each player, ordered by bet value, calculate each side pot...
 		for (int p=0; p < byValue.size(); p++) {
 			SidePot sp = new SidePot();
@@ -172,14 +125,14 @@ public class PokerHandEvaluator {
 			// Calculate the pot value by taking the lowest bet
 			// value and multiplying it by the number of players with
 			// higher bet values still in the hand.
-			float pVal = getCommit(byValue.get(p), state) - prevCalc;
-			float potVal =  pVal * ( gamePot.getPlayersContributing() - p );
+			final long pVal = byValue.get(p).getCommit(state) - prevCalc;
+			long potVal =  pVal * ( gamePot.getPlayersContributing() - p );
 			
 			if (potVal > 0) {
 				// If we're going to share out more than is in the pot, 
 				// it's the last pot, so match the total.
-				if (potVal + totalShared > gamePot.getPotTotal()) {
-					potVal = gamePot.getPotTotal() - totalShared;
+				if (potVal + totalShared > potTotal) {
+					potVal = potTotal - totalShared;
 				}
 				sp.setPotTotal(potVal);
 						
@@ -202,7 +155,7 @@ public class PokerHandEvaluator {
 			prevCalc += pVal;
 			totalShared += potVal;
 			
-			if (eq(totalShared, gamePot.getPotTotal())) {
+			if (totalShared == potTotal) {
 				break;
 			}
 		}
@@ -210,34 +163,4 @@ public class PokerHandEvaluator {
 		return newSidePots;
 
 	}
-	
-	private class CompCommit implements Function<Player, Float> {
-		TexasGameState round;
-		CompCommit(TexasGameState round) {
-			this.round = round;
-		}
-		@Override
-		public Float apply(Player p) {
-			return p.getCurrentStack().getCommitedPerRound().getOrDefault(round, 0f) * 100;
-		}
-		
-	}
-	/** Test two doubles for equality
-	 * 
-	 * @param a
-	 * @param b
-	 * @return
-	 */
-	private boolean eq(double a, double b) {
-		return Math.round(a * 1000) == Math.round(b * 1000);
-	}
-	/** Get what a player committed (bet) in a round
-	 * 
-	 * @param p
-	 * @param state
-	 * @return
-	 */
-	private float getCommit(Player p, TexasGameState state) {
-		return p.getCurrentStack().getCommitedPerRound().get(state);
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,218 @@
+package com.langleydata.homepoker.game.texasHoldem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.langleydata.homepoker.deck.Card;
+
+/** Pre-calculated preflop equities for the 169 starting hand classes (e.g. AA, AKs, AKo),
+ * both heads-up against another class and against 1 to {@link #MAX_OPPONENTS} random hands.<p>
+ * The table is a binary resource written by {@link PreflopEquityGenerator} and memory-mapped
+ * when first used, which the application does at startup.<p>
+ * A class index is 13 * row + col of the usual starting hand grid, where the row and column are
+ * card ranks (2=0 to A=12): pairs are on the diagonal, suited hands have the higher rank as the row
+ * and off-suit hands have the higher rank as the column.
+ *
+ * @author reynolds_mj
+ *
+ */
+public final class PreflopEquity {
+	/** The number of starting hand classes */
+	public static final int CLASSES = 169;
+	/** The most random opponents held in the table */
+	public static final int MAX_OPPONENTS = 9;
+	static final String RESOURCE = "/equity/preflop-equity.bin";
+	static final int MAGIC = 0x50455131; // PEQ1
+	private static final int HEADER = 16;
+	/** Win, tie and equity for each entry, as unsigned shorts */
+	private static final int ENTRY = 6;
+	private static final String RANKS = "23456789TJQKA";
+
+	private final ByteBuffer table;
+	private final int samples;
+
+	/** Lazily load the table on first use */
+	private static final class Holder {
+		static final PreflopEquity INSTANCE = load();
+	}
+
+	PreflopEquity(final ByteBuffer table) {
+		if (table.capacity() < HEADER || table.getInt(0) != MAGIC || table.getInt(4) != CLASSES
+				|| table.getInt(8) != MAX_OPPONENTS
+				|| table.capacity() != HEADER + (CLASSES * CLASSES + CLASSES * MAX_OPPONENTS) * ENTRY) {
+			throw new IllegalStateException("Invalid preflop equity table");
+		}
+		this.table = table;
+		this.samples = table.getInt(12);
+	}
+
+	/** Get the shared table, loading it if required
+	 *
+	 * @return
+	 */
+	public static PreflopEquity getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/** Get the equity of one player's hole cards against another's, from the table.<p>
+	 * Note this is the average equity of the two starting hand classes, so it ignores
+	 * the effect of the exact suits held
+	 *
+	 * @param hero The first player's 2 cards
+	 * @param villain The second player's 2 cards
+	 * @return The equity of each player, in order
+	 */
+	public Equity headsUp(final List<Card> hero, final List<Card> villain) {
+		final int h = classIndex(hero), v = classIndex(villain);
+		final int hOffset = headsUpOffset(h, v), vOffset = headsUpOffset(v, h);
+		return new Equity(
+				new double[] {percent(hOffset), percent(vOffset)},
+				new double[] {percent(hOffset + 2), percent(vOffset + 2)},
+				new double[] {percent(hOffset + 4), percent(vOffset + 4)},
+				samples, false);
+	}
+
+	/** Get the equity of one starting hand class against another
+	 *
+	 * @param hero The first player's class index
+	 * @param villain The second player's class index
+	 * @return The first player's equity, as a percentage
+	 */
+	public double headsUp(final int hero, final int villain) {
+		return percent(headsUpOffset(hero, villain) + 4);
+	}
+
+	/** Get the equity of a starting hand class against a number of random hands
+	 *
+	 * @param hero The player's class index
+	 * @param opponents The number of opponents, 1 to {@link #MAX_OPPONENTS}
+	 * @return The player's equity, as a percentage
+	 */
+	public double versusRandom(final int hero, final int opponents) {
+		checkClass(hero);
+		if (opponents < 1 || opponents > MAX_OPPONENTS) {
+			throw new IllegalArgumentException("Opponents must be between 1 and " + MAX_OPPONENTS);
+		}
+		return percent(HEADER + (CLASSES * CLASSES + hero * MAX_OPPONENTS + opponents - 1) * ENTRY + 4);
+	}
+
+	/** How many boards were sampled for each match-up
+	 *
+	 * @return
+	 */
+	public int getSamples() {
+		return samples;
+	}
+
+	/** Get the starting hand class of 2 hole cards
+	 *
+	 * @param holeCards
+	 * @return The class index, 0 to 168
+	 * @throws IllegalArgumentException If there are not 2 different cards
+	 */
+	public static int classIndex(final List<Card> holeCards) {
+		if (holeCards == null || holeCards.size() != 2 || holeCards.get(0) == null || holeCards.get(1) == null
+				|| holeCards.get(0).equals(holeCards.get(1))) {
+			throw new IllegalArgumentException("2 different hole cards are required.");
+		}
+		return classIndex(holeCards.get(0).getValue(), holeCards.get(1).getValue());
+	}
+
+	/** Get the starting hand class of 2 binary card values
+	 *
+	 * @param card1
+	 * @param card2
+	 * @return The class index, 0 to 168
+	 */
+	static int classIndex(final int card1, final int card2) {
+		final int r1 = (card1 >> 8) & 0xF, r2 = (card2 >> 8) & 0xF;
+		final int high = Math.max(r1, r2), low = Math.min(r1, r2);
+		final boolean suited = (card1 & card2 & 0xF000) != 0;
+		return suited ? high * 13 + low : low * 13 + high;
+	}
+
+	/** Get the name of a starting hand class, e.g. AA, AKs or 72o
+	 *
+	 * @param classIndex
+	 * @return
+	 */
+	public static String className(final int classIndex) {
+		checkClass(classIndex);
+		final int row = classIndex / 13, col = classIndex % 13;
+		if (row == col) {
+			return "" + RANKS.charAt(row) + RANKS.charAt(col);
+		}
+		return row > col
+				? "" + RANKS.charAt(row) + RANKS.charAt(col) + "s"
+				: "" + RANKS.charAt(col) + RANKS.charAt(row) + "o";
+	}
+
+	private int headsUpOffset(final int hero, final int villain) {
+		checkClass(hero);
+		checkClass(villain);
+		return HEADER + (hero * CLASSES + villain) * ENTRY;
+	}
+
+	private double percent(final int offset) {
+		return table.getChar(offset) / 100d;
+	}
+
+	private static void checkClass(final int classIndex) {
+		if (classIndex < 0 || classIndex >= CLASSES) {
+			throw new IllegalArgumentException("Invalid starting hand class: " + classIndex);
+		}
+	}
+
+	/** Map the bundled table, copying it out of the jar if required
+	 *
+	 * @return
+	 * @throws IllegalStateException If the table isn't bundled. It takes minutes to generate,
+	 * so run {@link PreflopEquityGenerator} rather than doing it on a game's thread
+	 */
+	static PreflopEquity load() {
+		try {
+			final URL url = PreflopEquity.class.getResource(RESOURCE);
+			if (url == null) {
+				throw new IllegalStateException("Preflop equity table not found: " + RESOURCE);
+			}
+			final Path path;
+			if ("file".equals(url.getProtocol())) {
+				path = Paths.get(url.toURI());
+			} else {
+				path = Files.createTempFile("preflop-equity", ".bin");
+				path.toFile().deleteOnExit();
+				try (InputStream is = url.openStream()) {
+					Files.copy(is, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			return map(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Memory map a table file
+	 *
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	static PreflopEquity map(final Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new PreflopEquity(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package com.langleydata.homepoker.game.texasHoldem;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.deck.CardNumber;
+import com.langleydata.homepoker.deck.CardSuit;
+import com.langleydata.homepoker.game.texasHoldem.ranking.SevenCardEvaluator;
+
+/** Generates the preflop equity table read by {@link PreflopEquity}.<p>
+ * For every pair of the 169 starting hand classes, random hands from each class are
+ * played against each other over random boards. For every class, random hands are also
+ * played against 1 to {@link PreflopEquity#MAX_OPPONENTS} random hands.<p>
+ * Run the main method to regenerate the bundled resource, e.g. from the PokerNights-App directory:
+ * <pre>java -cp target/classes com.langleydata.homepoker.game.texasHoldem.PreflopEquityGenerator</pre>
+ *
+ * @author reynolds_mj
+ *
+ */
+public final class PreflopEquityGenerator {
+	/** The default number of boards per match-up */
+	public static final int DEFAULT_SAMPLES = 20_000;
+	static final String DEFAULT_OUTPUT = "src/main/resources" + PreflopEquity.RESOURCE;
+	private static final long SEED = 0x5EED_169L;
+
+	/** Each card's binary value, by card index (see {@link SevenCardEvaluator#cardIndex(int)}) */
+	private static final int[] CARDS = new int[52];
+	/** Every pair of card indexes for each starting hand class */
+	private static final int[][][] COMBOS = new int[PreflopEquity.CLASSES][][];
+	static {
+		for (CardSuit suit : CardSuit.values()) {
+			for (CardNumber num : CardNumber.values()) {
+				final int value = new Card(num, suit).getValue();
+				CARDS[SevenCardEvaluator.cardIndex(value)] = value;
+			}
+		}
+		final int[] counts = new int[PreflopEquity.CLASSES];
+		final int[][][] all = new int[PreflopEquity.CLASSES][12][];
+		for (int a = 0; a < 52; a++) {
+			for (int b = a + 1; b < 52; b++) {
+				final int cls = PreflopEquity.classIndex(CARDS[a], CARDS[b]);
+				all[cls][counts[cls]++] = new int[] {a, b};
+			}
+		}
+		for (int c = 0; c < PreflopEquity.CLASSES; c++) {
+			COMBOS[c] = new int[counts[c]][];
+			System.arraycopy(all[c], 0, COMBOS[c], 0, counts[c]);
+		}
+	}
+
+	private PreflopEquityGenerator() {
+	}
+
+	/**
+	 *
+	 * @param args Optionally, the output file and the number of samples per match-up
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		final Path out = Paths.get(args.length > 0 ? args[0] : DEFAULT_OUTPUT);
+		final int samples = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLES;
+		final long start = System.currentTimeMillis();
+		generate(out, samples);
+		System.out.println("Wrote " + out.toAbsolutePath() + " in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/** Generate the table and write it to a file
+	 *
+	 * @param out The file to write
+	 * @param samples The number of boards for each match-up
+	 * @throws IOException
+	 */
+	public static void generate(final Path out, final int samples) throws IOException {
+		final char[][] headsUp = new char[PreflopEquity.CLASSES * PreflopEquity.CLASSES][];
+		final char[][] multiway = new char[PreflopEquity.CLASSES * PreflopEquity.MAX_OPPONENTS][];
+
+		IntStream.range(0, PreflopEquity.CLASSES).parallel().forEach(hero -> {
+			final int[] ranks = new int[PreflopEquity.MAX_OPPONENTS + 1];
+			final int[][] hands = new int[PreflopEquity.MAX_OPPONENTS + 1][7];
+			final int[] cls = new int[PreflopEquity.MAX_OPPONENTS + 1];
+			cls[0] = hero;
+
+			// Only calculate each pair once, the reverse is the opposite
+			for (int villain = hero; villain < PreflopEquity.CLASSES; villain++) {
+				cls[1] = villain;
+				final long[] result = play(cls, 2, true, samples, new SplittableRandom(SEED + hero * PreflopEquity.CLASSES + villain), hands, ranks);
+				if (villain == hero) {
+					// Both players hold the same class, so average them
+					for (int k = 0; k < 3; k++) {
+						result[k] = (result[k] + result[k + 3]) / 2;
+					}
+				} else {
+					headsUp[villain * PreflopEquity.CLASSES + hero] = entry(result, samples, 1);
+				}
+				headsUp[hero * PreflopEquity.CLASSES + villain] = entry(result, samples, 0);
+			}
+
+			for (int opponents = 1; opponents <= PreflopEquity.MAX_OPPONENTS; opponents++) {
+				final long[] result = play(cls, opponents + 1, false, samples, new SplittableRandom(~SEED + hero * 16 + opponents), hands, ranks);
+				multiway[hero * PreflopEquity.MAX_OPPONENTS + opponents - 1] = entry(result, samples, 0);
+			}
+		});
+
+		if (out.getParent() != null) {
+			Files.createDirectories(out.getParent());
+		}
+		try (OutputStream os = Files.newOutputStream(out);
+				DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os))) {
+			dos.writeInt(PreflopEquity.MAGIC);
+			dos.writeInt(PreflopEquity.CLASSES);
+			dos.writeInt(PreflopEquity.MAX_OPPONENTS);
+			dos.writeInt(samples);
+			for (char[] e : headsUp) {
+				writeEntry(dos, e);
+			}
+			for (char[] e : multiway) {
+				writeEntry(dos, e);
+			}
+		}
+	}
+
+	private static void writeEntry(final DataOutputStream dos, final char[] entry) throws IOException {
+		for (char c : entry) {
+			dos.writeChar(c);
+		}
+	}
+
+	/** Convert the results for a player to the stored win, tie and equity hundredths of a percent
+	 *
+	 * @param result The wins, ties and shares (in millionths) of each player, in groups of three
+	 * @param samples
+	 * @param player
+	 * @return
+	 */
+	private static char[] entry(final long[] result, final int samples, final int player) {
+		return new char[] {
+				(char) Math.round(result[player * 3] * 10000d / samples),
+				(char) Math.round(result[player * 3 + 1] * 10000d / samples),
+				(char) Math.round(result[player * 3 + 2] / 100d / samples)
+		};
+	}
+
+	/** Play random hands from each class over random boards.<p>
+	 * The first player's hand is drawn from cls[0]. The opponents either have random hands, or their
+	 * hands are drawn from the following classes.
+	 *
+	 * @param cls The class of the player(s)
+	 * @param players The number of players
+	 * @param classVsClass Are the opponents' hands drawn from their class, or random?
+	 * @param samples The number of boards to play
+	 * @param rnd
+	 * @param hands Working array for each player's 7 cards
+	 * @param ranks Working array for each player's hand rank
+	 * @return The wins, ties and pot share (in millionths) of each player, in groups of three
+	 */
+	static long[] play(final int[] cls, final int players, final boolean classVsClass, final int samples,
+			final SplittableRandom rnd, final int[][] hands, final int[] ranks) {
+		final long[] result = new long[players * 3];
+
+		for (int s = 0; s < samples; s++) {
+			long used = 0;
+
+			// Deal the hole cards
+			for (int p = 0; p < players; p++) {
+				if (p == 0 || classVsClass) {
+					final int[][] combos = COMBOS[cls[p]];
+					int[] combo;
+					do {
+						combo = combos[rnd.nextInt(combos.length)];
+					} while ((used & (1L << combo[0] | 1L << combo[1])) != 0);
+					used |= 1L << combo[0] | 1L << combo[1];
+					hands[p][0] = CARDS[combo[0]];
+					hands[p][1] = CARDS[combo[1]];
+				} else {
+					for (int c = 0; c < 2; c++) {
+						final int idx = drawCard(used, rnd);
+						used |= 1L << idx;
+						hands[p][c] = CARDS[idx];
+					}
+				}
+			}
+
+			// Deal the board to everyone
+			for (int b = 2; b < 7; b++) {
+				final int idx = drawCard(used, rnd);
+				used |= 1L << idx;
+				for (int p = 0; p < players; p++) {
+					hands[p][b] = CARDS[idx];
+				}
+			}
+
+			int best = 0, count = 0;
+			for (int p = 0; p < players; p++) {
+				ranks[p] = SevenCardEvaluator.evaluate(hands[p], 7);
+				if (ranks[p] > best) {
+					best = ranks[p];
+					count = 1;
+				} else if (ranks[p] == best) {
+					count++;
+				}
+			}
+			for (int p = 0; p < players; p++) {
+				if (ranks[p] == best) {
+					result[p * 3 + (count == 1 ? 0 : 1)]++;
+					result[p * 3 + 2] += 1_000_000 / count;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static int drawCard(final long used, final SplittableRandom rnd) {
+		int idx;
+		do {
+			idx = rnd.nextInt(52);
+		} while ((used & (1L << idx)) != 0);
+		return idx;
+	}
+}
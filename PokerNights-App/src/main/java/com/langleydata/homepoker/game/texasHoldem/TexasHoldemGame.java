@@ -5,10 +5,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -21,19 +19,24 @@ import com.langleydata.homepoker.api.CardGame.DealResult;
 import com.langleydata.homepoker.api.CardGame.GameFormat;
 import com.langleydata.homepoker.api.PlayerAction;
 import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.deck.Card;
 import com.langleydata.homepoker.exception.GameStartException;
 import com.langleydata.homepoker.game.AbstractCardGame;
+import com.langleydata.homepoker.game.Chips;
 import com.langleydata.homepoker.game.DealCompleteCallback;
-import com.langleydata.homepoker.game.PokerMathUtils;
+import com.langleydata.homepoker.game.GameCheckpoint;
+import com.langleydata.homepoker.game.GameTimer;
 import com.langleydata.homepoker.game.RoundHistory;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.game.players.PlayerStack;
+import com.langleydata.homepoker.game.players.SystemPlayer;
 import com.langleydata.homepoker.game.players.PlayerState;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
 import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
 import com.langleydata.homepoker.message.AnteDueMessage;
 import com.langleydata.homepoker.message.CompleteGameMessage;
 import com.langleydata.homepoker.message.DealUserMessage;
+import com.langleydata.homepoker.message.EquityMessage;
 import com.langleydata.homepoker.message.GameUpdateMessage;
 import com.langleydata.homepoker.message.MessageUtils;
 import com.langleydata.homepoker.message.Messaging;
@@ -51,32 +54,43 @@ import com.langleydata.homepoker.player.PlayerInfo;
 public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 	private final Logger logger = LoggerFactory.getLogger(TexasHoldemGame.class);
 	private boolean autoCompletingGame = false;
-	private static Lock lock = new ReentrantLock();
 	protected PokerHandEvaluator sevenCardEvaluator;
+	protected EquityCalculator equityCalculator = EquityCalculator.getShared();
+	/** The table cards when the remaining cards were dealt automatically (all-in) */
+	private List<Card> allInCardsOnTable = null;
 	private Player bigBind;
 	private List<DealCompleteCallback> dealCallbacks = new ArrayList<>();
 	private boolean anteAutoUpBeforeDeal = false;
 	final Messaging msgUtils;
 	private long blindIncreaseAt = -1;
-	Timer inActionTimer = null, blindIncreaseTimer = null;
+	private final GameTimer timer;
+	/** The auto-action time of the player the action is on, as currently scheduled */
+	private long inActionDeadline = -1;
+	private volatile boolean completed = false;
+	/** Set while starting a round or pausing a player, so the actions they
+	 * perform aren't sent to the listeners as separate events */
+	private boolean compoundAction = false;
+	ScheduledFuture<?> inActionTimer = null, blindIncreaseTimer = null;
 	
 	/** This constructor is used for creation from a pre-configured set of settings
 	 * 
 	 * @param settings The settings
 	 */
 	public TexasHoldemGame(TexasHoldemSettings settings, final Messaging msgUtils) {
+		this(settings, msgUtils, GameTimer.getShared());
+	}
+	
+	/**
+	 * 
+	 * @param settings The settings
+	 * @param msgUtils
+	 * @param timer The timer for action timeouts and blind increases
+	 */
+	public TexasHoldemGame(TexasHoldemSettings settings, final Messaging msgUtils, final GameTimer timer) {
 		super(settings);
 		this.msgUtils = msgUtils;
+		this.timer = timer;
 		sevenCardEvaluator = new PokerHandEvaluator();
-		if (settings.getActionTimeout() > 0) {
-			inActionTimer = new Timer("InAction Timer");
-			inActionTimer.scheduleAtFixedRate( new TimerTask() {
-				@Override
-				public void run() {
-					doInactionProcess();
-				}
-			}, 30000, 1000);
-		}
 	}
 
 	@VisibleForTesting
@@ -96,22 +110,21 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 		
 		final boolean isTournament = getSettings().getFormat()==GameFormat.TOURNAMENT;
 		Player dealer = null;
-		if (!lock.tryLock()) {
+		if (!acquireLock()) {
 			return null;
 		}
 		try {
+			if (gameState == TexasGameState.COMPLETE) {
+				notifyEvent(l -> l.roundStarting(this));
+			}
+			compoundAction = true;
 
 			dealer = super.startNextRound(moveDealer);
 			
 			if (getRound()==1 && isTournament) {
-				blindIncreaseAt = System.currentTimeMillis() + settings.getBlindIncreaseInterval();
-				blindIncreaseTimer = new Timer("Ante Increase");
-				blindIncreaseTimer.scheduleAtFixedRate(
-						new IncreaseAnteTimer(this), 
-						settings.getBlindIncreaseInterval(),
-						settings.getBlindIncreaseInterval()
-						);
-				dealer = players.setRandomDealer(false);
+				scheduleBlindIncrease();
+				// Derived from the shuffle, so the choice is repeated when the round is replayed
+				dealer = players.setRandomDealer(false, new Random(deck.getLastSeed() + 1));
 			}
 			
 			setMinRaise(settings.getBigBlind());
@@ -149,19 +162,40 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 						new AnteDueMessage(bigBind.getSessionId(), Blinds.BIG)
 						);
 			}
+			compoundAction = false;
+			notifyEvent(l -> l.roundStarted(this, moveDealer));
 			
 		} catch (GameStartException gse) {
 			gameState = TexasGameState.COMPLETE;// So the action can be tried again
 			throw gse;
 		} finally {
-			try {
-				lock.unlock();
-			} catch (IllegalMonitorStateException ignore) {}
+			compoundAction = false;
+			scheduleInaction();
+			lock.unlock();
 		}
 	
 		return dealer;
 	}
 
+	/** Start increasing the blinds at the tournament's interval
+	 */
+	private void scheduleBlindIncrease() {
+		blindIncreaseAt = System.currentTimeMillis() + settings.getBlindIncreaseInterval();
+		blindIncreaseTimer = timer.scheduleAtFixedRate(
+				new IncreaseAnteTimer(this), 
+				settings.getBlindIncreaseInterval()
+				);
+	}
+	
+	@Override
+	public void restore(final GameCheckpoint cp) {
+		super.restore(cp);
+		// The blinds had already started increasing, so restart from a full interval
+		if (getRound() >= 1 && settings.getFormat()==GameFormat.TOURNAMENT && blindIncreaseTimer == null) {
+			scheduleBlindIncrease();
+		}
+	}
+
 	/** This method is called each time the game is serialised and automatically
 	 * increases the ante if required
 	 * 
@@ -190,7 +224,7 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 		}
 		
 		final PlayerState bbState = bigBind.getState();
-		boolean bbEqual = bigBind.getCurrentStack().getOnTable() >= settings.getBigBlind();
+		boolean bbEqual = bigBind.getCurrentStack().getOnTableChips() >= Chips.of(settings.getBigBlind());
 		if (anteAutoUpBeforeDeal) {
 			/* If in a tournament game and the blind is increased automatically
 			 * after the game has started, but before the BB has checked, then assume
@@ -374,6 +408,12 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 			.map( w -> players.getPlayer(w))
 			.forEach( p -> sendRevealCards(p, p.getPlayerHandle() + " proves they won", true));
 		
+		// 4 Show what each player's chances were when they went all-in
+		if (allInCardsOnTable != null) {
+			sendAllInEquity(allInCardsOnTable);
+			allInCardsOnTable = null;
+		}
+		
 		if (settings.getFormat()==GameFormat.TOURNAMENT) {
 			rankTourneyLoosers();
 			if (rankTourneyWinners()) {
@@ -463,6 +503,9 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 		if (completeGame) {
 
 			autoCompletingGame = true;
+			if (settings.isShowAllInEquity() && cardsOnTable.size() < 5) {
+				allInCardsOnTable = new ArrayList<>(cardsOnTable);
+			}
 			
 			int safety = 0;
 			while (gameState != TexasGameState.COMPLETE && safety < 6) {
@@ -551,6 +594,52 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 		msgUtils.sendBroadcastToTable(settings.getGameId(), reveal);
 		
 	}
+	/** Send each remaining player's chance of winning, from the table cards that 
+	 * were out when the betting finished
+	 * 
+	 * @param tableCards The table cards when the betting finished
+	 */
+	private void sendAllInEquity(final List<Card> tableCards) {
+		final List<Player> inHand = players.getPlayersInHand(false).stream()
+				.filter(p -> p.getCards().size() == 2)
+				.collect(Collectors.toList());
+		if (inHand.size() < 2) {
+			return;
+		}
+		// Copied, as the players are reset for the next round
+		final List<List<Card>> holeCards = inHand.stream().map(p -> new ArrayList<>(p.getCards())).collect(Collectors.toList());
+		final List<String> handles = inHand.stream().map(Player::getPlayerHandle).collect(Collectors.toList());
+		
+		// Heads-up before the flop can use the pre-calculated table
+		if (tableCards.isEmpty() && inHand.size() == 2) {
+			try {
+				sendAllInEquity(handles, PreflopEquity.getInstance().headsUp(holeCards.get(0), holeCards.get(1)));
+			} catch (IllegalArgumentException e) {
+				logger.warn("Unable to calculate all-in equity for game {}: {}", settings.getGameId(), e.getMessage());
+			}
+			return;
+		}
+		
+		// Evaluating the boards takes a while, so isn't done under the table's lock. The odds follow the result
+		equityCalculator.calculateAsync(holeCards, new ArrayList<>(tableCards), null)
+			.thenAccept(equity -> sendAllInEquity(handles, equity))
+			.exceptionally(e -> {
+				logger.warn("Unable to calculate all-in equity for game {}: {}", settings.getGameId(), e.getMessage());
+				return null;
+			});
+	}
+	
+	private void sendAllInEquity(final List<String> handles, final Equity equity) {
+		final StringBuilder message = new StringBuilder("All-in odds:");
+		for (int i = 0; i < handles.size(); i++) {
+			message.append(i == 0 ? " " : ", ").append(handles.get(i)).append(' ').append(equity.getEquity()[i]).append('%');
+		}
+		
+		final EquityMessage em = new EquityMessage(SystemPlayer.ID, handles, equity);
+		em.setMessage(message.toString());
+		msgUtils.sendBroadcastToTable(settings.getGameId(), em);
+	}
+	
 	/** Send a reveal cards message to the table
 	 * 
 	 * @param player
@@ -561,9 +650,6 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 	
 	private GameUpdateMessage errorAction(final PlayerAction action, final String message) {
 		action.setSuccessful(false).setMessage(message);
-		try {
-			lock.unlock();
-		} catch (Exception e) {/*ignore*/}
 		return null;
 	}
 	/**
@@ -574,6 +660,28 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 	 */
 	@Override
 	public GameUpdateMessage doGameUpdateAction(final PlayerAction action) {
+		// Acquire the table's lock so another user's action doesn't interfere
+		if (!acquireLock()) {
+			return errorAction(action, "Unable to obtain lock for action");
+		}
+		try {
+			final GameUpdateMessage gum = processAction(action);
+			if (action.isSuccessful() && !compoundAction) {
+				notifyEvent(l -> l.actionPerformed(this, action));
+			}
+			return gum;
+		} finally {
+			scheduleInaction();
+			lock.unlock();
+		}
+	}
+
+	/** Perform a player's action. The table's lock must be held
+	 * 
+	 * @param action
+	 * @return a new GameUpdateMessage, or null if the action failed
+	 */
+	private GameUpdateMessage processAction(final PlayerAction action) {
 		lastActivityTime = System.currentTimeMillis();
 		
 		final TexasGameState prevState = getGameState();
@@ -589,8 +697,11 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 
 		// Pre-validate the actions
 
-		// Check it's this player's turn
-		if (!state.isActionOnMe() && action.getAction().onTurnOnly() ) {
+		// Check it's this player's turn. The action is left on the last player when the round
+		// completes, so a late action mustn't be taken as theirs
+		if (gameState == TexasGameState.COMPLETE && action.getAction().onTurnOnly() && !action.getAction().isFold()) {
+			return errorAction(action, "The round is complete");
+		} else if (!state.isActionOnMe() && action.getAction().onTurnOnly() ) {
 			// If the game is complete and its a fold, don't return
 			if ( (gameState == TexasGameState.COMPLETE && action.getAction().isFold())==false) {
 				return errorAction(action, "Action not on player " + player.getPlayerHandle());
@@ -604,11 +715,6 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 
 		}
 		
-		// Acquire a lock so another user's action doesn't interfere
-		if (!lock.tryLock()) {
-			return errorAction(action, "Unable to obtain lock for action");
-		}
-		
 		boolean bigBlindPosted = false;
 		// Attempt remaining actions...
 		switch (action.getAction()) {
@@ -624,11 +730,11 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 			break;
 		case CHECK: // no bet
 			final boolean bigBlindChecking = (state.wasBigBlind() && state.getBlindsDue() != Blinds.BIG);
-			moveActionAndDeal = PokerMathUtils.floatEqualsZero(getRequiredBet()) || bigBlindChecking;
+			moveActionAndDeal = getRequiredBetChips() == 0 || bigBlindChecking;
 			if (moveActionAndDeal) {
 				// Add 0 to table so the 'commit-per-round' has a value, so when checking pots equal, 
-				// it won't generate a random number
-				player.getCurrentStack().addToTable(gameState, 0f);
+				// it knows this player has acted
+				player.getCurrentStack().addChipsToTable(gameState, 0);
 			}
 			break;
 		default:
@@ -646,14 +752,13 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 			break;
 		}
 
-		final GameUpdateMessage gum = new GameUpdateMessage(this);
-		
 		// If the action was carried out, move the action on,
 		// configure the bets and then perform a deal
+		String actionSound = null;
 		if (moveActionAndDeal) {
 
 			if (action.getAction().isValueBet() || bigBlindPosted) {
-				setNewBets(player.getCurrentStack().getOnTable());
+				setNewBets(player.getCurrentStack().getOnTableChips());
 			}
 			
 			// Move action to next player
@@ -663,34 +768,36 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 			// Do the deal (if possible)
 			deal();
 			// Do the sound after dealing so we can detect the change in state
-			gum.setActionSound(getActionSound(prevState, action));
+			actionSound = getActionSound(prevState, action);
 		}
 
 		action.setSuccessful(true);
 		
-		lock.unlock();
+		// Built once the game has changed, so it carries the new state
+		final GameUpdateMessage gum = new GameUpdateMessage(this);
+		gum.setActionSound(actionSound);
 		return gum;
 	}
 	
 	/** Set the game bet values based on a new bet being placed
 	 * 
-	 * @param totalPlayerBet The last player's on table value
+	 * @param totalPlayerBet The last player's on table minor units
 	 */
-	void setNewBets(final float totalPlayerBet) {
-		float prevRequired = getRequiredBet();
+	void setNewBets(final long totalPlayerBet) {
+		final long prevRequired = getRequiredBetChips();
 		// Ensure the bet stays at the highest amount placed so far
 		// As the player maybe going all-in without enough money
-		float newRequired = Math.max(prevRequired, totalPlayerBet);
-		setLastRaise( Math.max(getLastRaise(), newRequired - prevRequired) );
+		final long newRequired = Math.max(prevRequired, totalPlayerBet);
+		setLastRaiseChips( Math.max(getLastRaiseChips(), newRequired - prevRequired) );
 		
-		setRequiredBet(newRequired);
+		setRequiredBetChips(newRequired);
 		
 		if (settings.isEnforceMinimumRaise()) {
 			// Standard rule is the required bet + the previous raise
-			setMinRaise(newRequired + getLastRaise());
+			setMinRaiseChips(newRequired + getLastRaiseChips());
 		} else {
 			// Otherwise just the require bet + big blind
-			setMinRaise(getRequiredBet() + settings.getBigBlind());
+			setMinRaiseChips(newRequired + Chips.of(settings.getBigBlind()));
 		}
 	}
 	
@@ -701,13 +808,13 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 	 */
 	private void finishGameEarly(final Player winner) {
 	
-		currentPot += players.collectBets(gameState);
-		setRequiredBet(0);
+		currentPot += players.collectBetChips(gameState);
+		setRequiredBetChips(0);
 		
 		final SidePot sidepot = new SidePot(currentPot);
 		
 		if (winner != null) {
-			winner.getCurrentStack().transferWinAmount(currentPot);
+			winner.getCurrentStack().transferWinChips(currentPot);
 			players.setWinners(Collections.singletonList(winner));
 			sidepot.addCompetingWinner(winner);
 			currentPot = 0;
@@ -755,29 +862,30 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 		}
 
 		final PlayerStack currentStack = player.getCurrentStack();
-		float maxBet = getPlayers().getMaxBetPossible(player);
+		final long maxBet = getPlayers().getMaxBetPossibleChips(player);
+		final long betValue = Chips.of(action.getBetValue());
 
-		float addToTable = 0f;
+		long addToTable = 0;
 		
 		// This section determines the total that the player wants to bet,
 		// keeping in mind that a 'Bet' is additional to what is already on the table
 		switch (action.getAction()) {
 		case CALL: // match the last bet
-			addToTable = getRequiredBet() - currentStack.getOnTable();
+			addToTable = getRequiredBetChips() - currentStack.getOnTableChips();
 			break;
 		case BET: // An absolute value
-			boolean allIn = action.getBetValue() == currentStack.getRoundedTotalStack();
-			if (action.getBetValue() >= getRequiredBet() || allIn ) {
-				addToTable = action.getBetValue() - currentStack.getOnTable();
+			boolean allIn = betValue == currentStack.getTotalStackChips();
+			if (betValue >= getRequiredBetChips() || allIn ) {
+				addToTable = betValue - currentStack.getOnTableChips();
 			} else {
 				return false;
 			}
 			break;
 		case RAISE: // An additional value (not really used now)
-			addToTable = (getRequiredBet() + action.getBetValue()) - currentStack.getOnTable();
+			addToTable = (getRequiredBetChips() + betValue) - currentStack.getOnTableChips();
 			break;
 		case ALL_IN: // everything they have
-			addToTable = currentStack.getStack();
+			addToTable = currentStack.getStackChips();
 			break;
 		case FOLD:
 		case REVEAL:
@@ -789,15 +897,15 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 		}
 		
 		// If trying to bet more than anyone has, bet the maximum allowed, less what we've already put in
-		if (maxBet > 0 && maxBet < (addToTable+currentStack.getOnTable())) {
-			addToTable = maxBet - currentStack.getOnTable();
+		if (maxBet > 0 && maxBet < (addToTable+currentStack.getOnTableChips())) {
+			addToTable = maxBet - currentStack.getOnTableChips();
 		}
 		
-		final boolean added = currentStack.addToTable(gameState, addToTable) || (getRequiredBet()==0 && addToTable == 0);
+		final boolean added = currentStack.addChipsToTable(gameState, addToTable) || (getRequiredBetChips()==0 && addToTable == 0);
 		
 		if (added) {
 			// Check if the player is actually all-in now?
-			if (player.getCurrentStack().getStack() == 0) {
+			if (player.getCurrentStack().getStackChips() == 0) {
 				action.setAction(PlayerActionType.ALL_IN);
 				action.setBetValue(currentStack.getOnTable() - action.getBetValue());
 				player.getState().setAllIn(true);
@@ -835,18 +943,17 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 			return true;
 		}
 		final List<Player> inHand = getPlayers().getPlayersInHand(false);
-		final float lastBet = getRequiredBet();
+		final long lastBet = getRequiredBetChips();
 		
 		/* Go through the players, getting the amount committed this round,
 		 * filtering out those that have already matched
 		 * the most recent bet and those that cannot bet any more (zero stack) */
 		for (Player p : inHand) {
 			final PlayerStack pStack = p.getCurrentStack();
-			final float bet = pStack.getCommitedPerRound().getOrDefault(gameState, genRandomBet());
-			if (PokerMathUtils.floatEquals(bet, lastBet)) {
+			if (pStack.hasCommitted(gameState) && pStack.getCommittedChips(gameState) == lastBet) {
 				continue;// they've bet the required amount
 			}
-			if (PokerMathUtils.floatEqualsZero(pStack.getStack())) {
+			if (pStack.getStackChips() == 0) {
 				continue;// They're all-in so can't bet anymore
 			}
 			// Nether of the above are true, therefore the pot hasn't equalised
@@ -857,14 +964,6 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 	}
 	
 
-	
-	private float genRandomBet() {
-		double rnd = Math.random();
-		while (rnd == 0) {
-			rnd = Math.random();
-		}
-		return (float)(rnd * 100f);
-	}
 
 	/** Check whether the bets in the round have equalised via {@link #hasPotEqualized()}.
 	 * <p>If it has, and we're not auto-completing the round, collect player bets to the pot
@@ -884,7 +983,7 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 			return true;
 		}
 
-		currentPot += players.collectBets(gameState);
+		currentPot += players.collectBetChips(gameState);
 		resetBets(settings.getBigBlind());
 		
 		// Reset players for next set of cards
@@ -895,43 +994,54 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 
 	@Override
 	public Player pausePlayer(final String playerId, final String sessionId) {
-		
-		final Player player = players.getPlayerById(playerId);
-		final PlayerActionMessage pa = new PlayerActionMessage(sessionId);
-		GameUpdateMessage gum = null;
-		
-		if (player==null) {
+		if (!acquireLock()) {
+			logger.warn("Unable to pause player {} in game {}, the table is busy", playerId, settings.getGameId());
 			return null;
 		}
+		try {
+			final Player player = players.getPlayerById(playerId);
+			final PlayerActionMessage pa = new PlayerActionMessage(sessionId);
+			GameUpdateMessage gum = null;
 		
-		// Do this first so the action moves to correct player
-		if (!player.getState().isSittingOut()) {
-			player.getState().toggleSittingOut(getGameState(), true);
-		}
+			if (player==null) {
+				return null;
+			}
+			compoundAction = true;
 		
-		// If it's this players turn then either auto-fold them or check
-		if (player.getState().isActionOnMe()) {
-			if (getRequiredBet() > 0 && gameState!=TexasGameState.COMPLETE) {
-				pa.setAction(PlayerActionType.FOLD);
-				pa.setBetValue(getRequiredBet());
-				gum = doGameUpdateAction(pa);
-				logger.info("Player inactivity, game {}: Player {} automatically FOLDED", settings.getGameId(), playerId);
-			} else if (PokerMathUtils.floatEqualsZero(getRequiredBet())  && gameState!=TexasGameState.COMPLETE) {
-				pa.setAction(PlayerActionType.CHECK);
-				pa.setBetValue(0);
-				gum = doGameUpdateAction(pa);
-				logger.info("Player inactivity, game {}: Player {} automatically CHECKED", settings.getGameId(), playerId);
-			} else if (gameState==TexasGameState.COMPLETE && player.getState().isDealer()) {
-				moveDealerPosition();
+			// Do this first so the action moves to correct player
+			if (!player.getState().isSittingOut()) {
+				player.getState().toggleSittingOut(getGameState(), true);
 			}
-		}
 		
-		if (gum!=null) {
-			// If we've done a player action, the action would have moved
-			// to the next player
-			msgUtils.sendBroadcastToTable(getSettings().getGameId(), gum);
+			// If it's this players turn then either auto-fold them or check
+			if (player.getState().isActionOnMe()) {
+				if (getRequiredBetChips() > 0 && gameState!=TexasGameState.COMPLETE) {
+					pa.setAction(PlayerActionType.FOLD);
+					pa.setBetValue(getRequiredBet());
+					gum = doGameUpdateAction(pa);
+					logger.info("Player inactivity, game {}: Player {} automatically FOLDED", settings.getGameId(), playerId);
+				} else if (getRequiredBetChips() == 0  && gameState!=TexasGameState.COMPLETE) {
+					pa.setAction(PlayerActionType.CHECK);
+					pa.setBetValue(0);
+					gum = doGameUpdateAction(pa);
+					logger.info("Player inactivity, game {}: Player {} automatically CHECKED", settings.getGameId(), playerId);
+				} else if (gameState==TexasGameState.COMPLETE && player.getState().isDealer()) {
+					moveDealerPosition();
+				}
+			}
+		
+			if (gum!=null) {
+				// If we've done a player action, the action would have moved
+				// to the next player
+				msgUtils.sendBroadcastToTable(getSettings().getGameId(), gum);
+			}
+			compoundAction = false;
+			notifyEvent(l -> l.playerPaused(this, playerId));
+			return player;
+		} finally {
+			compoundAction = false;
+			lock.unlock();
 		}
-		return player;
 	}
 	
 	@Override
@@ -968,98 +1078,225 @@ public class TexasHoldemGame extends AbstractCardGame<TexasHoldemSettings> {
 		return soundClip;
 	}
 
+	@Override
+	public Player removePlayer(final String playerId) {
+		final Player removed = super.removePlayer(playerId);
+		// The action may have moved on from the removed player
+		scheduleInaction();
+		return removed;
+	}
+
 	@Override
 	public void completeGame() {
 		logger.info("Completing game: {}", settings.getGameId());
 		
+		completed = true;
 		if (blindIncreaseTimer!=null) {
-			blindIncreaseTimer.cancel();
-		}
-		if (inActionTimer!=null) {
-			inActionTimer.cancel();
+			blindIncreaseTimer.cancel(false);
 		}
+		cancelInaction();
 		
-		/* Removing all the players correctly also cashes them out
-		 * and calls related callbacks */
-		new HashSet<>(getPlayers()).forEach( p -> {
-			removePlayer(p.getPlayerId());
-		});
-		
-		settings.setCompleted();
+		// Wait for any in-flight action to finish before cashing everyone out
+		lock.lock();
+		try {
+			/* Removing all the players correctly also cashes them out
+			 * and calls related callbacks */
+			new HashSet<>(getPlayers()).forEach( p -> {
+				removePlayer(p.getPlayerId());
+			});
+			
+			settings.setCompleted();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public void release() {
+		completed = true;
+		if (blindIncreaseTimer!=null) {
+			blindIncreaseTimer.cancel(false);
+		}
+		cancelInaction();
+		super.release();
+	}
+	
+	@Override
+	public synchronized int getScheduledTimers() {
+		int scheduled = 0;
+		if (inActionTimer != null && !inActionTimer.isDone()) {
+			scheduled++;
+		}
+		if (blindIncreaseTimer != null && !blindIncreaseTimer.isDone()) {
+			scheduled++;
+		}
+		return scheduled;
+	}
+	
+	/** Get the action taken automatically for a player that has spent too long
+	 * with the action on them
+	 * 
+	 * @param player The player the action is on
+	 * @return The blind if it's due, a check if possible, otherwise a fold
+	 */
+	public PlayerActionType getInactionAction(final Player player) {
+		final PlayerState state = player.getState();
+		if (state.getBlindsDue() != Blinds.NONE) {
+			return PlayerActionType.POST_BLIND;
+		} else if (state.wasBigBlind() || getRequiredBetChips() == 0) {
+			return PlayerActionType.CHECK;
+		} else {
+			return PlayerActionType.FOLD;
+		}
 	}
 	
 	/** Auto-fold players that have spent too long with the action on them
 	 * 
 	 */
 	boolean doInactionProcess() {
-		final Player actionOn = players.getActionOn();
-		
-		if (getRound() == 0 || actionOn == null || gameState==TexasGameState.COMPLETE) {
+		// Skip this check if the table is busy, it will run again shortly
+		if (!lock.tryLock()) {
 			return false;
 		}
+		try {
+			final Player actionOn = players.getActionOn();
+		
+			if (getRound() == 0 || actionOn == null || gameState==TexasGameState.COMPLETE) {
+				return false;
+			}
 
-		final PlayerState aos = actionOn.getState();
+			final PlayerState aos = actionOn.getState();
 
-		if (aos.getNextAutoInaction() > 0 && aos.getNextAutoInaction() <= System.currentTimeMillis() && aos.getLastAction().isFold()==false) {
+			if (aos.getNextAutoInaction() > 0 && aos.getNextAutoInaction() <= System.currentTimeMillis() && aos.getLastAction().isFold()==false) {
 			
-			// Determine the most appropriate action...
-			PlayerActionType action;
-			if (aos.getBlindsDue() != Blinds.NONE) {
-				action = PlayerActionType.POST_BLIND;
-			} else {
-				if (aos.wasBigBlind() || PokerMathUtils.floatEqualsZero( getRequiredBet() )) {
-					action = PlayerActionType.CHECK;
-				} else {
-					action = PlayerActionType.FOLD;
-				}
-			}
+				final PlayerActionType action = getInactionAction(actionOn);
 			
-			logger.debug("Player {} automated action {} due to in-action", actionOn.getPlayerHandle(), action);
+				logger.debug("Player {} automated action {} due to in-action", actionOn.getPlayerHandle(), action);
 
-			final PlayerActionMessage pam = new PlayerActionMessage(actionOn.getSessionId(), action);
-			pam.setGameState(getGameState())
-				.setGameId(getSettings().getGameId())
-			    .setRound(getRound())
-			    .setMessage("Automated action: " + action.getFriendlyMessage());
+				final PlayerActionMessage pam = new PlayerActionMessage(actionOn.getSessionId(), action);
+				pam.setTimedOut(true)
+					.setPlayerId(actionOn.getPlayerId())
+					.setPlayerHandle(actionOn.getPlayerHandle())
+					.setGameState(getGameState())
+					.setGameId(getSettings().getGameId())
+				    .setRound(getRound())
+				    .setMessage("Automated action: " + action.getFriendlyMessage());
 
-			// Inform the player client of the action performed (really for completeness)
-			msgUtils.sendPrivateMessage(pam.getSessionId(), pam);
-			final GameUpdateMessage gum = doGameUpdateAction(pam);
+				// Inform the player client of the action performed (really for completeness)
+				msgUtils.sendPrivateMessage(pam.getSessionId(), pam);
+				final GameUpdateMessage gum = doGameUpdateAction(pam);
 			
-			if (gum != null) {
-				/* Re-apply the automated action as the player states could have
-				 * changed due to the game update action. This keeps the UI in-synch */
-				aos.setLastAction(action);
-				msgUtils.sendBroadcastToTable(getSettings().getGameId(), gum, 500L);
-			}
+				if (gum != null) {
+					/* Re-apply the automated action as the player states could have
+					 * changed due to the game update action. This keeps the UI in-synch */
+					aos.setLastAction(action);
+					final GameUpdateMessage update = new GameUpdateMessage(this);
+					update.setActionSound(gum.getActionSound());
+					msgUtils.sendBroadcastToTable(getSettings().getGameId(), update, 500L);
+				}
 			
-			// TODO Really should store the automated action here as well
-			return true;
-		}
+				// Stored, so the round can be replayed
+				actionTimedOut(pam);
+				return true;
+			}
 		
-		return false;
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+	/** Schedule the automatic action for the player the action is on, replacing any
+	 * previously scheduled. Called whenever the action may have moved
+	 */
+	private synchronized void scheduleInaction() {
+		if (settings.getActionTimeout() <= 0 || completed) {
+			return;
+		}
+		final long deadline = inactionDeadline();
+		if (deadline == inActionDeadline) {
+			return;
+		}
+		cancelInaction();
+		inActionDeadline = deadline;
+		if (deadline > 0) {
+			inActionTimer = timer.schedule(this::inactionDeadlineReached, deadline);
+		}
+	}
+	
+	/** The time the player the action is on would be acted for, or -1 if there is
+	 * nothing doInactionProcess would do, e.g. the hand is complete
+	 */
+	private long inactionDeadline() {
+		final Player actionOn = players.getActionOn();
+		if (getRound() == 0 || actionOn == null || gameState==TexasGameState.COMPLETE || actionOn.getState().getLastAction().isFold()) {
+			return -1;
+		}
+		return actionOn.getState().getNextAutoInaction();
+	}
+	
+	private synchronized void cancelInaction() {
+		if (inActionTimer != null) {
+			inActionTimer.cancel(false);
+			inActionTimer = null;
+		}
+		inActionDeadline = -1;
 	}
+	
+	/** Run by the timer when a player's time to act has passed
+	 */
+	private void inactionDeadlineReached() {
+		if (!acquireLock()) {
+			logger.warn("Unable to check for player inactivity in game {}, the table is busy", settings.getGameId());
+			return;
+		}
+		try {
+			synchronized (this) {
+				// Fired, but keep the deadline so it is only re-armed once it changes
+				inActionTimer = null;
+			}
+			doInactionProcess();
+		} finally {
+			synchronized (this) {
+				if (inActionDeadline > System.currentTimeMillis()) {
+					// Fired early, so still due
+					inActionDeadline = -1;
+				}
+			}
+			// The action may have moved, or the player's deadline been extended
+			scheduleInaction();
+			lock.unlock();
+		}
+	}
+	
 	/** The automatic timer for increasing the ante in a Tournament
 	 * 
 	 */
-	class IncreaseAnteTimer extends TimerTask {
+	class IncreaseAnteTimer implements Runnable {
 		private AbstractCardGame<?> theGame;
 		IncreaseAnteTimer(AbstractCardGame<?> theGame) {
 			this.theGame = theGame;
 		}
 		@Override
 		public void run() {
- 			if (settings.increaseAnte()) {
-				blindIncreaseAt = System.currentTimeMillis() + settings.getBlindIncreaseInterval();
-				final float ante = Math.round(settings.getAnte() * 100) / 100f;
-				final GameUpdateMessage gum = new GameUpdateMessage(theGame);
-				gum.setMessage("The blinds have doubled to " + ante + " / " + (ante * 2));
-				msgUtils.sendBroadcastToTable(settings.getGameId(), gum);
-				anteAutoUpBeforeDeal = getGameState().getOrder() <= TexasGameState.POST_DEAL.getOrder();
-				logger.info("Automatically increasing Ante for game {} to {}", settings.getGameId(), ante);
-			} else {
-				this.cancel();
-				logger.debug("Maxiumum ante reached for game {}", settings.getGameId());
+			if (!acquireLock()) {
+				logger.warn("Unable to increase the ante for game {}, the table is busy", settings.getGameId());
+				return;
+			}
+			try {
+				if (settings.increaseAnte()) {
+					blindIncreaseAt = System.currentTimeMillis() + settings.getBlindIncreaseInterval();
+					final float ante = Math.round(settings.getAnte() * 100) / 100f;
+					final GameUpdateMessage gum = new GameUpdateMessage(theGame);
+					gum.setMessage("The blinds have doubled to " + ante + " / " + (ante * 2));
+					msgUtils.sendBroadcastToTable(settings.getGameId(), gum);
+					anteAutoUpBeforeDeal = getGameState().getOrder() <= TexasGameState.POST_DEAL.getOrder();
+					logger.info("Automatically increasing Ante for game {} to {}", settings.getGameId(), ante);
+				} else {
+					blindIncreaseTimer.cancel(false);
+					logger.debug("Maxiumum ante reached for game {}", settings.getGameId());
+				}
+			} finally {
+				lock.unlock();
 			}
 		}
 	}
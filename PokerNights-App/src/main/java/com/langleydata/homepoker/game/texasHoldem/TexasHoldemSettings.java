@@ -55,6 +55,7 @@ public class TexasHoldemSettings implements GameSettings {
 	/** Organiser settings */
 	private PotLimit potLimit = PotLimit.NO_LIMIT;
 	private boolean enforceMinimumRaise = true, buyInDuringGameAllowed = false, rebuyInRound = false, hostControlledWallet = false;
+	private boolean showAllInEquity = false;
 	private RebuyType rebuyOption = RebuyType.INITIAL_BUY_IN;
 	private ShuffleOption shuffleOption = ShuffleOption.ALWAYS;
 	
@@ -198,6 +199,22 @@ public class TexasHoldemSettings implements GameSettings {
 	public void setRebuyInRound(boolean rebuyInRound) {
 		this.rebuyInRound = rebuyInRound;
 	}
+
+	/** Should each player's chance of winning be sent to the table when
+	 * the round is run out with players all-in
+	 * 
+	 * @return the showAllInEquity
+	 */
+	public boolean isShowAllInEquity() {
+		return showAllInEquity;
+	}
+
+	/**
+	 * @param showAllInEquity the showAllInEquity to set
+	 */
+	public void setShowAllInEquity(boolean showAllInEquity) {
+		this.showAllInEquity = showAllInEquity;
+	}
  
 	
 	/** Can players buy-in part way through?
@@ -7,6 +7,7 @@ import org.springframework.data.annotation.PersistenceConstructor;
 import org.springframework.data.annotation.Transient;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.langleydata.homepoker.game.Chips;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.game.texasHoldem.HandRank;
 import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
@@ -21,7 +22,8 @@ public class GamePot {
 
 	private String name;
 	private final TexasGameState state;
-	private float potTotal;
+	/** In {@link Chips} minor units */
+	private long potTotal;
 	private List<Player> contestedBy = new ArrayList<>();
 	private List<Winner> potWinners = new ArrayList<>();
 	private HandRank winningRank = new HandRank(0, null, null);
@@ -69,13 +71,13 @@ public class GamePot {
 	}
 	
 	/**
-	 * @param toAdd the amount to add to this pot
+	 * @param toAdd the minor units to add to this pot
 	 */
-	public void addPotValue(float toAdd) {
+	public void addPotValue(long toAdd) {
 		this.potTotal += toAdd;
 	}
 
-	void setPotTotal(float newVal) {
+	void setPotTotal(long newVal) {
 		this.potTotal = newVal;
 	}
 
@@ -84,7 +86,7 @@ public class GamePot {
 	 * @return
 	 */
 	public float getWinPerPerson() {
-		return this.potTotal / (potWinners == null ? 1 : potWinners.size());
+		return Chips.toFloat(potTotal) / (potWinners == null ? 1 : potWinners.size());
 	}
 	
 	/**
@@ -115,6 +117,15 @@ public class GamePot {
 	 * @return
 	 */
 	public float getPotTotal() {
+		return Chips.toFloat(this.potTotal);
+	}
+
+	/**
+	 * 
+	 * @return The pot total in minor units
+	 */
+	@JsonIgnore
+	public long getPotTotalChips() {
 		return this.potTotal;
 	}
 	
@@ -124,7 +135,7 @@ public class GamePot {
 	 * @param contestedBy the contestedBy to set
 	 */
 	public void addContestedBy(Player contestedBy) {
-		float cpr = contestedBy.getCurrentStack().getCommitedPerRound().getOrDefault(state, 0f);
+		final long cpr = state == null ? 0 : contestedBy.getCurrentStack().getCommittedChips(state);
 		if (cpr > 0) {
 			
 			playersContributing++;
@@ -159,7 +170,7 @@ public class GamePot {
 		builder.append("\nName=");
 		builder.append(name).append(", ");
 		builder.append("pot=");
-		builder.append(potTotal).append(", ");
+		builder.append(getPotTotal()).append(", ");
 		builder.append("Wining Rank: ").append(winningRank).append("\n");
 		builder.append("Winners=");
 		builder.append(potWinners != null ? potWinners.subList(0, Math.min(potWinners.size(), maxLen)) : null);
@@ -65,13 +65,13 @@ public class GamePots {
 		if (cPot==null) {
 			SidePot sp = new SidePot();
 			sp.setName(potName);
-			sp.setPotTotal(newPot.getPotTotal());
+			sp.setPotTotal(newPot.getPotTotalChips());
 			// Don't use the method that filters on rank, as already done
 			sp.addAllWinners(newPot.getPotWinners());
 			sp.setMaxRank(newPot.getMaxRank());
 			allPots.put(potName, sp);
 		} else {
-			cPot.setPotTotal(cPot.getPotTotal() + newPot.getPotTotal());
+			cPot.setPotTotal(cPot.getPotTotalChips() + newPot.getPotTotalChips());
 		}
 	}
 	
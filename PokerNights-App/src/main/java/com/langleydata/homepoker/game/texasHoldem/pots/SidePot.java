@@ -8,6 +8,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.langleydata.homepoker.game.Chips;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.game.texasHoldem.HandRank;
 import com.langleydata.homepoker.game.texasHoldem.Winner;
@@ -21,7 +22,8 @@ import com.langleydata.homepoker.game.texasHoldem.Winner;
 public class SidePot {
 
 	private String name;
-	private float potTotal;
+	/** In {@link Chips} minor units */
+	private long potTotal;
 	private Set<Player> potWinners = new HashSet<>();
 	private HandRank maxRank;
 	
@@ -34,9 +36,9 @@ public class SidePot {
 	
 	/** Construct a side pot, setting the pot total
 	 * 
-	 * @param potTotal
+	 * @param potTotal The pot total in minor units
 	 */
-	public SidePot(final float potTotal) {
+	public SidePot(final long potTotal) {
 		this.potTotal = potTotal;
 	}
 	
@@ -78,19 +80,20 @@ public class SidePot {
 	
 	/** Set the value of this pot
 	 * 
-	 * @param potTotal
+	 * @param potTotal The pot total in minor units
 	 */
-	public void setPotTotal(float potTotal) {
+	public void setPotTotal(long potTotal) {
 		this.potTotal = potTotal;
 	}
 
-	/** Get how much each winner receives
+	/** Get how much a winner receives. The pot is split equally, with any odd chips
+	 * going one each to the winners in seat order
 	 * 
-	 * @return
+	 * @param position The winner's position in {@link #getWinnersBySeat()}
+	 * @return The minor units won
 	 */
-	@JsonIgnore
-	public float getWinPerPerson() {
-		return this.potTotal / potWinners.size();
+	public long getWinFor(final int position) {
+		return Chips.share(potTotal, potWinners.size(), position);
 	}
 	
 	/** The total value of this side-pot
@@ -98,6 +101,15 @@ public class SidePot {
 	 * @return
 	 */
 	public float getPotTotal() {
+		return Chips.toFloat(potTotal);
+	}
+
+	/** The total value of this side-pot in minor units
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public long getPotTotalChips() {
 		return potTotal;
 	}
 
@@ -116,6 +128,17 @@ public class SidePot {
 		}
 	}
 
+	/** Get a copy of the players who have won this pot, in seat order
+	 * 
+	 * @return
+	 */
+	@JsonIgnore
+	public List<Player> getWinnersBySeat() {
+		return potWinners.stream()
+				.sorted(Comparator.comparingInt(Player::getSeatingPos))
+				.collect(Collectors.toList());
+	}
+
 	/** Get the winning hand rank of this pot
 	 * 
 	 * @return
@@ -140,7 +163,7 @@ public class SidePot {
 
 	@Override
 	public String toString() {
-		return "SidePot [name=" + name + ", potTotal=" + potTotal + ", potWinners=" + potWinners + ", maxRank="
+		return "SidePot [name=" + name + ", potTotal=" + getPotTotal() + ", potWinners=" + potWinners + ", maxRank="
 				+ maxRank + "]";
 	}
 
@@ -96,6 +96,16 @@ public class EvaluatorUtils {
             throw new IllegalArgumentException("Illegal hand.");
         }
 
+        return evaluate(c1, c2, c3, c4, c5);
+    }
+
+    /**
+     * Evaluates 5 binary card values (see {@link Card#getValue()}) without any allocation or
+     * duplicate checking.
+     * 
+     * @return the value of the hand as an integer between 1 and 7462. The <b>LOWER</b> the value the better
+     */
+    static int evaluate(final int c1, final int c2, final int c3, final int c4, final int c5) {
         // Calculate index in the flushes/unique table
         final int index = (c1 | c2 | c3 | c4 | c5) >> 16;
 
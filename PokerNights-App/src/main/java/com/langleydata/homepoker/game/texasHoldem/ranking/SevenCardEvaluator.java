@@ -0,0 +1,178 @@
+package com.langleydata.homepoker.game.texasHoldem.ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.game.texasHoldem.HandRank;
+import com.langleydata.homepoker.game.texasHoldem.PokerHand;
+
+/** A primitive evaluator for 5, 6 or 7 card hands that works directly on the binary
+ * card values (see {@link Card#getValue()}).<p>
+ * Each 5 card combination is scored with the same Cactus Kev lookup as
+ * {@link EvaluatorUtils#getHandRank(List)}, but without building intermediate lists,
+ * and the name of the hand is derived from the rank value rather than re-examining
+ * the cards with the {@link RankEvaluator}s.
+ *
+ * @author reynolds_mj
+ *
+ */
+public final class SevenCardEvaluator {
+	/** The highest (best) rank value, a Royal Flush */
+	public static final int MAX_RANK = 7462;
+
+	/** The index of each card in every 5 card combination, for 5, 6 and 7 cards */
+	private static final int[][][] COMBINATIONS = new int[8][][];
+	private static final Comparator<Card> BY_FACE = Comparator.comparingInt(Card::getFace);
+
+	static {
+		for (int n = 5; n <= 7; n++) {
+			final List<int[]> combos = new ArrayList<>();
+			for (int a = 0; a < n - 4; a++) {
+				for (int b = a + 1; b < n - 3; b++) {
+					for (int c = b + 1; c < n - 2; c++) {
+						for (int d = c + 1; d < n - 1; d++) {
+							for (int e = d + 1; e < n; e++) {
+								combos.add(new int[] {a, b, c, d, e});
+							}
+						}
+					}
+				}
+			}
+			COMBINATIONS[n] = combos.toArray(new int[combos.size()][]);
+		}
+	}
+
+	private SevenCardEvaluator() {
+	}
+
+	/** Evaluate the best 5 card hand from the table and player's cards.<p>
+	 * Only the returned {@link HandRank} and its list of ranked cards are allocated.
+	 *
+	 * @param cardsOnTable The community cards
+	 * @param playerCards The player's hole cards
+	 * @return The rank of the best 5 cards, including its name. If any card is null a rank
+	 * of zero is returned
+	 * @throws IllegalArgumentException If there are not 5 to 7 cards in total, or a card is duplicated
+	 */
+	public static HandRank getHandRank(final List<Card> cardsOnTable, final List<Card> playerCards) {
+		final int count = cardsOnTable.size() + playerCards.size();
+		for (int i = 0; i < count; i++) {
+			if (cardAt(cardsOnTable, playerCards, i) == null) {
+				return new HandRank(0, null, null);
+			}
+		}
+		if (count < 5 || count > 7) {
+			throw new IllegalArgumentException("Between 5 and 7 cards are required.");
+		}
+
+		// No duplicate cards allowed
+		long seen = 0;
+		for (int i = 0; i < count; i++) {
+			final long bit = 1L << cardIndex(cardAt(cardsOnTable, playerCards, i).getValue());
+			if ((seen & bit) != 0) {
+				throw new IllegalArgumentException("Illegal hand.");
+			}
+			seen |= bit;
+		}
+
+		// Score each combination, keeping the first of the best
+		final int[][] combos = COMBINATIONS[count];
+		int bestRank = Integer.MAX_VALUE, bestCombo = 0;
+		for (int i = 0; i < combos.length; i++) {
+			final int[] cmb = combos[i];
+			final int result = EvaluatorUtils.evaluate(
+					cardAt(cardsOnTable, playerCards, cmb[0]).getValue(),
+					cardAt(cardsOnTable, playerCards, cmb[1]).getValue(),
+					cardAt(cardsOnTable, playerCards, cmb[2]).getValue(),
+					cardAt(cardsOnTable, playerCards, cmb[3]).getValue(),
+					cardAt(cardsOnTable, playerCards, cmb[4]).getValue());
+			if (result < bestRank) {
+				bestRank = result;
+				bestCombo = i;
+			}
+		}
+
+		// Sort the cards for better viewing and analysis
+		final List<Card> rankCards = new ArrayList<>(5);
+		for (int idx : combos[bestCombo]) {
+			rankCards.add(cardAt(cardsOnTable, playerCards, idx));
+		}
+		rankCards.sort(BY_FACE);
+
+		final int rankValue = MAX_RANK + 1 - bestRank;
+		return new HandRank(rankValue, getPokerHand(rankValue), rankCards);
+	}
+
+	/** Evaluate 5 to 7 binary card values without any allocation or validation.
+	 * The caller is responsible for ensuring the cards are distinct.
+	 *
+	 * @param cards The binary card values
+	 * @param count How many of the values to evaluate, from the start of the array
+	 * @return The value of the best hand between 1 and 7462. The <b>HIGHER</b> the value the better
+	 */
+	public static int evaluate(final int[] cards, final int count) {
+		final int[][] combos = COMBINATIONS[count];
+		int bestRank = Integer.MAX_VALUE;
+		for (int i = 0; i < combos.length; i++) {
+			final int[] cmb = combos[i];
+			final int result = EvaluatorUtils.evaluate(cards[cmb[0]], cards[cmb[1]], cards[cmb[2]], cards[cmb[3]], cards[cmb[4]]);
+			if (result < bestRank) {
+				bestRank = result;
+			}
+		}
+		return MAX_RANK + 1 - bestRank;
+	}
+
+	/** Get the name of a hand from its rank value, where the bands of values
+	 * are fixed by the Cactus Kev ordering of equivalence classes
+	 *
+	 * @param rankValue The rank value between 1 and 7462 (higher is better)
+	 * @return The hand's name, or {@link PokerHand#NONE} if the value is out of range
+	 */
+	public static PokerHand getPokerHand(final int rankValue) {
+		if (rankValue > MAX_RANK || rankValue < 1) {
+			return PokerHand.NONE;
+		} else if (rankValue == MAX_RANK) {
+			return PokerHand.ROYAL_FLUSH;
+		} else if (rankValue > 7452) {
+			return PokerHand.STRAIGHT_FLUSH;
+		} else if (rankValue > 7296) {
+			return PokerHand.FOUR_KIND;
+		} else if (rankValue > 7140) {
+			return PokerHand.FULL_HOUSE;
+		} else if (rankValue > 5863) {
+			return PokerHand.FLUSH;
+		} else if (rankValue > 5853) {
+			return PokerHand.STRAIGHT;
+		} else if (rankValue > 4995) {
+			return PokerHand.THREE_KIND;
+		} else if (rankValue > 4137) {
+			return PokerHand.TWO_PAIR;
+		} else if (rankValue > 1277) {
+			return PokerHand.PAIR;
+		}
+		return PokerHand.HIGH_CARD;
+	}
+
+	/** Get a unique index (0-51) for a binary card value, ordered by rank then suit
+	 *
+	 * @param value The card's binary value
+	 * @return
+	 */
+	public static int cardIndex(final int value) {
+		return ((value >> 8) & 0xF) * 4 + Integer.numberOfTrailingZeros(value >> 12);
+	}
+
+	/** Get a card from two lists, as if they had been concatenated
+	 *
+	 * @param first
+	 * @param second
+	 * @param index
+	 * @return
+	 */
+	private static Card cardAt(final List<Card> first, final List<Card> second, final int index) {
+		return index < first.size() ? first.get(index) : second.get(index - first.size());
+	}
+}
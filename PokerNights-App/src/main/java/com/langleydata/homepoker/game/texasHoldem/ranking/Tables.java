@@ -2,48 +2,11 @@ package com.langleydata.homepoker.game.texasHoldem.ranking;
 
 /** Lookup tables for making calculations faster. */
 public class Tables {
-    private static final int CARDS_IN_DECK = 52;
-    private static final int HAND_COMBINATIONS = 2598960;
     public static final byte[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41};
-    private static final int[] DECK = {
-        98306, 164099, 295429, 557831, 1082379, 2131213, 4228625, 8423187, 16812055, 33589533, 67144223, 134253349,
-        268471337, 81922, 147715, 279045, 541447, 1065995, 2114829, 4212241, 8406803, 16795671, 33573149, 67127839,
-        134236965, 268454953, 73730, 139523, 270853, 533255, 1057803, 2106637, 4204049, 8398611, 16787479, 33564957,
-        67119647, 134228773, 268446761, 69634, 135427, 266757, 529159, 1053707, 2102541, 4199953, 8394515, 16783383,
-        33560861, 67115551, 134224677, 268442665,
-    };
-
-    private static final int[][] HANDS;
-
-    static {
-        HANDS = new int[HAND_COMBINATIONS][];
-        for (int i = 0; i < HANDS.length; i++) {
-            HANDS[i] = new int[5];
-        }
-
-        // Generate every possible 5-card hand
-        int totalHands = 0;
-        int[] hand = new int[5];
-        for (int a = 0; a < CARDS_IN_DECK - 4; a++) {
-            hand[0] = DECK[a];
-            for (int b = a + 1; b < CARDS_IN_DECK - 3; b++) {
-                hand[1] = DECK[b];
-                for (int c = b + 1; c < CARDS_IN_DECK - 2; c++) {
-                    hand[2] = DECK[c];
-                    for (int d = c + 1; d < CARDS_IN_DECK - 1; d++) {
-                        hand[3] = DECK[d];
-                        for (int e = d + 1; e < CARDS_IN_DECK; e++) {
-                            hand[4] = DECK[e];
-                            System.arraycopy(hand, 0, HANDS[totalHands++], 0, hand.length);
-                        }
-                    }
-                }
-            }
-        }
-
-        assert totalHands == HANDS.length;
-    }
 
+    /* Each table is held in its own nested class so that it is only loaded (and its
+     * array built) the first time an evaluation needs it, rather than when the first
+     * Card is created and touches PRIMES. */
     public static class Flushes {
         public static final short[] TABLE = {
             0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
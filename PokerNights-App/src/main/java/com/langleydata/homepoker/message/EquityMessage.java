@@ -0,0 +1,45 @@
+package com.langleydata.homepoker.message;
+
+import java.util.List;
+
+import com.langleydata.homepoker.api.MessageTypes;
+import com.langleydata.homepoker.game.texasHoldem.Equity;
+
+/** A one-way message with each player's chance of winning, as calculated
+ * by the EquityCalculator
+ * 
+ */
+public class EquityMessage extends PokerMessage {
+	private final List<String> players;
+	private final Equity equity;
+
+	/** A new message with an error only
+	 * 
+	 * @param errorMessage
+	 */
+	public EquityMessage(final String errorMessage) {
+		this(null, null, null);
+		setMessage(errorMessage);
+	}
+
+	/**
+	 * 
+	 * @param sessionId
+	 * @param players A label for each player, in the same order as the equity values
+	 * @param equity The calculated equity
+	 */
+	public EquityMessage(final String sessionId, final List<String> players, final Equity equity) {
+		super(MessageTypes.EQUITY, sessionId);
+		this.players = players;
+		this.equity = equity;
+	}
+
+	public List<String> getPlayers() {
+		return players;
+	}
+
+	public Equity getEquity() {
+		return equity;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.langleydata.homepoker.message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.langleydata.homepoker.api.MessageTypes;
+
+/** The wire form of a {@link GameUpdateMessage}, as sent by the {@link GameUpdateMessageConverter}.<p>
+ * Each game's state is versioned with a sequence number. A message either has the complete game
+ * state in 'currentGame', or in 'delta' only the changes since the state numbered 'baseSeq'.
+ * Sequence numbers increase but needn't be consecutive.
+ * The changed players are sent in full in 'delta.players.changed' and the ids of any players that have
+ * left are in 'delta.players.removed'.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class GameStateMessage extends PokerMessage {
+	private final long seq;
+	private final Long baseSeq;
+	private final JsonNode currentGame;
+	private final JsonNode delta;
+	private final boolean newGame;
+	private final String actionSound;
+
+	/**
+	 *
+	 * @param source The update being sent
+	 * @param seq The sequence number of the game state
+	 * @param baseSeq The sequence number of the state the delta is based on, or null if sending the complete state
+	 * @param currentGame The complete game state, or null if sending a delta
+	 * @param delta The changes since the base sequence number, or null if sending the complete state
+	 */
+	GameStateMessage(final GameUpdateMessage source, final long seq, final Long baseSeq, final JsonNode currentGame, final JsonNode delta) {
+		super(MessageTypes.GAME_UPDATE, source.getSessionId());
+		this.seq = seq;
+		this.baseSeq = baseSeq;
+		this.currentGame = currentGame;
+		this.delta = delta;
+		this.newGame = source.isNewGame();
+		this.actionSound = source.getActionSound();
+		this.message = source.message;
+		this.picture = source.picture;
+	}
+
+	/** The sequence number of the game state
+	 *
+	 * @return
+	 */
+	public long getSeq() {
+		return seq;
+	}
+
+	/** The sequence number of the state the delta is based on, or null if this is the complete state
+	 *
+	 * @return
+	 */
+	public Long getBaseSeq() {
+		return baseSeq;
+	}
+
+	/** The complete game state, or null if this is a delta
+	 *
+	 * @return
+	 */
+	public JsonNode getCurrentGame() {
+		return currentGame;
+	}
+
+	/** The changes since the base sequence number, or null if this is the complete state
+	 *
+	 * @return
+	 */
+	public JsonNode getDelta() {
+		return delta;
+	}
+
+	public boolean isNewGame() {
+		return newGame;
+	}
+
+	public String getActionSound() {
+		return actionSound;
+	}
+}
@@ -0,0 +1,144 @@
+package com.langleydata.homepoker.message;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/** Tracks the last game state sent to a table so that only the changes need to be sent.<p>
+ * Each update is sent with the sequence number and state it was given when built under the table's
+ * lock (see {@link GameUpdateMessage#getSeq()}), and the sequence number of the state its delta is
+ * based on. The first update for a game is sent complete, after which each is the difference
+ * from the last one sent. An update converted after a later one has already been sent carries
+ * no changes, as the later one already has the game's state, as does one built outside the lock.
+ *
+ * @author reynolds_mj
+ *
+ */
+class GameStateTracker {
+	static final String PLAYERS = "players";
+	static final String PLAYER_ID = "playerId";
+
+	private final ObjectMapper mapper;
+	private long seq = 0;
+	private ObjectNode last;
+
+	GameStateTracker(final ObjectMapper mapper) {
+		this.mapper = mapper;
+	}
+
+	/** Encode an update to the table as the changes since the previous update
+	 *
+	 * @param gum The update, which must have a game
+	 * @return The message to send
+	 */
+	synchronized GameStateMessage encode(final GameUpdateMessage gum) {
+		if (gum.getState() == null || gum.getSeq() <= seq) {
+			return new GameStateMessage(gum, seq, seq, null, mapper.createObjectNode());
+		}
+		final ObjectNode current = gum.getState();
+		final ObjectNode previous = last;
+		final long baseSeq = seq;
+		last = current;
+		seq = gum.getSeq();
+		if (previous == null) {
+			return new GameStateMessage(gum, seq, null, current, null);
+		}
+		return new GameStateMessage(gum, seq, baseSeq, null, diff(previous, current));
+	}
+
+	/** Get the complete state that the last update was based on, so a client can
+	 * apply the following deltas
+	 *
+	 * @param gum The update, which must have a game
+	 * @return The message to send
+	 */
+	synchronized GameStateMessage snapshot(final GameUpdateMessage gum) {
+		start(gum);
+		return new GameStateMessage(gum, seq, null, last, null);
+	}
+
+	/** Set a message's game to the complete state that the last update was based on, so that
+	 * a client can apply the following deltas
+	 *
+	 * @param gum An update built with the message, used if no update has been sent yet
+	 * @param message The message, which is given a 'currentGame'
+	 * @return The message with the game state and its sequence number
+	 */
+	synchronized ObjectNode baseline(final GameUpdateMessage gum, final ObjectNode message) {
+		start(gum);
+		message.set("currentGame", last);
+		message.put("seq", seq);
+		return message;
+	}
+
+	/** Base the following deltas on an update's state if nothing has been sent yet
+	 * 
+	 * @param gum
+	 */
+	private void start(final GameUpdateMessage gum) {
+		if (last == null && gum.getState() != null) {
+			last = gum.getState();
+			seq = gum.getSeq();
+		}
+	}
+
+	/** Get the fields that have changed between two game states. A field that has
+	 * been removed is set to null
+	 *
+	 * @param previous
+	 * @param current
+	 * @return
+	 */
+	ObjectNode diff(final ObjectNode previous, final ObjectNode current) {
+		final ObjectNode delta = mapper.createObjectNode();
+		final Iterator<Entry<String, JsonNode>> fields = current.fields();
+		while (fields.hasNext()) {
+			final Entry<String, JsonNode> field = fields.next();
+			final JsonNode before = previous.get(field.getKey());
+			if (field.getValue().equals(before)) {
+				continue;
+			}
+			if (PLAYERS.equals(field.getKey()) && field.getValue().isArray() && before != null && before.isArray()) {
+				delta.set(PLAYERS, diffPlayers((ArrayNode) before, (ArrayNode) field.getValue()));
+			} else {
+				delta.set(field.getKey(), field.getValue());
+			}
+		}
+		final Iterator<String> names = previous.fieldNames();
+		while (names.hasNext()) {
+			final String name = names.next();
+			if (!current.has(name)) {
+				delta.putNull(name);
+			}
+		}
+		return delta;
+	}
+
+	/** Get the players that have changed, and the ids of those that have been removed
+	 *
+	 * @param previous
+	 * @param current
+	 * @return
+	 */
+	private ObjectNode diffPlayers(final ArrayNode previous, final ArrayNode current) {
+		final Map<String, JsonNode> before = new HashMap<>();
+		previous.forEach(p -> before.put(p.path(PLAYER_ID).asText(), p));
+
+		final ObjectNode players = mapper.createObjectNode();
+		final ArrayNode changed = players.putArray("changed");
+		for (JsonNode p : current) {
+			if (!p.equals(before.remove(p.path(PLAYER_ID).asText()))) {
+				changed.add(p);
+			}
+		}
+		final ArrayNode removed = players.putArray("removed");
+		before.keySet().forEach(removed::add);
+		return players;
+	}
+}
@@ -1,12 +1,15 @@
 package com.langleydata.homepoker.message;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.langleydata.homepoker.api.MessageTypes;
 import com.langleydata.homepoker.api.CardGame.GameUpdateType;
 import com.langleydata.homepoker.game.AbstractCardGame;
 import com.langleydata.homepoker.game.players.SystemPlayer;
 
-/** A one-way (server->Player) broadcast message with the game update
+/** A one-way (server->Player) broadcast message with the game update.<p>
+ * An update built under the table's lock is numbered and carries the game's state at that
+ * point. One built elsewhere carries no state, just its message, as the game may be changing.
  * 
  * @author reynolds_mj
  *
@@ -14,9 +17,12 @@ import com.langleydata.homepoker.game.players.SystemPlayer;
 public class GameUpdateMessage extends PokerMessage {
 
 	final AbstractCardGame<?> currentGame;
+	private final long seq;
+	private final ObjectNode state;
 	private boolean newGame = false;
 	private String actionSound;
 	private boolean sendUpdate = true;
+	private boolean snapshot = false;
 	
 	
 	/** Construct a new update with the game
@@ -28,6 +34,8 @@ public class GameUpdateMessage extends PokerMessage {
 		super(MessageTypes.GAME_UPDATE, SystemPlayer.ID);
 		this.currentGame = currentGame;
 		this.newGame = newGame;
+		this.seq = currentGame == null ? 0 : currentGame.nextUpdateSeq();
+		this.state = seq > 0 ? currentGame.writeState() : null;
 	}
 	
 	/** Construct a new update with the game
@@ -35,8 +43,7 @@ public class GameUpdateMessage extends PokerMessage {
 	 * @param currentGame The game detail
 	 */
 	public GameUpdateMessage(final AbstractCardGame<?> currentGame) {
-		super(MessageTypes.GAME_UPDATE, SystemPlayer.ID);
-		this.currentGame = currentGame;
+		this(currentGame, false);
 	}
 
 	/** Construct a new message with an error
@@ -46,6 +53,8 @@ public class GameUpdateMessage extends PokerMessage {
 	public GameUpdateMessage(final String errorMessage) {
 		super(MessageTypes.GAME_UPDATE, SystemPlayer.ID);
 		this.currentGame = null;
+		this.seq = 0;
+		this.state = null;
 		this.message = errorMessage;
 	}
 	/**
@@ -55,6 +64,8 @@ public class GameUpdateMessage extends PokerMessage {
 	public GameUpdateMessage(final GameUpdateType updateType) {
 		super(MessageTypes.GAME_UPDATE, SystemPlayer.ID);
 		this.currentGame = null;
+		this.seq = 0;
+		this.state = null;
 		this.message = updateType.name();
 	}
 	/**
@@ -64,6 +75,23 @@ public class GameUpdateMessage extends PokerMessage {
 		return currentGame;
 	}
 
+	/**
+	 * @return The sequence number given to the update when it was built, or 0 if it wasn't
+	 * built under the table's lock
+	 */
+	@JsonIgnore
+	public long getSeq() {
+		return seq;
+	}
+	
+	/**
+	 * @return The game's state when the update was built, or null if it wasn't built under the table's lock
+	 */
+	@JsonIgnore
+	public ObjectNode getState() {
+		return state;
+	}
+
 	/**
 	 * @return the newGame
 	 */
@@ -96,5 +124,22 @@ public class GameUpdateMessage extends PokerMessage {
 		return this;
 	}
 	
+	/**
+	 * @return Should the complete game state be sent, rather than the changes? See {@link GameUpdateMessageConverter}
+	 */
+	@JsonIgnore
+	public boolean isSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @param snapshot Send the complete game state, e.g. for a player that has just joined the table
+	 */
+	@JsonIgnore
+	public GameUpdateMessage setSnapshot(boolean snapshot) {
+		this.snapshot = snapshot;
+		return this;
+	}
+	
 	
 }
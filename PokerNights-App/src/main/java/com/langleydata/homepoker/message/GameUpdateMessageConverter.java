@@ -0,0 +1,89 @@
+package com.langleydata.homepoker.message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.langleydata.homepoker.game.AbstractCardGame;
+
+/** Converts outbound {@link GameUpdateMessage}s to versioned {@link GameStateMessage}s, so that only the
+ * changes to the game are sent to a table rather than the whole game on every update.<p>
+ * Updates are sent as a delta from the game's previous update, unless they are marked as a snapshot,
+ * e.g. when a player first views the table or asks for a resync after missing an update.
+ * Batches of messages (see {@link TableOutbox}) have each of their game updates converted. A
+ * {@link PrivateJoinerMessage} is given the state the following deltas are based on.<p>
+ * Any other payload is left to the following converters.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class GameUpdateMessageConverter implements MessageConverter {
+	private final ObjectMapper mapper;
+	private final MappingJackson2MessageConverter delegate = new MappingJackson2MessageConverter();
+	/** Held weakly so the state is released along with the game */
+	private final Map<AbstractCardGame<?>, GameStateTracker> trackers = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 *
+	 * @param mapper The application's ObjectMapper
+	 */
+	public GameUpdateMessageConverter(final ObjectMapper mapper) {
+		this.mapper = mapper;
+		this.delegate.setObjectMapper(mapper);
+	}
+
+	@Override
+	public Object fromMessage(final Message<?> message, final Class<?> targetClass) {
+		return null;
+	}
+
+	@Override
+	public Message<?> toMessage(final Object payload, final MessageHeaders headers) {
+		if (payload instanceof GameUpdateMessage) {
+			final GameUpdateMessage gum = (GameUpdateMessage) payload;
+			if (gum.getCurrentGame() == null) {
+				return null;
+			}
+			return delegate.toMessage(convert(gum), headers);
+		}
+		if (payload instanceof PrivateJoinerMessage && ((PrivateJoinerMessage) payload).getCurrentGame() != null) {
+			final PrivateJoinerMessage joiner = (PrivateJoinerMessage) payload;
+			final ObjectNode message = mapper.valueToTree(joiner);
+			return delegate.toMessage(tracker(joiner.getCurrentGame()).baseline(joiner.getUpdate(), message), headers);
+		}
+		if (payload instanceof List && ((List<?>) payload).stream().anyMatch(GameUpdateMessage.class::isInstance)) {
+			final List<Object> converted = new ArrayList<>();
+			for (Object o : (List<?>) payload) {
+				converted.add(o instanceof GameUpdateMessage ? convert((GameUpdateMessage) o) : o);
+			}
+			return delegate.toMessage(converted, headers);
+		}
+		return null;
+	}
+
+	/** Convert a game update to the message sent to the clients
+	 *
+	 * @param gum
+	 * @return A GameStateMessage, or the original message if it has no game
+	 */
+	Object convert(final GameUpdateMessage gum) {
+		if (gum.getCurrentGame() == null) {
+			return gum;
+		}
+		final GameStateTracker tracker = tracker(gum.getCurrentGame());
+		return gum.isSnapshot() ? tracker.snapshot(gum) : tracker.encode(gum);
+	}
+
+	private GameStateTracker tracker(final AbstractCardGame<?> game) {
+		return trackers.computeIfAbsent(game, g -> new GameStateTracker(mapper));
+	}
+}
@@ -0,0 +1,180 @@
+package com.langleydata.homepoker.message;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/** Sends outbound messages on a fixed pool of threads, optionally after a delay.<p>
+ * Messages to the same destination are sent one at a time, in the order they become due.
+ * Messages that are due at the same time are sent in the order they were submitted.<p>
+ * The number of queued messages and the time from a message being due to it being sent are
+ * published as the <code>poker.messages.queued</code> gauge and the <code>poker.messages.latency</code> timer.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class MessageDispatcher {
+	private final Logger logger = LoggerFactory.getLogger(MessageDispatcher.class);
+	private static final Comparator<Pending> DUE_ORDER = Comparator.comparingLong((Pending p) -> p.due).thenComparingLong(p -> p.seq);
+
+	private final ScheduledExecutorService scheduler;
+	private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong sequence = new AtomicLong();
+	private final int maxQueued;
+	private final Timer latency;
+	private final Counter dropped;
+
+	/**
+	 *
+	 * @param threads The number of threads used to send messages
+	 * @param maxQueued The most messages that can be waiting. Any more are dropped
+	 * @param registry The registry for the dispatcher's metrics
+	 */
+	public MessageDispatcher(final int threads, final int maxQueued, final MeterRegistry registry) {
+		if (threads < 1 || maxQueued < 1) {
+			throw new IllegalArgumentException("The dispatcher requires at least 1 thread and queue entry");
+		}
+		this.maxQueued = maxQueued;
+		final AtomicInteger threadNum = new AtomicInteger();
+		this.scheduler = Executors.newScheduledThreadPool(threads, r -> {
+			final Thread t = new Thread(r, "Message Dispatch " + threadNum.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		registry.gauge("poker.messages.queued", queued);
+		this.latency = Timer.builder("poker.messages.latency")
+				.description("Time from a message being due to it being sent")
+				.register(registry);
+		this.dropped = registry.counter("poker.messages.dropped");
+	}
+
+	/** Queue a message to be sent
+	 *
+	 * @param destination The destination, used to keep the messages to it in order
+	 * @param delay The delay before sending, in milliseconds
+	 * @param send The action that sends the message
+	 * @return True if the message was queued, false if the queue is full or the dispatcher is shut down
+	 */
+	public boolean submit(final String destination, final long delay, final Runnable send) {
+		if (queued.incrementAndGet() > maxQueued || scheduler.isShutdown()) {
+			queued.decrementAndGet();
+			dropped.increment();
+			logger.warn("Message to {} dropped, {} messages are already queued", destination, maxQueued);
+			return false;
+		}
+		final long wait = Math.max(0, delay);
+		final Pending pending = new Pending(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait), sequence.incrementAndGet(), send);
+
+		Destination dest;
+		while (true) {
+			dest = destinations.computeIfAbsent(destination, Destination::new);
+			synchronized (dest) {
+				if (!dest.retired) {
+					dest.pending.add(pending);
+					break;
+				}
+			}
+		}
+		final Destination target = dest;
+		scheduler.schedule(() -> drain(target), wait, TimeUnit.MILLISECONDS);
+		return true;
+	}
+
+	/** Send all the due messages for a destination, unless another thread is already doing so
+	 *
+	 * @param dest
+	 */
+	private void drain(final Destination dest) {
+		synchronized (dest) {
+			if (dest.draining) {
+				return;
+			}
+			dest.draining = true;
+		}
+		while (true) {
+			final Pending next;
+			synchronized (dest) {
+				final Pending head = dest.pending.peek();
+				if (head == null || head.due > System.nanoTime()) {
+					dest.draining = false;
+					if (head == null) {
+						dest.retired = true;
+						destinations.remove(dest.name, dest);
+					}
+					return;
+				}
+				next = dest.pending.poll();
+			}
+			try {
+				next.send.run();
+			} catch (Exception e) {
+				logger.error("Failed to send message to {}: {}", dest.name, e.getMessage());
+			} finally {
+				latency.record(System.nanoTime() - next.due, TimeUnit.NANOSECONDS);
+				queued.decrementAndGet();
+			}
+		}
+	}
+
+	/** Get the number of messages waiting to be sent
+	 *
+	 * @return
+	 */
+	public int getQueued() {
+		return queued.get();
+	}
+
+	/** Get the number of destinations with messages waiting to be sent
+	 *
+	 * @return
+	 */
+	public int getDestinations() {
+		return destinations.size();
+	}
+
+	/** Stop accepting messages. Messages already queued are still sent
+	 *
+	 */
+	public void shutdown() {
+		scheduler.shutdown();
+	}
+
+	/** The messages waiting for a single destination */
+	private static final class Destination {
+		private final String name;
+		private final PriorityQueue<Pending> pending = new PriorityQueue<>(DUE_ORDER);
+		private boolean draining;
+		/** Set once the destination has been removed from the map, so it is no longer used */
+		private boolean retired;
+
+		Destination(final String name) {
+			this.name = name;
+		}
+	}
+
+	private static final class Pending {
+		private final long due;
+		private final long seq;
+		private final Runnable send;
+
+		Pending(final long due, final long seq, final Runnable send) {
+			this.due = due;
+			this.seq = seq;
+			this.send = send;
+		}
+	}
+}
@@ -2,7 +2,10 @@ package com.langleydata.homepoker.message;
 
 import java.text.NumberFormat;
 
+import javax.annotation.PreDestroy;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -10,6 +13,7 @@ import org.springframework.stereotype.Component;
 
 import com.langleydata.homepoker.api.GameSettings;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.util.StringUtils;
 
 @Component
@@ -18,7 +22,24 @@ public class MessageUtils implements Messaging {
 	public static final String PRIVATE_QUEUE = "/queue/private";
 	
 	private SimpMessagingTemplate messagingTemplate;
+	private final MessageDispatcher dispatcher;
+	private final TableOutbox tableOutbox;
 
+	/**
+	 * 
+	 * @param meterRegistry Registry for the message queue metrics
+	 * @param threads The number of threads used to send messages
+	 * @param maxQueued The most messages that can be waiting to be sent
+	 * @param batchWindow How long table broadcasts wait to be batched together, in milliseconds
+	 */
+	@Autowired
+	public MessageUtils(final MeterRegistry meterRegistry, 
+			@Value("${game-server.messaging.threads:4}") final int threads,
+			@Value("${game-server.messaging.max-queued:10000}") final int maxQueued,
+			@Value("${game-server.messaging.batch-window:25}") final long batchWindow) {
+		this.dispatcher = new MessageDispatcher(threads, maxQueued, meterRegistry);
+		this.tableOutbox = new TableOutbox(dispatcher, batchWindow, (d, m) -> messagingTemplate.convertAndSend(d, m));
+	}
 
 	@Autowired
 	public void LRTStatusListener(SimpMessagingTemplate messagingTemplate) {
@@ -50,14 +71,8 @@ public class MessageUtils implements Messaging {
 				ha.setLeaveMutable(true);
 				
 		// Delay the sending so method returns happen first, user gets message last
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					Thread.sleep(delay);
-				} catch (InterruptedException e) {}
-				messagingTemplate.convertAndSendToUser(sessionId, queue, payload, ha.getMessageHeaders());
-			}}).start();
+		dispatcher.submit(sessionId + queue, delay, 
+				() -> messagingTemplate.convertAndSendToUser(sessionId, queue, payload, ha.getMessageHeaders()));
 	}
 	
 	/** Send a message to a specific game table
@@ -70,7 +85,8 @@ public class MessageUtils implements Messaging {
 		sendBroadcastToTable(gameId, message, 0);
 	}
 	
-	/** Send a message to a specific game table with a delay
+	/** Send a message to a specific game table with a delay. Messages to the same
+	 * table are batched, see {@link TableOutbox}
 	 * 
 	 * @param gameId The game's id
 	 * @param message The message payload
@@ -81,12 +97,20 @@ public class MessageUtils implements Messaging {
 		if (StringUtils.isBlank(gameId)) {
 			return;
 		}
-		new Thread(()->{
-			try {
-				Thread.sleep(delay);
-			} catch (InterruptedException e) {}
-			messagingTemplate.convertAndSend(TABLE_TOPIC + gameId, message);	
-		}).start();
+		tableOutbox.send(TABLE_TOPIC + gameId, message, delay);
+	}
+	
+	/** Get the dispatcher used to send the messages
+	 * 
+	 * @return
+	 */
+	public MessageDispatcher getDispatcher() {
+		return dispatcher;
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		dispatcher.shutdown();
 	}
 	
 	/** Format a value as money for the locale provided by the game settings
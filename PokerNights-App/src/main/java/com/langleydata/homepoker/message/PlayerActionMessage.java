@@ -25,6 +25,7 @@ public class PlayerActionMessage extends PokerMessage implements PlayerAction {
 	private PlayerActionType action;
 	private float betValue = 0f;
 	private boolean successful = true;
+	private boolean timedOut = false;
 	
 	/* Info for storage */
 	private String playerId;
@@ -200,6 +201,21 @@ public class PlayerActionMessage extends PokerMessage implements PlayerAction {
 		return this;
 	}
 
+	/**
+	 * @return Was the action made by the game, as the player took too long?
+	 */
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	/**
+	 * @param timedOut Was the action made by the game, as the player took too long?
+	 */
+	public PlayerActionMessage setTimedOut(boolean timedOut) {
+		this.timedOut = timedOut;
+		return this;
+	}
+
 	/**
 	 * @return the gameState
 	 */
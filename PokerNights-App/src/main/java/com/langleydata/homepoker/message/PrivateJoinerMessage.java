@@ -1,17 +1,19 @@
 package com.langleydata.homepoker.message;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.langleydata.homepoker.api.MessageTypes;
 import com.langleydata.homepoker.game.AbstractCardGame;
 import com.langleydata.homepoker.game.players.Player;
 
 /** A one-way message to the person that has just joined the game.
- * Includes the current game's state
+ * Includes the current game's state, which is set by the {@link GameUpdateMessageConverter}
  * 
  * @author reynolds_mj
  *
  */
 public class PrivateJoinerMessage extends PokerMessage {
 	private AbstractCardGame<?> currentGame;
+	private GameUpdateMessage update;
 	private Player player;
 	private boolean successful = false;
 	private boolean isReconnect = false;
@@ -42,15 +44,26 @@ public class PrivateJoinerMessage extends PokerMessage {
 	/**
 	 * @return the currentGame
 	 */
+	@JsonIgnore
 	public AbstractCardGame<?> getCurrentGame() {
 		return currentGame;
 	}
 
 	/**
+	 * @return An update of the game built along with this message, see {@link #setCurrentGame(AbstractCardGame)}
+	 */
+	@JsonIgnore
+	GameUpdateMessage getUpdate() {
+		return update;
+	}
+
+	/** Set the game, capturing its state with the message
+	 * 
 	 * @param currentGame the currentGame to set
 	 */
 	public PrivateJoinerMessage setCurrentGame(final AbstractCardGame<?> currentGame) {
 		this.currentGame = currentGame;
+		this.update = currentGame == null ? null : currentGame.updateMessage(false);
 		return this;
 	}
 
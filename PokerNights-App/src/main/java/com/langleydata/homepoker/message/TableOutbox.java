@@ -0,0 +1,134 @@
+package com.langleydata.homepoker.message;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/** Buffers the messages broadcast to each table for a short window so they can be sent together.<p>
+ * When the window closes, all of the table's messages that are due are coalesced and sent as one frame.
+ * A game update that is followed by a later update for the same game is dropped, as both serialise the
+ * game's current state. A single message is sent as it is, while several are sent as a JSON array,
+ * in the order they were due.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class TableOutbox {
+	private static final Comparator<Pending> DUE_ORDER = Comparator.comparingLong((Pending p) -> p.due).thenComparingLong(p -> p.seq);
+
+	private final MessageDispatcher dispatcher;
+	private final long window;
+	private final BiConsumer<String, Object> sender;
+	private final Map<String, PriorityQueue<Pending>> outboxes = new ConcurrentHashMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 *
+	 * @param dispatcher The dispatcher that runs the sends
+	 * @param window How long to wait for further messages before sending, in milliseconds
+	 * @param sender Sends a message, or list of messages, to a destination
+	 */
+	public TableOutbox(final MessageDispatcher dispatcher, final long window, final BiConsumer<String, Object> sender) {
+		if (window < 0) {
+			throw new IllegalArgumentException("The batch window cannot be negative");
+		}
+		this.dispatcher = dispatcher;
+		this.window = window;
+		this.sender = sender;
+	}
+
+	/** Add a message to a destination's outbox
+	 *
+	 * @param destination The table's topic
+	 * @param message The message payload
+	 * @param delay The delay before the message is due, in milliseconds
+	 */
+	public void send(final String destination, final Object message, final long delay) {
+		final long wait = Math.max(0, delay);
+		final Pending pending = new Pending(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait), sequence.incrementAndGet(), message);
+		outboxes.compute(destination, (k, q) -> {
+			final PriorityQueue<Pending> queue = q == null ? new PriorityQueue<>(DUE_ORDER) : q;
+			queue.add(pending);
+			return queue;
+		});
+		dispatcher.submit(destination, wait + window, () -> flush(destination));
+	}
+
+	/** Send all the messages that are due for a destination
+	 *
+	 * @param destination
+	 */
+	void flush(final String destination) {
+		final List<Object> due = new ArrayList<>();
+		outboxes.computeIfPresent(destination, (k, q) -> {
+			final long now = System.nanoTime();
+			while (!q.isEmpty() && q.peek().due <= now) {
+				due.add(q.poll().message);
+			}
+			return q.isEmpty() ? null : q;
+		});
+
+		final List<Object> toSend = coalesce(due);
+		if (toSend.size() == 1) {
+			sender.accept(destination, toSend.get(0));
+		} else if (toSend.size() > 1) {
+			sender.accept(destination, toSend);
+		}
+	}
+
+	/** Remove any game update that is superseded by a later update for the same game.
+	 * An update is kept if it starts a new game or has a message of its own. A dropped
+	 * update's sound is passed on to the later update if it has none
+	 *
+	 * @param messages The messages in the order they are to be sent
+	 * @return The messages to send
+	 */
+	static List<Object> coalesce(final List<Object> messages) {
+		GameUpdateMessage later = null;
+		final ListIterator<Object> it = messages.listIterator(messages.size());
+		while (it.hasPrevious()) {
+			final Object msg = it.previous();
+			if (!(msg instanceof GameUpdateMessage)) {
+				continue;
+			}
+			final GameUpdateMessage gum = (GameUpdateMessage) msg;
+			if (later != null && gum.getCurrentGame() != null && gum.getCurrentGame() == later.getCurrentGame()
+					&& !gum.isNewGame() && gum.getMessage().isEmpty()) {
+				if (later.getActionSound() == null) {
+					later.setActionSound(gum.getActionSound());
+				}
+				it.remove();
+			} else if (gum.getCurrentGame() != null) {
+				later = gum;
+			}
+		}
+		return messages;
+	}
+
+	/** Get the number of destinations with messages waiting
+	 *
+	 * @return
+	 */
+	public int getWaiting() {
+		return outboxes.size();
+	}
+
+	private static final class Pending {
+		private final long due;
+		private final long seq;
+		private final Object message;
+
+		Pending(final long due, final long seq, final Object message) {
+			this.due = due;
+			this.seq = seq;
+			this.message = message;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.langleydata.homepoker.persistence.archive;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.langleydata.homepoker.game.Chips;
+import com.langleydata.homepoker.persistence.archive.RoundArchiveReader.SeatVisitor;
+
+/** Totals for each player across all the rounds visited, built up from the seat
+ * columns of one or more archives
+ *
+ * @author reynolds_mj
+ *
+ */
+public class ArchiveStats implements SeatVisitor {
+	private final Map<String, PlayerTotals> players = new HashMap<>();
+
+	/** A single player's totals, which are kept in minor units */
+	public static class PlayerTotals {
+		private final String playerId;
+		private String playerHandle;
+		private int games, hands;
+		private long committed, won;
+		private transient String lastGame;
+
+		PlayerTotals(final String playerId) {
+			this.playerId = playerId;
+		}
+
+		/**
+		 * @return the playerId
+		 */
+		public String getPlayerId() {
+			return playerId;
+		}
+
+		/**
+		 * @return the handle last used by the player
+		 */
+		public String getPlayerHandle() {
+			return playerHandle;
+		}
+
+		/**
+		 * @return the number of games played
+		 */
+		public int getGames() {
+			return games;
+		}
+
+		/**
+		 * @return the number of rounds played
+		 */
+		public int getHands() {
+			return hands;
+		}
+
+		/**
+		 * @return the total committed to pots
+		 */
+		public float getCommitted() {
+			return Chips.toFloat(committed);
+		}
+
+		/**
+		 * @return the total won from pots
+		 */
+		public float getWon() {
+			return Chips.toFloat(won);
+		}
+
+		/**
+		 * @return the amount won, less the amount committed
+		 */
+		public float getNet() {
+			return Chips.toFloat(won - committed);
+		}
+	}
+
+	@Override
+	public void visit(final String gameId, final int round, final String playerId, final String playerHandle,
+			final long stack, final long committed, final long won) {
+		final PlayerTotals pt = players.computeIfAbsent(playerId, PlayerTotals::new);
+		pt.playerHandle = playerHandle;
+		pt.hands++;
+		pt.committed += committed;
+		pt.won += won;
+		// A game's rounds are archived together
+		if (!gameId.equals(pt.lastGame)) {
+			pt.games++;
+			pt.lastGame = gameId;
+		}
+	}
+
+	/**
+	 * @return the totals for each player
+	 */
+	public Collection<PlayerTotals> getPlayers() {
+		return players.values();
+	}
+
+	/**
+	 * @param playerId
+	 * @return the player's totals, or null if they haven't been seen
+	 */
+	public PlayerTotals getPlayer(final String playerId) {
+		return players.get(playerId);
+	}
+}
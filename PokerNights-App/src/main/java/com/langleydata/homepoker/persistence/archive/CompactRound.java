@@ -0,0 +1,436 @@
+package com.langleydata.homepoker.persistence.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.langleydata.homepoker.api.PlayerAction;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.deck.CardNumber;
+import com.langleydata.homepoker.deck.CardSuit;
+import com.langleydata.homepoker.game.Chips;
+import com.langleydata.homepoker.game.GameRound;
+import com.langleydata.homepoker.game.RoundHistory;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** A round's history reduced to what's needed to replay it or calculate stats from it:
+ * the seed, the table cards, each seat's stack, amount committed, winnings and cards,
+ * and the successful actions taken in order. Cards are held as a single byte each and
+ * chip amounts as minor units, so a round is a few hundred bytes rather than the
+ * full player object graphs held by a {@link GameRound}.<p>
+ * Game states and action types are stored by name, so the enums can be reordered.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class CompactRound {
+	/** The byte used where there is no card */
+	public static final byte NO_CARD = (byte) 0xFF;
+	/** The number of card bytes held for the table, and for each seat */
+	static final int TABLE_CARDS = 5, SEAT_CARDS = 2;
+	private static final int VERSION = 1;
+	private static final Gson gson = new GsonBuilder()
+			.registerTypeAdapter(byte[].class, (JsonSerializer<byte[]>) (src, type, ctx) -> {
+				final JsonArray codes = new JsonArray();
+				for (byte b : src) {
+					if (b != NO_CARD) {
+						codes.add(new JsonPrimitive(toCode(b)));
+					}
+				}
+				return codes;
+			})
+			.create();
+
+	final String gameId;
+	final int round;
+	final long completeTime;
+	final TexasGameState gameState;
+	final long seed;
+	final byte[] tableCards = new byte[TABLE_CARDS];
+	final List<Seat> seats = new ArrayList<>();
+	final List<Action> actions = new ArrayList<>();
+
+	/** A single player's part in the round */
+	public static class Seat {
+		final int seat;
+		final String playerId, playerHandle;
+		final long stack, committed, won;
+		final byte[] cards = new byte[SEAT_CARDS];
+
+		Seat(final int seat, final String playerId, final String playerHandle, final long stack, final long committed, final long won) {
+			this.seat = seat;
+			this.playerId = playerId;
+			this.playerHandle = playerHandle;
+			this.stack = stack;
+			this.committed = committed;
+			this.won = won;
+		}
+
+		/**
+		 * @return the seating position
+		 */
+		public int getSeat() {
+			return seat;
+		}
+
+		/**
+		 * @return the playerId
+		 */
+		public String getPlayerId() {
+			return playerId;
+		}
+
+		/**
+		 * @return the player's handle
+		 */
+		public String getPlayerHandle() {
+			return playerHandle;
+		}
+
+		/**
+		 * @return the stack at the end of the round, in minor units
+		 */
+		public long getStack() {
+			return stack;
+		}
+
+		/**
+		 * @return the total committed throughout the round, in minor units
+		 */
+		public long getCommitted() {
+			return committed;
+		}
+
+		/**
+		 * @return the total won from all pots, in minor units
+		 */
+		public long getWon() {
+			return won;
+		}
+
+		/**
+		 * @return the codes of the player's cards
+		 */
+		public List<String> getCards() {
+			return toCodes(cards);
+		}
+	}
+
+	/** A successful player action */
+	public static class Action {
+		final int seat;
+		final PlayerActionType type;
+		final TexasGameState street;
+		final long amount;
+
+		Action(final int seat, final PlayerActionType type, final TexasGameState street, final long amount) {
+			this.seat = seat;
+			this.type = type;
+			this.street = street;
+			this.amount = amount;
+		}
+
+		/**
+		 * @return the seat of the player that made the action
+		 */
+		public int getSeat() {
+			return seat;
+		}
+
+		/**
+		 * @return the action
+		 */
+		public PlayerActionType getType() {
+			return type;
+		}
+
+		/**
+		 * @return the betting round the action was made in, or null if not known
+		 */
+		public TexasGameState getStreet() {
+			return street;
+		}
+
+		/**
+		 * @return the bet value, in minor units
+		 */
+		public long getAmount() {
+			return amount;
+		}
+	}
+
+	CompactRound(final String gameId, final int round, final long completeTime, final TexasGameState gameState, final long seed) {
+		this.gameId = gameId;
+		this.round = round;
+		this.completeTime = completeTime;
+		this.gameState = gameState;
+		this.seed = seed;
+	}
+
+	/** Reduce a round's history, and the actions made during it, to a compact round
+	 *
+	 * @param history The round's history
+	 * @param roundActions The actions recorded for the round, in any order. Unsuccessful
+	 * actions, and those from players not in the round, are dropped
+	 * @return
+	 */
+	public static CompactRound of(final RoundHistory history, final List<PlayerAction> roundActions) {
+		final CompactRound cr = new CompactRound(history.getGameId(), history.getRound(), history.getCompleteTime(),
+				history.getGameState(), history.getShuffleSeed());
+
+		// Winnings are shared in seat order, the same as when the pots were paid out
+		final Map<String, Long> won = new HashMap<>();
+		String[] table = null;
+		if (history instanceof GameRound) {
+			final GameRound gr = (GameRound) history;
+			table = gr.getTableCards();
+			if (gr.getGamePots() != null) {
+				for (SidePot pot : gr.getGamePots().getAllPots().values()) {
+					final List<Player> winners = pot.getWinnersBySeat();
+					for (int i = 0; i < winners.size(); i++) {
+						won.merge(winners.get(i).getPlayerId(), pot.getWinFor(i), Long::sum);
+					}
+				}
+			}
+		}
+		toBytes(table, cr.tableCards);
+
+		final Map<String, Integer> seatOf = new HashMap<>();
+		final List<Player> players = new ArrayList<>(history.getPlayers());
+		players.sort(Comparator.comparingInt(Player::getSeatingPos));
+		for (Player p : players) {
+			final long stack = p.getCurrentStack() == null ? 0 : p.getCurrentStack().getStackChips();
+			final long committed = p.getCurrentStack() == null ? 0 : p.getCurrentStack().getTotalCommittedChips();
+			final Seat seat = new Seat(p.getSeatingPos(), p.getPlayerId(), p.getPlayerHandle(), stack, committed,
+					won.getOrDefault(p.getPlayerId(), 0L));
+			toBytes(p.getPastCards(), seat.cards);
+			cr.seats.add(seat);
+			seatOf.put(p.getPlayerId(), p.getSeatingPos());
+		}
+
+		if (roundActions != null) {
+			roundActions.stream()
+				.filter(a -> a.isSuccessful() && a.getAction() != null && seatOf.containsKey(a.getPlayerId()))
+				.sorted(Comparator.comparingLong(PlayerAction::getTimestamp))
+				.forEach(a -> {
+					TexasGameState street = null;
+					if (a instanceof PlayerActionMessage) {
+						street = ((PlayerActionMessage) a).getGameState();
+					}
+					cr.actions.add(new Action(seatOf.get(a.getPlayerId()), a.getAction(), street, Chips.of(a.getBetValue())));
+				});
+		}
+		return cr;
+	}
+
+	/** Encode a card code, such as 'TD', as a single byte
+	 *
+	 * @param code
+	 * @return The byte, or {@link #NO_CARD} if the code is empty
+	 */
+	public static byte toByte(final String code) {
+		if (code == null || code.isEmpty()) {
+			return NO_CARD;
+		}
+		final Card card = new Card(code);
+		return (byte) (card.getCardNumber().ordinal() * CardSuit.values().length + card.getSuit().ordinal());
+	}
+
+	/** Decode a card from its byte
+	 *
+	 * @param b
+	 * @return The card's code, or null for {@link #NO_CARD}
+	 */
+	public static String toCode(final byte b) {
+		if (b == NO_CARD) {
+			return null;
+		}
+		final int suits = CardSuit.values().length;
+		return new Card(CardNumber.values()[(b & 0xFF) / suits], CardSuit.values()[(b & 0xFF) % suits]).getCode();
+	}
+
+	private static void toBytes(final String[] codes, final byte[] into) {
+		for (int i = 0; i < into.length; i++) {
+			into[i] = codes != null && i < codes.length ? toByte(codes[i]) : NO_CARD;
+		}
+	}
+
+	private static List<String> toCodes(final byte[] cards) {
+		final List<String> codes = new ArrayList<>(cards.length);
+		for (byte b : cards) {
+			if (b != NO_CARD) {
+				codes.add(toCode(b));
+			}
+		}
+		return codes;
+	}
+
+	/** The name stored for an enum value, an empty name standing in for null
+	 *
+	 * @param value
+	 * @return
+	 */
+	static String name(final Enum<?> value) {
+		return value == null ? "" : value.name();
+	}
+
+	static TexasGameState state(final String name) {
+		return name.isEmpty() ? null : TexasGameState.valueOf(name);
+	}
+
+	static PlayerActionType action(final String name) {
+		return name.isEmpty() ? null : PlayerActionType.valueOf(name);
+	}
+
+	/** Write the round as a single record. Archives store rounds by column instead, see
+	 * {@link RoundArchiveWriter}
+	 *
+	 * @return
+	 */
+	public byte[] encode() {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			out.writeUTF(gameId);
+			VarInts.write(out, round);
+			VarInts.write(out, completeTime);
+			out.writeUTF(name(gameState));
+			out.writeLong(seed);
+			out.write(tableCards);
+			VarInts.write(out, seats.size());
+			for (Seat s : seats) {
+				VarInts.write(out, s.seat);
+				out.writeUTF(s.playerId);
+				out.writeUTF(s.playerHandle == null ? "" : s.playerHandle);
+				VarInts.write(out, s.stack);
+				VarInts.write(out, s.committed);
+				VarInts.write(out, s.won);
+				out.write(s.cards);
+			}
+			VarInts.write(out, actions.size());
+			for (Action a : actions) {
+				VarInts.write(out, a.seat);
+				out.writeUTF(name(a.type));
+				out.writeUTF(name(a.street));
+				VarInts.write(out, a.amount);
+			}
+		} catch (IOException e) {
+			// Not possible writing to memory
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/** Read a round written by {@link #encode()}
+	 *
+	 * @param data
+	 * @return
+	 * @throws IOException If the data isn't a valid round
+	 */
+	public static CompactRound decode(final byte[] data) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			final int version = in.readUnsignedByte();
+			if (version != VERSION) {
+				throw new IOException("Unknown round version: " + version);
+			}
+			final CompactRound cr = new CompactRound(in.readUTF(), VarInts.readInt(in), VarInts.read(in),
+					state(in.readUTF()), in.readLong());
+			in.readFully(cr.tableCards);
+			final int seats = VarInts.readInt(in);
+			for (int i = 0; i < seats; i++) {
+				final Seat s = new Seat(VarInts.readInt(in), in.readUTF(), in.readUTF(), VarInts.read(in), VarInts.read(in), VarInts.read(in));
+				in.readFully(s.cards);
+				cr.seats.add(s);
+			}
+			final int actions = VarInts.readInt(in);
+			for (int i = 0; i < actions; i++) {
+				final int seat = VarInts.readInt(in);
+				final PlayerActionType type = action(in.readUTF());
+				final TexasGameState street = state(in.readUTF());
+				cr.actions.add(new Action(seat, type, street, VarInts.read(in)));
+			}
+			return cr;
+		}
+	}
+
+	/** Convert rounds to JSON, with the cards shown by their codes
+	 *
+	 * @param rounds
+	 * @return
+	 */
+	public static String toJson(final List<CompactRound> rounds) {
+		return gson.toJson(rounds);
+	}
+
+	/**
+	 * @return the gameId
+	 */
+	public String getGameId() {
+		return gameId;
+	}
+
+	/**
+	 * @return the round number
+	 */
+	public int getRound() {
+		return round;
+	}
+
+	/**
+	 * @return the time the round completed
+	 */
+	public long getCompleteTime() {
+		return completeTime;
+	}
+
+	/**
+	 * @return the game state when the round completed
+	 */
+	public TexasGameState getGameState() {
+		return gameState;
+	}
+
+	/**
+	 * @return the seed used to shuffle the deck
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return the codes of the cards on the table
+	 */
+	public List<String> getTableCards() {
+		return toCodes(tableCards);
+	}
+
+	/**
+	 * @return the seats, in seat order
+	 */
+	public List<Seat> getSeats() {
+		return seats;
+	}
+
+	/**
+	 * @return the successful actions, in the order they were made
+	 */
+	public List<Action> getActions() {
+		return actions;
+	}
+}
@@ -0,0 +1,162 @@
+package com.langleydata.homepoker.persistence.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/** A directory of round archive files on local disk, holding the history of completed
+ * games once it has been rolled out of the round history store. Each file holds a
+ * batch of whole games, and the directory is indexed by gameId on start-up from the
+ * files' gameId columns.
+ *
+ * @author reynolds_mj
+ *
+ */
+@Service
+public class RoundArchive {
+	private static final Logger logger = LoggerFactory.getLogger(RoundArchive.class);
+	static final String SUFFIX = ".rounds";
+
+	/** Where the archive files are kept. Blank disables archiving */
+	@Value("${game-server.archive.dir:}")
+	private String archiveDir;
+
+	private File dir;
+	private final Map<String, File> gameFiles = new ConcurrentHashMap<>();
+
+	RoundArchive() {
+	}
+
+	/** An archive in a specific directory, outside of Spring
+	 *
+	 * @param dir
+	 */
+	public RoundArchive(final File dir) {
+		this.archiveDir = dir.getPath();
+		index();
+	}
+
+	/** Find the games held in the existing archive files
+	 *
+	 */
+	@PostConstruct
+	void index() {
+		if (StringUtils.isBlank(archiveDir)) {
+			return;
+		}
+		dir = new File(archiveDir);
+		for (File f : files()) {
+			try {
+				new RoundArchiveReader(f).getGameIds().forEach(id -> gameFiles.put(id, f));
+			} catch (IOException e) {
+				logger.warn("Unable to read round archive {}: {}", f, e.getMessage());
+			}
+		}
+		logger.info("Round archive at {} holds {} games", dir.getAbsolutePath(), gameFiles.size());
+	}
+
+	private List<File> files() {
+		final File[] files = dir == null ? null : dir.listFiles((d, n) -> n.endsWith(SUFFIX));
+		if (files == null) {
+			return Collections.emptyList();
+		}
+		Arrays.sort(files);
+		return Arrays.asList(files);
+	}
+
+	/**
+	 * @return True if an archive directory is configured
+	 */
+	public boolean isEnabled() {
+		return dir != null;
+	}
+
+	/** Is the game's history in the archive?
+	 *
+	 * @param gameId
+	 * @return
+	 */
+	public boolean isArchived(final String gameId) {
+		return gameFiles.containsKey(gameId);
+	}
+
+	/** Write a batch of games to a new archive file. The file is written in full and
+	 * synced before it appears in the directory, so once this returns the rounds can
+	 * be removed from the round history store
+	 *
+	 * @param rounds The rounds of whole games, in game then round order
+	 * @return The new file
+	 * @throws IOException
+	 */
+	public synchronized File write(final List<CompactRound> rounds) throws IOException {
+		if (!isEnabled()) {
+			throw new IllegalStateException("No archive directory is configured");
+		}
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create archive directory " + dir);
+		}
+		File file = new File(dir, String.format("%016d%s", System.currentTimeMillis(), SUFFIX));
+		while (file.exists()) {
+			file = new File(dir, String.format("%016d%s", Long.parseLong(file.getName().substring(0, 16)) + 1, SUFFIX));
+		}
+		final File tmp = new File(dir, file.getName() + ".tmp");
+		RoundArchiveWriter.write(tmp, rounds);
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+		for (CompactRound r : rounds) {
+			gameFiles.put(r.getGameId(), file);
+		}
+		return file;
+	}
+
+	/** Get the archived rounds of a game
+	 *
+	 * @param gameId
+	 * @return The rounds in order, or an empty list if the game isn't archived
+	 */
+	public List<CompactRound> getGameRounds(final String gameId) {
+		final File file = gameFiles.get(gameId);
+		if (file == null) {
+			return Collections.emptyList();
+		}
+		try {
+			final List<CompactRound> rounds = new ArrayList<>(new RoundArchiveReader(file).readGame(gameId));
+			rounds.sort((a, b) -> Integer.compare(a.getRound(), b.getRound()));
+			return rounds;
+		} catch (IOException e) {
+			logger.warn("Reading game {} from {}: {}", gameId, file, e.getMessage());
+			return Collections.emptyList();
+		}
+	}
+
+	/** Scan the seats of every archived round for player stats
+	 *
+	 * @return
+	 */
+	public ArchiveStats getStats() {
+		final ArchiveStats stats = new ArchiveStats();
+		for (File f : files()) {
+			try {
+				new RoundArchiveReader(f).forEachSeat(stats);
+			} catch (IOException e) {
+				logger.warn("Unable to read round archive {}: {}", f, e.getMessage());
+			}
+		}
+		return stats;
+	}
+}
@@ -0,0 +1,234 @@
+package com.langleydata.homepoker.persistence.archive;
+
+import static com.langleydata.homepoker.persistence.archive.RoundArchiveWriter.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.InflaterInputStream;
+
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+
+/** Reads an archive file written by {@link RoundArchiveWriter}. Only the columns needed
+ * by each call are read and inflated, so scanning for stats doesn't touch the cards,
+ * seeds or actions and never builds a {@link CompactRound}.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class RoundArchiveReader {
+	private final File file;
+	/** The offset and length of each column */
+	private final Map<String, long[]> directory = new HashMap<>();
+
+	/** Visited for each seat in the archive, in the order they were written */
+	public interface SeatVisitor {
+		/**
+		 * @param gameId
+		 * @param round
+		 * @param playerId
+		 * @param playerHandle
+		 * @param stack The stack at the end of the round, in minor units
+		 * @param committed The total committed in the round, in minor units
+		 * @param won The total won in the round, in minor units
+		 */
+		void visit(String gameId, int round, String playerId, String playerHandle, long stack, long committed, long won);
+	}
+
+	/** Open an archive, reading its column directory
+	 *
+	 * @param file
+	 * @throws IOException If the file can't be read or isn't an archive
+	 */
+	public RoundArchiveReader(final File file) throws IOException {
+		this.file = file;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a round archive: " + file);
+			}
+			final int version = in.readUnsignedByte();
+			if (version != VERSION) {
+				throw new IOException("Unknown archive version " + version + ": " + file);
+			}
+			final int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				directory.put(in.readUTF(), new long[] {in.readLong(), in.readInt()});
+			}
+		}
+	}
+
+	/**
+	 * @return the archive file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	private DataInputStream column(final String name) throws IOException {
+		final long[] entry = directory.get(name);
+		if (entry == null) {
+			throw new IOException("Missing column " + name + ": " + file);
+		}
+		final byte[] data = new byte[(int) entry[1]];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			raf.seek(entry[0]);
+			raf.readFully(data);
+		}
+		// Inflated into memory, so the end of the column is known exactly
+		final ByteArrayOutputStream raw = new ByteArrayOutputStream(data.length * 4);
+		try (InflaterInputStream inflate = new InflaterInputStream(new ByteArrayInputStream(data))) {
+			final byte[] buf = new byte[8192];
+			int n;
+			while ((n = inflate.read(buf)) > 0) {
+				raw.write(buf, 0, n);
+			}
+		}
+		return new DataInputStream(new ByteArrayInputStream(raw.toByteArray()));
+	}
+
+	/** Read a game state, stored as an index into the strings column */
+	private TexasGameState state(final DataInputStream in, final String[] strings) throws IOException {
+		return CompactRound.state(strings[VarInts.readInt(in)]);
+	}
+
+	/** Read an action type, stored as an index into the strings column */
+	private PlayerActionType action(final DataInputStream in, final String[] strings) throws IOException {
+		return CompactRound.action(strings[VarInts.readInt(in)]);
+	}
+
+	private String[] strings() throws IOException {
+		try (DataInputStream in = column(STRINGS)) {
+			final String[] strings = new String[VarInts.readInt(in)];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = in.readUTF();
+			}
+			return strings;
+		}
+	}
+
+	/** The number of rounds in the archive
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public int getRoundCount() throws IOException {
+		int count = 0;
+		try (DataInputStream in = column(ROUND_GAME)) {
+			while (in.available() > 0) {
+				VarInts.read(in);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** Get the games held in the archive
+	 *
+	 * @return The gameIds, in the order they were written
+	 * @throws IOException
+	 */
+	public Set<String> getGameIds() throws IOException {
+		final String[] strings = strings();
+		final Set<String> ids = new LinkedHashSet<>();
+		try (DataInputStream in = column(ROUND_GAME)) {
+			while (in.available() > 0) {
+				ids.add(strings[VarInts.readInt(in)]);
+			}
+		}
+		return ids;
+	}
+
+	/** Read all the rounds of a game
+	 *
+	 * @param gameId
+	 * @return The rounds, in the order they were written, or an empty list
+	 * @throws IOException
+	 */
+	public List<CompactRound> readGame(final String gameId) throws IOException {
+		return readRounds(gameId::equals);
+	}
+
+	/** Read the rounds of the games that match a filter
+	 *
+	 * @param gameFilter Given each round's gameId
+	 * @return
+	 * @throws IOException
+	 */
+	public List<CompactRound> readRounds(final Predicate<String> gameFilter) throws IOException {
+		final String[] strings = strings();
+		final List<CompactRound> rounds = new ArrayList<>();
+		try (DataInputStream game = column(ROUND_GAME); DataInputStream num = column(ROUND_NUM);
+				DataInputStream time = column(ROUND_TIME); DataInputStream state = column(ROUND_STATE);
+				DataInputStream seed = column(ROUND_SEED); DataInputStream cards = column(ROUND_CARDS);
+				DataInputStream seats = column(ROUND_SEATS); DataInputStream actions = column(ROUND_ACTIONS);
+				DataInputStream sPos = column(SEAT_POS); DataInputStream sPlayer = column(SEAT_PLAYER);
+				DataInputStream sHandle = column(SEAT_HANDLE); DataInputStream sStack = column(SEAT_STACK);
+				DataInputStream sCommitted = column(SEAT_COMMITTED); DataInputStream sWon = column(SEAT_WON);
+				DataInputStream sCards = column(SEAT_CARDS); DataInputStream aSeat = column(ACTION_SEAT);
+				DataInputStream aType = column(ACTION_TYPE); DataInputStream aStreet = column(ACTION_STREET);
+				DataInputStream aAmount = column(ACTION_AMOUNT)) {
+
+			long lastTime = 0;
+			while (game.available() > 0) {
+				final String gameId = strings[VarInts.readInt(game)];
+				lastTime += VarInts.read(time);
+				final CompactRound r = new CompactRound(gameId, VarInts.readInt(num), lastTime,
+						state(state, strings), seed.readLong());
+				cards.readFully(r.tableCards);
+				final int seatCount = VarInts.readInt(seats), actionCount = VarInts.readInt(actions);
+
+				for (int i = 0; i < seatCount; i++) {
+					final CompactRound.Seat s = new CompactRound.Seat(VarInts.readInt(sPos), strings[VarInts.readInt(sPlayer)],
+							strings[VarInts.readInt(sHandle)], VarInts.read(sStack), VarInts.read(sCommitted), VarInts.read(sWon));
+					sCards.readFully(s.cards);
+					r.seats.add(s);
+				}
+				for (int i = 0; i < actionCount; i++) {
+					r.actions.add(new CompactRound.Action(VarInts.readInt(aSeat), action(aType, strings),
+							state(aStreet, strings), VarInts.read(aAmount)));
+				}
+				if (gameFilter.test(gameId)) {
+					rounds.add(r);
+				}
+			}
+		}
+		return rounds;
+	}
+
+	/** Visit every seat in the archive, reading only the columns needed for stats
+	 *
+	 * @param visitor
+	 * @throws IOException
+	 */
+	public void forEachSeat(final SeatVisitor visitor) throws IOException {
+		final String[] strings = strings();
+		try (DataInputStream game = column(ROUND_GAME); DataInputStream num = column(ROUND_NUM);
+				DataInputStream seats = column(ROUND_SEATS); DataInputStream sPlayer = column(SEAT_PLAYER);
+				DataInputStream sHandle = column(SEAT_HANDLE); DataInputStream sStack = column(SEAT_STACK);
+				DataInputStream sCommitted = column(SEAT_COMMITTED); DataInputStream sWon = column(SEAT_WON)) {
+
+			while (game.available() > 0) {
+				final String gameId = strings[VarInts.readInt(game)];
+				final int round = VarInts.readInt(num);
+				final int seatCount = VarInts.readInt(seats);
+				for (int i = 0; i < seatCount; i++) {
+					visitor.visit(gameId, round, strings[VarInts.readInt(sPlayer)], strings[VarInts.readInt(sHandle)],
+							VarInts.read(sStack), VarInts.read(sCommitted), VarInts.read(sWon));
+				}
+			}
+		}
+	}
+}
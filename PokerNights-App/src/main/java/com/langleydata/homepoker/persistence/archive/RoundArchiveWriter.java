@@ -0,0 +1,154 @@
+package com.langleydata.homepoker.persistence.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/** Writes rounds to an archive file, stored by column rather than by round. Each column
+ * holds one field for every round, seat or action in the file and is compressed on its
+ * own, so similar values sit together and compress well, and a reader only needs to
+ * inflate the columns it uses. Strings, i.e. the gameIds, playerIds and handles, are
+ * written once to a dictionary and referred to by their index, as are the names of the game
+ * states and action types.<p>
+ * The file starts with a directory giving each column's name, offset and length.
+ *
+ * @author reynolds_mj
+ *
+ */
+public final class RoundArchiveWriter {
+	static final int MAGIC = 0x504E5241;
+	static final int VERSION = 1;
+
+	static final String STRINGS = "strings";
+	static final String ROUND_GAME = "round.game", ROUND_NUM = "round.num", ROUND_TIME = "round.time",
+			ROUND_STATE = "round.state", ROUND_SEED = "round.seed", ROUND_CARDS = "round.cards",
+			ROUND_SEATS = "round.seats", ROUND_ACTIONS = "round.actions";
+	static final String SEAT_POS = "seat.pos", SEAT_PLAYER = "seat.player", SEAT_HANDLE = "seat.handle",
+			SEAT_STACK = "seat.stack", SEAT_COMMITTED = "seat.committed", SEAT_WON = "seat.won", SEAT_CARDS = "seat.cards";
+	static final String ACTION_SEAT = "action.seat", ACTION_TYPE = "action.type", ACTION_STREET = "action.street",
+			ACTION_AMOUNT = "action.amount";
+
+	private final Map<String, Integer> strings = new LinkedHashMap<>();
+	private final Map<String, DataOutputStream> columns = new LinkedHashMap<>();
+	private final Map<String, ByteArrayOutputStream> buffers = new LinkedHashMap<>();
+
+	private RoundArchiveWriter() {
+	}
+
+	/** Write the rounds to a new archive file
+	 *
+	 * @param file The file to write, which is replaced if it exists
+	 * @param rounds The rounds, which are stored in the order given
+	 * @throws IOException
+	 */
+	public static void write(final File file, final Collection<CompactRound> rounds) throws IOException {
+		final RoundArchiveWriter writer = new RoundArchiveWriter();
+		writer.addAll(rounds);
+		writer.writeTo(file);
+	}
+
+	private DataOutputStream col(final String name) {
+		return columns.computeIfAbsent(name, n -> {
+			final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+			buffers.put(n, buf);
+			return new DataOutputStream(buf);
+		});
+	}
+
+	private int string(final String value) {
+		return strings.computeIfAbsent(value == null ? "" : value, v -> strings.size());
+	}
+
+	private void addAll(final Collection<CompactRound> rounds) throws IOException {
+		// Create the columns in a fixed order, even when there are no seats or actions
+		for (String name : new String[] {ROUND_GAME, ROUND_NUM, ROUND_TIME, ROUND_STATE, ROUND_SEED, ROUND_CARDS,
+				ROUND_SEATS, ROUND_ACTIONS, SEAT_POS, SEAT_PLAYER, SEAT_HANDLE, SEAT_STACK, SEAT_COMMITTED, SEAT_WON,
+				SEAT_CARDS, ACTION_SEAT, ACTION_TYPE, ACTION_STREET, ACTION_AMOUNT}) {
+			col(name);
+		}
+
+		long lastTime = 0;
+		for (CompactRound r : rounds) {
+			VarInts.write(col(ROUND_GAME), string(r.gameId));
+			VarInts.write(col(ROUND_NUM), r.round);
+			// Rounds of a game are close together, so only the difference is stored
+			VarInts.write(col(ROUND_TIME), r.completeTime - lastTime);
+			lastTime = r.completeTime;
+			VarInts.write(col(ROUND_STATE), string(CompactRound.name(r.gameState)));
+			col(ROUND_SEED).writeLong(r.seed);
+			col(ROUND_CARDS).write(r.tableCards);
+			VarInts.write(col(ROUND_SEATS), r.seats.size());
+			VarInts.write(col(ROUND_ACTIONS), r.actions.size());
+
+			for (CompactRound.Seat s : r.seats) {
+				VarInts.write(col(SEAT_POS), s.seat);
+				VarInts.write(col(SEAT_PLAYER), string(s.playerId));
+				VarInts.write(col(SEAT_HANDLE), string(s.playerHandle));
+				VarInts.write(col(SEAT_STACK), s.stack);
+				VarInts.write(col(SEAT_COMMITTED), s.committed);
+				VarInts.write(col(SEAT_WON), s.won);
+				col(SEAT_CARDS).write(s.cards);
+			}
+			for (CompactRound.Action a : r.actions) {
+				VarInts.write(col(ACTION_SEAT), a.seat);
+				VarInts.write(col(ACTION_TYPE), string(CompactRound.name(a.type)));
+				VarInts.write(col(ACTION_STREET), string(CompactRound.name(a.street)));
+				VarInts.write(col(ACTION_AMOUNT), a.amount);
+			}
+		}
+
+		final DataOutputStream dict = col(STRINGS);
+		VarInts.write(dict, strings.size());
+		for (String s : strings.keySet()) {
+			dict.writeUTF(s);
+		}
+	}
+
+	private static byte[] compress(final byte[] raw) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+		// The stream doesn't end a deflater it was given, so its native memory is freed here
+		final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+			deflate.write(raw);
+		} finally {
+			deflater.end();
+		}
+		return out.toByteArray();
+	}
+
+	private void writeTo(final File file) throws IOException {
+		final Map<String, byte[]> compressed = new LinkedHashMap<>();
+		int dirSize = 4 + 1 + 4;
+		for (Map.Entry<String, ByteArrayOutputStream> e : buffers.entrySet()) {
+			compressed.put(e.getKey(), compress(e.getValue().toByteArray()));
+			dirSize += 2 + e.getKey().length() + 8 + 4;
+		}
+
+		try (FileOutputStream fos = new FileOutputStream(file);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(compressed.size());
+			long offset = dirSize;
+			for (Map.Entry<String, byte[]> e : compressed.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeLong(offset);
+				out.writeInt(e.getValue().length);
+				offset += e.getValue().length;
+			}
+			for (byte[] data : compressed.values()) {
+				out.write(data);
+			}
+			out.flush();
+			fos.getFD().sync();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.langleydata.homepoker.persistence.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/** Variable length encoding of whole numbers, so that the small values which make up
+ * most of a round (seats, counts, chip amounts) take one or two bytes rather than eight.
+ * Values are zig-zag encoded so small negative numbers are also short.
+ *
+ * @author reynolds_mj
+ *
+ */
+final class VarInts {
+
+	private VarInts() {
+	}
+
+	/** Write a value in 7 bit groups, least significant first
+	 *
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	static void write(final DataOutput out, final long value) throws IOException {
+		long v = (value << 1) ^ (value >> 63);
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.writeByte((int) v);
+	}
+
+	/** Read a value written by {@link #write(DataOutput, long)}
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	static long read(final DataInput in) throws IOException {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final int b = in.readUnsignedByte();
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return (v >>> 1) ^ -(v & 1);
+			}
+		}
+		throw new IOException("Malformed variable length value");
+	}
+
+	/** Read a value which must fit in an int
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	static int readInt(final DataInput in) throws IOException {
+		final long v = read(in);
+		if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+			throw new IOException("Value out of range: " + v);
+		}
+		return (int) v;
+	}
+}
@@ -0,0 +1,219 @@
+package com.langleydata.homepoker.persistence.es;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/** Writes documents to an Elasticsearch index in the background, using bulk requests.<p>
+ * Each document is converted to its JSON source when it is added, so the caller is free to
+ * change or reset the object straight away. The documents are then queued and a single writer
+ * thread sends them in batches, when either the batch is full or the flush interval has passed,
+ * so documents are written in the order they were added.<p>
+ * If the queue is full the document is dropped and counted straight away, as the caller may be
+ * holding a table's lock.
+ * A failed batch is retried, with only the failed documents being sent again.<p>
+ * The number queued, the number dropped and the lag between adding and writing a document are
+ * recorded as metrics, tagged with the index name.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class BulkIndexWriter {
+	private static final Logger logger = LoggerFactory.getLogger(BulkIndexWriter.class);
+	/** How many times to try sending a batch */
+	static final int MAX_ATTEMPTS = 3;
+
+	private final ElasticsearchOperations operations;
+	private final IndexCoordinates index;
+	private final BlockingQueue<Queued> queue;
+	private final int batchSize;
+	private final long flushMillis;
+	private final long retryMillis;
+	private final Thread writer;
+	private final Timer lag;
+	private final Counter dropped;
+	private volatile boolean running = true;
+
+	/**
+	 *
+	 * @param name The name of the writer thread
+	 * @param operations The Elasticsearch operations to index with
+	 * @param index The index to write the documents to
+	 * @param maxQueued The most documents that can wait to be written
+	 * @param batchSize The most documents to send in one bulk request
+	 * @param flushMillis The longest time a document waits before its batch is sent
+	 * @param retryMillis The time to wait after a failure, multiplied by the attempt number
+	 * @param registry The registry for the writer's metrics
+	 */
+	public BulkIndexWriter(final String name, final ElasticsearchOperations operations, final IndexCoordinates index,
+			final int maxQueued, final int batchSize, final long flushMillis, final long retryMillis, final MeterRegistry registry) {
+		if (maxQueued < 1 || batchSize < 1 || flushMillis < 0 || retryMillis < 0) {
+			throw new IllegalArgumentException("Invalid bulk writer settings");
+		}
+		this.operations = operations;
+		this.index = index;
+		this.queue = new ArrayBlockingQueue<>(maxQueued);
+		this.batchSize = batchSize;
+		this.flushMillis = flushMillis;
+		this.retryMillis = retryMillis;
+		final Tags tags = Tags.of("index", index.getIndexName());
+		registry.gauge("poker.es.queued", tags, queue, BlockingQueue::size);
+		this.lag = Timer.builder("poker.es.lag")
+				.description("Time from a document being added to it being written")
+				.tags(tags)
+				.register(registry);
+		this.dropped = registry.counter("poker.es.dropped", tags);
+		this.writer = new Thread(this::writeLoop, name);
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/** Queue a document to be written. The document is converted immediately, so a
+	 * later change to it is not written
+	 *
+	 * @param id The document id
+	 * @param document The document
+	 * @return True if queued, false if the writer is stopped or the queue is full
+	 */
+	public boolean add(final String id, final Object document) {
+		if (!running) {
+			logger.warn("Writer stopped, not writing {} to {}", id, index.getIndexName());
+			dropped.increment();
+			return false;
+		}
+		final String source = operations.getElasticsearchConverter().mapObject(document).toJson();
+		final IndexQuery query = new IndexQueryBuilder().withId(id).withSource(source).build();
+		if (queue.offer(new Queued(query))) {
+			return true;
+		}
+		logger.warn("Write queue full, dropping {} for {}", id, index.getIndexName());
+		dropped.increment();
+		return false;
+	}
+
+	/** Get the number of documents waiting to be written
+	 *
+	 * @return
+	 */
+	public int getQueued() {
+		return queue.size();
+	}
+
+	/** Stop accepting documents, then wait for those already queued to be written
+	 *
+	 * @param waitMillis The longest time to wait
+	 */
+	public void shutdown(final long waitMillis) {
+		running = false;
+		writer.interrupt();
+		try {
+			writer.join(waitMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (queue.size() > 0) {
+			logger.warn("{} documents not written to {}", queue.size(), index.getIndexName());
+		}
+	}
+
+	private void writeLoop() {
+		final List<Queued> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				final Queued first = running ? queue.take() : queue.poll();
+				if (first == null) {
+					break;
+				}
+				batch.add(first);
+				// Fill the batch, waiting no longer than the flush interval from the first document
+				final long flushAt = System.currentTimeMillis() + flushMillis;
+				while (running && batch.size() < batchSize) {
+					final Queued next = queue.poll(Math.max(0, flushAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				// Shutting down, so write whatever is left
+			}
+			queue.drainTo(batch, batchSize - batch.size());
+			if (batch.size() > 0) {
+				write(batch);
+				batch.clear();
+			}
+		}
+	}
+
+	/** Send a batch, retrying any documents that failed
+	 *
+	 * @param batch
+	 */
+	void write(final List<Queued> batch) {
+		List<Queued> toSend = batch;
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+			try {
+				operations.bulkIndex(toSend.stream().map(q -> q.query).collect(Collectors.toList()), index);
+				final long now = System.currentTimeMillis();
+				toSend.forEach(q -> lag.record(now - q.added, TimeUnit.MILLISECONDS));
+				return;
+			} catch (BulkFailureException e) {
+				final Map<String, String> failed = e.getFailedDocuments();
+				if (failed != null && failed.size() > 0) {
+					toSend = toSend.stream().filter(q -> failed.containsKey(q.query.getId())).collect(Collectors.toList());
+				}
+				logger.warn("Bulk write of {} documents to {} failed (attempt {}): {}", toSend.size(), index.getIndexName(), attempt, e.getMessage());
+			} catch (Exception e) {
+				logger.warn("Bulk write of {} documents to {} failed (attempt {}): {}", toSend.size(), index.getIndexName(), attempt, e.getMessage());
+			}
+			if (attempt < MAX_ATTEMPTS) {
+				pause(retryMillis * attempt);
+			}
+		}
+		logger.error("Dropped {} documents for {}", toSend.size(), index.getIndexName());
+		dropped.increment(toSend.size());
+	}
+
+	/** Wait before retrying. When shutting down, the retry is immediate
+	 *
+	 * @param millis
+	 */
+	private void pause(final long millis) {
+		if (!running) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			// Shutting down
+		}
+	}
+
+	/** A document waiting to be written
+	 */
+	static class Queued {
+		final IndexQuery query;
+		final long added = System.currentTimeMillis();
+
+		Queued(final IndexQuery query) {
+			this.query = query;
+		}
+	}
+}
@@ -3,13 +3,18 @@ package com.langleydata.homepoker.persistence.es;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.stereotype.Service;
 
 import com.langleydata.homepoker.api.Feedback;
@@ -21,6 +26,8 @@ import com.langleydata.homepoker.persistence.FeedbackProvider;
 import com.langleydata.homepoker.persistence.MessageHistoryProvider;
 import com.langleydata.homepoker.persistence.SettingsProvider;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /** A service for storing and retrieving game settings and Feedback forms
  * 
  * @author reynolds_mj
@@ -42,10 +49,37 @@ public class ESPersistenceProvider implements SettingsProvider, FeedbackProvider
 	@Autowired
 	private MessageHistoryRepository playerActionRepo;
 	
+	@Autowired
+	private ElasticsearchOperations operations;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	@Value("${game-server.actions.max-queued:20000}")
+	private int maxQueued;
+	@Value("${game-server.actions.batch-size:500}")
+	private int batchSize;
+	@Value("${game-server.actions.flush-millis:2000}")
+	private long flushMillis;
+	
+	/** Player actions waiting to be written */
+	private BulkIndexWriter actionJournal;
+	
 	ESPersistenceProvider() {
 		logger.info("Using Elasticsearch Storage Provider");
 	}
 	
+	@PostConstruct
+	void startJournal() {
+		actionJournal = new BulkIndexWriter("Player Action Writer", operations, operations.getIndexCoordinatesFor(PlayerActionMessage.class),
+				maxQueued, batchSize, flushMillis, 500, meterRegistry);
+	}
+	
+	@PreDestroy
+	void stopJournal() {
+		actionJournal.shutdown(10000);
+	}
+	
 	/** Retrieve game settings by the game id
 	 * 
 	 * @param gameId
@@ -138,15 +172,18 @@ public class ESPersistenceProvider implements SettingsProvider, FeedbackProvider
 		return playerActionRepo.findByGameIdAndPlayerId(gameId, playerId);
 	}
 
+	/** Queue a player action to be written with others in a bulk request
+	 * 
+	 * @param action
+	 * @return True if queued
+	 */
 	@Override
 	public boolean addPlayerAction(final PlayerActionMessage action) {
-		new Thread(()-> {
-			try {
-				playerActionRepo.save(action);
-			} catch (Exception e) {
-				logger.warn("Saving player action: {}", e.getMessage());
-			}
-		}).start();
+		try {
+			return actionJournal.add(action.getActionId(), action);
+		} catch (Exception e) {
+			logger.warn("Saving player action: {}", e.getMessage());
+		}
 		return false;
 	}
 
@@ -1,30 +1,75 @@
 package com.langleydata.homepoker.persistence.es;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.stereotype.Service;
 
 import com.langleydata.homepoker.game.RoundHistory;
 import com.langleydata.homepoker.persistence.RoundHistoryProvider;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Service
 @Profile(value = {"test", "prod"})
 public class ESRoundHistoryProvider implements RoundHistoryProvider {
 	final Logger logger = LoggerFactory.getLogger(ESRoundHistoryProvider.class);
+	private static final String GAME_IDS_AGG = "gameId";
 	
 	@Autowired
 	private RoundHistoryRepository roundHistoryRepo;
 	
+	@Autowired
+	private ElasticsearchOperations operations;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	@Value("${game-server.history.max-queued:5000}")
+	private int maxQueued;
+	@Value("${game-server.history.batch-size:100}")
+	private int batchSize;
+	@Value("${game-server.history.flush-millis:1000}")
+	private long flushMillis;
+	
+	private BulkIndexWriter writer;
+	
 	ESRoundHistoryProvider() {
 		logger.info("Using Elasticsearch Round History Provider");
 	}
+	
+	@PostConstruct
+	void startWriter() {
+		writer = new BulkIndexWriter("Round History Writer", operations, operations.getIndexCoordinatesFor(RoundHistory.class),
+				maxQueued, batchSize, flushMillis, 500, meterRegistry);
+	}
+	
+	@PreDestroy
+	void stopWriter() {
+		writer.shutdown(10000);
+	}
 	/** Get a list of all rounds for a specific game
 	 * 
 	 * @param gameId
@@ -54,20 +99,17 @@ public class ESRoundHistoryProvider implements RoundHistoryProvider {
 		}
 	}
 
-	/** Store a new RoundHistory object in the repository
+	/** Queue a new RoundHistory object to be stored in the repository. The round is
+	 * copied before returning, as the game resets its objects for the next round, and
+	 * is then written with other rounds in the background
 	 * 
 	 * @param round
-	 * @return True if added
+	 * @return True if queued
 	 */
 	@Override
 	public boolean addGameRound(final RoundHistory round) {
-		/* Ideally we'd put this on a message broker and then pull off
-		 * again in a seperate thread (if performance an issue).
-		 * Don't use a new thread as the objects get reset part way through saving
-		 */
 		try {
-			roundHistoryRepo.save(round);
-			return true;
+			return writer.add(round.getId(), round);
 		} catch (Exception e) { 
 			logger.warn("Saving game round: {}", e.getMessage());
 		}
@@ -84,11 +126,36 @@ public class ESRoundHistoryProvider implements RoundHistoryProvider {
 		}
 	}
 	
+	/** Get the distinct game ids in the history. The ids are paged out of a composite
+	 * aggregation so no round documents are loaded
+	 * 
+	 * @return
+	 */
 	@Override
 	public List<String> getGameIds() {
-		return StreamSupport.stream(roundHistoryRepo.findAll().spliterator(), false)
-				.map(RoundHistory::getGameId)
-				.distinct()
-				.collect(Collectors.toList());
+		final List<String> gameIds = new ArrayList<>();
+		Map<String, Object> afterKey = null;
+		do {
+			final CompositeAggregationBuilder agg = AggregationBuilders.composite(GAME_IDS_AGG,
+					Collections.singletonList(new TermsValuesSourceBuilder(GAME_IDS_AGG).field("gameId.keyword")))
+					.size(batchSize);
+			if (afterKey != null) {
+				agg.aggregateAfter(afterKey);
+			}
+			final NativeSearchQuery query = new NativeSearchQueryBuilder()
+					.withQuery(QueryBuilders.matchAllQuery())
+					.withPageable(PageRequest.of(0, 1))
+					.addAggregation(agg)
+					.build();
+			final SearchHits<RoundHistory> hits = operations.search(query, RoundHistory.class);
+			if (hits.getAggregations() == null) {
+				break;
+			}
+			final CompositeAggregation games = hits.getAggregations().get(GAME_IDS_AGG);
+			games.getBuckets().forEach(b -> gameIds.add((String) b.getKey().get(GAME_IDS_AGG)));
+			afterKey = games.getBuckets().isEmpty() ? null : games.afterKey();
+		} while (afterKey != null);
+		
+		return gameIds;
 	}
 }
@@ -0,0 +1,133 @@
+package com.langleydata.homepoker.persistence.es;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.stereotype.Component;
+
+import com.langleydata.homepoker.game.Chips;
+import com.langleydata.homepoker.game.GameRound;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+
+/** Reads the round-history documents, upgrading rounds stored before chips were held in
+ * minor units.<p>
+ * Those rounds hold each player's stack, table bet and wallet, and the side pot totals,
+ * as float values and their commitments as a map of the round's name to a float. They
+ * are converted to minor units before the round is read as normal
+ *
+ * @author Mike Reynolds
+ *
+ */
+@Component
+@ReadingConverter
+@Profile(value = {"test", "prod"})
+public class RoundHistoryReadConverter implements ElasticReadConverter<GameRound> {
+	static final String CHIPS_FORMAT = "chipsFormat";
+	private static final List<String> STACK_VALUES = Arrays.asList("onTable", "stack", "currentWallet");
+
+	/** Reads the round without any custom conversions, so this isn't called again */
+	private final MappingElasticsearchConverter reader;
+
+	public RoundHistoryReadConverter() {
+		reader = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+		reader.afterPropertiesSet();
+	}
+
+	@Override
+	public GameRound convert(final Map<String, Object> source) {
+		final Map<String, Object> round = source.containsKey(CHIPS_FORMAT) ? source : upgrade(source);
+		return reader.read(GameRound.class, Document.from(round));
+	}
+
+	/** Copy a round stored with float chip values, converting them to minor units
+	 *
+	 * @param source The stored round
+	 * @return The round in the current format
+	 */
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> upgrade(final Map<String, Object> source) {
+		final Map<String, Object> round = new HashMap<>(source);
+		round.put("players", upgradePlayers(round.get("players")));
+
+		final Object gamePots = round.get("gamePots");
+		if (gamePots instanceof Map) {
+			final Map<String, Object> pots = new HashMap<>((Map<String, Object>) gamePots);
+			final Object allPots = pots.get("allPots");
+			if (allPots instanceof Map) {
+				final Map<String, Object> upgraded = new HashMap<>();
+				((Map<String, Object>) allPots).forEach((name, pot) -> upgraded.put(name, upgradePot(pot)));
+				pots.put("allPots", upgraded);
+			}
+			round.put("gamePots", pots);
+		}
+		round.put(CHIPS_FORMAT, GameRound.CHIPS_MINOR_UNITS);
+		return round;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object upgradePot(final Object pot) {
+		if (!(pot instanceof Map)) {
+			return pot;
+		}
+		final Map<String, Object> sidePot = new HashMap<>((Map<String, Object>) pot);
+		sidePot.computeIfPresent("potTotal", (k, v) -> toChips(v));
+		sidePot.put("potWinners", upgradePlayers(sidePot.get("potWinners")));
+		return sidePot;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object upgradePlayers(final Object players) {
+		if (!(players instanceof List)) {
+			return players;
+		}
+		final List<Object> upgraded = new ArrayList<>();
+		for (Object p : (List<Object>) players) {
+			if (p instanceof Map) {
+				final Map<String, Object> player = new HashMap<>((Map<String, Object>) p);
+				player.computeIfPresent("currentStack", (k, v) -> upgradeStack(v));
+				upgraded.add(player);
+			} else {
+				upgraded.add(p);
+			}
+		}
+		return upgraded;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object upgradeStack(final Object stack) {
+		if (!(stack instanceof Map)) {
+			return stack;
+		}
+		final Map<String, Object> upgraded = new HashMap<>((Map<String, Object>) stack);
+		STACK_VALUES.forEach(f -> upgraded.computeIfPresent(f, (k, v) -> toChips(v)));
+
+		final Object committed = upgraded.get("commitedPerRound");
+		if (committed instanceof Map) {
+			final List<Long> perRound = new ArrayList<>();
+			for (int i = 0; i < TexasGameState.values().length; i++) {
+				perRound.add(0L);
+			}
+			int roundsCommitted = 0;
+			for (Map.Entry<String, Object> e : ((Map<String, Object>) committed).entrySet()) {
+				final int r = TexasGameState.valueOf(e.getKey()).ordinal();
+				perRound.set(r, (Long) toChips(e.getValue()));
+				roundsCommitted |= 1 << r;
+			}
+			upgraded.put("commitedPerRound", perRound);
+			upgraded.put("roundsCommitted", roundsCommitted);
+		}
+		return upgraded;
+	}
+
+	private static Object toChips(final Object value) {
+		return value instanceof Number ? Chips.of(((Number) value).doubleValue()) : value;
+	}
+}
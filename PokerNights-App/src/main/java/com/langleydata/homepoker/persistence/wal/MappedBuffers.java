@@ -0,0 +1,71 @@
+package com.langleydata.homepoker.persistence.wal;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unmaps memory-mapped files without waiting for the garbage collector, which can leave
+ * many segments mapped long after their files are closed. Uses Unsafe.invokeCleaner on
+ * Java 9+, or the buffer's cleaner on Java 8. If neither is available the buffers are left
+ * to the garbage collector.
+ *
+ * @author reynolds_mj
+ *
+ */
+final class MappedBuffers {
+	private static final Logger logger = LoggerFactory.getLogger(MappedBuffers.class);
+	private static final Unmapper UNMAPPER = findUnmapper();
+
+	private interface Unmapper {
+		void unmap(ByteBuffer buffer) throws ReflectiveOperationException;
+	}
+
+	private MappedBuffers() {
+	}
+
+	/** Unmap a buffer. The buffer must not be used again, as any access would crash the JVM
+	 *
+	 * @param buffer
+	 */
+	static void unmap(final MappedByteBuffer buffer) {
+		if (UNMAPPER == null) {
+			return;
+		}
+		try {
+			UNMAPPER.unmap(buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			logger.warn("Unable to unmap log segment: {}", e.getMessage());
+		}
+	}
+
+	private static Unmapper findUnmapper() {
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			try {
+				// Java 9+
+				final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				final Object unsafe = theUnsafe.get(null);
+				return b -> invokeCleaner.invoke(unsafe, b);
+			} catch (NoSuchMethodException e) {
+				// Java 8
+				final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+				final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+				return b -> {
+					final Object c = cleaner.invoke(b);
+					if (c != null) {
+						clean.invoke(c);
+					}
+				};
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			logger.warn("Log segments will be unmapped by the garbage collector: {}", e.getMessage());
+			return null;
+		}
+	}
+}
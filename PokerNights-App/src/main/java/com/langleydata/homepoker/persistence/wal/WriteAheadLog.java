@@ -0,0 +1,304 @@
+package com.langleydata.homepoker.persistence.wal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** An append-only log of records held in a directory of fixed size, memory-mapped
+ * segment files. Appending only copies the record into the mapped segment, so is cheap
+ * enough to do while holding a table's lock, and the written records survive the
+ * process being killed as they are already in the OS page cache.<p>
+ * Each record is written as its length, a CRC32 of its content and then the content.
+ * The length is written last, so a record torn by a crash is either not seen at all
+ * or fails the CRC check, and is treated as the end of the log.<p>
+ * When a segment is full the log rolls to a new one. Older segments are only removed
+ * by {@link #compact(long)}, once the records they hold are no longer needed.<p>
+ * Rolling doesn't write the old segment to disk, so it is cheap too. The segments rolled
+ * since are written, unmapped and closed by the next {@link #force()}, which only holds
+ * the log's lock long enough to take them, so can run alongside appends.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class WriteAheadLog implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+	/** The default size of each segment file */
+	public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+	static final String SUFFIX = ".wal";
+	/** The length and CRC written before each record */
+	static final int HEADER = 8;
+
+	private final File dir;
+	private final int segmentSize;
+	private long segment;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	/** Segments rolled since the last force, still to be written and unmapped */
+	private final List<Segment> rolled = new ArrayList<>();
+	/** Held while writing segments to disk or unmapping them, so a buffer is never unmapped while in use */
+	private final Object syncLock = new Object();
+	private boolean closed = false;
+
+	/** Open a log for appending, creating the directory if it doesn't exist. If the
+	 * log already has records, new records are added after the last valid one
+	 *
+	 * @param dir The directory holding the segments
+	 * @param segmentSize The size of each new segment file, in bytes
+	 * @throws IOException If the directory or segment can't be created
+	 */
+	public WriteAheadLog(final File dir, final int segmentSize) throws IOException {
+		if (segmentSize <= HEADER) {
+			throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+		}
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create log directory " + dir);
+		}
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+
+		final List<Long> existing = getSegments();
+		if (existing.isEmpty()) {
+			openSegment(1);
+		} else {
+			openSegment(existing.get(existing.size() - 1));
+			// Move past the valid records, and clear anything torn beyond them
+			final int end = findEnd(buffer);
+			// Cast, as Java 9+ returns ByteBuffer here, which doesn't exist on a Java 8 runtime
+			((Buffer) buffer).position(end);
+			for (int i = end; i < buffer.limit(); i++) {
+				buffer.put(i, (byte) 0);
+			}
+		}
+	}
+
+	/** Append a record to the log, rolling to a new segment if the current one is full
+	 *
+	 * @param record The record's content
+	 * @throws IOException If a new segment can't be created
+	 */
+	public synchronized void append(final byte[] record) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Log is closed: " + dir);
+		}
+		if (record.length == 0 || record.length > segmentSize - HEADER) {
+			throw new IllegalArgumentException("Invalid record length " + record.length + " for segment size " + segmentSize);
+		}
+		if (buffer.remaining() < HEADER + record.length) {
+			roll();
+		}
+		final CRC32 crc = new CRC32();
+		crc.update(record);
+		final int start = buffer.position();
+		((Buffer) buffer).position(start + 4);
+		buffer.putInt((int) crc.getValue());
+		buffer.put(record);
+		buffer.putInt(start, record.length);
+	}
+
+	/** Start a new segment. Records appended from now on are written to it. The old
+	 * segment is written to disk and closed by the next {@link #force()}
+	 *
+	 * @return The number of the new segment
+	 * @throws IOException If the segment can't be created
+	 */
+	public synchronized long roll() throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Log is closed: " + dir);
+		}
+		rolled.add(new Segment(channel, buffer));
+		openSegment(segment + 1);
+		return segment;
+	}
+
+	/** Delete all segments before the given one
+	 *
+	 * @param before The number of the first segment to keep
+	 */
+	public synchronized void compact(final long before) {
+		for (long old : getSegments()) {
+			if (old < before && old < segment && !segmentFile(old).delete()) {
+				logger.warn("Unable to delete log segment {}", segmentFile(old));
+			}
+		}
+	}
+
+	/** Write the log through to disk, so it also survives the host failing, and close
+	 * the segments rolled since the last call. Appends aren't held up while writing
+	 *
+	 * @throws IOException If a rolled segment can't be closed
+	 */
+	public void force() throws IOException {
+		synchronized (syncLock) {
+			final List<Segment> toClose;
+			final MappedByteBuffer current;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				toClose = new ArrayList<>(rolled);
+				rolled.clear();
+				current = buffer;
+			}
+			for (Segment seg : toClose) {
+				seg.close();
+			}
+			// Only unmapped when closed, which needs the sync lock
+			current.force();
+		}
+	}
+
+	/** Read all of the valid records in the log, oldest first
+	 *
+	 * @return The content of each record
+	 * @throws IOException If a segment can't be read
+	 */
+	public synchronized List<byte[]> readAll() throws IOException {
+		final List<byte[]> records = new ArrayList<>();
+		for (long seg : getSegments()) {
+			try (RandomAccessFile raf = new RandomAccessFile(segmentFile(seg), "r")) {
+				final MappedByteBuffer read = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+				final int end = findEnd(read);
+				((Buffer) read).position(0);
+				while (read.position() < end) {
+					final byte[] record = new byte[read.getInt()];
+					read.getInt();
+					read.get(record);
+					records.add(record);
+				}
+				MappedBuffers.unmap(read);
+			}
+		}
+		return records;
+	}
+
+	/** Get the directory holding the segments
+	 *
+	 * @return
+	 */
+	public File getDirectory() {
+		return dir;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (syncLock) {
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				rolled.add(new Segment(channel, buffer));
+				for (Segment seg : rolled) {
+					seg.close();
+				}
+				rolled.clear();
+			}
+		}
+	}
+
+	/** Close the log and delete all of its segments
+	 *
+	 * @throws IOException
+	 */
+	public void delete() throws IOException {
+		close();
+		synchronized (this) {
+			for (long seg : getSegments()) {
+				segmentFile(seg).delete();
+			}
+			if (!dir.delete()) {
+				logger.warn("Unable to delete log directory {}", dir);
+			}
+		}
+	}
+
+	/** Find the position after the last valid record in a segment
+	 *
+	 * @param segBuffer
+	 * @return
+	 */
+	private static int findEnd(final MappedByteBuffer segBuffer) {
+		int pos = 0;
+		final CRC32 crc = new CRC32();
+		while (pos + HEADER <= segBuffer.limit()) {
+			final int length = segBuffer.getInt(pos);
+			if (length <= 0 || length > segBuffer.limit() - pos - HEADER) {
+				break;
+			}
+			final byte[] record = new byte[length];
+			((Buffer) segBuffer).position(pos + HEADER);
+			segBuffer.get(record);
+			crc.reset();
+			crc.update(record);
+			if ((int) crc.getValue() != segBuffer.getInt(pos + 4)) {
+				logger.warn("Torn record found at {} of log segment", pos);
+				break;
+			}
+			pos += HEADER + length;
+		}
+		return pos;
+	}
+
+	private void openSegment(final long number) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(segmentFile(number), "rw");
+		channel = raf.getChannel();
+		buffer = channel.map(MapMode.READ_WRITE, 0, Math.max(raf.length(), segmentSize));
+		segment = number;
+	}
+
+
+	private File segmentFile(final long number) {
+		return new File(dir, String.format("%016d%s", number, SUFFIX));
+	}
+
+	/** Get the numbers of the segments in the directory, in order
+	 *
+	 * @return
+	 */
+	private List<Long> getSegments() {
+		final String[] names = dir.list((d, name) -> name.endsWith(SUFFIX));
+		if (names == null) {
+			return new ArrayList<>();
+		}
+		return Arrays.stream(names)
+				.map(n -> n.substring(0, n.length() - SUFFIX.length()))
+				.filter(n -> n.matches("\\d+"))
+				.map(Long::valueOf)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	/** A segment's file and its mapping */
+	private static final class Segment {
+		private final FileChannel channel;
+		private final MappedByteBuffer buffer;
+
+		Segment(final FileChannel channel, final MappedByteBuffer buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+		/** Write the segment to disk, then unmap and close it
+		 *
+		 * @throws IOException
+		 */
+		void close() throws IOException {
+			buffer.force();
+			MappedBuffers.unmap(buffer);
+			channel.close();
+		}
+	}
+}
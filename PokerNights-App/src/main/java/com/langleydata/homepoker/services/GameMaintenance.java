@@ -1,19 +1,26 @@
 package com.langleydata.homepoker.services;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.langleydata.homepoker.api.GameSettings;
 import com.langleydata.homepoker.controllers.TableController;
 import com.langleydata.homepoker.game.AbstractCardGame;
+import com.langleydata.homepoker.game.RoundHistory;
 import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+import com.langleydata.homepoker.persistence.MessageHistoryProvider;
+import com.langleydata.homepoker.persistence.RoundHistoryProvider;
 import com.langleydata.homepoker.persistence.SettingsProvider;
+import com.langleydata.homepoker.persistence.archive.CompactRound;
+import com.langleydata.homepoker.persistence.archive.RoundArchive;
 
 
 /** A service for scheduled clearing-down and tidying up of memory and storage
@@ -31,6 +38,20 @@ public class GameMaintenance {
 	private SettingsProvider settingProvider;
 	@Autowired
 	private TableController tableController;
+	@Autowired
+	private RoundHistoryProvider historyProvider;
+	@Autowired
+	private MessageHistoryProvider actionProvider;
+	@Autowired
+	private RoundArchive roundArchive;
+	
+	/** The most games written to each archive file */
+	@Value("${game-server.archive.max-games:200}")
+	private int archiveMaxGames;
+	/** Remove the rounds and actions from the history store once archived. Off by default,
+	 * as the archive is only on this server's disk while the history store is shared */
+	@Value("${game-server.archive.delete-archived:false}")
+	private boolean deleteArchived;
 	
 	/** Remove any old settings that haven't been used
 	 * 
@@ -59,13 +80,14 @@ public class GameMaintenance {
 		return true;
 	}
 	
-	/** Purge games that are in memory, but are no longer being played
+	/** Purge games that are in memory, but are no longer being played. Purged games
+	 * are completed and released, so their timers stop
 	 *  
 	 */
 	@Scheduled(fixedDelay = 10 * 60 * 1000)
 	public void purgeOrphanedGamesFromController() {
 		long oldestActivity = System.currentTimeMillis() - PURGE_INACTIVE_TIME;
-		List<AbstractCardGame<?>> purge = tableController.getActiveGames().values().stream()
+		List<AbstractCardGame<?>> purge = tableController.getActiveGames().getGames().stream()
 			.filter(g -> g.getLastActivityTime() <= oldestActivity)
 			.collect(Collectors.toList());
 		
@@ -73,11 +95,66 @@ public class GameMaintenance {
 		
 		purge.forEach(game-> {
 			final GameSettings settings = game.getSettings();
-			tableController.getActiveGames().remove(settings.getGameId());
+			tableController.getActiveGames().purge(settings.getGameId());
 			if (game.getRound() > 0) {
 				settings.setCompleted();
 				settingProvider.storeSettings((TexasHoldemSettings) settings);
 			}
 		});
 	}
+	
+	/** Roll the history of completed games out of the history store and into the
+	 * local round archive. A game is complete once its settings are, or if it's not
+	 * been played for 24 hours
+	 * 
+	 * @return The number of games archived
+	 */
+	@Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 5 * 60 * 1000)
+	public int archiveCompletedGames() {
+		if (!roundArchive.isEnabled()) {
+			return 0;
+		}
+		
+		final long oldestActivity = System.currentTimeMillis() - PLAY_DELAY;
+		final List<String> archived = new ArrayList<>();
+		final List<CompactRound> batch = new ArrayList<>();
+		try {
+			for (String gameId : historyProvider.getGameIds()) {
+				if (archived.size() >= archiveMaxGames) {
+					break;
+				}
+				if (tableController.getActiveGames().contains(gameId) || roundArchive.isArchived(gameId)) {
+					continue;
+				}
+				final GameSettings settings = settingProvider.retrieveSettings(gameId);
+				final boolean completed = settings != null && settings.getGameLength() > 0;
+				final List<RoundHistory> rounds = historyProvider.getGameRounds(gameId);
+				if (rounds.isEmpty() || (!completed && rounds.get(rounds.size()-1).getCompleteTime() > oldestActivity)) {
+					continue;
+				}
+				
+				for (RoundHistory rh : rounds) {
+					batch.add(CompactRound.of(rh, actionProvider.getPlayerActions(gameId, rh.getRound())));
+				}
+				archived.add(gameId);
+			}
+			
+			if (archived.isEmpty()) {
+				return 0;
+			}
+			roundArchive.write(batch);
+		} catch (Exception e) {
+			logger.warn("Archiving game history: {}", e.getMessage());
+			return 0;
+		}
+		
+		logger.info("Archived {} rounds from {} games", batch.size(), archived.size());
+		if (deleteArchived) {
+			archived.forEach(gameId -> {
+				historyProvider.deleteGameRounds(gameId);
+				actionProvider.deletePlayerActions(gameId);
+			});
+		}
+		return archived.size();
+	}
 }
@@ -0,0 +1,63 @@
+package com.langleydata.homepoker.services;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.langleydata.homepoker.api.GameServer;
+import com.langleydata.homepoker.controllers.TableController;
+import com.netflix.appinfo.ApplicationInfoManager;
+
+/** Publishes this server's load in its Eureka instance metadata, so gateways can place
+ * new games without asking every server for its active games. The load is published
+ * when the games or players change, and re-published periodically so gateways know
+ * the report is still current.
+ * 
+ * @author Mike Reynolds
+ *
+ */
+@Service
+public class LoadReporter {
+	final Logger logger = LoggerFactory.getLogger(LoadReporter.class);
+	
+	@Autowired
+	private TableController tableController;
+	@Autowired(required = false)
+	private ApplicationInfoManager infoManager;
+	
+	/** How often to re-publish an unchanged load. Must be well within the gateway's load TTL */
+	@Value("${game-server.load-report.refresh-ms:30000}")
+	private long refresh = 30000;
+	
+	private String lastGames;
+	private long lastReported;
+	
+	/** Publish the load if it has changed, or the last report is getting old
+	 * 
+	 * @return True if published
+	 */
+	@Scheduled(fixedDelayString = "${game-server.load-report.interval-ms:5000}")
+	public boolean reportLoad() {
+		if (infoManager == null) {
+			return false;
+		}
+		final long now = System.currentTimeMillis();
+		final GameServer load = tableController.getServerLoad(null);
+		final Map<String, String> metadata = EurekaServiceDiscovery.toMetadata(load, now);
+		final String games = metadata.get(EurekaServiceDiscovery.METADATA_GAMES);
+		
+		if (games.equals(lastGames) && now - lastReported < refresh) {
+			return false;
+		}
+		infoManager.registerAppMetadata(metadata);
+		logger.trace("Published load of {} games", load.getGameCount());
+		lastGames = games;
+		lastReported = now;
+		return true;
+	}
+}
@@ -0,0 +1,126 @@
+package com.langleydata.homepoker.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import com.langleydata.homepoker.game.AbstractCardGame;
+import com.langleydata.homepoker.game.players.Player;
+
+/** Which game and seat each websocket session is playing in, across all of the
+ * server's games.<p>
+ * A disconnect only gives us the session id, so this saves searching every table
+ * for its owner. Sessions are registered when a player joins or re-connects to a
+ * table, and removed when they disconnect, leave the game or the game ends.
+ *
+ * @author Mike Reynolds
+ *
+ */
+@Component
+public class SessionRegistry {
+	private final Map<String, Seat> sessions = new ConcurrentHashMap<>();
+
+	/** Record the game and seat of a player's session, replacing any previous entry
+	 *
+	 * @param sessionId The player's current session id
+	 * @param gameId The game they're seated in
+	 * @param player The seated player
+	 */
+	public void register(final String sessionId, final String gameId, final Player player) {
+		if (StringUtils.isBlank(sessionId) || player == null) {
+			return;
+		}
+		sessions.put(sessionId, new Seat(gameId, player.getPlayerId(), player.getSeatingPos()));
+	}
+
+	/**
+	 * @param sessionId
+	 * @return Where the session is seated, or null if not at a table
+	 */
+	public Seat get(final String sessionId) {
+		return sessionId == null ? null : sessions.get(sessionId);
+	}
+
+	/** Find the player using a session in a game, going straight to their seat if the
+	 * session is registered to the game
+	 *
+	 * @param game The game to look in
+	 * @param sessionId The player's session id
+	 * @return The player, or null if not in the game
+	 */
+	public Player findPlayer(final AbstractCardGame<?> game, final String sessionId) {
+		final Seat seat = get(sessionId);
+		if (seat != null && StringUtils.equals(seat.gameId, game.getSettings().getGameId())) {
+			final Player seated = game.getPlayers().getPlayerInSeat(seat.seat);
+			if (seated != null && sessionId.equals(seated.getSessionId())) {
+				return seated;
+			}
+		}
+		return game.getPlayers().getPlayerBySessionId(sessionId);
+	}
+
+	/** Stop tracking a session, e.g. on disconnect
+	 *
+	 * @param sessionId
+	 * @return Where the session was seated, or null if not at a table
+	 */
+	public Seat remove(final String sessionId) {
+		return sessionId == null ? null : sessions.remove(sessionId);
+	}
+
+	/** Stop tracking a player's session once they've left a game. Nothing is removed if
+	 * the session has since been registered to another game or player
+	 *
+	 * @param gameId
+	 * @param player
+	 */
+	public void removePlayer(final String gameId, final Player player) {
+		if (player == null || player.getSessionId() == null) {
+			return;
+		}
+		sessions.computeIfPresent(player.getSessionId(), (id, seat) ->
+				StringUtils.equals(seat.gameId, gameId) && StringUtils.equals(seat.playerId, player.getPlayerId()) ? null : seat);
+	}
+
+	/** Stop tracking all sessions in a game, e.g. when it is completed or purged
+	 *
+	 * @param gameId
+	 */
+	public void removeGame(final String gameId) {
+		sessions.values().removeIf(seat -> StringUtils.equals(seat.gameId, gameId));
+	}
+
+	/**
+	 * @return The number of sessions seated at a table
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/** A session's game and seat */
+	public static final class Seat {
+		private final String gameId;
+		private final String playerId;
+		private final int seat;
+
+		Seat(final String gameId, final String playerId, final int seat) {
+			this.gameId = gameId;
+			this.playerId = playerId;
+			this.seat = seat;
+		}
+
+		public String getGameId() {
+			return gameId;
+		}
+
+		public String getPlayerId() {
+			return playerId;
+		}
+
+		public int getSeat() {
+			return seat;
+		}
+	}
+}
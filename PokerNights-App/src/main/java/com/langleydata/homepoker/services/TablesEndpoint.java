@@ -0,0 +1,70 @@
+package com.langleydata.homepoker.services;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.langleydata.homepoker.controllers.TableController;
+import com.langleydata.homepoker.game.AbstractCardGame;
+import com.langleydata.homepoker.game.ActiveGames;
+import com.langleydata.homepoker.game.GameTimer;
+import com.langleydata.homepoker.message.MessageUtils;
+
+/** An actuator view of the tables on this server against the resources they hold, i.e.
+ * timer tasks, journals, sessions and threads. Timers or threads that keep growing while
+ * the number of tables doesn't show that purged games aren't being released.
+ *
+ * @author Mike Reynolds
+ *
+ */
+@Component
+@Endpoint(id = "tables")
+public class TablesEndpoint {
+
+	@Autowired
+	private TableController tableController;
+	@Autowired
+	private SessionRegistry sessions;
+	@Autowired(required = false)
+	private MessageUtils msgUtils;
+
+	@ReadOperation
+	public Map<String, Object> tables() {
+		final ActiveGames activeGames = tableController.getActiveGames();
+		final List<Map<String, Object>> games = new ArrayList<>();
+		int gameTimers = 0;
+		for (AbstractCardGame<?> game : activeGames.getGames()) {
+			final String gameId = game.getSettings().getGameId();
+			final int timers = game.getScheduledTimers();
+			final Map<String, Object> table = new LinkedHashMap<>();
+			table.put("gameId", gameId);
+			table.put("state", activeGames.getState(gameId));
+			table.put("round", game.getRound());
+			table.put("lastActivity", game.getLastActivityTime());
+			table.put("timers", timers);
+			games.add(table);
+			gameTimers += timers;
+		}
+
+		final Map<String, Object> view = new LinkedHashMap<>();
+		view.put("tables", activeGames.size());
+		view.put("tableTimers", gameTimers);
+		view.put("scheduledTimers", GameTimer.getShared().getScheduled());
+		view.put("timerThreads", GameTimer.THREADS);
+		view.put("journals", tableController.getJournalCount());
+		view.put("sessions", sessions.size());
+		if (msgUtils != null) {
+			view.put("queuedMessages", msgUtils.getDispatcher().getQueued());
+		}
+		view.put("jvmThreads", ManagementFactory.getThreadMXBean().getThreadCount());
+		view.put("games", games);
+		return view;
+	}
+}
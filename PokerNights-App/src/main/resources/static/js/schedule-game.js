@@ -297,6 +297,7 @@ function createGameClicked() {
 	    	'hostControlledWallet': hcw,
 	    	'rebuyInRound': rbir,
 	    	'enforceMinimumRaise': $("#enforceRaise").is(':checked'),
+	    	'showAllInEquity': $("#allInEquity").is(':checked'),
 	    	'potLimit': pt,
 	    	'rebuyOption': rb,
 	    	'shuffleOption': so,
@@ -16,6 +16,9 @@ const startSendMsg = '<div class="message-holder"><div class="ml-auto"><div clas
 const endSendMsg = '</p></div><p class="message-time">TTTT</p></div>';
 const DISCONNECT_MSG = 'You are currently disconnected from the server - Attempting to reconnect...';
 
+/** The last versioned game state from the server, which game update deltas are applied to */
+var gameState = {seq: -1, game: null, resyncing: false};
+
 /** Subscribe to the table topic for game updates.
  * This happens when using takes a seat at the table, or if re-connecting */
 function subscribeToGameTableUpdates() {
@@ -24,7 +27,7 @@ function subscribeToGameTableUpdates() {
 		sendIdent.to = 'table';
 	    console.log('Subscribing to table...');
 		stompClient.subscribe(TABLE_TOPIC + identity.gameId, function (tableMsg) {
-	    	tableMessageRec(JSON.parse(tableMsg.body));
+	    	unpackMessages(tableMsg, tableMessageRec);
 	    	saveIdentity();
 	    }, sendIdent);
 	});
@@ -325,6 +328,7 @@ async function privateMessageRec(privateMsg) {
 	case 'GAME_UPDATE':
 		showAsSystemMessage = true;
 		if (privateMsg.currentGame) {
+			storeGameState(privateMsg);
 			updateGameStatus(privateMsg.currentGame, false, false);
 		}
 		break;
@@ -335,6 +339,8 @@ async function privateMessageRec(privateMsg) {
 		if (!privateMsg.currentGame) {
 			break;
 		}
+		// The state the following game updates are based on
+		storeGameState(privateMsg);
 		if (privateMsg.successful) {
 			controlState.amSatDown = true;
 			updateViewOnJoin(privateMsg.player);
@@ -423,6 +429,19 @@ async function tableMessageRec(gameMsg) {
 	    	break;
 	    case 'GAME_UPDATE':
 
+	    	if (gameMsg.delta) {
+	    		gameMsg.currentGame = applyGameDelta(gameMsg);
+	    		if (!gameMsg.currentGame) {
+	    			// Stale, or missed an update and waiting for the resync, but still show what happened
+	    			if (gameMsg.newGame) {
+	    				ssState.eveningStarted = true;
+	    			}
+	    			break;
+	    		}
+	    	} else if (gameMsg.currentGame) {
+	    		storeGameState(gameMsg);
+	    	}
+	    	
 	    	if (!gameMsg.currentGame) {
 	    		// do we want to do something with the error message?
 	    		if (dealer) {
@@ -460,6 +479,65 @@ async function tableMessageRec(gameMsg) {
 	receiveStatusMessage(gameMsg);
 }
 
+/** Store a complete, versioned game state from the server to apply the following deltas to
+ * 
+ *  gameMsg The GAME_UPDATE message with the currentGame
+ */
+function storeGameState(gameMsg) {
+	if (gameMsg.seq === undefined) {
+		return;
+	}
+	gameState.resyncing = false;
+	if (gameMsg.seq < gameState.seq) {
+		return;
+	}
+	gameState.seq = gameMsg.seq;
+	gameState.game = JSON.parse(JSON.stringify(gameMsg.currentGame));
+}
+
+/** Apply the changes in a game update to the game state they are based on. If the update isn't
+ * based on the last state held, and isn't older, a complete copy of the game is requested from the server
+ * 
+ *  gameMsg The GAME_UPDATE message with the delta
+ *  returns The updated game, or null if it could not be applied
+ */
+function applyGameDelta(gameMsg) {
+	if (gameMsg.seq <= gameState.seq) {
+		return null;// Already have this (or a later) state
+	}
+	if (!gameState.game || gameMsg.baseSeq != gameState.seq) {
+		if (!gameState.resyncing) {
+			gameState.resyncing = true;
+			console.log('Missed game update ' + gameMsg.baseSeq + ', requesting resync');
+			sendToTable('resync', {});
+		}
+		return null;
+	}
+	
+	var game = gameState.game;
+	for (var field in gameMsg.delta) {
+		var value = gameMsg.delta[field];
+		if (field == 'players') {
+			var players = game.players.filter(p => !value.removed.includes(p.playerId));
+			value.changed.forEach(function(changed) {
+				var idx = players.findIndex(p => p.playerId == changed.playerId);
+				if (idx >= 0) {
+					players[idx] = changed;
+				} else {
+					players.push(changed);
+				}
+			});
+			game.players = players;
+		} else if (value === null) {
+			delete game[field];
+		} else {
+			game[field] = value;
+		}
+	}
+	gameState.seq = gameMsg.seq;
+	return JSON.parse(JSON.stringify(game));
+}
+
 /** Send a messsge to the server and display in Chat */
 function sendChatMessage(theMsg, toSessionId) {
 	if (!theMsg) {
@@ -171,6 +171,22 @@ async function reConnectWebSocket() {
 	}
 }
 
+/** Unpack a message frame from the server. The server batches messages sent
+ * to a table at the same time into a single frame as a JSON array, so each 
+ * message is passed to the handler in the order they were sent, waiting for
+ * any asynchronous handling (e.g. animations) to finish before the next
+ * 
+ *  frame The STOMP frame
+ *  handler The function called with each message
+ */
+async function unpackMessages(frame, handler) {
+	var body = JSON.parse(frame.body);
+	var messages = Array.isArray(body) ? body : [body];
+	for (var i = 0; i < messages.length; i++) {
+		await handler(messages[i]);
+	}
+}
+
 /** Pause for x milliseconds */
 function sleep(ms) {
   return new Promise(resolve => setTimeout(resolve, ms));
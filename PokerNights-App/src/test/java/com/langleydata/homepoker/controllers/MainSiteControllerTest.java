@@ -3,6 +3,7 @@ package com.langleydata.homepoker.controllers;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -38,10 +39,12 @@ import com.langleydata.homepoker.api.GameSettings;
 import com.langleydata.homepoker.api.UserAccount;
 import com.langleydata.homepoker.controllers.MainSiteController.PotCalc;
 import com.langleydata.homepoker.exception.GameSchedulingException;
+import com.langleydata.homepoker.game.texasHoldem.EquityCalculator;
 import com.langleydata.homepoker.game.texasHoldem.PokerHandEvaluator;
 import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
 import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
+import com.langleydata.homepoker.message.EquityMessage;
 import com.langleydata.homepoker.persistence.SettingsProvider;
 import com.langleydata.homepoker.services.Account;
 import com.langleydata.homepoker.services.EmailSender;
@@ -69,6 +72,24 @@ public class MainSiteControllerTest {
 		when(request.getRequestURI()).thenReturn("/creategame/TEXAS_HOLDEM");
 	}
 	
+	@Test
+	public void testEquityMethod() {
+		msc.equityCalculator = new EquityCalculator();
+		
+		EquityMessage em = msc.getEquity("AS,AD; KS,KD", "2C,7H,9D,JC", "3S", 1000);
+		assertEquals("", em.getMessage());
+		assertEquals(2, em.getPlayers().size());
+		assertTrue(em.getEquity().isExhaustive());
+		assertEquals(43, em.getEquity().getBoards());
+		
+		// Errors
+		em = msc.getEquity("AS,AD", "", "", 1000);
+		assertEquals("At least 2 players' cards must be supplied", em.getMessage());
+		em = msc.getEquity("AS,AD;AS,KD", "", "", 1000);
+		assertEquals("Duplicate card AS", em.getMessage());
+		assertNull(em.getEquity());
+	}
+	
 	@Test
 	public void testSidePotMethod() {
 		msc.handEvaluator = new PokerHandEvaluator();
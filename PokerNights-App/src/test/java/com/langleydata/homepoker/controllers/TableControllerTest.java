@@ -20,6 +20,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.slf4j.Logger;
 
@@ -52,6 +53,7 @@ import com.langleydata.homepoker.message.TransferFundsMessage;
 import com.langleydata.homepoker.persistence.MessageHistoryProvider;
 import com.langleydata.homepoker.persistence.RoundHistoryProvider;
 import com.langleydata.homepoker.persistence.SettingsProvider;
+import com.langleydata.homepoker.services.SessionRegistry;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TableControllerTest {
@@ -74,6 +76,8 @@ public class TableControllerTest {
 	private AccountService accService;
 	@Mock
 	private Logger logger;
+	@Spy
+	private SessionRegistry sessions = new SessionRegistry();
 	
 	@InjectMocks
 	private TableController tc;
@@ -84,9 +88,10 @@ public class TableControllerTest {
 	public void init() {
 		MockitoAnnotations.initMocks(this);
 		when(thg.getPlayers()).thenReturn(players);
-		tc.activeGames.put("ABC", thg);
+		when(thg.acquireLock()).thenReturn(true);
 		when(gameSettings.getGameId()).thenReturn("ABC");
 		when(thg.getSettings()).thenReturn(gameSettings);
+		tc.activeGames.add(thg);
 		when(gameSettings.getLocale()).thenReturn(new Locale("en", "GB"));
 		when(gameSettings.getShuffleOption()).thenReturn(ShuffleOption.ALWAYS);
 //		try {
@@ -406,6 +411,9 @@ public class TableControllerTest {
 		
 		assertEquals(5, from.getCurrentStack().getStack(), 0.1f);
 		assertEquals(15, to.getCurrentStack().getStack(), 0.1f);
+		// The transfer is made under the table's lock
+		Mockito.verify(thg).acquireLock();
+		Mockito.verify(thg).releaseLock();
 		
 		Mockito.verify(messageProvider).addPlayerAction(tfm);
 		
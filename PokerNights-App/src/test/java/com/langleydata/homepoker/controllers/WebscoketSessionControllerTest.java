@@ -10,9 +10,7 @@ import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Stream;
 
 import org.junit.Assert;
@@ -24,6 +22,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.util.ReflectionUtils;
@@ -32,7 +31,6 @@ import com.langleydata.homepoker.api.MessageTypes;
 import com.langleydata.homepoker.controllers.WebsocketSessionController.Disconnected;
 import com.langleydata.homepoker.deck.Card;
 import com.langleydata.homepoker.exception.ReconnectException;
-import com.langleydata.homepoker.game.AbstractCardGame;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.game.players.PlayerState;
 import com.langleydata.homepoker.game.players.Players;
@@ -44,6 +42,7 @@ import com.langleydata.homepoker.message.GameUpdateMessage;
 import com.langleydata.homepoker.message.MessageUtils;
 import com.langleydata.homepoker.message.PrivateJoinerMessage;
 import com.langleydata.homepoker.message.SubscribeMessage;
+import com.langleydata.homepoker.services.SessionRegistry;
 
 @RunWith(MockitoJUnitRunner.class)
 public class WebscoketSessionControllerTest {
@@ -64,6 +63,8 @@ public class WebscoketSessionControllerTest {
 	Player plJim;
 	@Mock
 	TableController tableController;
+	@Spy
+	SessionRegistry sessions = new SessionRegistry();
 	@InjectMocks
 	private WebsocketSessionController sc;
 	
@@ -75,9 +76,6 @@ public class WebscoketSessionControllerTest {
 		when(txGame.getSettings()).thenReturn(txSettings);
 		when(txSettings.getGameId()).thenReturn("game-id0");
 		tableController.addActiveGame(txGame);
-		Map<String, AbstractCardGame<?>> list = new HashMap<>();
-		list.put("game-id0", txGame);
-		Mockito.when(tableController.getActiveGames()).thenReturn(list);
 		setupPlayers();
 		Mockito.doReturn(txGame).when(tableController).getActiveGame("game-id0");
 		Mockito.when(mkPlayers.getPlayerById(plBob.getPlayerId())).thenReturn(plBob);
@@ -149,6 +147,7 @@ public class WebscoketSessionControllerTest {
 
 		// Check the player had the new session id set and they are no longer tracked for disconnection
 		verify(plBob).setSessionId(sId);
+		assertEquals("game-id0", sessions.get(sId).getGameId());
 		
 		ArgumentCaptor<PrivateJoinerMessage> captor = ArgumentCaptor.forClass(PrivateJoinerMessage.class);
 
@@ -189,10 +188,20 @@ public class WebscoketSessionControllerTest {
 		sc.onSubscribe(mkHeaders, plBob.getPlayerId());
 		Assert.assertNull(sc.disConnStates.get(trackId));
 		
-		// Final disconnect
+		// Final disconnect, finding bob in their seat
 		Mockito.when(plBob.getSessionId()).thenReturn(sess2);
+		Mockito.when(mkPlayers.getPlayerInSeat(plBob.getSeatingPos())).thenReturn(plBob);
 		sc.updatePlayerConnectState(sess2);
 		Assert.assertNotNull(sc.disConnStates.get(trackId));
+		Assert.assertNull(sessions.get(sess2));
+	}
+	
+	@Test
+	public void testUnknownSessionIsNotTracked() throws ReconnectException {
+		sc.updatePlayerConnectState("watcher");
+		
+		Assert.assertTrue(sc.disConnStates.isEmpty());
+		Mockito.verify(tableController, Mockito.never()).getActiveGame(Mockito.anyString());
 	}
 	
 	@Test
@@ -327,6 +336,10 @@ public class WebscoketSessionControllerTest {
 		lenient().when(plJim.getPlayerHandle()).thenReturn("jim");
 		
 		lenient().when(mkPlayers.stream()).then(i -> Stream.of(plFred, plBob, plJim));
+		
+		sessions.register(plFred.getSessionId(), "game-id0", plFred);
+		sessions.register(plBob.getSessionId(), "game-id0", plBob);
+		sessions.register(plJim.getSessionId(), "game-id0", plJim);
 
 	}
 }
@@ -112,12 +112,13 @@ public class DeckTest {
 	@Test
 	public void testReplayHand() {
 		final Deck deck = new Deck();
-		final List<Card> prevDeck = deck.getCurrentDeck();
 		
 		// Shuffle the deck first, which stores the random seed used
 		deck.shuffle();
+		deck.shuffle();
 		final long lastSeed = deck.getLastSeed();
-		assertEquals(1, deck.getNumShuffles());
+		assertEquals(2, deck.getNumShuffles());
+		final List<Card> prevDeck = new ArrayList<>(deck.getCurrentDeck());
 
 		// Create a new deck and set the seed the same as the
 		// first before shuffling
@@ -125,14 +126,36 @@ public class DeckTest {
 		newDeck.setSeed(lastSeed);
 		newDeck.shuffle();
 		assertEquals(1, newDeck.getNumShuffles());
+		assertEquals(lastSeed, newDeck.getLastSeed());
 		
-		final List<Card> nextDeck = deck.getCurrentDeck();
+		final List<Card> nextDeck = newDeck.getCurrentDeck();
 		
 		for (int i=0; i < Deck.CARDS_IN_DECK; i++) {
 			assertEquals(prevDeck.get(i), nextDeck.get(i));
 		}
 	}
 	
+	@Test
+	public void testRestore() {
+		final Deck deck = new Deck();
+		deck.shuffle();
+		final Card first = deck.getNextCard();
+		final Card second = deck.getNextCard();
+		assertEquals(2, deck.getPosition());
+		
+		final Deck restored = new Deck();
+		restored.restore(deck.getLastSeed(), 1);
+		assertEquals(second, restored.getNextCard());
+		assertEquals(deck.getNextCard(), restored.getNextCard());
+		
+		restored.restore(deck.getLastSeed(), 0);
+		assertEquals(first, restored.getNextCard());
+		
+		// Never shuffled
+		restored.restore(-1L, 0);
+		assertEquals(Deck.getSequentialDeck(), restored.getCurrentDeck());
+	}
+	
 	@Test
 	public void testTwoNewDecksAreNotTheSame() {
 		final Deck deck1 = new Deck();
@@ -0,0 +1,125 @@
+package com.langleydata.homepoker.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.langleydata.homepoker.game.ActiveGames.Lifecycle;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+
+public class ActiveGamesTest {
+
+	@Test
+	public void testGameIsOnlyBuiltOnce() throws Exception {
+		final ActiveGames games = new ActiveGames();
+		final AtomicInteger built = new AtomicInteger();
+		final CountDownLatch building = new CountDownLatch(1);
+		final AbstractCardGame<?> game = mkGame("A");
+
+		final ExecutorService exec = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<AbstractCardGame<?>>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(exec.submit(() -> games.activate("A", () -> {
+					built.incrementAndGet();
+					try {
+						building.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return game;
+				})));
+			}
+			Thread.sleep(100);
+			building.countDown();
+			for (Future<AbstractCardGame<?>> f : results) {
+				assertSame(game, f.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			exec.shutdownNow();
+		}
+
+		assertEquals(1, built.get());
+		assertEquals(Lifecycle.LIVE, games.getState("A"));
+		assertSame(game, games.get("A"));
+	}
+
+	@Test
+	public void testFailedActivationCanBeRetried() {
+		final ActiveGames games = new ActiveGames();
+
+		assertNull(games.activate("A", () -> null));
+		assertEquals(Lifecycle.PURGED, games.getState("A"));
+		assertEquals(0, games.size());
+
+		final AbstractCardGame<?> game = mkGame("A");
+		assertSame(game, games.activate("A", () -> game));
+	}
+
+	@Test
+	public void testListenersFollowLifecycle() {
+		final ActiveGames games = new ActiveGames();
+		final List<Lifecycle> states = new ArrayList<>();
+		games.addListener((id, g, state) -> states.add(state));
+		final AbstractCardGame<?> game = mkGame("A");
+
+		assertTrue(games.add(game));
+		assertFalse(games.add(mkGame("A")));
+		assertTrue(games.drain("A"));
+		assertFalse(games.drain("A"));
+
+		// A draining game is still available
+		assertSame(game, games.get("A"));
+		assertEquals(1, games.getGames().size());
+
+		assertSame(game, games.purge("A"));
+		assertNull(games.purge("A"));
+		assertNull(games.get("A"));
+		assertFalse(games.contains("A"));
+		assertEquals(Lifecycle.PURGED, games.getState("A"));
+
+		assertEquals(List.of(Lifecycle.LIVE, Lifecycle.DRAINING, Lifecycle.PURGED), states);
+	}
+
+	@Test
+	public void testPurgedGamesAreCompletedAndReleased() {
+		final ActiveGames games = new ActiveGames();
+		final AbstractCardGame<?> live = mkGame("A");
+		final AbstractCardGame<?> drained = mkGame("B");
+		games.add(live);
+		games.add(drained);
+		games.drain("B");
+
+		games.purge("A");
+		games.purge("B");
+
+		Mockito.verify(live).completeGame();
+		Mockito.verify(live).release();
+		// Already completed when it was drained
+		Mockito.verify(drained, Mockito.never()).completeGame();
+		Mockito.verify(drained).release();
+		assertEquals(0, games.size());
+	}
+
+	private static AbstractCardGame<?> mkGame(final String gameId) {
+		final AbstractCardGame<?> game = Mockito.mock(AbstractCardGame.class);
+		final TexasHoldemSettings settings = Mockito.mock(TexasHoldemSettings.class);
+		Mockito.when(settings.getGameId()).thenReturn(gameId);
+		Mockito.doReturn(settings).when(game).getSettings();
+		return game;
+	}
+}
@@ -0,0 +1,172 @@
+package com.langleydata.homepoker.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.langleydata.homepoker.TestUtils;
+import com.langleydata.homepoker.api.CardGame.GameFormat;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+import com.langleydata.homepoker.message.MessageUtils;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+import com.langleydata.homepoker.persistence.wal.WriteAheadLog;
+
+public class GameJournalTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private final MessageUtils msgUtils = mock(MessageUtils.class);
+	private TexasHoldemGame game;
+	private GameJournal journal;
+	private File gameDir;
+
+	@Before
+	public void setup() throws Exception {
+		final TexasHoldemSettings settings = new TexasHoldemSettings();
+		settings.setFormat(GameFormat.CASH);
+		settings.setHostEmail("A");
+		game = new TexasHoldemGame(settings, msgUtils);
+		journal = GameJournal.start(folder.getRoot(), game, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 2);
+		gameDir = folder.getRoot().listFiles()[0];
+
+		game.addPlayer(TestUtils.makePlayer("A", 0));
+		game.addPlayer(TestUtils.makePlayer("B", 2));
+		game.addPlayer(TestUtils.makePlayer("C", 4));
+	}
+
+	@After
+	public void tearDown() {
+		journal.close();
+	}
+
+	private void act(final String id, final PlayerActionType type, final float bet) {
+		final PlayerActionMessage action = new PlayerActionMessage(id, type);
+		action.setBetValue(bet);
+		assertNotNull(game.doGameUpdateAction(action));
+		assertTrue(action.isSuccessful());
+	}
+
+	/** Play the first round as far as the flop */
+	private void playToFlop() throws Exception {
+		game.startNextRound(false);
+		act("B", PlayerActionType.POST_BLIND, 0.1f);
+		act("C", PlayerActionType.POST_BLIND, 0.2f);
+		act("A", PlayerActionType.CALL, 0.2f);
+		act("B", PlayerActionType.CALL, 0.2f);
+		act("C", PlayerActionType.CHECK, 0f);
+		assertEquals(TexasGameState.FLOP, game.getGameState());
+	}
+
+	private static Map<String, String> describe(final AbstractCardGame<?> g) {
+		return g.getPlayers().stream().collect(Collectors.toMap(Player::getPlayerId, p ->
+			p.getCurrentStack().getStackChips() + "/" + p.getCurrentStack().getOnTableChips()
+			+ "/" + p.getCards() + "/" + p.getState().isDealer() + "/" + p.getState().isActionOnMe()));
+	}
+
+	@Test
+	public void testRecoversRoundInProgress() throws Exception {
+		playToFlop();
+
+		// As if the server was killed, the journal isn't closed
+		final GameJournal recovered = GameJournal.recover(gameDir, msgUtils, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 2);
+		final TexasHoldemGame rGame = recovered.getGame();
+		assertEquals(game.getSettings().getGameId(), rGame.getSettings().getGameId());
+		assertEquals(1, rGame.getRound());
+		assertEquals(TexasGameState.FLOP, rGame.getGameState());
+		assertEquals(game.getCardsOnTable(), rGame.getCardsOnTable());
+		assertEquals(game.getCurrentPot(), rGame.getCurrentPot(), 0);
+		assertEquals(describe(game), describe(rGame));
+
+		// The recovered game carries on, and is journaled
+		game = rGame;
+		act("B", PlayerActionType.CHECK, 0f);
+		final TexasHoldemGame again = GameJournal.recover(gameDir, msgUtils, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 2).getGame();
+		assertEquals(describe(rGame), describe(again));
+		recovered.close();
+	}
+
+	/** Play a round where the big blind wins the blinds */
+	private void playBlinds(final String small, final String big, final String first) {
+		act(small, PlayerActionType.POST_BLIND, 0.1f);
+		act(big, PlayerActionType.POST_BLIND, 0.2f);
+		act(first, PlayerActionType.FOLD, 0f);
+		act(small, PlayerActionType.FOLD, 0f);
+		assertEquals(TexasGameState.COMPLETE, game.getGameState());
+	}
+
+	@Test
+	public void testCheckpointEveryFewRounds() throws Exception {
+		game.startNextRound(false);
+		playBlinds("B", "C", "A");
+		game.startNextRound(true);
+		GameJournal.awaitSync();
+
+		// Only the segment with the round 2 checkpoint is kept
+		assertEquals(1, gameDir.list().length);
+		TexasHoldemGame rGame = GameJournal.recover(gameDir, msgUtils, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 2).getGame();
+		assertEquals(2, rGame.getRound());
+		assertEquals(describe(game), describe(rGame));
+
+		// The next round isn't checkpointed, so is replayed after round 2
+		playBlinds("A", "B", "C");
+		game.startNextRound(true);
+		GameJournal.awaitSync();
+		assertEquals(1, gameDir.list().length);
+		rGame = GameJournal.recover(gameDir, msgUtils, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 2).getGame();
+		assertEquals(3, rGame.getRound());
+		assertEquals(describe(game), describe(rGame));
+	}
+
+	@Test
+	public void testRoundVoidWhenReplayFails() throws Exception {
+		final Map<String, String> atStart = describe(game);
+		playToFlop();
+		// An action that won't replay, e.g. journaled from a different version
+		journal.actionPerformed(game, new PlayerActionMessage("A", PlayerActionType.CHECK));
+		game.removePlayer("C");
+
+		final TexasHoldemGame rGame = GameJournal.recover(gameDir, msgUtils, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 2).getGame();
+		assertEquals(0, rGame.getRound());
+		assertEquals(TexasGameState.COMPLETE, rGame.getGameState());
+		// The leaver is still applied
+		assertNull(rGame.getPlayers().getPlayerById("C"));
+		atStart.remove("C");
+		assertEquals(atStart, describe(rGame));
+		assertFalse(rGame.getRemovedPlayers().isEmpty());
+	}
+
+	@Test
+	public void testOnlyFailedRoundVoid() throws Exception {
+		game.startNextRound(false);
+		playBlinds("B", "C", "A");
+		// Checkpointed as round 2 starts
+		game.startNextRound(true);
+		playBlinds("A", "B", "C");
+		final Map<String, String> afterSecond = describe(game);
+		game.startNextRound(true);
+		// An action that won't replay
+		journal.actionPerformed(game, new PlayerActionMessage("A", PlayerActionType.CHECK));
+
+		// The round completed since the checkpoint is kept
+		final TexasHoldemGame rGame = GameJournal.recover(gameDir, msgUtils, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 2).getGame();
+		assertEquals(2, rGame.getRound());
+		assertEquals(TexasGameState.COMPLETE, rGame.getGameState());
+		assertEquals(afterSecond, describe(rGame));
+	}
+}
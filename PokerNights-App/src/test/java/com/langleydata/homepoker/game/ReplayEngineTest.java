@@ -0,0 +1,149 @@
+package com.langleydata.homepoker.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.langleydata.homepoker.TestUtils;
+import com.langleydata.homepoker.api.CardGame.GameFormat;
+import com.langleydata.homepoker.api.PlayerAction;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+import com.langleydata.homepoker.message.MessageUtils;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+public class ReplayEngineTest {
+	private final Gson gson = new Gson();
+	private final List<RoundHistory> rounds = new ArrayList<>();
+	private final List<PlayerAction> actions = new ArrayList<>();
+	private TexasHoldemGame game;
+	private ReplayEngine engine;
+
+	@Before
+	public void setup() {
+		final TexasHoldemSettings settings = new TexasHoldemSettings();
+		settings.setFormat(GameFormat.CASH);
+		settings.setHostEmail("A");
+		game = new TexasHoldemGame(settings, mock(MessageUtils.class));
+		// As stored, so later rounds don't change it
+		game.addRoundListener(rh -> rounds.add(gson.fromJson(gson.toJson(rh), GameRound.class)));
+		game.addPlayer(TestUtils.makePlayer("A", 0));
+		game.addPlayer(TestUtils.makePlayer("B", 2));
+		game.addPlayer(TestUtils.makePlayer("C", 4));
+		engine = new ReplayEngine(2);
+	}
+
+	@After
+	public void tearDown() {
+		engine.close();
+	}
+
+	private void deal(final boolean moveDealer) throws Exception {
+		game.startNextRound(moveDealer);
+		final PlayerActionMessage deal = new PlayerActionMessage(game.getPlayers().getDealer().getSessionId());
+		deal.setPlayerId(game.getPlayers().getDealer().getPlayerId()).setRound(game.getRound()).setAction(PlayerActionType.DEAL);
+		actions.add(deal);
+	}
+
+	private PlayerActionMessage act(final String id, final PlayerActionType type, final float bet) {
+		final PlayerActionMessage action = new PlayerActionMessage(id, type);
+		action.setPlayerId(id).setRound(game.getRound()).setBetValue(bet);
+		game.doGameUpdateAction(action);
+		assertTrue(action.isSuccessful());
+		actions.add(action);
+		return action;
+	}
+
+	/** Two rounds, one to a showdown, and one where a player times out */
+	private RecordedGame play() throws Exception {
+		deal(false);
+		act("B", PlayerActionType.POST_BLIND, 0.1f);
+		act("C", PlayerActionType.POST_BLIND, 0.2f);
+		act("A", PlayerActionType.CALL, 0.2f);
+		act("B", PlayerActionType.CALL, 0.2f);
+		act("C", PlayerActionType.CHECK, 0f);
+		act("B", PlayerActionType.BET, 0.5f);
+		act("C", PlayerActionType.CALL, 0.5f);
+		act("A", PlayerActionType.FOLD, 0f);
+		for (int i = 0; i < 2; i++) {
+			act("B", PlayerActionType.BET, 0.5f);
+			act("C", PlayerActionType.CALL, 0.5f);
+		}
+		assertEquals(1, rounds.size());
+
+		deal(false);
+		act("C", PlayerActionType.POST_BLIND, 0.1f);
+		act("A", PlayerActionType.POST_BLIND, 0.2f);
+		// B timed out, so the game folded for them
+		act("B", PlayerActionType.FOLD, 0f).setTimedOut(true);
+		act("C", PlayerActionType.FOLD, 0f);
+		assertEquals(2, rounds.size());
+
+		return gson.fromJson(gson.toJson(new RecordedGame(game.getSettings(), rounds, actions)), RecordedGame.class);
+	}
+
+	@Test
+	public void testReplayMatchesRecording() throws Exception {
+		final RecordedGame recorded = play();
+		final List<ReplayResult> results = engine.replayAll(Arrays.asList(recorded, recorded, recorded));
+
+		assertEquals(3, results.size());
+		for (ReplayResult r : results) {
+			assertEquals(r.getDivergences().toString(), 2, r.getRounds());
+			assertTrue(r.getDivergences().toString(), r.isMatched());
+		}
+	}
+
+	@Test
+	public void testDivergenceReported() throws Exception {
+		final RecordedGame recorded = play();
+		// As if the engine now handled the bet differently
+		recorded.getActions().stream()
+			.filter(a -> a.getAction() == PlayerActionType.BET)
+			.findFirst()
+			.get().setBetValue(0.6f);
+
+		final ReplayResult result = engine.replay(recorded);
+		assertFalse(result.isMatched());
+		assertEquals(1, result.getDivergences().get(0).getRound());
+		assertTrue(result.getDivergences().stream().anyMatch(d -> d.getField().equals("pots")));
+		// The next round is unaffected
+		assertTrue(result.getDivergences().stream().allMatch(d -> d.getRound() == 1));
+	}
+
+	@Test
+	public void testUnrecordedTimeoutReported() throws Exception {
+		final RecordedGame recorded = play();
+		// As stored before the game's actions were recorded
+		recorded.getActions().removeIf(PlayerActionMessage::isTimedOut);
+
+		final ReplayResult result = engine.replay(recorded);
+		assertEquals(result.getDivergences().toString(), 1, result.getDivergences().size());
+		final ReplayResult.Divergence d = result.getDivergences().get(0);
+		assertEquals(2, d.getRound());
+		assertEquals("actor", d.getField());
+		assertEquals("C", d.getExpected());
+		assertEquals("B", d.getActual());
+	}
+
+	@Test
+	public void testDifferentSeedDealsDifferentCards() throws Exception {
+		final RecordedGame recorded = play();
+		recorded.getRounds().get(0).setShuffleSeed(recorded.getRounds().get(0).getShuffleSeed() + 1);
+
+		final ReplayResult result = engine.replay(recorded);
+		assertTrue(result.getDivergences().stream().anyMatch(d -> d.getRound() == 1 && d.getField().equals("cards")));
+	}
+}
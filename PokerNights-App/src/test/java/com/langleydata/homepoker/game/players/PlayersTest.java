@@ -719,6 +719,75 @@ public class PlayersTest {
 		newDealer.getState().setDealer(true);
 		return newDealer;
 	}
+	@Test
+	public void testIndexesFollowMutations() {
+		Players p = getNPlayers(4);
+		final Player seat1 = getPlayerBySeat(p, 1);
+		final Player seat2 = getPlayerBySeat(p, 2);
+		assertEquals(seat1, p.getPlayerById(seat1.getPlayerId()));
+		assertEquals(seat1, p.getPlayerBySessionId(seat1.getSessionId()));
+		assertEquals(seat1, p.getPlayerInSeat(1));
+		
+		// Removing frees the seat for the next player
+		assertTrue(p.remove(seat1));
+		Assert.assertNull(p.getPlayerById(seat1.getPlayerId()));
+		Assert.assertNull(p.getPlayerBySessionId(seat1.getSessionId()));
+		Assert.assertNull(p.getPlayerInSeat(1));
+		final Player joiner = makePlayer("joiner", -1);
+		p.add(joiner);
+		assertEquals(1, joiner.getSeatingPos());
+		assertEquals(joiner, p.getPlayerInSeat(1));
+		
+		// and when removed through the iterator
+		p.removeIf(pl -> pl.equals(seat2));
+		Assert.assertNull(p.getPlayerById(seat2.getPlayerId()));
+		Assert.assertNull(p.getPlayerInSeat(2));
+		assertEquals(3, p.getPlayerRelativeTo(getPlayerBySeat(p, 0), 2, false).getSeatingPos());
+		
+		// Re-adding a seated player doesn't move them
+		Assert.assertFalse(p.add(joiner));
+		assertEquals(1, joiner.getSeatingPos());
+		assertEquals(joiner, p.getPlayerInSeat(1));
+		assertEquals(3, p.getPlayerRelativeTo(joiner, 1, false).getSeatingPos());
+		
+		// A reconnect changes the session id directly on the player
+		joiner.setSessionId("newSession");
+		assertEquals(joiner, p.getPlayerBySessionId("newSession"));
+		Assert.assertNull(p.getPlayerBySessionId("joiner"));
+		
+		p.clear();
+		Assert.assertNull(p.getPlayerById(joiner.getPlayerId()));
+		Assert.assertNull(p.getDealer());
+	}
+	
+	@Test
+	public void testCachedFlagsFollowState() {
+		Players p = getNPlayers(3);
+		final Player seat0 = getPlayerBySeat(p, 0);
+		final Player seat2 = getPlayerBySeat(p, 2);
+		Assert.assertNull(p.getHost());
+		assertEquals(seat0, p.getDealer());// First seat when no dealer
+		
+		seat2.getState().setHost(true);
+		seat2.getState().setDealer(true);
+		assertEquals(seat2, p.getHost());
+		assertEquals(seat2, p.getDealer());
+		
+		// Flags changed directly on the player's state
+		seat2.getState().setHost(false);
+		seat2.getState().setDealer(false);
+		seat0.getState().setHost(true);
+		assertEquals(seat0, p.getHost());
+		assertEquals(seat0, p.getDealer());
+		
+		assertTrue(p.resetActionPositionForDeal());
+		final Player first = p.getActionOn();
+		assertEquals(1, first.getSeatingPos());
+		first.getState().setActionOn(false);
+		seat2.getState().setActionOn(true);
+		assertEquals(seat2, p.getActionOn());
+	}
+	
 	private Players getNPlayers(int num) {
 		Players p = new Players();
 		for (int i = 0; i < num; i++) {
@@ -0,0 +1,141 @@
+package com.langleydata.homepoker.game.texasHoldem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.langleydata.homepoker.deck.Card;
+
+public class EquityCalculatorTest {
+	private final EquityCalculator calc = new EquityCalculator();
+
+	@Test
+	public void testCompleteBoardHasSingleWinner() {
+		final Equity eq = calc.calculate(
+				hole("AS,AD", "KS,KD"),
+				Card.makeCards("2C", "7H", "9D", "JC", "3S"),
+				null);
+
+		assertTrue(eq.isExhaustive());
+		assertEquals(1, eq.getBoards());
+		assertEquals(100d, eq.getWin()[0], 0);
+		assertEquals(0d, eq.getWin()[1], 0);
+		assertEquals(100d, eq.getEquity()[0], 0);
+	}
+
+	@Test
+	public void testPlayingTheBoardIsATie() {
+		final Equity eq = calc.calculate(
+				hole("2C,3D", "4C,5D"),
+				Card.makeCards("TS", "JS", "QS", "KS", "AS"),
+				null);
+
+		assertEquals(100d, eq.getTie()[0], 0);
+		assertEquals(100d, eq.getTie()[1], 0);
+		assertEquals(50d, eq.getEquity()[0], 0);
+		assertEquals(50d, eq.getEquity()[1], 0);
+	}
+
+	@Test
+	public void testFlopIsEnumerated() {
+		final Equity eq = calc.calculate(hole("AS,KS", "2D,2C"), Card.makeCards("QS", "7S", "3H"), null);
+
+		assertTrue(eq.isExhaustive());
+		assertEquals(EquityCalculator.binomial(45, 2), eq.getBoards());
+		assertEquals(100d, eq.getEquity()[0] + eq.getEquity()[1], 0.02);
+	}
+
+	@Test
+	public void testCalculatedOnThePool() throws Exception {
+		final Equity eq = EquityCalculator.getShared()
+				.calculateAsync(hole("AS,AD", "KS,KD"), Card.makeCards("2C", "7H", "9D", "JC", "3S"), null)
+				.get();
+		assertEquals(100d, eq.getEquity()[0], 0);
+
+		try {
+			calc.calculateAsync(hole("AS,AD", "AS,KD"), null, null).join();
+			fail("Duplicate card accepted");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test
+	public void testDeadCardsAreExcluded() {
+		final Equity eq = calc.calculate(hole("AS,KS", "2D,2C"), Card.makeCards("QS", "7S", "3H"), Card.makeCards("4S", "5S"));
+		assertEquals(EquityCalculator.binomial(43, 2), eq.getBoards());
+	}
+
+	@Test
+	public void testSamplingMatchesEnumeration() {
+		final List<List<Card>> hole = hole("AH,KH", "QC,QD", "7S,8S");
+		final List<Card> table = Card.makeCards("2H", "9H", "TD");
+
+		final Equity exact = calc.calculate(hole, table, null);
+		final Equity sampled = new EquityCalculator(ForkJoinPool.commonPool(), 0)
+				.calculate(hole, table, null, 200_000, new SplittableRandom(99L));
+
+		assertTrue(exact.isExhaustive());
+		assertFalse(sampled.isExhaustive());
+		assertEquals(200_000, sampled.getBoards());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(exact.getEquity()[i], sampled.getEquity()[i], 0.75);
+		}
+	}
+
+	@Test
+	public void testPreflopIsSampled() {
+		final Equity eq = calc.calculate(hole("AS,AD", "KS,KD"), null, null, 20_000, new SplittableRandom(1L));
+
+		assertFalse(eq.isExhaustive());
+		assertEquals(20_000, eq.getBoards());
+		// Aces are ~82% against Kings
+		assertEquals(82d, eq.getEquity()[0], 2);
+		assertEquals(18d, eq.getEquity()[1], 2);
+	}
+
+	@Test
+	public void testSameSeedSameResult() {
+		final EquityCalculator sampler = new EquityCalculator(ForkJoinPool.commonPool(), 0);
+		final Equity a = sampler.calculate(hole("AS,AD", "KS,KD"), null, null, 10_000, new SplittableRandom(5L));
+		final Equity b = sampler.calculate(hole("AS,AD", "KS,KD"), null, null, 10_000, new SplittableRandom(5L));
+		assertEquals(a.getWin()[0], b.getWin()[0], 0);
+		assertEquals(a.getTie()[1], b.getTie()[1], 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateCardRejected() {
+		calc.calculate(hole("AS,AD", "KS,AS"), null, null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSinglePlayerRejected() {
+		calc.calculate(hole("AS,AD"), null, null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testThreeHoleCardsRejected() {
+		calc.calculate(hole("AS,AD,AC", "KS,KD"), null, null);
+	}
+
+	@Test
+	public void testBinomial() {
+		assertEquals(1712304, EquityCalculator.binomial(48, 5));
+		assertEquals(1, EquityCalculator.binomial(44, 0));
+		assertEquals(0, EquityCalculator.binomial(2, 3));
+	}
+
+	private List<List<Card>> hole(String... players) {
+		return Arrays.stream(players).map(p -> Card.makeCards(p.split(","))).collect(Collectors.toList());
+	}
+}
@@ -14,6 +14,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.langleydata.homepoker.TestUtils;
+import com.langleydata.homepoker.game.Chips;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
 import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
@@ -176,6 +177,7 @@ public class GamePotsTest {
 	private SidePot mkSidePot(float potTotal, HandRank bestRank, Player...p ) {
 		SidePot pw1 = mock(SidePot.class);
 		when(pw1.getPotTotal()).thenReturn(potTotal);
+		when(pw1.getPotTotalChips()).thenReturn(Chips.of(potTotal));
 		when(pw1.getPotWinners()).thenReturn(Arrays.asList(p));
 		when(pw1.getMaxRank()).thenReturn(bestRank);
 		
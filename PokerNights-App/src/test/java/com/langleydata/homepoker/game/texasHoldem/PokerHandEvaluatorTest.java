@@ -78,6 +78,29 @@ public class PokerHandEvaluatorTest {
 		assertEquals(500 - 19.2 + 81.6 , pSa.getCurrentStack().getStack(), 0.01);
 	}
 	
+	@Test
+	public void testOddChipsGoInSeatOrder() {
+		final TexasGameState[] allStates = new TexasGameState[] {TexasGameState.RIVER};
+		
+		final Player pA = TestUtils.makePlayer("A", allStates, mkBets(0.1f), new Card("2C"), new Card("3D"));
+		final Player pB = TestUtils.makePlayer("B", allStates, mkBets(0.1f), new Card("4C"), new Card("5D"));
+		final Player pC = TestUtils.makePlayer("C", allStates, mkBets(0.05f), new Card("6C"), new Card("7D"));
+		pA.setSeatingPos(3);
+		pB.setSeatingPos(1);
+		pC.setSeatingPos(2);
+		pC.getState().setLastAction(PlayerActionType.FOLD);
+		
+		final Players players = new Players();
+		players.addAll(Arrays.asList(pA, pB, pC));
+		
+		// Both play the board, so split 25p - B is in the lower seat so takes the odd chip
+		final GamePots gamePot = evaluator.calculatePotsAndWinners(players, Card.makeCards("TS", "JS", "QS", "KS", "AS"));
+		assertEquals(0.25f, gamePot.getAllPots().get(GamePots.FIRST_POT_NAME).getPotTotal(), 0);
+		assertEquals(50003, pB.getCurrentStack().getStackChips());
+		assertEquals(50002, pA.getCurrentStack().getStackChips());
+		assertEquals(49995, pC.getCurrentStack().getStackChips());
+	}
+	
 	@Test
 	public void testFinalPotsWithSplitsAndAllIn() {
 		final TexasGameState[] allStates = new TexasGameState[] {TexasGameState.POST_DEAL, TexasGameState.FLOP, TexasGameState.TURN, TexasGameState.RIVER};
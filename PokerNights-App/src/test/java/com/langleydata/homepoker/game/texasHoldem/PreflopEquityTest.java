@@ -0,0 +1,79 @@
+package com.langleydata.homepoker.game.texasHoldem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.langleydata.homepoker.deck.Card;
+
+public class PreflopEquityTest {
+
+	@Test
+	public void testClassIndexAndName() {
+		assertEquals("AA", PreflopEquity.className(PreflopEquity.classIndex(Card.makeCards("AS", "AD"))));
+		assertEquals("AKs", PreflopEquity.className(PreflopEquity.classIndex(Card.makeCards("KH", "AH"))));
+		assertEquals("AKo", PreflopEquity.className(PreflopEquity.classIndex(Card.makeCards("AH", "KC"))));
+		assertEquals("72o", PreflopEquity.className(PreflopEquity.classIndex(Card.makeCards("2D", "7C"))));
+		assertEquals("32s", PreflopEquity.className(PreflopEquity.classIndex(Card.makeCards("2D", "3D"))));
+
+		final Set<String> names = new HashSet<>();
+		for (int i = 0; i < PreflopEquity.CLASSES; i++) {
+			names.add(PreflopEquity.className(i));
+		}
+		assertEquals(PreflopEquity.CLASSES, names.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSameCardRejected() {
+		PreflopEquity.classIndex(Card.makeCards("AS", "AS"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidOpponentsRejected() {
+		PreflopEquity.getInstance().versusRandom(0, PreflopEquity.MAX_OPPONENTS + 1);
+	}
+
+	@Test
+	public void testGeneratedTableIsSymmetric() throws IOException {
+		final Path file = Files.createTempFile("preflop-test", ".bin");
+		try {
+			PreflopEquityGenerator.generate(file, 100);
+			final PreflopEquity pe = PreflopEquity.map(file);
+			assertEquals(100, pe.getSamples());
+
+			for (int a = 0; a < PreflopEquity.CLASSES; a += 7) {
+				for (int b = 0; b < PreflopEquity.CLASSES; b += 5) {
+					assertEquals(100d, pe.headsUp(a, b) + pe.headsUp(b, a), 0.02);
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testBundledTable() {
+		final PreflopEquity pe = PreflopEquity.getInstance();
+		final int aces = PreflopEquity.classIndex(Card.makeCards("AS", "AD"));
+		final int kings = PreflopEquity.classIndex(Card.makeCards("KS", "KD"));
+		final int sevenDeuce = PreflopEquity.classIndex(Card.makeCards("7S", "2D"));
+
+		assertEquals(82, pe.headsUp(aces, kings), 1);
+		assertEquals(85.2, pe.versusRandom(aces, 1), 1);
+		assertEquals(34.6, pe.versusRandom(sevenDeuce, 1), 1);
+		assertTrue(pe.versusRandom(aces, 1) > pe.versusRandom(aces, 5));
+
+		final Equity eq = pe.headsUp(Card.makeCards("AS", "AD"), Card.makeCards("KS", "KD"));
+		assertFalse(eq.isExhaustive());
+		assertEquals(pe.headsUp(aces, kings), eq.getEquity()[0], 0);
+		assertEquals(100d, eq.getEquity()[0] + eq.getEquity()[1], 0.02);
+	}
+}
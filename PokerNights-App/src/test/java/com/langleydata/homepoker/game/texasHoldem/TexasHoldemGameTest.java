@@ -12,12 +12,20 @@ import static org.mockito.Mockito.when;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -35,6 +43,9 @@ import com.langleydata.homepoker.api.PlayerActionType;
 import com.langleydata.homepoker.deck.Card;
 import com.langleydata.homepoker.exception.GameStartException;
 import com.langleydata.homepoker.game.AbstractCardGame;
+import com.langleydata.homepoker.game.Chips;
+import com.langleydata.homepoker.game.GameRound;
+import com.langleydata.homepoker.game.GameTimer;
 import com.langleydata.homepoker.game.players.Player;
 import com.langleydata.homepoker.game.players.PlayerStack;
 import com.langleydata.homepoker.game.players.PlayerState;
@@ -43,6 +54,7 @@ import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
 import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
 import com.langleydata.homepoker.message.AnteDueMessage;
 import com.langleydata.homepoker.message.CompleteGameMessage;
+import com.langleydata.homepoker.message.EquityMessage;
 import com.langleydata.homepoker.message.GameUpdateMessage;
 import com.langleydata.homepoker.message.MessageUtils;
 import com.langleydata.homepoker.message.PlayerActionMessage;
@@ -60,6 +72,8 @@ public class TexasHoldemGameTest {
 	private MessageUtils msgUtils;
 	@Mock
 	private PokerHandEvaluator sevenCardEvaluator;
+	@Mock
+	private GameTimer timer;
 	private TexasHoldemSettings settings = new TexasHoldemSettings();
 	
 	@Before
@@ -88,8 +102,7 @@ public class TexasHoldemGameTest {
 	public void testAutoActionPostBlind() throws InterruptedException {
 		settings.setActionTimeout(2);
 		
-		tg = new TexasHoldemGame(settings, msgUtils);
-		assertNotNull(tg.inActionTimer);
+		tg = new TexasHoldemGame(settings, msgUtils, timer);
 		
 		final Player pA = TestUtils.makePlayer("A", 0);
 		final Player pB = TestUtils.makePlayer("B", 2);
@@ -101,6 +114,7 @@ public class TexasHoldemGameTest {
 		assertFalse(tg.doInactionProcess());
 		
 		tg.startNextRound(true);// So round num > 0
+		Mockito.verify(timer, Mockito.atLeastOnce()).schedule(Mockito.any(Runnable.class), Mockito.anyLong());
 
 		assertEquals(Blinds.SMALL, pB.getState().getBlindsDue());
 		
@@ -122,8 +136,7 @@ public class TexasHoldemGameTest {
 	public void testAutoActionCheck() throws InterruptedException {
 		settings.setActionTimeout(2);
 		
-		tg = new TexasHoldemGame(settings, msgUtils);
-		assertNotNull(tg.inActionTimer);
+		tg = new TexasHoldemGame(settings, msgUtils, timer);
 		
 		final Player pA = TestUtils.makePlayer("A", 0);
 		final Player pB = TestUtils.makePlayer("B", 2);
@@ -135,6 +148,7 @@ public class TexasHoldemGameTest {
 		assertFalse(tg.doInactionProcess());
 		
 		tg.startNextRound(true);// So round num > 0
+		Mockito.verify(timer, Mockito.atLeastOnce()).schedule(Mockito.any(Runnable.class), Mockito.anyLong());
 		assertValidAction("B", PlayerActionType.POST_BLIND, tg.getSettings().getAnte(), 9.90f);
 		assertValidAction("C", PlayerActionType.POST_BLIND, tg.getSettings().getBigBlind(), 9.8f);
 		assertValidAction("A", PlayerActionType.BET, tg.getSettings().getBigBlind(), 9.8f);
@@ -158,8 +172,7 @@ public class TexasHoldemGameTest {
 	public void testAutoActionFold() throws InterruptedException {
 		settings.setActionTimeout(2);
 		
-		tg = new TexasHoldemGame(settings, msgUtils);
-		assertNotNull(tg.inActionTimer);
+		tg = new TexasHoldemGame(settings, msgUtils, timer);
 		
 		final Player pA = TestUtils.makePlayer("A", 0);
 		final Player pB = TestUtils.makePlayer("B", 2);
@@ -171,6 +184,7 @@ public class TexasHoldemGameTest {
 		assertFalse(tg.doInactionProcess());
 		
 		tg.startNextRound(true);// So round num > 0
+		Mockito.verify(timer, Mockito.atLeastOnce()).schedule(Mockito.any(Runnable.class), Mockito.anyLong());
 		assertValidAction("B", PlayerActionType.POST_BLIND, tg.getSettings().getAnte(), 9.90f);
 		assertValidAction("C", PlayerActionType.POST_BLIND, tg.getSettings().getBigBlind(), 9.8f);
 		
@@ -195,6 +209,43 @@ public class TexasHoldemGameTest {
 		assertTrue(pB.getState().isDealer());
 		assertTrue(pC.getState().getNextAutoInaction() > System.currentTimeMillis()+1000);
 	}
+	
+	@Test
+	public void testAutoActionNotRescheduledWhenComplete() {
+		settings.setActionTimeout(2);
+		
+		tg = new TexasHoldemGame(settings, msgUtils, timer);
+		
+		final Player pA = TestUtils.makePlayer("A", 0);
+		final Player pB = TestUtils.makePlayer("B", 2);
+		final Player pC = TestUtils.makePlayer("C", 4);
+		tg.addPlayer(pA);
+		tg.addPlayer(pB);
+		tg.addPlayer(pC);
+		
+		tg.startNextRound(true);
+		assertValidAction("B", PlayerActionType.POST_BLIND, tg.getSettings().getAnte(), 9.90f);
+		assertValidAction("C", PlayerActionType.POST_BLIND, tg.getSettings().getBigBlind(), 9.8f);
+		tg.doGameUpdateAction(mockAction("A", PlayerActionType.FOLD, 0));
+		tg.doGameUpdateAction(mockAction("B", PlayerActionType.FOLD, 0));
+		assertEquals(TexasGameState.COMPLETE, tg.getGameState());
+		
+		final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+		Mockito.verify(timer, Mockito.atLeastOnce()).schedule(task.capture(), Mockito.anyLong());
+		Mockito.clearInvocations(timer);
+		
+		// The player the action is left on has a deadline that has passed
+		final Player actionOn = tg.getPlayers().getActionOn();
+		assertNotNull(actionOn);
+		Field f = ReflectionUtils.findField(PlayerState.class, "nextAutoInaction");
+		ReflectionUtils.makeAccessible(f);
+		ReflectionUtils.setField(f, actionOn.getState(), System.currentTimeMillis() - 1000);
+		
+		task.getValue().run();
+		
+		Mockito.verify(timer, Mockito.never()).schedule(Mockito.any(Runnable.class), Mockito.anyLong());
+		assertEquals(TexasGameState.COMPLETE, tg.getGameState());
+	}
 	// ------------------------- TOURNAMENT GAMES --------------------------------- //
 	@Test
 	public void testStartTournamentRandomDealer() {
@@ -213,6 +264,20 @@ public class TexasHoldemGameTest {
 		
 	}
 	
+	@Test
+	public void testReleaseCancelsTimers() {
+		initTournament();
+		
+		tg.addPlayer(TestUtils.makePlayer("A", 0));
+		tg.addPlayer(TestUtils.makePlayer("B", 2));
+		tg.startNextRound(true);
+		assertEquals(1, tg.getScheduledTimers());
+		
+		tg.release();
+		assertTrue(tg.blindIncreaseTimer.isCancelled());
+		assertEquals(0, tg.getScheduledTimers());
+	}
+	
 	//TODO This test isn't 100% as it fails randomly based on the random dealer
 	@Test
 	public void testSatOutPlayerPostsBlindInTourney() {
@@ -876,7 +941,7 @@ public class TexasHoldemGameTest {
 		// Game state
 		tg.setGameState(TexasGameState.FLOP);
 		
-		Mockito.when(mkPlayers.getMaxBetPossible(p)).thenReturn(maxBet);
+		Mockito.when(mkPlayers.getMaxBetPossibleChips(p)).thenReturn(Chips.of(maxBet));
 		
 		
 		return p;
@@ -1199,6 +1264,33 @@ public class TexasHoldemGameTest {
 		assertTrue(tg.getPlayers().getPlayerById("B").getState().isActionOnMe());
 	}
 	
+	@Test
+	public void testAllInEquitySentWhenCalculated() {
+		settings.setShowAllInEquity(true);
+		final CompletableFuture<Equity> calculated = new CompletableFuture<>();
+		tg.equityCalculator = mock(EquityCalculator.class);
+		when(tg.equityCalculator.calculateAsync(Mockito.anyList(), Mockito.anyList(), Mockito.isNull())).thenReturn(calculated);
+		addPlayers(3, tg);
+		
+		tg.startNextRound(true);
+		assertValidAction("B", PlayerActionType.POST_BLIND, settings.getAnte(), 9.9f);
+		assertValidAction("C", PlayerActionType.POST_BLIND, settings.getBigBlind(), 9.8f);
+		assertValidAction("A", PlayerActionType.ALL_IN, 10f, 0);
+		assertValidAction("B", PlayerActionType.ALL_IN, 10f, 0);
+		// The last all-in deals the remaining cards
+		assertNotNull(tg.doGameUpdateAction(mockAction("C", PlayerActionType.ALL_IN, 10f)));
+		
+		// The hand completes without waiting for the odds
+		assertEquals(TexasGameState.COMPLETE, tg.getGameState());
+		Mockito.verify(msgUtils, Mockito.never()).sendBroadcastToTable(Mockito.anyString(), Mockito.any(EquityMessage.class));
+		
+		calculated.complete(new Equity(new double[] {40, 30, 30}, new double[3], new double[] {40, 30, 30}, 1000, false));
+		final ArgumentCaptor<EquityMessage> sent = ArgumentCaptor.forClass(EquityMessage.class);
+		Mockito.verify(msgUtils).sendBroadcastToTable(Mockito.anyString(), Mockito.any(EquityMessage.class));
+		Mockito.verify(msgUtils, Mockito.atLeastOnce()).sendBroadcastToTable(Mockito.anyString(), sent.capture());
+		assertEquals("All-in odds: A 40.0%, B 30.0%, C 30.0%", sent.getValue().getMessage());
+	}
+	
 	/** for 3 players perform the round and check state
 	 * 
 	 * @param action
@@ -1255,7 +1347,7 @@ public class TexasHoldemGameTest {
 	}
 	
 	private void playerRebuy(final Player player, final float buyin) {
-		player.doPlayerAction(mockAction(player.getPlayerId(), PlayerActionType.RE_BUY, buyin), tg.getGameState(), tg.getSettings(), buyin);
+		player.doPlayerAction(mockAction(player.getPlayerId(), PlayerActionType.RE_BUY, buyin), tg.getGameState(), tg.getSettings(), Chips.of(buyin));
 		assertEquals(10f, player.getCurrentStack().getStack(), 0.01);
 		//Mockito.verify(msgUtils, Mockito.atLeast(1)).sendPrivateMessage(Mockito.eq(player.getPlayerId()), Mockito.any());
 	}
@@ -1263,7 +1355,7 @@ public class TexasHoldemGameTest {
 	private void setWallet(float value, PlayerStack stack) {
 		Field f = ReflectionUtils.findField(PlayerStack.class, "currentWallet");
 		f.setAccessible(true);
-		ReflectionUtils.setField(f, stack, value);
+		ReflectionUtils.setField(f, stack, Chips.of(value));
 	}
 	
 	@Test
@@ -2143,6 +2235,63 @@ public class TexasHoldemGameTest {
 		}
 	}
 
+	@Test
+	public void testConcurrentActionsOnOneTable() throws Exception {
+		// The real evaluator, so the pots are paid out
+		tg = new TexasHoldemGame(settings, msgUtils);
+		addPlayers(3, tg);
+		final long chips = tg.getPlayers().stream()
+				.mapToLong(p -> p.getCurrentStack().getStackChips() + p.getCurrentStack().getOnTableChips())
+				.sum();
+
+		final List<Long> pots = new CopyOnWriteArrayList<>();
+		tg.addRoundListener(rh -> pots.add(((GameRound) rh).getGamePots().getAllPots().values().stream()
+				.mapToLong(SidePot::getPotTotalChips)
+				.sum()));
+
+		final ExecutorService exec = Executors.newFixedThreadPool(2);
+		try {
+			for (int round = 1; round <= 20; round++) {
+				tg.startNextRound(true);
+				final CountDownLatch startSignal = new CountDownLatch(1);
+				// Both threads act for whoever the action is on, so race for every turn
+				final Callable<Void> actor = () -> {
+					startSignal.await();
+					final long giveUp = System.currentTimeMillis() + 10000;
+					while (tg.getGameState() != TexasGameState.COMPLETE && System.currentTimeMillis() < giveUp) {
+						final Player actionOn = tg.getPlayers().getActionOn();
+						if (actionOn == null) {
+							continue;
+						}
+						final PlayerActionType type = actionOn.getState().getBlindsDue() != Blinds.NONE ? PlayerActionType.POST_BLIND
+								: actionOn.getCurrentStack().getOnTableChips() < tg.getRequiredBetChips() ? PlayerActionType.CALL
+								: PlayerActionType.CHECK;
+						tg.doGameUpdateAction(new PlayerActionMessage(actionOn.getSessionId(), type));
+					}
+					return null;
+				};
+				final List<Future<Void>> done = Arrays.asList(exec.submit(actor), exec.submit(actor));
+				startSignal.countDown();
+				for (Future<Void> f : done) {
+					f.get(20, TimeUnit.SECONDS);
+				}
+
+				// Each round completes once, with every player having called the big blind.
+				// A turn taken twice would have bet or dealt again
+				assertEquals(TexasGameState.COMPLETE, tg.getGameState());
+				assertEquals(round, tg.getRound());
+				assertEquals(round, pots.size());
+				assertEquals(3 * Chips.of(settings.getBigBlind()), (long) pots.get(round - 1));
+				assertEquals(5, tg.getCardsOnTable().size());
+				assertEquals(chips, tg.getPlayers().stream()
+						.mapToLong(p -> p.getCurrentStack().getStackChips() + p.getCurrentStack().getOnTableChips())
+						.sum());
+			}
+		} finally {
+			exec.shutdownNow();
+		}
+	}
+
 	private PlayerActionMessage mockAction(final String id, final PlayerActionType type, final  float betVal) {
 		PlayerActionMessage action = mock(PlayerActionMessage.class);
 		when(action.getAction()).thenReturn(type);
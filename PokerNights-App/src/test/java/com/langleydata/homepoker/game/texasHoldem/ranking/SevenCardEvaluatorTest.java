@@ -0,0 +1,100 @@
+package com.langleydata.homepoker.game.texasHoldem.ranking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.deck.CardNumber;
+import com.langleydata.homepoker.deck.CardSuit;
+import com.langleydata.homepoker.game.texasHoldem.HandRank;
+import com.langleydata.homepoker.game.texasHoldem.PokerHand;
+
+public class SevenCardEvaluatorTest {
+
+	private static final List<RankEvaluator> namers = Arrays.asList(new RoyalFlush(), new StraightFlush(),
+			new FourOfAKind(), new FullHouse(), new Flush(), new Straight(), new ThreeOfAKind(), new TwoPairs(),
+			new OnePair(), new HighCard());
+
+	@Test
+	public void testMatchesCombinationEvaluator() {
+		final List<Card> deck = new ArrayList<>();
+		for (CardSuit suit : CardSuit.values()) {
+			for (CardNumber num : CardNumber.values()) {
+				deck.add(new Card(num, suit));
+			}
+		}
+
+		final Random rnd = new Random(1234L);
+		for (int i = 0; i < 5000; i++) {
+			Collections.shuffle(deck, rnd);
+			final int size = 5 + (i % 3);
+			final List<Card> table = new ArrayList<>(deck.subList(0, size - 2));
+			final List<Card> player = new ArrayList<>(deck.subList(size - 2, size));
+
+			final HandRank expected = name(EvaluatorUtils.getHandRank(AbstractHandEvalTest.merge(table, player)));
+			final HandRank actual = SevenCardEvaluator.getHandRank(table, player);
+
+			assertEquals(expected.getRankValue(), actual.getRankValue());
+			assertEquals(expected.getRankName(), actual.getRankName());
+			assertEquals(expected.getCards(), actual.getCards());
+
+			final int[] values = AbstractHandEvalTest.merge(table, player).stream().mapToInt(Card::getValue).toArray();
+			assertEquals(expected.getRankValue(), SevenCardEvaluator.evaluate(values, size));
+		}
+	}
+
+	@Test
+	public void testRankNameBoundaries() {
+		assertEquals(PokerHand.ROYAL_FLUSH, rank("TS", "JS", "QS", "KS", "AS", "2D", "3C").getRankName());
+		assertEquals(PokerHand.STRAIGHT_FLUSH, rank("AS", "2S", "3S", "4S", "5S", "KD", "QC").getRankName());
+		assertEquals(PokerHand.FOUR_KIND, rank("2S", "2D", "2C", "2H", "3S", "4D", "5C").getRankName());
+		assertEquals(PokerHand.FULL_HOUSE, rank("2S", "2D", "2C", "3H", "3S", "4D", "5C").getRankName());
+		assertEquals(PokerHand.FLUSH, rank("2S", "3S", "4S", "5S", "7S", "4D", "5C").getRankName());
+		assertEquals(PokerHand.STRAIGHT, rank("AS", "2D", "3S", "4S", "5C", "9D", "KC").getRankName());
+		assertEquals(PokerHand.THREE_KIND, rank("2S", "2D", "2C", "3H", "4S", "6D", "8C").getRankName());
+		assertEquals(PokerHand.TWO_PAIR, rank("2S", "2D", "3C", "3H", "4S", "6D", "8C").getRankName());
+		assertEquals(PokerHand.PAIR, rank("2S", "2D", "3C", "4H", "5S").getRankName());
+		assertEquals(PokerHand.HIGH_CARD, rank("2S", "3D", "4C", "5H", "7S").getRankName());
+		assertEquals(PokerHand.NONE, SevenCardEvaluator.getPokerHand(0));
+	}
+
+	@Test
+	public void testNullCardGivesEmptyRank() {
+		final HandRank hr = SevenCardEvaluator.getHandRank(Card.makeCards("2S", "3D", "4C"), Arrays.asList(null, null));
+		assertEquals(0, hr.getRankValue());
+		assertNull(hr.getRankName());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateCardsRejected() {
+		SevenCardEvaluator.getHandRank(Card.makeCards("2S", "3D", "4C", "5H", "7S"), Card.makeCards("2S", "9D"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooFewCardsRejected() {
+		SevenCardEvaluator.getHandRank(Card.makeCards("2S", "3D"), Card.makeCards("5H", "7S"));
+	}
+
+	private HandRank rank(String... codes) {
+		final List<Card> cards = Card.makeCards(codes);
+		return SevenCardEvaluator.getHandRank(cards.subList(0, cards.size() - 2), cards.subList(cards.size() - 2, cards.size()));
+	}
+
+	private HandRank name(HandRank pre) {
+		for (RankEvaluator namer : namers) {
+			final HandRank hr = namer.evaluate(pre);
+			if (hr != null) {
+				return hr;
+			}
+		}
+		return null;
+	}
+}
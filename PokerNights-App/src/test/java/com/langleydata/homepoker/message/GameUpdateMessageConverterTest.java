@@ -0,0 +1,181 @@
+package com.langleydata.homepoker.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langleydata.homepoker.TestUtils;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+
+public class GameUpdateMessageConverterTest {
+	private final ObjectMapper mapper = new ObjectMapper();
+	private GameUpdateMessageConverter converter;
+	private TexasHoldemGame game;
+	private Player pA, pB, pC;
+
+	@Before
+	public void setup() {
+		converter = new GameUpdateMessageConverter(mapper);
+		game = new TexasHoldemGame(new TexasHoldemSettings(), mock(MessageUtils.class));
+		game.setStateMapper(mapper);
+		pA = TestUtils.makePlayer("A", 0);
+		pB = TestUtils.makePlayer("B", 1);
+		pC = TestUtils.makePlayer("C", 2);
+		game.addPlayer(pA);
+		game.addPlayer(pB);
+		game.addPlayer(pC);
+	}
+
+	@Test
+	public void testOnlyChangesSentAfterFirstUpdate() {
+		final GameUpdateMessage firstUpdate = game.updateMessage(false);
+		final GameStateMessage first = (GameStateMessage) converter.convert(firstUpdate);
+		assertEquals(firstUpdate.getSeq(), first.getSeq());
+		assertNull(first.getBaseSeq());
+		assertNotNull(first.getCurrentGame());
+		assertNull(first.getDelta());
+		assertEquals(3, first.getCurrentGame().get("players").size());
+
+		// Nothing changed
+		GameStateMessage next = (GameStateMessage) converter.convert(game.updateMessage(false));
+		assertEquals(first.getSeq() + 1, next.getSeq());
+		assertEquals(Long.valueOf(first.getSeq()), next.getBaseSeq());
+		assertNull(next.getCurrentGame());
+		assertEquals(0, next.getDelta().size());
+
+		// One player bets
+		pB.getCurrentStack().addToTable(TexasGameState.PRE_DEAL, 2);
+		next = (GameStateMessage) converter.convert(game.updateMessage(false));
+		assertEquals(first.getSeq() + 2, next.getSeq());
+		assertEquals(Long.valueOf(first.getSeq() + 1), next.getBaseSeq());
+		final JsonNode players = next.getDelta().get("players");
+		assertEquals(1, players.get("changed").size());
+		assertEquals("B", players.get("changed").get(0).get("playerId").asText());
+		assertEquals(0, players.get("removed").size());
+		assertFalse(next.getDelta().has("settings"));
+
+		// One player leaves
+		game.removePlayer("C");
+		next = (GameStateMessage) converter.convert(game.updateMessage(false));
+		assertEquals("C", next.getDelta().get("players").get("removed").get(0).asText());
+	}
+
+	@Test
+	public void testSnapshotIsLastStateSent() {
+		final GameUpdateMessage withMsg = game.updateMessage(false).setSnapshot(true);
+		withMsg.setMessage("Welcome");
+		GameStateMessage snap = (GameStateMessage) converter.convert(withMsg);
+		assertEquals(withMsg.getSeq(), snap.getSeq());
+		assertNull(snap.getBaseSeq());
+		assertEquals("Welcome", snap.getMessage());
+
+		final GameStateMessage sent = (GameStateMessage) converter.convert(game.updateMessage(false));
+		pA.getCurrentStack().addToTable(TexasGameState.PRE_DEAL, 1);
+		snap = (GameStateMessage) converter.convert(game.updateMessage(false).setSnapshot(true));
+		assertEquals(sent.getSeq(), snap.getSeq());
+
+		// The snapshot doesn't include the bet, as that will be in the next delta
+		final GameStateMessage delta = (GameStateMessage) converter.convert(game.updateMessage(false));
+		assertTrue(delta.getSeq() > snap.getSeq());
+		assertEquals(Long.valueOf(snap.getSeq()), delta.getBaseSeq());
+		assertEquals("A", delta.getDelta().get("players").get("changed").get(0).get("playerId").asText());
+	}
+
+	@Test
+	public void testUpdatesNumberedWhenBuilt() {
+		converter.convert(game.updateMessage(false));
+		pA.getCurrentStack().addToTable(TexasGameState.PRE_DEAL, 1);
+		final GameUpdateMessage older = game.updateMessage(false);
+		pB.getCurrentStack().addToTable(TexasGameState.PRE_DEAL, 2);
+		final GameUpdateMessage newer = game.updateMessage(false);
+		assertTrue(newer.getSeq() > older.getSeq());
+
+		// Converted out of order, the newer update carries both bets
+		final GameStateMessage sent = (GameStateMessage) converter.convert(newer);
+		assertEquals(newer.getSeq(), sent.getSeq());
+		assertEquals(2, sent.getDelta().get("players").get("changed").size());
+
+		// and the older one carries nothing to apply
+		final GameStateMessage stale = (GameStateMessage) converter.convert(older);
+		assertEquals(newer.getSeq(), stale.getSeq());
+		assertEquals(Long.valueOf(newer.getSeq()), stale.getBaseSeq());
+		assertEquals(0, stale.getDelta().size());
+	}
+
+	@Test
+	public void testUpdateCarriesStateWhenBuilt() {
+		converter.convert(game.updateMessage(false));
+		final GameUpdateMessage built = game.updateMessage(false);
+		// Changed again before the update is sent
+		pA.getCurrentStack().addToTable(TexasGameState.PRE_DEAL, 1);
+		GameStateMessage sent = (GameStateMessage) converter.convert(built);
+		assertEquals(0, sent.getDelta().size());
+
+		// Built outside the table's lock, so not numbered and carries nothing to apply
+		final GameUpdateMessage unlocked = new GameUpdateMessage(game);
+		assertEquals(0, unlocked.getSeq());
+		assertNull(unlocked.getState());
+		sent = (GameStateMessage) converter.convert(unlocked);
+		assertEquals(built.getSeq(), sent.getSeq());
+		assertEquals(Long.valueOf(built.getSeq()), sent.getBaseSeq());
+		assertEquals(0, sent.getDelta().size());
+	}
+
+	@Test
+	public void testJoinerGetsStateOfLastUpdate() throws Exception {
+		final GameStateMessage sent = (GameStateMessage) converter.convert(game.updateMessage(false));
+		pA.getCurrentStack().addToTable(TexasGameState.PRE_DEAL, 1);
+
+		final PrivateJoinerMessage joiner = new PrivateJoinerMessage("A").setCurrentGame(game).setSuccessful(true);
+		final Message<?> msg = converter.toMessage(joiner, null);
+		final JsonNode received = mapper.readTree((byte[]) msg.getPayload());
+		assertEquals(sent.getSeq(), received.get("seq").asLong());
+		assertEquals(sent.getCurrentGame().toString(), received.get("currentGame").toString());
+		assertTrue(received.get("successful").asBoolean());
+
+		// The bet follows as a delta on the joiner's state
+		final GameStateMessage delta = (GameStateMessage) converter.convert(game.updateMessage(false));
+		assertEquals(Long.valueOf(sent.getSeq()), delta.getBaseSeq());
+		assertEquals("A", delta.getDelta().get("players").get("changed").get(0).get("playerId").asText());
+
+		assertNull(converter.toMessage(new PrivateJoinerMessage("B"), null));
+	}
+
+	@Test
+	public void testOtherMessagesLeftToDefaultConverter() {
+		assertNull(converter.toMessage(new StatusMessage("Hello"), null));
+		assertNull(converter.toMessage(new GameUpdateMessage("An error"), null));
+		assertNull(converter.toMessage(Arrays.asList(new StatusMessage("Hello")), null));
+
+		final GameUpdateMessage error = new GameUpdateMessage("An error");
+		assertSame(error, converter.convert(error));
+	}
+
+	@Test
+	public void testBatchConverted() throws Exception {
+		final StatusMessage status = new StatusMessage("Hello");
+		final Message<?> msg = converter.toMessage(Arrays.asList(status, game.updateMessage(false)), null);
+		assertNotNull(msg);
+
+		final List<?> sent = mapper.readValue((byte[]) msg.getPayload(), List.class);
+		assertEquals(2, sent.size());
+		assertTrue(mapper.valueToTree(sent.get(1)).has("seq"));
+		assertEquals("GAME_UPDATE", mapper.valueToTree(sent.get(1)).get("messageType").asText());
+	}
+}
@@ -0,0 +1,102 @@
+package com.langleydata.homepoker.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MessageDispatcherTest {
+
+	@Test
+	public void testMessagesToDestinationSentInOrder() throws InterruptedException {
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		final MessageDispatcher md = new MessageDispatcher(4, 1000, registry);
+		final List<Integer> sent = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(200);
+
+		for (int i = 0; i < 200; i++) {
+			final int msg = i;
+			assertTrue(md.submit("table", 0, () -> {
+				sent.add(msg);
+				done.countDown();
+			}));
+		}
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 200; i++) {
+			assertEquals(i, sent.get(i).intValue());
+		}
+		for (int i = 0; i < 50 && md.getQueued() > 0; i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(200, registry.get("poker.messages.latency").timer().count());
+		md.shutdown();
+	}
+
+	@Test
+	public void testDelayedMessageSentAfterLaterImmediateOne() throws InterruptedException {
+		final MessageDispatcher md = new MessageDispatcher(1, 10, new SimpleMeterRegistry());
+		final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(3);
+
+		final long start = System.currentTimeMillis();
+		md.submit("table", 200, () -> { sent.add("delayed"); done.countDown(); });
+		md.submit("table", 0, () -> { sent.add("first"); done.countDown(); });
+		md.submit("table", 0, () -> { sent.add("second"); done.countDown(); });
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 200);
+		assertEquals(Arrays.asList("first", "second", "delayed"), sent);
+		md.shutdown();
+	}
+
+	@Test
+	public void testFailedSendDoesNotBlockDestination() throws InterruptedException {
+		final MessageDispatcher md = new MessageDispatcher(1, 10, new SimpleMeterRegistry());
+		final CountDownLatch done = new CountDownLatch(1);
+
+		md.submit("table", 0, () -> { throw new IllegalStateException("Broken"); });
+		md.submit("table", 0, done::countDown);
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		md.shutdown();
+	}
+
+	@Test
+	public void testQueueIsBounded() throws InterruptedException {
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		final MessageDispatcher md = new MessageDispatcher(1, 2, registry);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		assertTrue(md.submit("a", 0, () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {}
+		}));
+		assertTrue(md.submit("b", 0, () -> {}));
+		assertFalse(md.submit("c", 0, () -> {}));
+		assertEquals(1, registry.get("poker.messages.dropped").counter().count(), 0);
+
+		release.countDown();
+		md.shutdown();
+		for (int i = 0; i < 50 && md.getQueued() > 0; i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(0, md.getQueued());
+		assertEquals(0, md.getDestinations());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidThreads() {
+		new MessageDispatcher(0, 10, new SimpleMeterRegistry());
+	}
+}
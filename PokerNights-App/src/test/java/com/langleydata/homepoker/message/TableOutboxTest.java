@@ -0,0 +1,94 @@
+package com.langleydata.homepoker.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.langleydata.homepoker.game.AbstractCardGame;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TableOutboxTest {
+
+	@Test
+	public void testSupersededUpdatesCoalesced() {
+		final AbstractCardGame<?> game = mock(AbstractCardGame.class);
+		final GameUpdateMessage first = new GameUpdateMessage(game);
+		first.setActionSound("chips");
+		final StatusMessage status = new StatusMessage("Status");
+		final GameUpdateMessage second = new GameUpdateMessage(game);
+		final GameUpdateMessage withMessage = new GameUpdateMessage(game);
+		withMessage.setMessage("The blinds have doubled");
+		final GameUpdateMessage last = new GameUpdateMessage(game);
+
+		final List<Object> out = TableOutbox.coalesce(new ArrayList<>(Arrays.asList(first, status, second, withMessage, last)));
+		assertEquals(Arrays.asList(status, withMessage, last), out);
+		assertEquals("chips", withMessage.getActionSound());
+	}
+
+	@Test
+	public void testNewGameAndOtherGamesNotCoalesced() {
+		final AbstractCardGame<?> game = mock(AbstractCardGame.class);
+		final GameUpdateMessage newGame = new GameUpdateMessage(game, true);
+		final GameUpdateMessage other = new GameUpdateMessage(mock(AbstractCardGame.class));
+		final GameUpdateMessage last = new GameUpdateMessage(game);
+
+		final List<Object> out = TableOutbox.coalesce(new ArrayList<>(Arrays.asList(newGame, other, last)));
+		assertEquals(3, out.size());
+	}
+
+	@Test
+	public void testMessagesBatchedIntoOneFrame() throws InterruptedException {
+		final MessageDispatcher md = new MessageDispatcher(1, 100, new SimpleMeterRegistry());
+		final List<Object> frames = new ArrayList<>();
+		final CountDownLatch sent = new CountDownLatch(2);
+		final TableOutbox outbox = new TableOutbox(md, 50, (d, m) -> {
+			frames.add(m);
+			sent.countDown();
+		});
+
+		final StatusMessage s1 = new StatusMessage("One");
+		final StatusMessage s2 = new StatusMessage("Two");
+		final StatusMessage s3 = new StatusMessage("Three");
+		outbox.send("/topic/texas/1", s1, 0);
+		outbox.send("/topic/texas/1", s2, 0);
+		outbox.send("/topic/texas/2", s3, 0);
+
+		assertTrue(sent.await(5, TimeUnit.SECONDS));
+		md.shutdown();
+		assertEquals(2, frames.size());
+		assertTrue(frames.contains(Arrays.asList(s1, s2)));
+		assertTrue(frames.contains(s3));
+		assertEquals(0, outbox.getWaiting());
+	}
+
+	@Test
+	public void testDelayedMessageSentSeparately() throws InterruptedException {
+		final MessageDispatcher md = new MessageDispatcher(1, 100, new SimpleMeterRegistry());
+		final List<Object> frames = new ArrayList<>();
+		final CountDownLatch sent = new CountDownLatch(2);
+		final TableOutbox outbox = new TableOutbox(md, 10, (d, m) -> {
+			frames.add(m);
+			sent.countDown();
+		});
+
+		final StatusMessage later = new StatusMessage("Later");
+		final StatusMessage now = new StatusMessage("Now");
+		outbox.send("/topic/texas/1", later, 300);
+		outbox.send("/topic/texas/1", now, 0);
+
+		assertTrue(sent.await(5, TimeUnit.SECONDS));
+		md.shutdown();
+		assertSame(now, frames.get(0));
+		assertSame(later, frames.get(1));
+	}
+}
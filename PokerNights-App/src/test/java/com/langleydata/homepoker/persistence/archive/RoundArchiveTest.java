@@ -0,0 +1,136 @@
+package com.langleydata.homepoker.persistence.archive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.Gson;
+import com.langleydata.homepoker.TestUtils;
+import com.langleydata.homepoker.api.PlayerAction;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.game.GameRound;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
+import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+public class RoundArchiveTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Player player(final String id, final int seat, final float bet, final String... cards) {
+		final Player p = TestUtils.makePlayer(id, "Handle " + id, seat, 50);
+		p.setCards(Card.makeCards(cards));
+		p.getCurrentStack().addToTable(TexasGameState.POST_DEAL, bet);
+		p.getCurrentStack().collectBets();
+		return p.clone();
+	}
+
+	private static GameRound round(final String gameId, final int round) {
+		final Player a = player("A", 0, 1f, "AS", "KD");
+		final Player b = player("B", 3, 0.5f, "2C", "7H");
+		final GamePots pots = new GamePots();
+		final SidePot pot = new SidePot(150);
+		pot.addCompetingWinner(a);
+		pots.addSidePot(pot);
+		return new GameRound.Builder().gameId(gameId).round(round).seed(round * 1234567L)
+				.players(Arrays.asList(b, a)).pots(pots).state(TexasGameState.COMPLETE)
+				.tableCards("TS", "JS", "QS").build();
+	}
+
+	private static PlayerAction action(final String playerId, final PlayerActionType type, final float bet) {
+		return new PlayerActionMessage("session" + playerId, type).setPlayerId(playerId).setBetValue(bet);
+	}
+
+	private static List<PlayerAction> actions() {
+		return Arrays.asList(action("B", PlayerActionType.FOLD, 0f),
+				action("A", PlayerActionType.CHECK, 0f).setSuccessful(false),
+				action("A", PlayerActionType.BET, 0.5f));
+	}
+
+	@Test
+	public void testCompactRound() throws Exception {
+		final GameRound gr = round("G1", 4);
+		final CompactRound cr = CompactRound.decode(CompactRound.of(gr, actions()).encode());
+
+		assertEquals("G1", cr.getGameId());
+		assertEquals(4, cr.getRound());
+		assertEquals(gr.getCompleteTime(), cr.getCompleteTime());
+		assertEquals(4 * 1234567L, cr.getSeed());
+		assertEquals(TexasGameState.COMPLETE, cr.getGameState());
+		assertEquals("[TS, JS, QS]", cr.getTableCards().toString());
+
+		// Seat order, with the winnings from the pots
+		assertEquals(2, cr.getSeats().size());
+		final CompactRound.Seat a = cr.getSeats().get(0);
+		assertEquals("A", a.getPlayerId());
+		assertEquals(0, a.getSeat());
+		assertEquals(100, a.getCommitted());
+		assertEquals(150, a.getWon());
+		assertEquals(4900, a.getStack());
+		assertEquals("[AS, KD]", a.getCards().toString());
+		assertEquals(0, cr.getSeats().get(1).getWon());
+
+		// Only the successful actions
+		assertEquals(2, cr.getActions().size());
+		assertEquals(3, cr.getActions().get(0).getSeat());
+		assertEquals(PlayerActionType.FOLD, cr.getActions().get(0).getType());
+		assertEquals(50, cr.getActions().get(1).getAmount());
+
+		// Much smaller than the stored JSON
+		assertTrue(CompactRound.of(gr, actions()).encode().length * 5 < new Gson().toJson(gr).length());
+	}
+
+	@Test
+	public void testCardBytes() {
+		for (Card c : Card.makeCards("2C", "9H", "TD", "AS")) {
+			assertEquals(c.getCode(), CompactRound.toCode(CompactRound.toByte(c.getCode())));
+		}
+		assertEquals(CompactRound.NO_CARD, CompactRound.toByte(""));
+	}
+
+	@Test
+	public void testArchiveFiles() throws Exception {
+		final RoundArchive archive = new RoundArchive(folder.getRoot());
+		for (String gameId : new String[] {"G1", "G2"}) {
+			final List<CompactRound> rounds = new ArrayList<>();
+			for (int r = 1; r <= 3; r++) {
+				rounds.add(CompactRound.of(round(gameId, r), actions()));
+			}
+			archive.write(rounds);
+		}
+		assertEquals(2, folder.getRoot().list((d, n) -> n.endsWith(RoundArchive.SUFFIX)).length);
+
+		// Reopened from disk
+		final RoundArchive reopened = new RoundArchive(folder.getRoot());
+		assertTrue(reopened.isArchived("G2"));
+		assertFalse(reopened.isArchived("G3"));
+		final List<CompactRound> g2 = reopened.getGameRounds("G2");
+		assertEquals(3, g2.size());
+		final byte[] expected = CompactRound.of(round("G2", 2), actions()).encode();
+		// The complete time is the only difference
+		assertEquals(expected.length, g2.get(1).encode().length);
+		assertEquals(2, g2.get(1).getRound());
+		assertEquals("[A, B]", g2.get(1).getSeats().stream().map(CompactRound.Seat::getPlayerId).collect(Collectors.toList()).toString());
+		assertEquals(2, g2.get(1).getActions().size());
+		assertEquals(PlayerActionType.FOLD, g2.get(1).getActions().get(0).getType());
+		assertEquals(TexasGameState.COMPLETE, g2.get(1).getGameState());
+
+		final ArchiveStats.PlayerTotals a = reopened.getStats().getPlayer("A");
+		assertEquals(2, a.getGames());
+		assertEquals(6, a.getHands());
+		assertEquals(9f, a.getWon(), 0.001);
+		assertEquals(3f, a.getNet(), 0.001);
+	}
+}
@@ -0,0 +1,144 @@
+package com.langleydata.homepoker.persistence.es;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BulkIndexWriterTest {
+	private final IndexCoordinates index = IndexCoordinates.of("test-idx");
+	private ElasticsearchOperations operations;
+	private ElasticsearchConverter converter;
+	/** The ids sent in each bulk request */
+	private final List<List<String>> sent = Collections.synchronizedList(new ArrayList<>());
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private BulkIndexWriter writer;
+
+	@Before
+	public void setup() {
+		operations = mock(ElasticsearchOperations.class);
+		converter = mock(ElasticsearchConverter.class);
+		when(operations.getElasticsearchConverter()).thenReturn(converter);
+		when(converter.mapObject(Mockito.any())).thenAnswer(i -> Document.create().append("value", i.getArgument(0)));
+		when(operations.bulkIndex(Mockito.anyList(), Mockito.eq(index))).thenAnswer(i -> record(i.getArgument(0)));
+	}
+
+	@After
+	public void tearDown() {
+		if (writer != null) {
+			writer.shutdown(1000);
+		}
+	}
+
+	private List<String> record(final List<IndexQuery> queries) {
+		final List<String> ids = queries.stream().map(IndexQuery::getId).collect(Collectors.toList());
+		sent.add(ids);
+		return ids;
+	}
+
+	private void waitForSent(final int requests) throws InterruptedException {
+		final long until = System.currentTimeMillis() + 2000;
+		while (sent.size() < requests && System.currentTimeMillis() < until) {
+			Thread.sleep(5);
+		}
+		assertEquals(requests, sent.size());
+	}
+
+	@Test
+	public void testBatchedBySizeOrTime() throws Exception {
+		writer = new BulkIndexWriter("test", operations, index, 100, 3, 100, 0, registry);
+		final List<String> doc = new ArrayList<>(Arrays.asList("before"));
+		assertTrue(writer.add("a", doc));
+		// Converted when added, so later changes to the object aren't written
+		Mockito.verify(converter).mapObject(doc);
+		doc.add("after");
+		writer.add("b", "B");
+		writer.add("c", "C");
+		writer.add("d", "D");
+
+		waitForSent(2);
+		assertEquals(Arrays.asList("a", "b", "c"), sent.get(0));
+		// The last waits for the flush interval
+		assertEquals(Arrays.asList("d"), sent.get(1));
+		assertEquals(0, writer.getQueued());
+		writer.shutdown(1000);
+		assertEquals(4, registry.get("poker.es.lag").tag("index", "test-idx").timer().count());
+	}
+
+	@Test
+	public void testOnlyFailedDocumentsRetried() throws Exception {
+		when(operations.bulkIndex(Mockito.anyList(), Mockito.eq(index)))
+			.thenAnswer(i -> {
+				record(i.getArgument(0));
+				throw new BulkFailureException("Bulk failed", Collections.singletonMap("b", "rejected"));
+			})
+			.thenAnswer(i -> record(i.getArgument(0)));
+
+		writer = new BulkIndexWriter("test", operations, index, 100, 2, 1000, 1, registry);
+		writer.add("a", "A");
+		writer.add("b", "B");
+
+		waitForSent(2);
+		assertEquals(Arrays.asList("a", "b"), sent.get(0));
+		assertEquals(Arrays.asList("b"), sent.get(1));
+	}
+
+	@Test
+	public void testFullQueueDropsWithoutWaiting() throws Exception {
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		when(operations.bulkIndex(Mockito.anyList(), Mockito.eq(index))).thenAnswer(i -> {
+			writing.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return record(i.getArgument(0));
+		});
+
+		writer = new BulkIndexWriter("test", operations, index, 1, 1, 0, 0, registry);
+		writer.add("a", "A");
+		assertTrue(writing.await(1, TimeUnit.SECONDS));
+		assertTrue(writer.add("b", "B"));
+
+		final long start = System.currentTimeMillis();
+		assertFalse(writer.add("c", "C"));
+		assertTrue(System.currentTimeMillis() - start < 100);
+		assertEquals(1, registry.get("poker.es.dropped").counter().count(), 0);
+
+		release.countDown();
+		waitForSent(2);
+		assertEquals(Arrays.asList("b"), sent.get(1));
+	}
+
+	@Test
+	public void testShutdownWritesQueued() throws Exception {
+		writer = new BulkIndexWriter("test", operations, index, 100, 10, 60000, 0, registry);
+		writer.add("a", "A");
+		writer.add("b", "B");
+		writer.shutdown(1000);
+
+		assertEquals(1, sent.size());
+		assertEquals(Arrays.asList("a", "b"), sent.get(0));
+		assertFalse(writer.add("c", "C"));
+	}
+}
@@ -0,0 +1,98 @@
+package com.langleydata.homepoker.persistence.es;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import com.langleydata.homepoker.TestUtils;
+import com.langleydata.homepoker.game.GameRound;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.players.PlayerStack;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
+import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
+
+public class RoundHistoryReadConverterTest {
+	private final RoundHistoryReadConverter converter = new RoundHistoryReadConverter();
+
+	@Test
+	public void testCurrentFormatIsReadUnchanged() {
+		final Player a = TestUtils.makePlayer("A", "Handle A", 2, 50);
+		a.getCurrentStack().addToTable(TexasGameState.POST_DEAL, 1.25f);
+		final GamePots pots = new GamePots();
+		final SidePot pot = new SidePot(125);
+		pot.addCompetingWinner(a);
+		pots.addSidePot(pot);
+		final GameRound round = new GameRound.Builder().gameId("G").round(3)
+				.players(Arrays.asList(a)).pots(pots).state(TexasGameState.COMPLETE).build();
+
+		final MappingElasticsearchConverter writer = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+		writer.afterPropertiesSet();
+		final Document doc = Document.create();
+		writer.write(round, doc);
+
+		final GameRound read = converter.convert(doc);
+		assertEquals(GameRound.CHIPS_MINOR_UNITS, read.getChipsFormat());
+		final PlayerStack stack = read.getPlayers().get(0).getCurrentStack();
+		assertEquals(4875, stack.getStackChips());
+		assertEquals(125, stack.getCommittedChips(TexasGameState.POST_DEAL));
+		assertEquals(125, read.getGamePots().getAllPots().values().iterator().next().getPotTotalChips());
+	}
+
+	@Test
+	public void testFloatFormatIsUpgraded() {
+		final Map<String, Object> committed = new HashMap<>();
+		committed.put("POST_DEAL", 1.25d);
+		committed.put("FLOP", 0d);
+		final Map<String, Object> stack = new HashMap<>();
+		stack.put("onTable", 0.1d);
+		stack.put("stack", 48.75d);
+		stack.put("currentWallet", 0d);
+		stack.put("commitedPerRound", committed);
+		final Map<String, Object> player = new HashMap<>();
+		player.put("playerId", "A");
+		player.put("seatingPos", 2);
+		player.put("currentStack", stack);
+		final Map<String, Object> sidePot = new HashMap<>();
+		sidePot.put("name", "Main");
+		sidePot.put("potTotal", 12.34d);
+		sidePot.put("potWinners", Arrays.asList(player));
+		final Map<String, Object> allPots = new HashMap<>();
+		allPots.put("Main", sidePot);
+		final Map<String, Object> gamePots = new HashMap<>();
+		gamePots.put("allPots", allPots);
+
+		final Map<String, Object> source = new HashMap<>();
+		source.put("_class", GameRound.class.getName());
+		source.put("gameId", "G");
+		source.put("roundNum", 3);
+		source.put("players", Arrays.asList(player));
+		source.put("gamePots", gamePots);
+
+		final GameRound read = converter.convert(source);
+		assertEquals(GameRound.CHIPS_MINOR_UNITS, read.getChipsFormat());
+		assertEquals(3, read.getRound());
+		final PlayerStack ps = read.getPlayers().get(0).getCurrentStack();
+		assertEquals(10, ps.getOnTableChips());
+		assertEquals(4875, ps.getStackChips());
+		assertEquals(125, ps.getCommittedChips(TexasGameState.POST_DEAL));
+		assertTrue(ps.hasCommitted(TexasGameState.FLOP));
+		assertFalse(ps.hasCommitted(TexasGameState.TURN));
+
+		final SidePot readPot = read.getGamePots().getAllPots().get("Main");
+		assertEquals(1234, readPot.getPotTotalChips());
+		assertEquals(4875, readPot.getWinnersBySeat().get(0).getCurrentStack().getStackChips());
+
+		// The stored document isn't changed
+		assertEquals(48.75d, stack.get("stack"));
+	}
+}
@@ -0,0 +1,137 @@
+package com.langleydata.homepoker.persistence.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WriteAheadLogTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] bytes(final String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> read(final WriteAheadLog wal) throws Exception {
+		return wal.readAll().stream().map(b -> new String(b, StandardCharsets.UTF_8)).collect(Collectors.toList());
+	}
+
+	private int segments(final File dir) {
+		return dir.list((d, n) -> n.endsWith(WriteAheadLog.SUFFIX)).length;
+	}
+
+	@Test
+	public void testRollsAndReopens() throws Exception {
+		final File dir = new File(folder.getRoot(), "game");
+		WriteAheadLog wal = new WriteAheadLog(dir, 32);
+		wal.append(bytes("one"));
+		wal.append(bytes("two"));
+		// Doesn't fit in the first segment
+		wal.append(bytes("three-three"));
+		assertEquals(2, segments(dir));
+		wal.close();
+
+		// Re-opening carries on after the last record
+		wal = new WriteAheadLog(dir, 32);
+		wal.append(bytes("four"));
+		assertEquals("[one, two, three-three, four]", read(wal).toString());
+		wal.close();
+	}
+
+	@Test
+	public void testCompactKeepsCurrentSegment() throws Exception {
+		final File dir = new File(folder.getRoot(), "game");
+		final WriteAheadLog wal = new WriteAheadLog(dir, 64);
+		wal.append(bytes("old"));
+		final long checkpoint = wal.roll();
+		wal.append(bytes("checkpoint"));
+		wal.force();
+		wal.roll();
+		wal.append(bytes("later"));
+		wal.compact(checkpoint);
+		assertEquals(2, segments(dir));
+		assertEquals("[checkpoint, later]", read(wal).toString());
+
+		// Never deletes the current segment
+		wal.compact(Long.MAX_VALUE);
+
+		assertEquals(1, segments(dir));
+		assertEquals("[later]", read(wal).toString());
+
+		wal.delete();
+		assertFalse(dir.exists());
+	}
+
+	@Test
+	public void testTornRecordIgnored() throws Exception {
+		final File dir = new File(folder.getRoot(), "game");
+		WriteAheadLog wal = new WriteAheadLog(dir, 64);
+		wal.append(bytes("good"));
+		wal.close();
+
+		// A record cut short by a crash; the length was written but the content is wrong
+		try (RandomAccessFile raf = new RandomAccessFile(dir.listFiles()[0], "rw")) {
+			raf.seek(WriteAheadLog.HEADER + 4);
+			raf.writeInt(10);
+			raf.writeInt(12345);
+			raf.write(bytes("bad"));
+		}
+
+		wal = new WriteAheadLog(dir, 64);
+		assertEquals("[good]", read(wal).toString());
+		// The torn record is overwritten
+		wal.append(bytes("next"));
+		assertEquals("[good, next]", read(wal).toString());
+		wal.close();
+	}
+
+	@Test
+	public void testRolledSegmentsUnmapped() throws Exception {
+		final File maps = new File("/proc/self/maps");
+		Assume.assumeTrue(maps.canRead());
+		final File dir = new File(folder.getRoot(), "game");
+		final WriteAheadLog wal = new WriteAheadLog(dir, 64);
+		wal.append(bytes("one"));
+		wal.roll();
+		wal.append(bytes("two"));
+		final String first = dir.listFiles()[0].getName();
+		assertTrue(mapped(maps, dir).contains(first));
+
+		// Closed by the next force
+		wal.force();
+		final List<String> mapped = mapped(maps, dir);
+		assertFalse(mapped.contains(first));
+		assertEquals(1, mapped.size());
+		assertEquals("[one, two]", read(wal).toString());
+
+		wal.close();
+		assertTrue(mapped(maps, dir).isEmpty());
+	}
+
+	/** Get the names of the segment files mapped in to this process */
+	private static List<String> mapped(final File maps, final File dir) throws Exception {
+		return Files.readAllLines(maps.toPath()).stream()
+				.filter(l -> l.contains(dir.getAbsolutePath()))
+				.map(l -> l.substring(l.lastIndexOf('/') + 1))
+				.distinct()
+				.collect(Collectors.toList());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRecordLargerThanSegmentRejected() throws Exception {
+		final WriteAheadLog wal = new WriteAheadLog(folder.getRoot(), 16);
+		wal.append(bytes("this is too long"));
+	}
+}
@@ -0,0 +1,79 @@
+package com.langleydata.homepoker.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.langleydata.homepoker.api.CardGame.GameFormat;
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.deck.CardNumber;
+import com.langleydata.homepoker.deck.CardSuit;
+import com.langleydata.homepoker.exception.InvalidPlayerException;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+
+/** Fixtures shared by the benchmarks
+ * 
+ * @author reynolds_mj
+ *
+ */
+final class BenchUtils {
+
+	private BenchUtils() {
+	}
+
+	/** Create an ordered 52 card deck
+	 * 
+	 * @return
+	 */
+	static List<Card> fullDeck() {
+		final List<Card> deck = new ArrayList<>(52);
+		for (CardSuit suit : CardSuit.values()) {
+			for (CardNumber num : CardNumber.values()) {
+				deck.add(new Card(num, suit));
+			}
+		}
+		return deck;
+	}
+
+	/** Make a player, transferring all of the wallet value to the stack
+	 * 
+	 * @param id The player's id, handle and session id
+	 * @param pos The seating position
+	 * @param inWallet The amount to deposit and buy-in with
+	 * @return
+	 */
+	static Player makePlayer(final String id, final int pos, final int inWallet) {
+		final Player p = new Player(id, id);
+		p.setSeatingPos(pos);
+		p.setSessionId(id);
+		p.setEmail(id);
+		p.getCurrentStack().initialise(inWallet, false);
+		p.getCurrentStack().reBuy(inWallet, 0);
+		return p;
+	}
+
+	/** Create a cash game with a number of seated players, ready to start.
+	 * The first player is the host and dealer
+	 * 
+	 * @param numPlayers
+	 * @return
+	 * @throws InvalidPlayerException
+	 */
+	static TexasHoldemGame makeCashGame(final int numPlayers) throws InvalidPlayerException {
+		final TexasHoldemSettings settings = new TexasHoldemSettings();
+		settings.setFormat(GameFormat.CASH);
+		settings.setHostEmail("P0");
+
+		final TexasHoldemGame game = new TexasHoldemGame(settings, new NullMessaging());
+		for (int i = 0; i < numPlayers; i++) {
+			final Player p = new Player("P" + i, "P" + i);
+			p.setSeatingPos(i);
+			p.setSessionId("P" + i);
+			p.setEmail("P" + i);
+			p.getCurrentStack().setStack(20f);
+			game.addPlayer(p);
+		}
+		return game;
+	}
+}
@@ -0,0 +1,43 @@
+package com.langleydata.homepoker.bench;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Run the benchmarks, accepting the standard JMH command line options.<p>
+ * Unless a result format is given (-rf), the results are written as JSON
+ * to {@value #DEFAULT_RESULT}
+ * 
+ * @author reynolds_mj
+ *
+ */
+public class BenchmarkRunner {
+	static final String DEFAULT_RESULT = "jmh-result.json";
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+		final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+		if (cmdOptions.shouldHelp()) {
+			cmdOptions.showHelp();
+			return;
+		}
+		if (cmdOptions.shouldList()) {
+			new Runner(cmdOptions).list();
+			return;
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+		if (!cmdOptions.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+			if (!cmdOptions.getResult().hasValue()) {
+				options.result(DEFAULT_RESULT);
+			}
+		}
+		new Runner(options.build()).run();
+	}
+}
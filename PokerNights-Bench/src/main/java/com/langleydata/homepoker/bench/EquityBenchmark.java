@@ -0,0 +1,50 @@
+package com.langleydata.homepoker.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.game.texasHoldem.Equity;
+import com.langleydata.homepoker.game.texasHoldem.EquityCalculator;
+
+/** Measure the equity calculator sampling preflop, and enumerating every board
+ * from the flop
+ * 
+ * @author reynolds_mj
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EquityBenchmark {
+
+	private final EquityCalculator calculator = new EquityCalculator();
+	private final List<List<Card>> headsUp = Arrays.asList(Card.makeCards("AS", "AD"), Card.makeCards("KS", "KD"));
+	private final List<List<Card>> threeWay = Arrays.asList(Card.makeCards("AH", "KH"), Card.makeCards("QC", "QD"),
+			Card.makeCards("7S", "8S"));
+	private final List<Card> flop = Card.makeCards("2H", "9H", "TD");
+
+	@Benchmark
+	public Equity preflopSampledHeadsUp() {
+		return calculator.calculate(headsUp, null, null, EquityCalculator.DEFAULT_SAMPLES);
+	}
+
+	@Benchmark
+	public Equity flopEnumeratedThreeWay() {
+		return calculator.calculate(threeWay, flop, null);
+	}
+}
@@ -0,0 +1,91 @@
+package com.langleydata.homepoker.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.texasHoldem.Blinds;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** Measure {@link TexasHoldemGame#doGameUpdateAction(com.langleydata.homepoker.api.PlayerAction)}
+ * over a scripted round of a cash game: the blinds are posted, the first player to act on
+ * the flop bets and every other action is a call or a check, through to the showdown.
+ * 
+ * @author reynolds_mj
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameActionBenchmark {
+	/** Guard against the script failing to complete a round */
+	private static final int MAX_ACTIONS = 200;
+
+	@Param({ "2", "6", "9" })
+	private int numPlayers;
+
+	private TexasHoldemGame game;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		game = BenchUtils.makeCashGame(numPlayers);
+		game.startNextRound(true);
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() {
+		game.completeGame();
+	}
+
+	@Benchmark
+	public int scriptedRound(Blackhole bh) {
+		int actions = 0;
+		boolean flopBet = false;
+		while (game.getGameState() != TexasGameState.COMPLETE && actions < MAX_ACTIONS) {
+			final Player player = game.getPlayers().getActionOn();
+			if (player == null) {
+				throw new IllegalStateException("No player to act in state " + game.getGameState());
+			}
+
+			final PlayerActionMessage action;
+			if (player.getState().getBlindsDue() != Blinds.NONE) {
+				action = new PlayerActionMessage(player.getSessionId(), PlayerActionType.POST_BLIND);
+			} else if (game.getGameState() == TexasGameState.FLOP && !flopBet) {
+				action = new PlayerActionMessage(player.getSessionId(), PlayerActionType.BET);
+				action.setBetValue(game.getSettings().getBigBlind());
+				flopBet = true;
+			} else if (game.getRequiredBet() > player.getCurrentStack().getOnTable()) {
+				action = new PlayerActionMessage(player.getSessionId(), PlayerActionType.CALL);
+			} else {
+				action = new PlayerActionMessage(player.getSessionId(), PlayerActionType.CHECK);
+			}
+
+			bh.consume(game.doGameUpdateAction(action));
+			if (!action.isSuccessful()) {
+				throw new IllegalStateException(action.getAction() + " failed for " + player.getPlayerId() + ": " + action.getMessage());
+			}
+			actions++;
+		}
+		return actions;
+	}
+}
@@ -0,0 +1,85 @@
+package com.langleydata.homepoker.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.game.texasHoldem.PokerHandEvaluator;
+import com.langleydata.homepoker.game.texasHoldem.ranking.EvaluatorUtils;
+import com.langleydata.homepoker.game.texasHoldem.ranking.SevenCardEvaluator;
+
+/** Compare the cost of ranking a 7 card hand with the original combination
+ * evaluator and the primitive {@link SevenCardEvaluator}
+ * 
+ * @author reynolds_mj
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandRankBenchmark {
+	private static final int HANDS = 1024;
+
+	private final List<List<Card>> allCards = new ArrayList<>(HANDS);
+	private final List<List<Card>> tableCards = new ArrayList<>(HANDS);
+	private final List<List<Card>> playerCards = new ArrayList<>(HANDS);
+	private final int[][] values = new int[HANDS][];
+
+	@Setup
+	public void setup() {
+		final List<Card> deck = BenchUtils.fullDeck();
+		final Random rnd = new Random(42L);
+		for (int i = 0; i < HANDS; i++) {
+			Collections.shuffle(deck, rnd);
+			final List<Card> seven = new ArrayList<>(deck.subList(0, 7));
+			allCards.add(seven);
+			tableCards.add(seven.subList(0, 5));
+			playerCards.add(seven.subList(5, 7));
+			values[i] = seven.stream().mapToInt(Card::getValue).toArray();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void evaluatorUtilsGetHandRank(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++) {
+			bh.consume(EvaluatorUtils.getHandRank(allCards.get(i)));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void playerHandRank(Blackhole bh) {
+		final PokerHandEvaluator eval = new PokerHandEvaluator();
+		for (int i = 0; i < HANDS; i++) {
+			bh.consume(eval.getPlayerHandRank(playerCards.get(i), tableCards.get(i)));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void primitiveEvaluate(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++) {
+			bh.consume(SevenCardEvaluator.evaluate(values[i], 7));
+		}
+	}
+}
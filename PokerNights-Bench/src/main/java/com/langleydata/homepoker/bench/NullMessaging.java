@@ -0,0 +1,29 @@
+package com.langleydata.homepoker.bench;
+
+import com.langleydata.homepoker.message.Messaging;
+
+/** A {@link Messaging} implementation that discards every message, so that
+ * benchmarks measure only the game logic
+ * 
+ * @author reynolds_mj
+ *
+ */
+public class NullMessaging implements Messaging {
+
+	@Override
+	public void sendPrivateMessage(String sessionId, Object payload) {
+	}
+
+	@Override
+	public void sendPrivateMessage(String sessionId, String queue, Object payload, long delay) {
+	}
+
+	@Override
+	public void sendBroadcastToTable(String gameId, Object message) {
+	}
+
+	@Override
+	public void sendBroadcastToTable(String gameId, Object message, long delay) {
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.langleydata.homepoker.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.langleydata.homepoker.deck.Card;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.players.Players;
+import com.langleydata.homepoker.game.texasHoldem.PokerHandEvaluator;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.pots.GamePot;
+import com.langleydata.homepoker.game.texasHoldem.pots.GamePots;
+import com.langleydata.homepoker.game.texasHoldem.pots.SidePot;
+
+/** Measure the main and side pot calculations where every player has gone all-in
+ * with a different stack, so each player creates a new side pot.<p>
+ * The players are rebuilt before each invocation because calculating the winners
+ * transfers the winnings on to their stacks.
+ * 
+ * @author reynolds_mj
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PotBenchmark {
+
+	@Param({ "2", "3", "4", "6", "8", "10" })
+	private int numPlayers;
+
+	private final PokerHandEvaluator evaluator = new PokerHandEvaluator();
+	private final Random rnd = new Random(42L);
+	private final List<Card> deck = BenchUtils.fullDeck();
+	private Players players;
+	private List<Card> cardsOnTable;
+	private GamePot gamePot;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		Collections.shuffle(deck, rnd);
+		cardsOnTable = new ArrayList<>(deck.subList(0, 5));
+
+		players = new Players();
+		gamePot = new GamePot(TexasGameState.POST_DEAL);
+		for (int i = 0; i < numPlayers; i++) {
+			final Player p = BenchUtils.makePlayer("P" + i, i, (i + 1) * 10);
+			p.setCards(new ArrayList<>(deck.subList(5 + i * 2, 7 + i * 2)));
+			p.getCurrentStack().addToTable(TexasGameState.POST_DEAL, (i + 1) * 10);
+			p.getCurrentStack().collectBets();
+			p.setRankedHand(evaluator.getPlayerHandRank(p.getCards(), cardsOnTable));
+			players.add(p);
+			gamePot.addContestedBy(p);
+		}
+	}
+
+	@Benchmark
+	public GamePots calculatePotsAndWinners() {
+		return evaluator.calculatePotsAndWinners(players, cardsOnTable);
+	}
+
+	@Benchmark
+	public List<SidePot> calculateSidePots() {
+		return evaluator.calculateSidePots(gamePot);
+	}
+}
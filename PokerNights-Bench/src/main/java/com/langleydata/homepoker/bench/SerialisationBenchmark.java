@@ -0,0 +1,68 @@
+package com.langleydata.homepoker.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.message.GameUpdateMessage;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** Measure the Jackson serialisation of a {@link GameUpdateMessage}, which is
+ * broadcast to the table after every player action
+ * 
+ * @author reynolds_mj
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerialisationBenchmark {
+
+	@Param({ "2", "6", "9" })
+	private int numPlayers;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private TexasHoldemGame game;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		game = BenchUtils.makeCashGame(numPlayers);
+		game.startNextRound(true);
+
+		// Post the blinds so the cards are dealt and there are bets on the table
+		for (int i = 0; i < 2; i++) {
+			final Player player = game.getPlayers().getActionOn();
+			game.doGameUpdateAction(new PlayerActionMessage(player.getSessionId(), PlayerActionType.POST_BLIND));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		game.completeGame();
+	}
+
+	@Benchmark
+	public String gameUpdateMessage() throws JsonProcessingException {
+		return mapper.writeValueAsString(new GameUpdateMessage(game));
+	}
+}
@@ -0,0 +1,21 @@
+package com.langleydata.homepoker.bench.sim;
+
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** A simulated player, deciding what to do when the action is on them
+ *
+ * @author reynolds_mj
+ *
+ */
+public interface Bot {
+
+	/** Decide the next action
+	 *
+	 * @param game The game, in a state where the action is on the player
+	 * @param player The player to act
+	 * @return The action to send to the game
+	 */
+	PlayerActionMessage decide(TexasHoldemGame game, Player player);
+}
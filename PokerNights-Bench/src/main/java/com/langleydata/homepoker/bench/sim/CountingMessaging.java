@@ -0,0 +1,72 @@
+package com.langleydata.homepoker.bench.sim;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langleydata.homepoker.message.Messaging;
+
+/** A {@link Messaging} sink which counts the messages sent and, optionally, serialises
+ * each one to JSON as the websocket message converter would, so that cost is included
+ * in the simulation
+ *
+ * @author reynolds_mj
+ *
+ */
+public class CountingMessaging implements Messaging {
+	private final ObjectMapper mapper;
+	private final LongAdder messages = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+
+	/**
+	 * @param serialise True to serialise each message
+	 */
+	public CountingMessaging(final boolean serialise) {
+		this.mapper = serialise ? new ObjectMapper() : null;
+	}
+
+	@Override
+	public void sendPrivateMessage(String sessionId, Object payload) {
+		send(payload);
+	}
+
+	@Override
+	public void sendPrivateMessage(String sessionId, String queue, Object payload, long delay) {
+		send(payload);
+	}
+
+	@Override
+	public void sendBroadcastToTable(String gameId, Object message) {
+		send(message);
+	}
+
+	@Override
+	public void sendBroadcastToTable(String gameId, Object message, long delay) {
+		send(message);
+	}
+
+	private void send(final Object payload) {
+		messages.increment();
+		if (mapper != null) {
+			try {
+				bytes.add(mapper.writeValueAsBytes(payload).length);
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException("Failed to serialise " + payload.getClass().getSimpleName(), e);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of messages sent
+	 */
+	public long getMessages() {
+		return messages.sum();
+	}
+
+	/**
+	 * @return The total size of the serialised messages, or 0 if not serialising
+	 */
+	public long getBytes() {
+		return bytes.sum();
+	}
+}
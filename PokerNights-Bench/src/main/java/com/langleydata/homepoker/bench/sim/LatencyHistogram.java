@@ -0,0 +1,94 @@
+package com.langleydata.homepoker.bench.sim;
+
+/** A fixed-size histogram of latencies in nanoseconds, with buckets growing in size with the
+ * value so percentiles are within about 3%. Recording doesn't allocate, so it doesn't add to
+ * the allocation being measured. Not thread safe: use one per thread and {@link #add} them.
+ *
+ * @author reynolds_mj
+ *
+ */
+public class LatencyHistogram {
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+	private long total;
+	private long max;
+
+	/** Record a latency
+	 *
+	 * @param nanos
+	 */
+	public void record(final long nanos) {
+		final long value = Math.max(0, nanos);
+		counts[index(value)]++;
+		total++;
+		max = Math.max(max, value);
+	}
+
+	/** Add the counts of another histogram to this one
+	 *
+	 * @param other
+	 */
+	public void add(final LatencyHistogram other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		total += other.total;
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * @return The number of latencies recorded
+	 */
+	public long getCount() {
+		return total;
+	}
+
+	/**
+	 * @return The highest latency recorded
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/** Get a percentile
+	 *
+	 * @param percentile e.g. 99.9
+	 * @return The latency in nanoseconds at or below which the percentile of recordings fall
+	 */
+	public long getPercentile(final double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("The percentile must be between 0 and 100");
+		}
+		if (total == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100d));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(max, highestIn(i));
+			}
+		}
+		return max;
+	}
+
+	static int index(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestIn(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKETS - 1;
+		final long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
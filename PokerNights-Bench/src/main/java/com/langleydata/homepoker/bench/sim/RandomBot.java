@@ -0,0 +1,75 @@
+package com.langleydata.homepoker.bench.sim;
+
+import java.util.Random;
+
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.Blinds;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** A bot which folds, calls, raises and goes all-in at random, giving the mix of
+ * early finishes, side pots and showdowns seen in real games
+ *
+ * @author reynolds_mj
+ *
+ */
+public class RandomBot implements Bot {
+	private final Random random;
+	private final double foldChance;
+	private final double raiseChance;
+	private final double allInChance;
+
+	/** A bot with typical odds: folds 25%, raises 15% and goes all-in 2% of the time
+	 *
+	 * @param random
+	 */
+	public RandomBot(final Random random) {
+		this(random, 0.25, 0.15, 0.02);
+	}
+
+	/**
+	 *
+	 * @param random The source of the bot's decisions, shared with no other thread
+	 * @param foldChance The chance of folding when there's a bet to call
+	 * @param raiseChance The chance of betting or raising
+	 * @param allInChance The chance of going all-in
+	 */
+	public RandomBot(final Random random, final double foldChance, final double raiseChance, final double allInChance) {
+		if (foldChance + raiseChance + allInChance > 1) {
+			throw new IllegalArgumentException("The chances must not total more than 1");
+		}
+		this.random = random;
+		this.foldChance = foldChance;
+		this.raiseChance = raiseChance;
+		this.allInChance = allInChance;
+	}
+
+	@Override
+	public PlayerActionMessage decide(final TexasHoldemGame game, final Player player) {
+		final String sessionId = player.getSessionId();
+		if (player.getState().getBlindsDue() != Blinds.NONE) {
+			return new PlayerActionMessage(sessionId, PlayerActionType.POST_BLIND);
+		}
+
+		final boolean toCall = game.getRequiredBetChips() > player.getCurrentStack().getOnTableChips();
+		double chance = random.nextDouble();
+		if (chance < allInChance) {
+			return new PlayerActionMessage(sessionId, PlayerActionType.ALL_IN);
+		}
+		chance -= allInChance;
+		if (chance < raiseChance) {
+			// Bets are the total to have on the table, so a raise is at least the minimum raise
+			final float bigBlind = game.getSettings().getBigBlind();
+			final float bet = toCall ? game.getMinRaise() + bigBlind * random.nextInt(3) : bigBlind * (1 + random.nextInt(3));
+			final PlayerActionMessage action = new PlayerActionMessage(sessionId, PlayerActionType.BET);
+			action.setBetValue(bet);
+			return action;
+		}
+		chance -= raiseChance;
+		if (toCall && chance < foldChance) {
+			return new PlayerActionMessage(sessionId, PlayerActionType.FOLD);
+		}
+		return new PlayerActionMessage(sessionId, toCall ? PlayerActionType.CALL : PlayerActionType.CHECK);
+	}
+}
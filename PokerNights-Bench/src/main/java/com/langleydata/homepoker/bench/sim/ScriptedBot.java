@@ -0,0 +1,34 @@
+package com.langleydata.homepoker.bench.sim;
+
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.Blinds;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** A predictable bot which posts its blinds, opens the betting on the flop with the big blind
+ * and otherwise calls or checks, so every round goes to a showdown
+ *
+ * @author reynolds_mj
+ *
+ */
+public class ScriptedBot implements Bot {
+
+	@Override
+	public PlayerActionMessage decide(final TexasHoldemGame game, final Player player) {
+		final String sessionId = player.getSessionId();
+		if (player.getState().getBlindsDue() != Blinds.NONE) {
+			return new PlayerActionMessage(sessionId, PlayerActionType.POST_BLIND);
+		}
+		if (game.getRequiredBetChips() > player.getCurrentStack().getOnTableChips()) {
+			return new PlayerActionMessage(sessionId, PlayerActionType.CALL);
+		}
+		if (game.getGameState() == TexasGameState.FLOP && game.getRequiredBetChips() == 0) {
+			final PlayerActionMessage bet = new PlayerActionMessage(sessionId, PlayerActionType.BET);
+			bet.setBetValue(game.getSettings().getBigBlind());
+			return bet;
+		}
+		return new PlayerActionMessage(sessionId, PlayerActionType.CHECK);
+	}
+}
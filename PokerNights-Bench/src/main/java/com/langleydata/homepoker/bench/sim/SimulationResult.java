@@ -0,0 +1,119 @@
+package com.langleydata.homepoker.bench.sim;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/** The measurements from a simulation run
+ *
+ * @author reynolds_mj
+ *
+ */
+public class SimulationResult {
+	private final int tables;
+	private final int threads;
+	private final long elapsedNanos;
+	private final long hands;
+	private final long failedActions;
+	private final long allocatedBytes;
+	private final LatencyHistogram latency;
+
+	SimulationResult(final int tables, final int threads, final long elapsedNanos, final long hands,
+			final long failedActions, final long allocatedBytes, final LatencyHistogram latency) {
+		this.tables = tables;
+		this.threads = threads;
+		this.elapsedNanos = elapsedNanos;
+		this.hands = hands;
+		this.failedActions = failedActions;
+		this.allocatedBytes = allocatedBytes;
+		this.latency = latency;
+	}
+
+	private double seconds() {
+		return Math.max(1, elapsedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+	}
+
+	/**
+	 * @return The number of hands played to completion
+	 */
+	public long getHands() {
+		return hands;
+	}
+
+	/**
+	 * @return The number of player actions made, including those the game rejected
+	 */
+	public long getActions() {
+		return latency.getCount();
+	}
+
+	/**
+	 * @return The number of actions the game rejected
+	 */
+	public long getFailedActions() {
+		return failedActions;
+	}
+
+	/**
+	 * @return The hands completed per second, across all tables
+	 */
+	public double getHandsPerSecond() {
+		return hands / seconds();
+	}
+
+	/**
+	 * @return The actions made per second, across all tables
+	 */
+	public double getActionsPerSecond() {
+		return getActions() / seconds();
+	}
+
+	/**
+	 * @return The latencies of the actions, including sending the table update
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return The bytes allocated per second by the simulation threads, or -1 if the JVM can't measure it
+	 */
+	public double getAllocatedBytesPerSecond() {
+		return allocatedBytes < 0 ? -1 : allocatedBytes / seconds();
+	}
+
+	/** Estimate how many tables one node could run, if the game engine were the only limit
+	 *
+	 * @param secondsPerAction How often a player acts at a live table
+	 * @return
+	 */
+	public long getTableCapacity(final double secondsPerAction) {
+		return (long) (getActionsPerSecond() * secondsPerAction);
+	}
+
+	/** Print a summary of the results
+	 *
+	 * @param out
+	 * @param secondsPerAction Used for the capacity estimate
+	 */
+	public void print(final PrintStream out, final double secondsPerAction) {
+		out.println("-----------------");
+		out.println(String.format("Tables: %s, threads: %s, measured for %.1fs", tables, threads, seconds()));
+		out.println(String.format("Hands: %s (%.1f/s)", hands, getHandsPerSecond()));
+		out.println(String.format("Actions: %s (%.1f/s), rejected: %s", getActions(), getActionsPerSecond(), failedActions));
+		out.println(String.format("Action latency (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f",
+				micros(latency.getPercentile(50)), micros(latency.getPercentile(90)), micros(latency.getPercentile(99)),
+				micros(latency.getPercentile(99.9)), micros(latency.getMax())));
+		if (allocatedBytes < 0) {
+			out.println("Allocation: not measurable on this JVM");
+		} else {
+			out.println(String.format("Allocation: %.1f MB/s, %.1f KB/hand", getAllocatedBytesPerSecond() / (1024 * 1024),
+					hands == 0 ? 0 : allocatedBytes / 1024d / hands));
+		}
+		out.println(String.format("Estimated capacity at one action every %ss per table: %s tables",
+				secondsPerAction, getTableCapacity(secondsPerAction)));
+	}
+
+	private static double micros(final long nanos) {
+		return nanos / 1000d;
+	}
+}
@@ -0,0 +1,345 @@
+package com.langleydata.homepoker.bench.sim;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.langleydata.homepoker.api.CardGame.GameFormat;
+import com.langleydata.homepoker.api.PlayerActionType;
+import com.langleydata.homepoker.bench.NullMessaging;
+import com.langleydata.homepoker.game.Chips;
+import com.langleydata.homepoker.game.GameTimer;
+import com.langleydata.homepoker.game.players.Player;
+import com.langleydata.homepoker.game.texasHoldem.TexasGameState;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemGame;
+import com.langleydata.homepoker.game.texasHoldem.TexasHoldemSettings;
+import com.langleydata.homepoker.message.GameUpdateMessage;
+import com.langleydata.homepoker.message.Messaging;
+import com.langleydata.homepoker.message.PlayerActionMessage;
+
+/** Drives many cash game tables at once with bot players, as fast as the engine allows, to
+ * measure how many tables a node can run. Each thread owns a share of the tables and makes
+ * one action at each in turn, so tables interleave as they would on a server. After each action
+ * the table update is sent to the {@link Messaging} sink, as the table controller does.
+ * <p>
+ * Usage: TableSimulator [--tables=50] [--players=6] [--threads=cores] [--seconds=30] [--warmup=5]
+ * [--bots=random|scripted|mixed] [--messaging=null|count|json] [--seed=1] [--seconds-per-action=3]
+ *
+ * @author reynolds_mj
+ *
+ */
+public class TableSimulator {
+	/** Guard against a table that can't make progress */
+	private static final int MAX_STALLS = 10;
+
+	public enum BotMix {
+		SCRIPTED, RANDOM, MIXED
+	}
+
+	private int tables = 50;
+	private int players = 6;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long durationMillis = 30000;
+	private long warmupMillis = 5000;
+	private long seed = 1;
+	private float startStack = 20f;
+	private BotMix bots = BotMix.RANDOM;
+	private Messaging messaging = new NullMessaging();
+
+	public static class Builder {
+		private final TableSimulator sim = new TableSimulator();
+
+		public Builder tables(final int tables) {
+			sim.tables = tables;
+			return this;
+		}
+
+		public Builder players(final int players) {
+			sim.players = players;
+			return this;
+		}
+
+		public Builder threads(final int threads) {
+			sim.threads = threads;
+			return this;
+		}
+
+		public Builder duration(final long millis) {
+			sim.durationMillis = millis;
+			return this;
+		}
+
+		public Builder warmup(final long millis) {
+			sim.warmupMillis = millis;
+			return this;
+		}
+
+		public Builder seed(final long seed) {
+			sim.seed = seed;
+			return this;
+		}
+
+		public Builder bots(final BotMix bots) {
+			sim.bots = bots;
+			return this;
+		}
+
+		public Builder messaging(final Messaging messaging) {
+			sim.messaging = messaging;
+			return this;
+		}
+
+		public TableSimulator build() {
+			if (sim.tables < 1 || sim.threads < 1 || sim.durationMillis < 1) {
+				throw new IllegalArgumentException("At least one table, thread and millisecond are required");
+			}
+			if (sim.players < 2 || sim.players > 10) {
+				throw new IllegalArgumentException("Between 2 and 10 players are required");
+			}
+			if (sim.messaging == null) {
+				throw new IllegalArgumentException("A messaging sink is required");
+			}
+			return sim;
+		}
+	}
+
+	private TableSimulator() {
+	}
+
+	/** Run the simulation, blocking until it completes
+	 *
+	 * @return The measurements, taken after the warm-up
+	 * @throws InterruptedException
+	 */
+	public SimulationResult run() throws InterruptedException {
+		final GameTimer timer = new GameTimer(GameTimer.THREADS);
+		final int numThreads = Math.min(threads, tables);
+		final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			final List<Worker> workers = new ArrayList<>();
+			for (int w = 0; w < numThreads; w++) {
+				workers.add(new Worker());
+			}
+			for (int t = 0; t < tables; t++) {
+				workers.get(t % numThreads).tables.add(new Table("T" + t, new Random(seed + t), timer));
+			}
+
+			final long start = System.nanoTime();
+			final long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+			final long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+			final List<Future<?>> running = new ArrayList<>();
+			for (Worker w : workers) {
+				running.add(executor.submit(() -> w.run(measureFrom, end)));
+			}
+			for (Future<?> f : running) {
+				try {
+					f.get();
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Simulation failed", e.getCause());
+				}
+			}
+
+			final LatencyHistogram latency = new LatencyHistogram();
+			long hands = 0, failed = 0, allocated = 0;
+			for (Worker w : workers) {
+				latency.add(w.latency);
+				hands += w.hands;
+				failed += w.failed;
+				allocated = w.allocated < 0 || allocated < 0 ? -1 : allocated + w.allocated;
+				w.tables.forEach(t -> t.game.completeGame());
+			}
+			return new SimulationResult(tables, numThreads, System.nanoTime() - measureFrom, hands, failed, allocated, latency);
+		} finally {
+			executor.shutdownNow();
+			timer.shutdown();
+		}
+	}
+
+	/** A table and its bots */
+	private class Table {
+		private final String gameId;
+		private final TexasHoldemGame game;
+		private final Map<String, Bot> tableBots = new HashMap<>();
+		private int stalls;
+
+		Table(final String gameId, final Random random, final GameTimer timer) {
+			this.gameId = gameId;
+			final TexasHoldemSettings settings = new TexasHoldemSettings();
+			settings.setFormat(GameFormat.CASH);
+			settings.setHostEmail("P0");
+			game = new TexasHoldemGame(settings, messaging, timer);
+			for (int i = 0; i < players; i++) {
+				final Player p = new Player("P" + i, "P" + i);
+				p.setSeatingPos(i);
+				p.setSessionId(p.getPlayerId());
+				p.setEmail(p.getPlayerId());
+				p.getCurrentStack().setStack(startStack);
+				game.addPlayer(p);
+
+				final boolean scripted = bots == BotMix.SCRIPTED || (bots == BotMix.MIXED && i % 2 == 0);
+				tableBots.put(p.getSessionId(), scripted ? new ScriptedBot() : new RandomBot(random));
+			}
+		}
+
+		/** Re-buy for any player who can't cover the big blind, so the table keeps going */
+		private void topUp() {
+			final long bigBlind = Chips.of(game.getSettings().getBigBlind());
+			for (Player p : game.getPlayers()) {
+				if (p.getCurrentStack().getStackChips() < bigBlind) {
+					p.getCurrentStack().setStack(startStack);
+					if (p.getState().isSittingOut()) {
+						p.getState().toggleSittingOut(TexasGameState.COMPLETE, false);
+					}
+				}
+			}
+		}
+	}
+
+	/** Plays a share of the tables on one thread */
+	private class Worker {
+		private final List<Table> tables = new ArrayList<>();
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private long hands, failed, allocated;
+
+		void run(final long measureFrom, final long end) {
+			boolean measuring = false;
+			long allocatedAtStart = 0;
+			long now;
+			while ((now = System.nanoTime()) < end && !Thread.currentThread().isInterrupted()) {
+				if (!measuring && now >= measureFrom) {
+					measuring = true;
+					allocatedAtStart = allocatedBytes();
+				}
+				for (Table t : tables) {
+					step(t, measuring);
+				}
+			}
+			final long allocatedAtEnd = allocatedBytes();
+			allocated = allocatedAtStart < 0 || allocatedAtEnd < 0 ? -1 : allocatedAtEnd - allocatedAtStart;
+		}
+
+		/** Make the next move at a table: start a round, or have the bot on the action act */
+		private void step(final Table t, final boolean measuring) {
+			final TexasHoldemGame game = t.game;
+			if (game.getGameState() == TexasGameState.COMPLETE) {
+				t.topUp();
+				game.startNextRound(false);
+				return;
+			}
+
+			final Player player = game.getPlayers().getActionOn();
+			if (player == null) {
+				// Nudge the deal along, as a player pressing 'deal' would
+				game.deal();
+				if (++t.stalls > MAX_STALLS) {
+					throw new IllegalStateException(t.gameId + " stalled in state " + game.getGameState());
+				}
+				return;
+			}
+			t.stalls = 0;
+
+			final Bot bot = t.tableBots.get(player.getSessionId());
+			PlayerActionMessage action = bot.decide(game, player);
+			act(t, action, measuring);
+			if (!action.isSuccessful()) {
+				// e.g. a bet below the minimum raise, so fall back to a call or check
+				final boolean toCall = game.getRequiredBetChips() > player.getCurrentStack().getOnTableChips();
+				action = new PlayerActionMessage(player.getSessionId(), toCall ? PlayerActionType.CALL : PlayerActionType.CHECK);
+				act(t, action, measuring);
+				if (!action.isSuccessful()) {
+					act(t, new PlayerActionMessage(player.getSessionId(), PlayerActionType.FOLD), measuring);
+				}
+			}
+			if (measuring && game.getGameState() == TexasGameState.COMPLETE) {
+				hands++;
+			}
+		}
+
+		private void act(final Table t, final PlayerActionMessage action, final boolean measuring) {
+			final long start = System.nanoTime();
+			final GameUpdateMessage gum = t.game.doGameUpdateAction(action);
+			if (gum != null) {
+				messaging.sendBroadcastToTable(t.gameId, gum);
+			}
+			if (measuring) {
+				latency.record(System.nanoTime() - start);
+				if (!action.isSuccessful()) {
+					failed++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The bytes allocated by the current thread, or -1 if the JVM can't measure it
+	 */
+	private static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 *
+	 * @param args See the class description
+	 * @throws InterruptedException
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		final Map<String, String> opts = new HashMap<>();
+		for (String arg : args) {
+			final int eq = arg.indexOf('=');
+			if (!arg.startsWith("--") || eq < 0) {
+				System.err.println("Options are given as --name=value: " + arg);
+				System.exit(2);
+			}
+			opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+		}
+
+		final CountingMessaging counting;
+		final String sink = opts.getOrDefault("messaging", "null");
+		switch (sink) {
+		case "null":
+			counting = null;
+			break;
+		case "count":
+			counting = new CountingMessaging(false);
+			break;
+		case "json":
+			counting = new CountingMessaging(true);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown messaging sink: " + sink);
+		}
+
+		final TableSimulator sim = new Builder()
+				.tables(Integer.parseInt(opts.getOrDefault("tables", "50")))
+				.players(Integer.parseInt(opts.getOrDefault("players", "6")))
+				.threads(Integer.parseInt(opts.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))))
+				.duration(TimeUnit.SECONDS.toMillis(Long.parseLong(opts.getOrDefault("seconds", "30"))))
+				.warmup(TimeUnit.SECONDS.toMillis(Long.parseLong(opts.getOrDefault("warmup", "5"))))
+				.seed(Long.parseLong(opts.getOrDefault("seed", "1")))
+				.bots(BotMix.valueOf(opts.getOrDefault("bots", "random").toUpperCase()))
+				.messaging(counting == null ? new NullMessaging() : counting)
+				.build();
+
+		final SimulationResult result = sim.run();
+		result.print(System.out, Double.parseDouble(opts.getOrDefault("seconds-per-action", "3")));
+		if (counting != null) {
+			System.out.println(String.format("Messages: %s%s", counting.getMessages(),
+					counting.getBytes() > 0 ? String.format(", %.1f MB serialised", counting.getBytes() / (1024d * 1024)) : ""));
+		}
+	}
+}
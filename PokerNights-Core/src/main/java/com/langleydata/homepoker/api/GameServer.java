@@ -16,6 +16,7 @@ public class GameServer {
 	private String uri;
 	private List<ActiveGame> activeGames = new ArrayList<>();
 	private String serverName;
+	private double cpuLoad = -1;
 
 	/**
 	 * 
@@ -60,6 +61,19 @@ public class GameServer {
 		this.serverName = serverName;
 	}
 	
+	/**
+	 * @return The server's CPU load, from 0 to 1, or negative if not known
+	 */
+	public double getCpuLoad() {
+		return cpuLoad;
+	}
+	/**
+	 * @param cpuLoad the cpuLoad to set
+	 */
+	public void setCpuLoad(double cpuLoad) {
+		this.cpuLoad = cpuLoad;
+	}
+	
 	/**
 	 * @return the activeGames
 	 */
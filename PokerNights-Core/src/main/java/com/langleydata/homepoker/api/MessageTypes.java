@@ -19,5 +19,6 @@ public enum MessageTypes {
 	CASH_OUT,
 	HAND_RANKING,
 	EVICT_PLAYER,
-	ALLOCATE_FUNDS
+	ALLOCATE_FUNDS,
+	EQUITY
 }
@@ -1,6 +1,8 @@
 package com.langleydata.homepoker.config;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.PostConstruct;
 
@@ -12,17 +14,23 @@ import org.elasticsearch.client.indices.CreateIndexResponse;
 import org.elasticsearch.client.indices.GetIndexRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.elasticsearch.config.AbstractElasticsearchConfiguration;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 
 import com.langleydata.homepoker.persistence.ElasticSettings;
+import com.langleydata.homepoker.persistence.es.ElasticReadConverter;
 
 @EnableElasticsearchRepositories(basePackages = "com.langleydata.homepoker.persistence")
 public abstract class CommonElasticConfig extends AbstractElasticsearchConfiguration {
 	protected final Logger logger = LoggerFactory.getLogger(CommonElasticConfig.class);
+	
+	@Autowired(required = false)
+	private List<ElasticReadConverter<?>> readConverters = new ArrayList<>();
     
     @PostConstruct
     protected void createDefaultIndices() {
@@ -59,8 +67,14 @@ public abstract class CommonElasticConfig extends AbstractElasticsearchConfigura
 		});
     }
     
+    @Bean
+    @Override
+    public ElasticsearchCustomConversions elasticsearchCustomConversions() {
+    	return new ElasticsearchCustomConversions(readConverters);
+    }
+    
     @Bean(name = {"elasticsearchOperations", "elasticsearchTemplate"})
 	public ElasticsearchOperations elasticsearchOperations() {
-	    return new ElasticsearchRestTemplate(elasticsearchClient());
+	    return new ElasticsearchRestTemplate(elasticsearchClient(), elasticsearchEntityMapper(elasticsearchMappingContext()));
 	}
 }
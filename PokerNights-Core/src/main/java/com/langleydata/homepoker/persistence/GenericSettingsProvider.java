@@ -9,6 +9,9 @@ import org.springframework.stereotype.Component;
 import com.langleydata.homepoker.api.UserAccount;
 import com.langleydata.homepoker.exception.NoKnownServerException;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 @Component
 public interface GenericSettingsProvider {
 
@@ -38,6 +41,29 @@ public interface GenericSettingsProvider {
 	 */
 	Map<String, Object> getSettingsById(String gameId) throws IOException;
 
+	/** Get settings without blocking the caller. By default the lookup is done on
+	 * a thread which is allowed to block
+	 * 
+	 * @param gameId
+	 * @return The settings, which are empty if they don't exist
+	 */
+	default Mono<Map<String, Object>> getSettingsByIdAsync(final String gameId) {
+		return Mono.fromCallable(() -> getSettingsById(gameId))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/** Store settings without blocking the caller. By default the store is done on
+	 * a thread which is allowed to block
+	 * 
+	 * @param gameId
+	 * @param document
+	 * @return True if updated or created
+	 */
+	default Mono<Boolean> storeSettingsAsync(final String gameId, final Map<String, Object> document) {
+		return Mono.fromCallable(() -> storeSettings(gameId, document))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
 
 	/** Get the number of accounts indexed
 	 * 
@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.DocWriteResponse.Result;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
@@ -15,6 +16,7 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Cancellable;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.core.CountRequest;
@@ -34,6 +36,8 @@ import com.langleydata.homepoker.persistence.ElasticSettings;
 import com.langleydata.homepoker.persistence.GenericSettingsProvider;
 import com.langleydata.homepoker.services.Account;
 
+import reactor.core.publisher.Mono;
+
 /** DAO for Elasticsearch
  * 
  * @author Mike Reynolds
@@ -65,6 +69,44 @@ public class ESGenericSettingsProvider implements GenericSettingsProvider {
 		return new HashMap<>();
 	}
 
+	@Override
+	public Mono<Map<String, Object>> getSettingsByIdAsync(final String gameId) {
+		return Mono.create(sink -> {
+			final Cancellable request = esClient.getAsync(new GetRequest(ElasticSettings.TEXAS_SETTINGS_IDX, gameId),
+					RequestOptions.DEFAULT, new ActionListener<GetResponse>() {
+						@Override
+						public void onResponse(GetResponse resp) {
+							sink.success(resp.isExists() ? resp.getSourceAsMap() : new HashMap<>());
+						}
+
+						@Override
+						public void onFailure(Exception e) {
+							sink.error(e);
+						}
+					});
+			sink.onCancel(request::cancel);
+		});
+	}
+
+	@Override
+	public Mono<Boolean> storeSettingsAsync(final String gameId, final Map<String, Object> document) {
+		return Mono.create(sink -> {
+			final IndexRequest ir = new IndexRequest(ElasticSettings.TEXAS_SETTINGS_IDX).id(gameId).source(document);
+			final Cancellable request = esClient.indexAsync(ir, RequestOptions.DEFAULT, new ActionListener<IndexResponse>() {
+				@Override
+				public void onResponse(IndexResponse resp) {
+					sink.success(resp.getResult() == Result.UPDATED || resp.getResult() == Result.CREATED);
+				}
+
+				@Override
+				public void onFailure(Exception e) {
+					sink.error(e);
+				}
+			});
+			sink.onCancel(request::cancel);
+		});
+	}
+
 	@Override
 	public long getSettingsCount() throws IOException {
 		final CountResponse cr = esClient.count(new CountRequest(ElasticSettings.TEXAS_SETTINGS_IDX), RequestOptions.DEFAULT);
@@ -0,0 +1,18 @@
+package com.langleydata.homepoker.persistence.es;
+
+import java.util.Map;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/** Reads a stored Elasticsearch document in to an entity, e.g. to upgrade documents
+ * written in an older format. Any beans of this type are registered with the
+ * Elasticsearch converter, and must be annotated with {@link ReadingConverter}
+ *
+ * @author Mike Reynolds
+ *
+ * @param <T> The entity read
+ */
+public interface ElasticReadConverter<T> extends Converter<Map<String, Object>, T> {
+
+}
@@ -14,6 +14,8 @@ import com.langleydata.homepoker.api.UserAccount;
 import com.langleydata.homepoker.persistence.GenericSettingsProvider;
 import com.langleydata.homepoker.services.Account;
 
+import reactor.core.publisher.Mono;
+
 /** Memory backed generic settings provider
  * 
  * @author Mike Reynolds
@@ -37,6 +39,11 @@ public class MemoryGenericSettingsProvider implements GenericSettingsProvider {
 		return gameSettings.get(gameId);
 	}
 
+	@Override
+	public Mono<Map<String, Object>> getSettingsByIdAsync(String gameId) {
+		return Mono.justOrEmpty(gameSettings.get(gameId));
+	}
+
 	@Override
 	public boolean storeAccount(UserAccount document) throws IOException {
 		userAccounts.put(document.getPlayerId(), gson.toJson(document));
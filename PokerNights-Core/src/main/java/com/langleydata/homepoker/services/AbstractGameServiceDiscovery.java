@@ -2,9 +2,8 @@ package com.langleydata.homepoker.services;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -16,6 +15,7 @@ import org.apache.http.client.ClientProtocolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 
 import com.google.gson.Gson;
@@ -25,9 +25,13 @@ import com.langleydata.homepoker.api.GameType;
 import com.langleydata.homepoker.exception.NoKnownServerException;
 import com.langleydata.homepoker.persistence.GenericSettingsProvider;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /** An abstract service discovery class that can be extended to automatically find
  * one of many services that can serve a game or the default web content.<p>
- * Once a service has been looked-up then it is cached for faster response.
+ * The load of each service, and the games it's serving, are kept in a {@link GameServerRegistry}
+ * for faster response. Services are only queried when their last report has expired.
  * 
  * @author Mike Reynolds
  *
@@ -35,14 +39,29 @@ import com.langleydata.homepoker.persistence.GenericSettingsProvider;
 public abstract class AbstractGameServiceDiscovery {
 	protected final Logger logger = LoggerFactory.getLogger(AbstractGameServiceDiscovery.class);
 	static final String ACTIVE_GAME_QUERY_PATH = "/info/active";
-	static final int PURGE_SCHEDULE = 2 * 60 * 1000;// 2 mins
-	protected final Map<String, GameServer> knownServers = Collections.synchronizedMap(new HashMap<>());
+	static final int EVICT_SCHEDULE = 30 * 1000;
+	static final long DEFAULT_SERVER_TIMEOUT = 2000;
+	static final long DEFAULT_LOAD_TTL = 90 * 1000;
+	protected final GameServerRegistry registry = new GameServerRegistry(DEFAULT_LOAD_TTL);
 	
 	@Autowired
 	private GenericSettingsProvider settingsProvider;
 	@Autowired
 	HttpClientUtils httpClientUtils;
 	
+	/** How long to wait for each game server when looking up without blocking */
+	@Value("${game-server.discovery.timeout-ms:" + DEFAULT_SERVER_TIMEOUT + "}")
+	private long serverTimeout = DEFAULT_SERVER_TIMEOUT;
+	
+	/** How long a server's load report is used for before asking it again
+	 * 
+	 * @param ttl In milliseconds
+	 */
+	@Value("${game-server.discovery.load-ttl-ms:" + DEFAULT_LOAD_TTL + "}")
+	void setLoadTtl(final long ttl) {
+		registry.setTtl(ttl);
+	}
+	
 	private Gson gson = new Gson();
 
 	
@@ -58,113 +77,116 @@ public abstract class AbstractGameServiceDiscovery {
 		if (StringUtils.isBlank(service)) {
 			throw new NoKnownServerException("Invalid service provided");
 		}
-		if (service.endsWith("/")) {
-			service = service.substring(0, service.length()-1);
+		return parseServerInfo(httpClientUtils.getForString(activeGamesUri(service)));
+	}
+	
+	/** Get details of a game server instance from the service itself, without blocking
+	 * 
+	 * @param service The root URL of the service
+	 * @return The GameServer, or a {@link NoKnownServerException} or IOException error
+	 */
+	public Mono<GameServer> getGameServerInfoAsync(final String service) {
+		if (StringUtils.isBlank(service)) {
+			return Mono.error(new NoKnownServerException("Invalid service provided"));
 		}
-		
-		GameServer toRet = null;
-		final String gsResponse = httpClientUtils.getForString(URI.create(service + ACTIVE_GAME_QUERY_PATH));
-
+		return httpClientUtils.getForStringAsync(activeGamesUri(service), Duration.ofMillis(serverTimeout))
+				.defaultIfEmpty("")
+				.flatMap(resp -> Mono.fromCallable(() -> parseServerInfo(resp)));
+	}
+	
+	private static URI activeGamesUri(final String service) {
+		final String root = service.endsWith("/") ? service.substring(0, service.length()-1) : service;
+		return URI.create(root + ACTIVE_GAME_QUERY_PATH);
+	}
+	
+	private GameServer parseServerInfo(final String gsResponse) throws NoKnownServerException {
 		if (gsResponse!=null && gsResponse.startsWith("{")) {
-			toRet = gson.fromJson(gsResponse, GameServer.class);
+			final GameServer toRet = gson.fromJson(gsResponse, GameServer.class);
 			logger.trace("Received response: {}", toRet);
-		} else {
-			throw new NoKnownServerException(gsResponse == null ? "Requesting active games - response null" : gsResponse);
+			return toRet;
 		}
-		
-		return toRet;
+		throw new NoKnownServerException(gsResponse == null ? "Requesting active games - response null" : gsResponse);
 	}
 
-	/** Get a server that can serve the provided game
+	/** Get a server that can serve the provided game, without blocking. If the game hasn't been
+	 * assigned a server, or its server is no longer running, the least loaded server is assigned
+	 * and stored in the game's settings. The game servers are queried in parallel
 	 * 
 	 * @param gameId The gameId being requested
 	 * @param gameType The type of game
-	 * @return A GameServer which can, or already is, servicing the gameId
-	 * 
-	 * @throws NoKnownServerException If no game server can serve this game
+	 * @return A GameServer which can, or already is, servicing the gameId, or a
+	 * {@link NoKnownServerException} error if no game server can serve this game
 	 */
-	public GameServer getByGameId(final String gameId, final GameType gameType) throws NoKnownServerException {
+	public Mono<GameServer> getByGameIdAsync(final String gameId, final GameType gameType) {
 		
 		if (StringUtils.isBlank(gameId) || gameType == null) {
-			throw new NoKnownServerException("Game parameters are null");
+			return Mono.error(new NoKnownServerException("Game parameters are null"));
 		}
 		
-		GameServer known = knownServers.get(gameId);
+		final GameServer cached = registry.getByGame(gameId);
+		if (cached != null) {
+			return Mono.just(cached);
+		}
 		
-		if (known == null) {
-			
-			// See if the game has been assigned a server
-			final Map<String, Object> document = getSettings(gameId);
+		return getSettingsAsync(gameId).flatMap(document -> {
 			final String server = (String) document.get("assignedServer");
 			final ActiveGame activeGame = new ActiveGame(gameId);
 			activeGame.setGameFormat((String)document.get("format"));
 			
 			if (server == null) {
 				// A server hasn't been assigned, so get one
-				known = getLeastLoaded(gameType, false);
-				if (known.getGameCount()==Integer.MAX_VALUE) {
-					throw new NoKnownServerException("No service to serve game of type " + gameType);
-				}
-				
-				// Only save back the allocated server if these are valid settings (i.e. it was created by a user)
-				if (document.get("gameId") != null ) {
-					known.addActiveGame(activeGame);
-					document.put("assignedServer", known.getUri());
-					try {
-						settingsProvider.storeSettings(gameId, document);
-					} catch (IOException e) {
-						throw new NoKnownServerException("Could not update settings for " + known.getUri());
+				return getLeastLoadedAsync(gameType, false).flatMap(known -> {
+					if (known.getGameCount()==Integer.MAX_VALUE) {
+						return Mono.error(new NoKnownServerException("No service to serve game of type " + gameType));
 					}
-					
-				}
-				
-			} else {
-				
-				// The server is assigned, but this gateway doesn't know about it,
-				// so create a new entry [so it does next time]
-
-				// check the server is still available..
-				final List<GameServer> running = lookupServices(gameType);
-				GameServer toUse = running.stream()
-									.filter(gs -> gs.getUri().equalsIgnoreCase(server))
-									.findFirst()
-									.orElse(getLeastLoaded(gameType, false, running));
-				
-				known = new GameServer(toUse.getUri(), gameType);
-				known.addActiveGame(activeGame);
-				
-				if (toUse.getUri().equalsIgnoreCase(server)==false) {
-					try {
-						settingsProvider.storeSettings(gameId, document);
-					} catch (IOException e) {
-						throw new NoKnownServerException("Could not update settings for " + known.getUri());
+					// Only save back the allocated server if these are valid settings (i.e. it was created by a user)
+					if (document.get("gameId") == null) {
+						registry.route(gameId, known);
+						return Mono.just(known);
 					}
-				}
+					final GameServer placed = registry.place(activeGame, known);
+					document.put("assignedServer", placed.getUri());
+					return storeSettingsAsync(gameId, document, placed);
+				});
 			}
-			// Store in the cache
-			knownServers.put(gameId, known);
-		}
-		
-		return known;
+			
+			// The server is assigned, but this gateway doesn't know about it, so check it's still available
+			final List<GameServer> running = lookupServices(gameType);
+			final Mono<GameServer> toUse = running.stream()
+					.filter(gs -> gs.getUri().equalsIgnoreCase(server))
+					.findFirst()
+					.map(Mono::just)
+					.orElseGet(() -> getLeastLoadedAsync(gameType, false, running));
+			
+			return toUse.flatMap(use -> {
+				final GameServer known = registry.place(activeGame, use);
+				if (use.getUri().equalsIgnoreCase(server)) {
+					return Mono.just(known);
+				}
+				document.put("assignedServer", known.getUri());
+				return storeSettingsAsync(gameId, document, known);
+			});
+		});
 	}
-
-	/** Get game settings for the provided ID, that isn't archived
+	
+	private Mono<GameServer> storeSettingsAsync(final String gameId, final Map<String, Object> document, final GameServer known) {
+		return settingsProvider.storeSettingsAsync(gameId, document)
+				.onErrorMap(e -> new NoKnownServerException("Could not update settings for " + known.getUri()))
+				.thenReturn(known);
+	}
+	
+	/** Get game settings for the provided ID that isn't archived, without blocking
 	 * 
 	 * @param gameId
 	 * @return
-	 * @throws NoKnownServerException
 	 */
-	private Map<String, Object> getSettings(final String gameId) throws NoKnownServerException {
-		try {
-			final Map<String, Object> settings = settingsProvider.getSettingsById(gameId);
-			final boolean archived = (boolean) settings.getOrDefault("isArchived", false);
-			if (archived) {
-				throw new NoKnownServerException("No settings for game " + gameId);
-			}
-			return settings;
-		} catch (IOException e) {
-			throw new NoKnownServerException("Could not contact server", e);
-		}
+	private Mono<Map<String, Object>> getSettingsAsync(final String gameId) {
+		return settingsProvider.getSettingsByIdAsync(gameId)
+				.onErrorMap(IOException.class, e -> new NoKnownServerException("Could not contact server", e))
+				.defaultIfEmpty(new HashMap<>())
+				.flatMap(settings -> (boolean) settings.getOrDefault("isArchived", false)
+						? Mono.error(new NoKnownServerException("No settings for game " + gameId))
+						: Mono.just(settings));
 	}
 	
 	/** Get a list of raw information from the underlying service discovery provided.<p>
@@ -199,18 +221,20 @@ public abstract class AbstractGameServiceDiscovery {
 				.findFirst();
 	}
 	/** Get a server which can serve this game type, and is currently serving the 
-	 * least amount of games.
+	 * least amount of games, without blocking. Servers without a current load report are
+	 * queried in parallel, and any that don't answer within the timeout are left out.
 	 *  
 	 * @param gameType
 	 * @param knownFirst Search the known servers first
 	 * @return Always a valid GameServer, but a failure will have {@link GameServer#getGameCount()}
 	 * set to Integer.MAX_VALUE
 	 */
-	public GameServer getLeastLoaded(GameType gameType, final boolean knownFirst) {
-		return getLeastLoaded(gameType, knownFirst, lookupServices(gameType));
+	public Mono<GameServer> getLeastLoadedAsync(final GameType gameType, final boolean knownFirst) {
+		return getLeastLoadedAsync(gameType, knownFirst, lookupServices(gameType));
 	}
+	
 	/** Get a server which can serve this game type, and is currently serving the 
-	 * least amount of games.
+	 * least amount of games, without blocking
 	 *  
 	 * @param gameType
 	 * @param knownFirst Search the known servers first
@@ -218,44 +242,53 @@ public abstract class AbstractGameServiceDiscovery {
 	 * @return Always a valid GameServer, but a failure will have {@link GameServer#getGameCount()}
 	 * set to Integer.MAX_VALUE
 	 */
-	public GameServer getLeastLoaded(GameType gameType, final boolean knownFirst, List<GameServer> running) {
-		
-		final List<GameServer> loaded = new ArrayList<>();
-		
+	public Mono<GameServer> getLeastLoadedAsync(final GameType gameType, final boolean knownFirst, final List<GameServer> running) {
 		if (knownFirst) {
-			final Optional<GameServer> known = getMin(knownServers.values(), gameType);
+			final Optional<GameServer> known = getMin(registry.getServers(), gameType);
 			if (known.isPresent()) {
-				return known.get();
-			}
-		}
-
-		for (GameServer gs : running) {
-			try {
-				final GameServer aG = getGameServerInfo(gs.getUri());
-				if (aG != null) {
-					aG.setUri(gs.getUri());
-					loaded.add(aG);
-					
-					// Cache the server for faster response 
-					aG.getActiveGames().forEach(active -> knownServers.put(active.getGameId(), aG));
-					knownServers.put(aG.getUri(), aG);
-				}
-			} catch (IOException | NoKnownServerException e) {
-				logger.error(e.getMessage() + ": " + gs.getUri());
+				return Mono.just(known.get());
 			}
 		}
 		
-		// Get the server with the least number of active games
-		Optional<GameServer> least = getMin(loaded, gameType);
-		return least.isPresent() ? least.get() : getFailure(gameType);
+		return Flux.fromIterable(running)
+				.flatMap(gs -> Mono.justOrEmpty(registry.getServer(gs.getUri()))
+						.switchIfEmpty(Mono.defer(() -> getGameServerInfoAsync(gs.getUri())
+							.timeout(Duration.ofMillis(serverTimeout))
+							.map(aG -> cacheServer(gs.getUri(), aG))
+							.onErrorResume(e -> {
+								logger.error(e.getMessage() + ": " + gs.getUri());
+								return Mono.empty();
+							}))))
+				.collectList()
+				.map(loaded -> getMin(loaded, gameType).orElseGet(() -> getFailure(gameType)));
 	}
 	
-	@Scheduled(fixedDelay = PURGE_SCHEDULE)
-	public void purgeCache() {
-		logger.trace("Purging {} cached servers from memory", knownServers.size());
-		
-		synchronized(knownServers) {
-			knownServers.clear();
+	/** Record the server's load, and the games it's serving, for faster response
+	 * 
+	 * @param uri The URI the server was found at
+	 * @param aG The server's details
+	 * @return The server
+	 */
+	private GameServer cacheServer(final String uri, final GameServer aG) {
+		aG.setUri(uri);
+		registry.report(aG, System.currentTimeMillis());
+		return aG;
+	}
+	
+	/** Record a load report pushed by a game server, e.g. through its service registration
+	 * 
+	 * @param server The server, with the games it's running
+	 * @param reportedAt When the server made the report
+	 */
+	protected void reportLoad(final GameServer server, final long reportedAt) {
+		if (registry.report(server, reportedAt)) {
+			logger.trace("Load reported by {}: {} games", server.getUri(), server.getGameCount());
 		}
 	}
+	
+	@Scheduled(fixedDelay = EVICT_SCHEDULE)
+	public void evictExpired() {
+		final int evicted = registry.evictExpired();
+		logger.trace("Evicted {} expired servers and games, {} remain", evicted, registry.size());
+	}
 }
@@ -1,31 +1,91 @@
 package com.langleydata.homepoker.services;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 
+import com.langleydata.homepoker.api.ActiveGame;
 import com.langleydata.homepoker.api.GameServer;
 import com.langleydata.homepoker.api.GameType;
 
-/** Find all services registered with Eureka
- * 
+/** Find all services registered with Eureka.<p>
+ * Game servers publish their load in their instance metadata, which is recorded
+ * each time the services are looked up, so they don't need to be queried directly
+ *
  */
 public class EurekaServiceDiscovery extends AbstractGameServiceDiscovery {
+	/** The games being served, as 'gameId:players' separated by commas */
+	public static final String METADATA_GAMES = "pokerGames";
+	public static final String METADATA_CPU = "pokerCpu";
+	/** When the load was reported, in epoch milliseconds */
+	public static final String METADATA_REPORTED = "pokerReported";
 
 	@Autowired
 	private DiscoveryClient discoveryClient;
-	
+
 	@Override
 	public List<GameServer> lookupServices(GameType gameType) {
-		
+
 		List<ServiceInstance> services = discoveryClient.getInstances(gameType.name() + " SERVER");
 
 		return services.stream()
-			.map(si ->  new GameServer(si.getUri().toString(), gameType))
+			.map(si ->  {
+				final GameServer gs = new GameServer(si.getUri().toString(), gameType);
+				final String reported = si.getMetadata().get(METADATA_REPORTED);
+				if (StringUtils.isNumeric(reported)) {
+					reportLoad(fromMetadata(gs, si.getMetadata()), Long.parseLong(reported));
+				}
+				return gs;
+			})
 			.collect(Collectors.toList());
 	}
 
+	/** Describe a game server's load as instance metadata
+	 *
+	 * @param server The server, with the games it's running
+	 * @param reportedAt When the load was measured
+	 * @return The metadata entries to publish
+	 */
+	public static Map<String, String> toMetadata(final GameServer server, final long reportedAt) {
+		final Map<String, String> metadata = new HashMap<>();
+		metadata.put(METADATA_GAMES, server.getActiveGames().stream()
+				.map(ag -> ag.getGameId() + ":" + ag.getPlayers())
+				.collect(Collectors.joining(",")));
+		metadata.put(METADATA_CPU, String.valueOf(server.getCpuLoad()));
+		metadata.put(METADATA_REPORTED, String.valueOf(reportedAt));
+		return metadata;
+	}
+
+	/** Read a game server's load from its instance metadata
+	 *
+	 * @param instance The server as registered
+	 * @param metadata The instance metadata
+	 * @return A new GameServer with the reported games and load
+	 */
+	static GameServer fromMetadata(final GameServer instance, final Map<String, String> metadata) {
+		final GameServer server = new GameServer(instance.getUri(), instance.getGameType());
+		final List<ActiveGame> games = new ArrayList<>();
+		for (String game : StringUtils.split(metadata.getOrDefault(METADATA_GAMES, ""), ',')) {
+			final int sep = game.lastIndexOf(':');
+			final ActiveGame ag = new ActiveGame(sep < 0 ? game : game.substring(0, sep));
+			if (sep > 0 && StringUtils.isNumeric(game.substring(sep + 1))) {
+				ag.setPlayers(Integer.parseInt(game.substring(sep + 1)));
+			}
+			games.add(ag);
+		}
+		server.setActiveGames(games);
+		try {
+			server.setCpuLoad(Double.parseDouble(metadata.getOrDefault(METADATA_CPU, "-1")));
+		} catch (NumberFormatException e) {
+			server.setCpuLoad(-1);
+		}
+		return server;
+	}
 }
@@ -0,0 +1,180 @@
+package com.langleydata.homepoker.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import com.langleydata.homepoker.api.ActiveGame;
+import com.langleydata.homepoker.api.GameServer;
+
+/** The last known load of each game server, and which server each game is on.<p>
+ * Game servers report their load, either pushed (e.g. in their Eureka metadata) or when
+ * queried, and each report is kept until its time-to-live passes. Entries expire on their
+ * own rather than the whole cache being cleared, so only a server that has stopped reporting
+ * needs to be queried again. Lookups don't lock, and the GameServers held are never
+ * changed once stored, so can be read by any thread.
+ *
+ * @author Mike Reynolds
+ *
+ */
+public class GameServerRegistry {
+	private final ConcurrentMap<String, Entry> servers = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Entry> games = new ConcurrentHashMap<>();
+	private final LongSupplier clock;
+	private volatile long ttl;
+
+	/**
+	 * @param ttl How long, in milliseconds, a report is used for
+	 */
+	public GameServerRegistry(final long ttl) {
+		this(ttl, System::currentTimeMillis);
+	}
+
+	GameServerRegistry(final long ttl, final LongSupplier clock) {
+		setTtl(ttl);
+		this.clock = clock;
+	}
+
+	/**
+	 * @param ttl How long, in milliseconds, a report is used for
+	 */
+	public void setTtl(final long ttl) {
+		if (ttl <= 0) {
+			throw new IllegalArgumentException("The TTL must be positive");
+		}
+		this.ttl = ttl;
+	}
+
+	/** Record a game server's load, replacing any previous report from it. The games it
+	 * reports are mapped to it
+	 *
+	 * @param server The server, with the games it's running. This must not be changed afterwards
+	 * @param reportedAt When the server made the report
+	 * @return False if ignored because the current report is the same age or newer
+	 */
+	public boolean report(final GameServer server, final long reportedAt) {
+		final Entry entry = new Entry(server, reportedAt, clock.getAsLong() + ttl);
+		final Entry current = servers.merge(server.getUri(), entry, (old, nu) -> nu.reportedAt > old.reportedAt ? nu : old);
+		if (current != entry) {
+			return false;
+		}
+		server.getActiveGames().forEach(ag -> games.put(ag.getGameId(), entry));
+		return true;
+	}
+
+	/** Record that a game has been placed on a server, adding it to the server's load
+	 * until the server next reports
+	 *
+	 * @param game The game being placed
+	 * @param server The server it's placed on
+	 * @return The server, including the new game
+	 */
+	public GameServer place(final ActiveGame game, final GameServer server) {
+		Entry placed = servers.computeIfPresent(server.getUri(), (uri, old) -> old.withGame(game));
+		if (placed == null) {
+			// The server's full load isn't known, so only map the game to it
+			placed = new Entry(withGame(server, game), 0, clock.getAsLong() + ttl);
+		}
+		games.put(game.getGameId(), placed);
+		return placed.server;
+	}
+
+	/** Record which server a game is on, without changing the server's load
+	 *
+	 * @param gameId
+	 * @param server
+	 */
+	public void route(final String gameId, final GameServer server) {
+		games.put(gameId, new Entry(server, 0, clock.getAsLong() + ttl));
+	}
+
+	/**
+	 * @param uri The server's URI
+	 * @return The server's last report, or null if none or it has expired
+	 */
+	public GameServer getServer(final String uri) {
+		return unexpired(servers, uri);
+	}
+
+	/**
+	 * @param gameId
+	 * @return The server the game is on, or null if not known or the mapping has expired
+	 */
+	public GameServer getByGame(final String gameId) {
+		return unexpired(games, gameId);
+	}
+
+	/**
+	 * @return The servers with a report that hasn't expired
+	 */
+	public List<GameServer> getServers() {
+		final long now = clock.getAsLong();
+		return servers.values().stream()
+				.filter(e -> e.expires > now)
+				.map(e -> e.server)
+				.collect(Collectors.toList());
+	}
+
+	/** Remove any reports and game mappings that have expired
+	 *
+	 * @return The number removed
+	 */
+	public int evictExpired() {
+		final long now = clock.getAsLong();
+		final int before = servers.size() + games.size();
+		servers.values().removeIf(e -> e.expires <= now);
+		games.values().removeIf(e -> e.expires <= now);
+		return Math.max(0, before - servers.size() - games.size());
+	}
+
+	/**
+	 * @return The number of servers and game mappings held, including any expired
+	 */
+	public int size() {
+		return servers.size() + games.size();
+	}
+
+	private GameServer unexpired(final ConcurrentMap<String, Entry> map, final String key) {
+		if (key == null) {
+			return null;
+		}
+		final Entry entry = map.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expires <= clock.getAsLong()) {
+			map.remove(key, entry);
+			return null;
+		}
+		return entry.server;
+	}
+
+	private static GameServer withGame(final GameServer server, final ActiveGame game) {
+		final GameServer copy = new GameServer(server.getUri(), server.getGameType());
+		copy.setServerName(server.getServerName());
+		copy.setCpuLoad(server.getCpuLoad());
+		final List<ActiveGame> running = new ArrayList<>(server.getActiveGames());
+		running.add(game);
+		copy.setActiveGames(running);
+		return copy;
+	}
+
+	private static final class Entry {
+		private final GameServer server;
+		private final long reportedAt;
+		private final long expires;
+
+		private Entry(final GameServer server, final long reportedAt, final long expires) {
+			this.server = server;
+			this.reportedAt = reportedAt;
+			this.expires = expires;
+		}
+
+		private Entry withGame(final ActiveGame game) {
+			return new Entry(GameServerRegistry.withGame(server, game), reportedAt, expires);
+		}
+	}
+}
@@ -5,29 +5,69 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.security.KeyStore;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.net.ssl.SSLContext;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+/** The HTTP clients shared by all outgoing requests, e.g. game server queries and token
+ * refreshes. The clients are built once and kept for the life of the application, so
+ * connections are pooled and kept alive between requests rather than doing a new
+ * TCP and TLS handshake each time.
+ *
+ * @author Mike Reynolds
+ *
+ */
 @Component
 public class HttpClientUtils {
 	protected final Logger logger = LoggerFactory.getLogger(HttpClientUtils.class);
 	private CloseableHttpClient mkClient = null;
-	private HttpClientBuilder clientBuilder = null;
+	private PoolingHttpClientConnectionManager connectionManager = null;
+	private CloseableHttpAsyncClient asyncClient = null;
+	private PoolingNHttpClientConnectionManager asyncConnectionManager = null;
 	
 	
 	// Only used for local testing
@@ -40,6 +80,21 @@ public class HttpClientUtils {
 	@Value("${server.ssl.key-store-password:null}")
 	private String keyStorePwd;
 	
+	@Value("${http-client.max-total:50}")
+	private int maxTotal = 50;
+	@Value("${http-client.max-per-route:10}")
+	private int maxPerRoute = 10;
+	@Value("${http-client.connect-timeout-ms:2000}")
+	private int connectTimeout = 2000;
+	@Value("${http-client.read-timeout-ms:5000}")
+	private int readTimeout = 5000;
+	/** The longest an idle connection is kept open, even if the server allows longer */
+	@Value("${http-client.keep-alive-ms:30000}")
+	private long keepAlive = 30000;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
 	/** Set a client to use - Primarily for testing
 	 * 
 	 * @param client
@@ -48,29 +103,198 @@ public class HttpClientUtils {
 		this.mkClient = client;
 	}
 	
-	/** Get the HttpClientBuilder and cache locally
+	/** Get the shared, pooled HTTP Client, building it with any SSL context on first use.
+	 * The client must not be closed by the caller
 	 * 
 	 * @return
 	 */
-	HttpClientBuilder getBuilder() {
-		if (clientBuilder == null) {
-			clientBuilder = "null".equals(keyStoreLocation) ? HttpClients.custom() : buildClientWithSSL();
+	public synchronized CloseableHttpClient getClient() {
+		if (mkClient == null) {
+			final SSLContext sslContext = "null".equals(keyStoreLocation) ? null : buildSSLContext();
+			final RegistryBuilder<ConnectionSocketFactory> sockets = RegistryBuilder.<ConnectionSocketFactory>create()
+					.register("http", PlainConnectionSocketFactory.getSocketFactory())
+					.register("https", sslContext == null ? SSLConnectionSocketFactory.getSocketFactory()
+							: new SSLConnectionSocketFactory(sslContext, new NoopHostnameVerifier()));
+
+			connectionManager = new PoolingHttpClientConnectionManager(sockets.build());
+			connectionManager.setMaxTotal(maxTotal);
+			connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+			// Check a connection that has been idle is still open before re-using it
+			connectionManager.setValidateAfterInactivity(2000);
+
+			mkClient = HttpClients.custom()
+					.setConnectionManager(connectionManager)
+					.setDefaultRequestConfig(getRequestConfig(connectTimeout, readTimeout))
+					.setKeepAliveStrategy(getKeepAliveStrategy())
+					.evictExpiredConnections()
+					.evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+					.build();
+			registerMetrics("poker.http.pool", connectionManager);
 		}
-		return clientBuilder;
+		return mkClient;
 	}
-
-	/** Get a HTTP Client with loaded SSL context
+	
+	/** Get the shared non-blocking client, starting it on first use. It's kept for
+	 * the life of the application as it holds its own I/O threads and connections
 	 * 
 	 * @return
 	 */
-	public CloseableHttpClient getClient() {
-		if (mkClient == null) {
-			getBuilder();
+	synchronized CloseableHttpAsyncClient getAsyncClient() {
+		if (asyncClient == null) {
+			final SSLContext sslContext = "null".equals(keyStoreLocation) ? null : buildSSLContext();
+			final RegistryBuilder<SchemeIOSessionStrategy> sessions = RegistryBuilder.<SchemeIOSessionStrategy>create()
+					.register("http", NoopIOSessionStrategy.INSTANCE)
+					.register("https", sslContext == null ? SSLIOSessionStrategy.getDefaultStrategy()
+							: new SSLIOSessionStrategy(sslContext, new NoopHostnameVerifier()));
+			try {
+				asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+						new DefaultConnectingIOReactor(IOReactorConfig.custom().setConnectTimeout(connectTimeout).build()),
+						sessions.build());
+			} catch (IOReactorException e) {
+				throw new IllegalStateException("Unable to start the async HTTP client", e);
+			}
+			asyncConnectionManager.setMaxTotal(maxTotal);
+			asyncConnectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+			final HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+					.setConnectionManager(asyncConnectionManager)
+					.setDefaultRequestConfig(getRequestConfig(connectTimeout, readTimeout))
+					.setKeepAliveStrategy(getKeepAliveStrategy());
+			asyncClient = builder.build();
+			asyncClient.start();
+			registerMetrics("poker.http.async.pool", asyncConnectionManager);
 		}
-		if (clientBuilder !=null) {
-			mkClient = clientBuilder.build();
+		return asyncClient;
+	}
+	
+	/**
+	 * @return The connections in the blocking client's pool, or null if it hasn't been used
+	 */
+	public synchronized PoolStats getPoolStats() {
+		return connectionManager == null ? null : connectionManager.getTotalStats();
+	}
+
+	/**
+	 * @return The connections in the non-blocking client's pool, or null if it hasn't been used
+	 */
+	public synchronized PoolStats getAsyncPoolStats() {
+		return asyncConnectionManager == null ? null : asyncConnectionManager.getTotalStats();
+	}
+
+	@PreDestroy
+	public synchronized void close() {
+		try {
+			if (mkClient != null) {
+				mkClient.close();
+			}
+			if (asyncClient != null) {
+				asyncClient.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Closing HTTP clients: {}", e.getMessage());
+		}
+		mkClient = null;
+		connectionManager = null;
+		asyncClient = null;
+		asyncConnectionManager = null;
+	}
+
+	private static RequestConfig getRequestConfig(final int connect, final int read) {
+		return RequestConfig.custom()
+				.setConnectTimeout(connect)
+				.setConnectionRequestTimeout(connect)
+				.setSocketTimeout(read)
+				.build();
+	}
+
+	/** Keep connections alive for as long as the server allows, up to our own limit */
+	private ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+		return (response, context) -> {
+			final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+		};
+	}
+
+	private void registerMetrics(final String name, final ConnPoolControl<?> cm) {
+		if (meterRegistry == null) {
+			return;
+		}
+		meterRegistry.gauge(name + ".leased", cm, c -> c.getTotalStats().getLeased());
+		meterRegistry.gauge(name + ".available", cm, c -> c.getTotalStats().getAvailable());
+		meterRegistry.gauge(name + ".pending", cm, c -> c.getTotalStats().getPending());
+	}
+
+	private void recordRequest(final String name, final String method, final String outcome, final long start) {
+		if (meterRegistry != null) {
+			Timer.builder(name)
+				.tag("method", method)
+				.tag("outcome", outcome)
+				.register(meterRegistry)
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/** Execute a request on the shared client, reading the whole response so the connection
+	 * is returned to the pool
+	 *
+	 * @param request
+	 * @return The response body
+	 * @throws Exception
+	 */
+	private String execute(final HttpUriRequest request) throws Exception {
+		final long start = System.nanoTime();
+		String outcome = "error";
+		try {
+			final String response = getClient().execute(request, resp -> EntityUtils.toString(resp.getEntity(), Charset.defaultCharset()));
+			outcome = "success";
+			return response;
+		} finally {
+			recordRequest("poker.http.requests", request.getMethod(), outcome, start);
 		}
-		return mkClient;
+	}
+	
+	/** Do an HTTP GET for a String response without blocking the caller, e.g. from
+	 * a Gateway filter
+	 * 
+	 * @param uri The GET request URI
+	 * @param timeout The connect and read timeout
+	 * @return The String response, or an IOException error
+	 */
+	public Mono<String> getForStringAsync(final URI uri, final Duration timeout) {
+		return Mono.create(sink -> {
+			logger.trace("Async GET request to {}", uri);
+			final HttpGet request = new HttpGet(uri);
+			final int millis = (int) timeout.toMillis();
+			request.setConfig(getRequestConfig(millis, millis));
+			final long start = System.nanoTime();
+			
+			final Future<HttpResponse> response = getAsyncClient().execute(request, new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse resp) {
+					try {
+						final String body = EntityUtils.toString(resp.getEntity(), Charset.defaultCharset());
+						recordRequest("poker.http.async.requests", "GET", "success", start);
+						sink.success(body);
+					} catch (IOException e) {
+						recordRequest("poker.http.async.requests", "GET", "error", start);
+						sink.error(e);
+					}
+				}
+
+				@Override
+				public void failed(Exception e) {
+					recordRequest("poker.http.async.requests", "GET", "error", start);
+					sink.error(new IOException("Doing GET request", e));
+				}
+
+				@Override
+				public void cancelled() {
+					recordRequest("poker.http.async.requests", "GET", "cancelled", start);
+					sink.success();
+				}
+			});
+			sink.onCancel(() -> response.cancel(true));
+		});
 	}
 	
 	/** Do an HTTP POST for a String response
@@ -81,10 +305,10 @@ public class HttpClientUtils {
 	 */
 	public String postForString(final String uri, HttpPost postRequest) throws IOException {
 		
-		try (CloseableHttpClient client = getClient()) {
+		try {
 			logger.debug("POST request to {}", uri);
 			postRequest.setURI(URI.create(uri));
-			return client.execute(postRequest, resp -> IOUtils.toString(resp.getEntity().getContent(), Charset.defaultCharset()));
+			return execute(postRequest);
 	
 		} catch (Exception e) {
 			throw new IOException("Doing POST request to: " + e.getMessage());
@@ -99,18 +323,19 @@ public class HttpClientUtils {
 	 */
  	public String getForString(final URI uri) throws IOException {
 		
-		try (CloseableHttpClient client = getClient()) {
+		try {
 			logger.trace("GET request to {}", uri);
-			final HttpGet request = new HttpGet(uri);
-			return client.execute(request, resp -> IOUtils.toString(resp.getEntity().getContent(), Charset.defaultCharset()));
+			return execute(new HttpGet(uri));
 		} catch (Exception e) {
 			throw new IOException("Doing GET request", e);
 		}
 	}
-	/**
+	
+	/** Load the SSL context from the keystore
 	 * 
+	 * @return The context, or null if it couldn't be loaded
 	 */
-	private HttpClientBuilder buildClientWithSSL() {
+	private SSLContext buildSSLContext() {
 
 		logger.debug("Loading keystore...");
 		final char[] password = keyStorePwd.toCharArray();
@@ -134,11 +359,8 @@ public class HttpClientUtils {
 			sslContext = SSLContextBuilder.create()
 					.loadKeyMaterial(keyStore, password)
 					.loadTrustMaterial(null, new TrustSelfSignedStrategy()).build();
-			final SSLConnectionSocketFactory sslConSocFactory = new SSLConnectionSocketFactory(sslContext, new NoopHostnameVerifier());
-			final HttpClientBuilder clientbuilder = HttpClients.custom();
-			clientbuilder.setSSLSocketFactory(sslConSocFactory);
 			logger.debug("Successfully loaded SSL context");
-			return clientbuilder;
+			return sslContext;
 			
 		} catch (Exception e) {
 			logger.error("Build SSL Context", e);
@@ -3,14 +3,12 @@ package com.langleydata.homepoker.services;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.when;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.http.client.ClientProtocolException;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -20,6 +18,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.google.gson.Gson;
 import com.langleydata.homepoker.api.ActiveGame;
@@ -28,6 +27,9 @@ import com.langleydata.homepoker.api.GameType;
 import com.langleydata.homepoker.exception.NoKnownServerException;
 import com.langleydata.homepoker.persistence.es.ESGenericSettingsProvider;
 
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
 @RunWith(MockitoJUnitRunner.class)
 public class AbstractServiceDiscoveryTest {
 
@@ -43,30 +45,29 @@ public class AbstractServiceDiscoveryTest {
 	private Gson gson = new Gson();
 	
 	@Before
-	public void setup() throws ClientProtocolException, IOException {
+	public void setup() {
 		MockitoAnnotations.initMocks(this);
-		setHttpClientResp(new GameServer(localUri, GameType.TEXAS_HOLDEM));
 	}
 	
-	private void setHttpClientResp(GameServer gs) throws ClientProtocolException, IOException {
-		when(httpClientUtils.getForString(Mockito.any())).thenReturn(gson.toJson(gs));
+	private void setAsyncResp(GameServer gs) {
+		when(httpClientUtils.getForStringAsync(Mockito.any(), Mockito.any())).thenReturn(Mono.just(gson.toJson(gs)));
 	}
 
 	@Test
-	public void testLeastLoadedLookupWithNoActiveGames() throws ClientProtocolException, IOException {
+	public void testLeastLoadedLookupWithNoActiveGames() {
 
-		setHttpClientResp(new GameServer(localUri, GameType.TEXAS_HOLDEM));
+		setAsyncResp(new GameServer(localUri, GameType.TEXAS_HOLDEM));
 		
-		GameServer ret = underTest.getLeastLoaded(GameType.TEXAS_HOLDEM, true);
+		GameServer ret = underTest.getLeastLoadedAsync(GameType.TEXAS_HOLDEM, true).block();
 		
 		assertEquals(0, ret.getGameCount());
 		assertEquals(localUri, ret.getUri());
 		assertEquals(GameType.TEXAS_HOLDEM, ret.getGameType());
-		Assert.assertNotNull( underTest.knownServers.get(localUri) );// Check cached
+		Assert.assertNotNull( underTest.registry.getServer(localUri) );// Check cached
 	}
 	
 	@Test
-	public void testLeastLoadedLookupGetLeast() throws UnsupportedOperationException, IOException {
+	public void testLeastLoadedLookupGetLeast() {
 		final GameServer sResp1 = new GameServer(localUri, GameType.TEXAS_HOLDEM);
 		sResp1.setActiveGames(List.of(new ActiveGame("test"), new ActiveGame("test2"), new ActiveGame("test3"), new ActiveGame("test4")));
 		final GameServer sResp2 = new GameServer(localUri, GameType.TEXAS_HOLDEM);
@@ -77,14 +78,14 @@ public class AbstractServiceDiscoveryTest {
 		sResp4.setActiveGames(List.of( new ActiveGame("test2")));
 		underTest.setMulti();
 		
-		when(httpClientUtils.getForString(Mockito.any())).thenReturn(
-				gson.toJson(sResp1), 
-				gson.toJson(sResp2),
-				gson.toJson(sResp3),
-				gson.toJson(sResp4)
+		when(httpClientUtils.getForStringAsync(Mockito.any(), Mockito.any())).thenReturn(
+				Mono.just(gson.toJson(sResp1)), 
+				Mono.just(gson.toJson(sResp2)),
+				Mono.just(gson.toJson(sResp3)),
+				Mono.just(gson.toJson(sResp4))
 				);
 		
-		GameServer ret = underTest.getLeastLoaded(GameType.TEXAS_HOLDEM, true);
+		GameServer ret = underTest.getLeastLoadedAsync(GameType.TEXAS_HOLDEM, true).block();
 		
 		assertEquals(1, ret.getGameCount());
 		assertEquals("test2", ret.getActiveGames().get(0).getGameId());
@@ -92,15 +93,15 @@ public class AbstractServiceDiscoveryTest {
 		assertEquals(GameType.TEXAS_HOLDEM, ret.getGameType());
 		
 		// Check the server is cached for subsequent calls
-		Assert.assertNotNull( underTest.knownServers.get("https://localhost:8110") );
+		Assert.assertNotNull( underTest.registry.getServer("https://localhost:8110") );
 	}
 	
 	@Test
-	public void testLeastLoadedLookupFail() throws ClientProtocolException, IOException {
+	public void testLeastLoadedLookupFail() {
 
-		setHttpClientResp(null);
+		setAsyncResp(null);
 		
-		GameServer ret = underTest.getLeastLoaded(GameType.TEXAS_HOLDEM, false);
+		GameServer ret = underTest.getLeastLoadedAsync(GameType.TEXAS_HOLDEM, false).block();
 		
 		assertEquals(Integer.MAX_VALUE, ret.getGameCount());
 		assertEquals("localhost://unknown", ret.getUri().toString());
@@ -108,63 +109,121 @@ public class AbstractServiceDiscoveryTest {
 	}
 	
 	@Test
-	public void testGetAssignedServerWhenItsDead() throws IOException, NoKnownServerException {
-		when(settingsProvider.getSettingsById("test")).thenReturn(document);
-		document.put("assignedServer", "https://serverDied");
-		
-		GameServer ret = underTest.getByGameId("test", GameType.TEXAS_HOLDEM);
-		assertEquals(localUri, ret.getUri());//Not the server that was assigned
-		
-		Mockito.verify(settingsProvider).storeSettings("test", document);// stored as doesn't match original
-	}
-	
-	@Test
-	public void testGetById() throws NoKnownServerException, IOException {
-
+	public void testGetByIdAsync() throws Exception {
 		document.put("gameId", "test");
-		when(settingsProvider.getSettingsById("test")).thenReturn(document);
-		
-		// when
-		GameServer ret = underTest.getByGameId("test", GameType.TEXAS_HOLDEM);
+		when(settingsProvider.getSettingsByIdAsync("test")).thenReturn(Mono.just(document));
+		when(settingsProvider.storeSettingsAsync("test", document)).thenReturn(Mono.just(true));
+		setAsyncResp(new GameServer(localUri, GameType.TEXAS_HOLDEM));
 		
-		assertEquals(1, ret.getGameCount());// the game is added
+		GameServer ret = underTest.getByGameIdAsync("test", GameType.TEXAS_HOLDEM).block();
+		assertEquals(1, ret.getGameCount());
 		assertEquals("test", ret.getActiveGames().get(0).getGameId());
 		assertEquals(localUri, ret.getUri());
-		assertEquals(GameType.TEXAS_HOLDEM, ret.getGameType());
-		
-		// now get again and it should be cached
-		ret = underTest.getByGameId("test", GameType.TEXAS_HOLDEM);
-		
-		assertEquals(1, ret.getGameCount());// the game is added
-		assertEquals("test", ret.getActiveGames().get(0).getGameId());
+		assertEquals(localUri, document.get("assignedServer"));
 		
-		Mockito.verify(settingsProvider).getSettingsById("test");// only called once
-		Mockito.verify(settingsProvider).storeSettings("test", document);// stored as first retrieval
+		// Cached, so no more lookups
+		ret = underTest.getByGameIdAsync("test", GameType.TEXAS_HOLDEM).block();
+		assertEquals(localUri, ret.getUri());
+		Mockito.verify(settingsProvider).getSettingsByIdAsync("test");
+		Mockito.verify(settingsProvider).storeSettingsAsync("test", document);
+		Mockito.verify(httpClientUtils).getForStringAsync(Mockito.any(), Mockito.any());
 	}
 	
 	@Test
-	public void testGetByIdWithServerAssigned() throws NoKnownServerException, IOException {
-
-		when(settingsProvider.getSettingsById("test")).thenReturn(document);
-		document.put("assignedServer", localUri.toString());
-		
-		GameServer ret = underTest.getByGameId("test", GameType.TEXAS_HOLDEM);
+	public void testGetByIdWithServerAssignedAsync() {
+		document.put("assignedServer", localUri);
+		when(settingsProvider.getSettingsByIdAsync("test")).thenReturn(Mono.just(document));
 		
+		GameServer ret = underTest.getByGameIdAsync("test", GameType.TEXAS_HOLDEM).block();
 		assertEquals(1, ret.getGameCount());// the game is added
 		assertEquals("test", ret.getActiveGames().get(0).getGameId());
 		assertEquals(localUri, ret.getUri());
-		assertEquals(GameType.TEXAS_HOLDEM, ret.getGameType());
 		
 		// Test its in the cache
-		ret = underTest.getByGameId("test", GameType.TEXAS_HOLDEM);
-		assertEquals("test", ret.getActiveGames().get(0).getGameId());
+		ret = underTest.getByGameIdAsync("test", GameType.TEXAS_HOLDEM).block();
 		assertEquals(localUri, ret.getUri());
-		assertEquals(GameType.TEXAS_HOLDEM, ret.getGameType());
+		Mockito.verify(settingsProvider).getSettingsByIdAsync("test");// only called once
+		Mockito.verify(settingsProvider, Mockito.never()).storeSettingsAsync("test", document);// not updated
+	}
+	
+	@Test
+	public void testGetAssignedServerWhenItsDeadAsync() {
+		document.put("assignedServer", "https://serverDied");
+		when(settingsProvider.getSettingsByIdAsync("test")).thenReturn(Mono.just(document));
+		when(settingsProvider.storeSettingsAsync("test", document)).thenReturn(Mono.just(true));
+		setAsyncResp(new GameServer(localUri, GameType.TEXAS_HOLDEM));
 		
-		Mockito.verify(settingsProvider).getSettingsById("test");// only called once
-		Mockito.verify(settingsProvider, Mockito.never()).storeSettings("test", document);// not updated
+		GameServer ret = underTest.getByGameIdAsync("test", GameType.TEXAS_HOLDEM).block();
+		assertEquals(localUri, ret.getUri());
+		assertEquals(localUri, document.get("assignedServer"));
+		Mockito.verify(settingsProvider).storeSettingsAsync("test", document);
+	}
+	
+	@Test
+	public void testGetArchivedGameAsync() {
+		document.put("isArchived", true);
+		when(settingsProvider.getSettingsByIdAsync("test")).thenReturn(Mono.just(document));
+		
+		try {
+			underTest.getByGameIdAsync("test", GameType.TEXAS_HOLDEM).block();
+			Assert.fail("Expected no server");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(Exceptions.unwrap(e) instanceof NoKnownServerException);
+		}
+	}
+	
+	@Test
+	public void testLeastLoadedAsyncSkipsSlowServers() {
+		ReflectionTestUtils.setField(underTest, "serverTimeout", 500L);
+		underTest.setMulti();
+		final GameServer busy = new GameServer(localUri, GameType.TEXAS_HOLDEM);
+		busy.setActiveGames(List.of(new ActiveGame("test"), new ActiveGame("test2")));
+		final GameServer quiet = new GameServer(localUri, GameType.TEXAS_HOLDEM);
+		quiet.setActiveGames(List.of(new ActiveGame("test3")));
+		
+		// The first two servers never answer
+		when(httpClientUtils.getForStringAsync(Mockito.any(), Mockito.any())).thenAnswer(inv -> {
+			final String uri = inv.getArgument(0).toString();
+			if (uri.startsWith("https://localhost:8080") || uri.startsWith("https://localhost:8090")) {
+				return Mono.never();
+			}
+			return Mono.just(gson.toJson(uri.startsWith("https://localhost:8100") ? busy : quiet));
+		});
+		
+		final long start = System.currentTimeMillis();
+		final GameServer ret = underTest.getLeastLoadedAsync(GameType.TEXAS_HOLDEM, false).block();
+		// Waited on the servers at the same time, rather than one after the other
+		Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+		assertEquals("https://localhost:8110", ret.getUri());
+		assertEquals(1, ret.getGameCount());
+		Assert.assertNotNull(underTest.registry.getServer("https://localhost:8100"));
+		Assert.assertNull(underTest.registry.getServer("https://localhost:8080"));
 	}
 
+	@Test
+	public void testReportedServersAreNotQueried() {
+		underTest.setMulti();
+		for (String uri : List.of("https://localhost:8080", "https://localhost:8090", "https://localhost:8110")) {
+			final GameServer reported = new GameServer(uri, GameType.TEXAS_HOLDEM);
+			reported.setActiveGames(List.of(new ActiveGame("a" + uri), new ActiveGame("b" + uri)));
+			underTest.reportLoad(reported, System.currentTimeMillis());
+		}
+		final GameServer quiet = new GameServer(localUri, GameType.TEXAS_HOLDEM);
+		quiet.setActiveGames(List.of(new ActiveGame("test3")));
+		setAsyncResp(quiet);
+		
+		GameServer ret = underTest.getLeastLoadedAsync(GameType.TEXAS_HOLDEM, false).block();
+		assertEquals("https://localhost:8100", ret.getUri());
+		assertEquals("https://localhost:8110", underTest.registry.getByGame("ahttps://localhost:8110").getUri());
+		// Only the server without a report is asked
+		Mockito.verify(httpClientUtils).getForStringAsync(Mockito.any(), Mockito.any());
+		
+		// and then not again while its report is current
+		ret = underTest.getLeastLoadedAsync(GameType.TEXAS_HOLDEM, false).block();
+		assertEquals("https://localhost:8100", ret.getUri());
+		Mockito.verify(httpClientUtils).getForStringAsync(Mockito.any(), Mockito.any());
+	}
+	
 	static class MockDiscovery extends AbstractGameServiceDiscovery {
 		boolean doMulti = false;
 		void setMulti() {
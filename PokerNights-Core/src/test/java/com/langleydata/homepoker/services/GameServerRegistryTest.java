@@ -0,0 +1,96 @@
+package com.langleydata.homepoker.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.langleydata.homepoker.api.ActiveGame;
+import com.langleydata.homepoker.api.GameServer;
+import com.langleydata.homepoker.api.GameType;
+
+public class GameServerRegistryTest {
+	private final AtomicLong now = new AtomicLong(1000);
+	private final GameServerRegistry underTest = new GameServerRegistry(100, now::get);
+
+	private static GameServer server(final String uri, final String... gameIds) {
+		final GameServer gs = new GameServer(uri, GameType.TEXAS_HOLDEM);
+		for (String id : gameIds) {
+			gs.addActiveGame(new ActiveGame(id));
+		}
+		return gs;
+	}
+
+	@Test
+	public void testReportsExpireIndividually() {
+		underTest.report(server("http://a", "g1"), 1);
+		now.addAndGet(50);
+		underTest.report(server("http://b", "g2"), 1);
+		assertEquals(2, underTest.getServers().size());
+
+		now.addAndGet(60);
+		assertNull(underTest.getServer("http://a"));
+		assertNull(underTest.getByGame("g1"));
+		assertEquals("http://b", underTest.getServer("http://b").getUri());
+		assertEquals("http://b", underTest.getByGame("g2").getUri());
+		assertEquals(1, underTest.getServers().size());
+
+		now.addAndGet(50);
+		underTest.evictExpired();
+		assertEquals(0, underTest.size());
+	}
+
+	@Test
+	public void testOlderReportIgnored() {
+		assertTrue(underTest.report(server("http://a", "g1", "g2"), 10));
+		assertFalse(underTest.report(server("http://a"), 10));
+		assertFalse(underTest.report(server("http://a"), 5));
+		assertEquals(2, underTest.getServer("http://a").getGameCount());
+
+		assertTrue(underTest.report(server("http://a", "g3"), 11));
+		assertEquals(1, underTest.getServer("http://a").getGameCount());
+		assertEquals("http://a", underTest.getByGame("g3").getUri());
+	}
+
+	@Test
+	public void testPlaceAddsToLoad() {
+		final GameServer reported = server("http://a", "g1");
+		underTest.report(reported, 1);
+
+		final GameServer placed = underTest.place(new ActiveGame("g2"), reported);
+		assertEquals(2, placed.getGameCount());
+		assertEquals(2, underTest.getServer("http://a").getGameCount());
+		assertEquals(1, reported.getGameCount());// The report isn't changed
+		assertEquals("http://a", underTest.getByGame("g2").getUri());
+
+		// Not reported, so only the game is mapped
+		final GameServer unknown = underTest.place(new ActiveGame("g3"), server("http://b"));
+		assertEquals(1, unknown.getGameCount());
+		assertNull(underTest.getServer("http://b"));
+		assertEquals("http://b", underTest.getByGame("g3").getUri());
+	}
+
+	@Test
+	public void testMetadataRoundTrip() {
+		final GameServer gs = server("http://a", "g1", "g2");
+		gs.getActiveGames().get(1).setPlayers(6);
+		gs.setCpuLoad(0.25);
+
+		final Map<String, String> metadata = EurekaServiceDiscovery.toMetadata(gs, 1234);
+		assertEquals("1234", metadata.get(EurekaServiceDiscovery.METADATA_REPORTED));
+
+		final GameServer read = EurekaServiceDiscovery.fromMetadata(server("http://a"), metadata);
+		final List<ActiveGame> games = read.getActiveGames();
+		assertEquals(2, games.size());
+		assertEquals("g2", games.get(1).getGameId());
+		assertEquals(6, games.get(1).getPlayers());
+		assertEquals(0.25, read.getCpuLoad(), 0);
+		assertEquals(0, EurekaServiceDiscovery.fromMetadata(server("http://a"), Map.of()).getGameCount());
+	}
+}
@@ -0,0 +1,110 @@
+package com.langleydata.homepoker.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.client.methods.HttpPost;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class HttpClientUtilsTest {
+	private HttpServer server;
+	private String baseUri;
+	private final Set<Integer> clientPorts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final HttpClientUtils underTest = new HttpClientUtils();
+
+	@Before
+	public void setup() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/info/active", ex -> respond(ex, "{}"));
+		server.createContext("/slow", ex -> {
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(ex, "late");
+		});
+		server.start();
+		baseUri = "http://localhost:" + server.getAddress().getPort();
+
+		ReflectionTestUtils.setField(underTest, "keyStoreLocation", "null");
+		ReflectionTestUtils.setField(underTest, "meterRegistry", registry);
+	}
+
+	@After
+	public void tearDown() {
+		underTest.close();
+		server.stop(0);
+	}
+
+	private void respond(final HttpExchange ex, final String body) throws IOException {
+		// The client's port identifies the connection it used
+		clientPorts.add(ex.getRemoteAddress().getPort());
+		final byte[] bytes = body.getBytes();
+		ex.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = ex.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	@Test
+	public void testConnectionReused() throws IOException {
+		for (int i = 0; i < 5; i++) {
+			assertEquals("{}", underTest.getForString(URI.create(baseUri + "/info/active")));
+		}
+		assertEquals("{}", underTest.postForString(baseUri + "/info/active", new HttpPost()));
+
+		// One connection, returned to the pool after each request
+		assertEquals(1, clientPorts.size());
+		assertEquals(0, underTest.getPoolStats().getLeased());
+		assertEquals(1, underTest.getPoolStats().getAvailable());
+		assertEquals(5, registry.get("poker.http.requests").tag("method", "GET").tag("outcome", "success").timer().count());
+		assertEquals(1, registry.get("poker.http.pool.available").gauge().value(), 0);
+	}
+
+	@Test
+	public void testReadTimeout() {
+		ReflectionTestUtils.setField(underTest, "readTimeout", 200);
+		final long start = System.currentTimeMillis();
+		try {
+			underTest.getForString(URI.create(baseUri + "/slow"));
+			fail("Expected a timeout");
+		} catch (IOException e) {
+			assertTrue(System.currentTimeMillis() - start < 1000);
+		}
+		assertEquals(1, registry.get("poker.http.requests").tag("outcome", "error").timer().count());
+		assertEquals(0, underTest.getPoolStats().getLeased());
+	}
+
+	@Test
+	public void testAsyncConnectionReused() {
+		for (int i = 0; i < 3; i++) {
+			assertEquals("{}", underTest.getForStringAsync(URI.create(baseUri + "/info/active"), Duration.ofSeconds(2)).block());
+		}
+
+		assertEquals(1, clientPorts.size());
+		assertEquals(0, underTest.getAsyncPoolStats().getLeased());
+		assertEquals(1, underTest.getAsyncPoolStats().getAvailable());
+		assertEquals(3, registry.get("poker.http.async.requests").tag("outcome", "success").timer().count());
+		assertEquals(1, registry.get("poker.http.async.pool.available").gauge().value(), 0);
+	}
+}
@@ -15,6 +15,7 @@ import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import com.langleydata.homepoker.gateway.filters.ChangeRequestUriFilter;
 import com.langleydata.homepoker.gateway.filters.DefaultServiceFilter;
 import com.langleydata.homepoker.gateway.filters.GameRouteFilter;
 import com.langleydata.homepoker.services.AbstractGameServiceDiscovery;
@@ -44,13 +45,13 @@ public class PokerNightsGatewayApplication {
 				// Handle game table based urls to the same game server
 				.route("RedirectGames", p ->
 					p.path("/{gameType}/{gameId}")
-					.filters(f -> f.changeRequestUri(gameRoute))
+					.filters(f -> f.filter(gameRoute, ChangeRequestUriFilter.ORDER))
 					.uri("no://op") )
 				
 				// This route handles the root context of the url (to any game server)
 				.route("RootContent", p ->
 					p.path("/**")
-					.filters(f -> f.changeRequestUri(defaultService))
+					.filters(f -> f.filter(defaultService, ChangeRequestUriFilter.ORDER))
 					.uri("no://op") )
 				.build();
 	}
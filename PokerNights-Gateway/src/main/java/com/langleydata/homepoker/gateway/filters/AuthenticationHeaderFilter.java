@@ -1,12 +1,16 @@
 package com.langleydata.homepoker.gateway.filters;
 
-import java.util.concurrent.ExecutionException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
-import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebSession;
@@ -16,36 +20,78 @@ import com.langleydata.homepoker.api.UserAccount;
 import reactor.core.publisher.Mono;
 
 /** Used to add the authenticated user's userId to all inbound requests, which
- * can then be used by the downstream services to authenticate users against the 
- * account service.
- * 
+ * can then be used by the downstream services to authenticate users against the
+ * account service.<p>
+ * Static content and the websocket transport don't use the userId, so don't need
+ * the session. Any userId header sent by the client is always removed.
+ *
  * @author Mike Reynolds
  *
  */
 @Component
 public class AuthenticationHeaderFilter implements GlobalFilter {
 	static final String gatewayUrl = "https://localhost:8090";
+	/** Requests under these paths don't need the user's identity */
+	static final List<String> ANONYMOUS_PATHS = Collections.unmodifiableList(Arrays.asList(
+			"/home-poker-websocket/",
+			"/js/",
+			"/css/",
+			"/images/",
+			"/audio/",
+			"/webjars/",
+			"/favicon.ico"
+	));
     final Logger logger = LoggerFactory.getLogger(AuthenticationHeaderFilter.class);
-    
+
 	@Override
 	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-		
-		String authName = null;
-		try {
-			WebSession ws = exchange.getSession().toFuture().get();
-			SecurityContextImpl context = ws.getAttribute("SPRING_SECURITY_CONTEXT");
-			logger.trace("Got Spring context={}", context!=null);
-			if (context!=null) {
-				authName = context.getAuthentication().getName();
+
+		if (needsIdentity(exchange.getRequest().getPath().pathWithinApplication().value()) == false) {
+			return chain.filter(withUser(exchange, null));
+		}
+
+		return exchange.getSession()
+				.map(ws -> Optional.ofNullable(getUserName(ws)))
+				.defaultIfEmpty(Optional.empty())
+				.flatMap(authName -> chain.filter(withUser(exchange, authName.orElse(null))));
+	}
+
+	/**
+	 * @param path The request path
+	 * @return False if the downstream service won't use the user's identity
+	 */
+	static boolean needsIdentity(final String path) {
+		for (String anon : ANONYMOUS_PATHS) {
+			if (path.startsWith(anon)) {
+				return false;
 			}
-		} catch (InterruptedException | ExecutionException e) {
-			e.printStackTrace();
 		}
-		exchange.getRequest().mutate()
-			.header(UserAccount.AUTH_USER_HEADER, authName)
-			.header("gatewayUrl", gatewayUrl);// Is this actually used?
-		
-		return chain.filter(exchange);
+		return true;
 	}
 
+	/** Get the authenticated user's name
+	 *
+	 * @param ws
+	 * @return The user's name, or null if not logged in
+	 */
+	String getUserName(final WebSession ws) {
+		final SecurityContext context = ws.getAttribute(WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME);
+		logger.trace("Got Spring context={}", context!=null);
+		if (context == null || context.getAuthentication() == null) {
+			return null;
+		}
+		return context.getAuthentication().getName();
+	}
+
+	private static ServerWebExchange withUser(final ServerWebExchange exchange, final String authName) {
+		return exchange.mutate()
+				.request(r -> r.headers(headers -> {
+					headers.remove(UserAccount.AUTH_USER_HEADER);
+					if (authName != null) {
+						headers.set(UserAccount.AUTH_USER_HEADER, authName);
+					}
+					headers.set("gatewayUrl", gatewayUrl);// Is this actually used?
+				}))
+				.build();
+	}
 }
@@ -0,0 +1,38 @@
+package com.langleydata.homepoker.gateway.filters;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import java.net.URI;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/** A non-blocking version of the Gateway's 'ChangeRequestUri' filter. The URI to forward to
+ * is resolved asynchronously, so the Netty event loop is never held up waiting on a lookup.
+ * <p>Must be added to a route with an order of {@link #ORDER}, so it runs after the route's
+ * own URI has been set
+ * 
+ * @author Mike Reynolds
+ *
+ */
+public abstract class ChangeRequestUriFilter implements GatewayFilter {
+	public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+
+	/** Resolve the URI to forward the request to
+	 * 
+	 * @param exchange
+	 * @return The URI, or empty to leave the request unchanged
+	 */
+	abstract Mono<URI> resolve(ServerWebExchange exchange);
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		return resolve(exchange)
+				.doOnNext(uri -> exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, uri))
+				.then(Mono.defer(() -> chain.filter(exchange)));
+	}
+}
@@ -1,8 +1,6 @@
 package com.langleydata.homepoker.gateway.filters;
 
 import java.net.URI;
-import java.util.Optional;
-import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,10 +9,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import com.langleydata.homepoker.api.GameServer;
 import com.langleydata.homepoker.api.GameType;
 import com.langleydata.homepoker.services.AbstractGameServiceDiscovery;
 
+import reactor.core.publisher.Mono;
+
 /** This is a default server filter that catches all requests that aren't for a specific game
  * table and forwards them to any** service that can process them.
  * 
@@ -26,7 +25,7 @@ import com.langleydata.homepoker.services.AbstractGameServiceDiscovery;
  *
  */
 @Component
-public class DefaultServiceFilter implements Function<ServerWebExchange, Optional<URI>> {
+public class DefaultServiceFilter extends ChangeRequestUriFilter {
 
     final Logger logger = LoggerFactory.getLogger(GameRouteFilter.class);
 	
@@ -34,22 +33,14 @@ public class DefaultServiceFilter implements Function<ServerWebExchange, Optiona
 	private AbstractGameServiceDiscovery serviceDiscovery;
 	
 	@Override
-	public Optional<URI> apply(ServerWebExchange exchange) {
+	Mono<URI> resolve(ServerWebExchange exchange) {
 		//TODO Capture the requested game type and then lookup just for that
-		final GameServer server = serviceDiscovery.getLeastLoaded(GameType.TEXAS_HOLDEM, true);
-		
-		// not working as should only redirect the page being looked for, not all other assets
-//		if (server.getUri().endsWith("unknown")) {
-//			// didn't find a server, so show error page
-//			return Optional.of(URI.create(exchange.getRequest().getURI().toString() + "/noserver"));
-//		}
-//		
-		final URI forwardTo = UriComponentsBuilder.fromUriString(server.getUri())
-			.path(exchange.getRequest().getPath().toString())
-			.queryParams(exchange.getRequest().getQueryParams())
-			.build()
-			.toUri();
-		return server==null ? Optional.empty() : Optional.of(forwardTo);
+		return serviceDiscovery.getLeastLoadedAsync(GameType.TEXAS_HOLDEM, true)
+			.map(server -> UriComponentsBuilder.fromUriString(server.getUri())
+				.path(exchange.getRequest().getPath().toString())
+				.queryParams(exchange.getRequest().getQueryParams())
+				.build()
+				.toUri());
 	}
 
 }
@@ -2,8 +2,6 @@ package com.langleydata.homepoker.gateway.filters;
 
 import java.net.URI;
 import java.util.Map;
-import java.util.Optional;
-import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,11 +11,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import com.langleydata.homepoker.api.GameServer;
 import com.langleydata.homepoker.api.GameType;
 import com.langleydata.homepoker.exception.NoKnownServerException;
 import com.langleydata.homepoker.services.AbstractGameServiceDiscovery;
 
+import reactor.core.publisher.Mono;
+
 /** The filter is invoked when there are two parts to the uri path. These parts
  * are used to lookup a game server for the game type that has been requested.
  * <p>If the path parts do not equate to a game and gameId then the root url of
@@ -27,7 +26,7 @@ import com.langleydata.homepoker.services.AbstractGameServiceDiscovery;
  *
  */
 @Component
-public class GameRouteFilter implements Function<ServerWebExchange, Optional<URI>> {
+public class GameRouteFilter extends ChangeRequestUriFilter {
 
     final Logger logger = LoggerFactory.getLogger(GameRouteFilter.class);
 	
@@ -37,29 +36,21 @@ public class GameRouteFilter implements Function<ServerWebExchange, Optional<URI
 	private DefaultServiceFilter defaultSerivceFilter;
 
 	@Override
-	public Optional<URI> apply(ServerWebExchange exchange) {
+	Mono<URI> resolve(ServerWebExchange exchange) {
 		
 		Map<String, String> uriVariables = ServerWebExchangeUtils.getUriTemplateVariables(exchange);
-		URI forwardTo = null;
 
 		final String sGameType = uriVariables.get("gameType");
 		final String gameId = uriVariables.get("gameId");
 		final GameType gameType = GameType.fromPathPart(sGameType);
-		GameServer server = null;
-		
-		try {
-			
-			server = serviceDiscovery.getByGameId(gameId, gameType);
-			forwardTo  = UriComponentsBuilder.fromUriString(server.getUri()).pathSegment(sGameType, gameId).build().toUri();
-			logger.debug("Directing to service: {}", forwardTo.toString());
-
-		} catch (NoKnownServerException e) {
-			
-			return defaultSerivceFilter.apply(exchange);
-
-		}
 		
-		return forwardTo !=null ? Optional.of(forwardTo) : Optional.empty();
+		return serviceDiscovery.getByGameIdAsync(gameId, gameType)
+			.map(server -> {
+				final URI forwardTo = UriComponentsBuilder.fromUriString(server.getUri()).pathSegment(sGameType, gameId).build().toUri();
+				logger.debug("Directing to service: {}", forwardTo);
+				return forwardTo;
+			})
+			.onErrorResume(NoKnownServerException.class, e -> defaultSerivceFilter.resolve(exchange));
 	}
 
 
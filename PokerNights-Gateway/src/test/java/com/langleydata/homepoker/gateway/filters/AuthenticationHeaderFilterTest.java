@@ -0,0 +1,94 @@
+package com.langleydata.homepoker.gateway.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+
+import com.langleydata.homepoker.api.UserAccount;
+
+import reactor.core.publisher.Mono;
+
+public class AuthenticationHeaderFilterTest {
+	private final AuthenticationHeaderFilter underTest = new AuthenticationHeaderFilter();
+	private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+	private WebSession loggedIn(final String user) {
+		final WebSession ws = new InMemoryWebSessionStore().createWebSession().block();
+		ws.getAttributes().put(WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME,
+				new SecurityContextImpl(new TestingAuthenticationToken(user, null)));
+		return ws;
+	}
+
+	private String filter(final String path, final WebSession ws) {
+		final AtomicInteger sessionLookups = new AtomicInteger();
+		final MockServerWebExchange exchange = MockServerWebExchange.builder(
+				MockServerHttpRequest.get(path).header(UserAccount.AUTH_USER_HEADER, "spoofed"))
+				.session(ws).build();
+		underTest.filter(new CountingExchange(exchange, sessionLookups), ex -> {
+			forwarded.set(ex);
+			return Mono.empty();
+		}).block();
+		if (AuthenticationHeaderFilter.needsIdentity(path) == false) {
+			assertEquals(0, sessionLookups.get());
+		}
+		return forwarded.get().getRequest().getHeaders().getFirst(UserAccount.AUTH_USER_HEADER);
+	}
+
+	@Test
+	public void testUserAdded() {
+		final WebSession ws = loggedIn("mike");
+		assertEquals("mike", filter("/admin", ws));
+		assertEquals("mike", filter("/texas/abc", ws));
+
+		// A new login replaces the name
+		ws.getAttributes().put(WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME,
+				new SecurityContextImpl(new TestingAuthenticationToken("other", null)));
+		assertEquals("other", filter("/admin", ws));
+	}
+
+	@Test
+	public void testSpoofedHeaderRemoved() {
+		assertNull(filter("/admin", new InMemoryWebSessionStore().createWebSession().block()));
+	}
+
+	@Test
+	public void testStaticContentSkipsSession() {
+		assertFalse(AuthenticationHeaderFilter.needsIdentity("/home-poker-websocket/123/abc/xhr_streaming"));
+		assertFalse(AuthenticationHeaderFilter.needsIdentity("/js/session.js"));
+		assertTrue(AuthenticationHeaderFilter.needsIdentity("/schedule-game"));
+
+		assertNull(filter("/js/session.js", loggedIn("mike")));
+		assertEquals("https://localhost:8090", forwarded.get().getRequest().getHeaders().getFirst("gatewayUrl"));
+	}
+
+	/** Counts the session lookups */
+	private static class CountingExchange extends ServerWebExchangeDecorator {
+		private final AtomicInteger lookups;
+
+		CountingExchange(final ServerWebExchange delegate, final AtomicInteger lookups) {
+			super(delegate);
+			this.lookups = lookups;
+		}
+
+		@Override
+		public Mono<WebSession> getSession() {
+			lookups.incrementAndGet();
+			return super.getSession();
+		}
+	}
+}